@@ -0,0 +1,335 @@
+package com.github.starter.dbmonitor.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * 线程安全的本地缓存，支持 TTL 过期、LRU 淘汰和提前刷新
+ * 缓存项存在超过 refreshAfter 后被访问时在后台刷新；超过 TTL 但未超过 maxStale 时返回旧值并在后台刷新，
+ * 更旧的缓存项和未命中时同步加载。同一键同时只有一次加载，并发的调用方等待同一次加载的结果
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+@Slf4j
+public class RefreshAheadCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final long refreshAfterMillis;
+    private final long maxStaleMillis;
+    private final Function<K, V> loader;
+    private final Executor refreshExecutor;
+    private final LongSupplier clock;
+
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private final Set<K> refreshing = ConcurrentHashMap.newKeySet();
+    private final Map<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong staleHitCount = new AtomicLong();
+    private final AtomicLong loadSuccessCount = new AtomicLong();
+    private final AtomicLong loadFailureCount = new AtomicLong();
+    private final AtomicLong totalLoadNanos = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * @param name               缓存名称（用于日志和指标）
+     * @param maxSize            最大缓存项数量
+     * @param ttlMillis          过期时间（毫秒）
+     * @param refreshAfterMillis 提前刷新时间（毫秒），0 或不小于 TTL 时不提前刷新
+     * @param loader             加载函数，返回 null 时不缓存
+     * @param refreshExecutor    后台刷新线程池
+     */
+    public RefreshAheadCache(String name, int maxSize, long ttlMillis, long refreshAfterMillis,
+                             Function<K, V> loader, Executor refreshExecutor) {
+        this(name, maxSize, ttlMillis, refreshAfterMillis, 0L, loader, refreshExecutor, System::currentTimeMillis);
+    }
+
+    /**
+     * @param maxStaleMillis 过期后仍返回旧值并在后台刷新的最长时间（毫秒），0 表示过期后同步加载
+     */
+    public RefreshAheadCache(String name, int maxSize, long ttlMillis, long refreshAfterMillis, long maxStaleMillis,
+                             Function<K, V> loader, Executor refreshExecutor) {
+        this(name, maxSize, ttlMillis, refreshAfterMillis, maxStaleMillis, loader, refreshExecutor,
+                System::currentTimeMillis);
+    }
+
+    RefreshAheadCache(String name, int maxSize, long ttlMillis, long refreshAfterMillis, long maxStaleMillis,
+                      Function<K, V> loader, Executor refreshExecutor, LongSupplier clock) {
+        this.name = name;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMillis = ttlMillis;
+        this.refreshAfterMillis = refreshAfterMillis > 0 && refreshAfterMillis < ttlMillis ? refreshAfterMillis : 0L;
+        this.maxStaleMillis = Math.max(0L, maxStaleMillis);
+        this.loader = loader;
+        this.refreshExecutor = refreshExecutor;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > RefreshAheadCache.this.maxSize) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 获取缓存值，未命中或超过最大陈旧时间时加载
+     */
+    public V get(K key) {
+        Entry<V> entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+
+        if (entry != null) {
+            long age = clock.getAsLong() - entry.loadedMillis;
+            if (age < ttlMillis) {
+                hitCount.incrementAndGet();
+                if (refreshAfterMillis > 0 && age >= refreshAfterMillis) {
+                    scheduleRefresh(key);
+                }
+                return entry.value;
+            }
+            // 已过期但未超过最大陈旧时间，或后台刷新正在进行，返回旧值并在后台刷新
+            if (age < ttlMillis + maxStaleMillis || refreshing.contains(key)) {
+                staleHitCount.incrementAndGet();
+                scheduleRefresh(key);
+                return entry.value;
+            }
+        }
+
+        missCount.incrementAndGet();
+        try {
+            return loadOnce(key);
+        } catch (RuntimeException e) {
+            if (entry == null) {
+                throw e;
+            }
+            // 重新加载失败时返回旧值
+            log.debug("缓存 {} 重新加载 {} 失败，返回旧值: {}", name, key, e.getMessage());
+            return entry.value;
+        }
+    }
+
+    /**
+     * 仅查询缓存，不触发加载
+     */
+    public V getIfPresent(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            return entry != null && clock.getAsLong() - entry.loadedMillis < ttlMillis ? entry.value : null;
+        }
+    }
+
+    /**
+     * 写入缓存值
+     */
+    public void put(K key, V value) {
+        if (value == null) {
+            invalidate(key);
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, clock.getAsLong()));
+        }
+    }
+
+    /**
+     * 移除缓存项
+     */
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * 当前缓存项数量
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 获取缓存统计信息
+     */
+    public CacheStats getStats() {
+        return new CacheStats(hitCount.get(), missCount.get(), staleHitCount.get(), loadSuccessCount.get(),
+                loadFailureCount.get(), totalLoadNanos.get(), evictionCount.get(), size());
+    }
+
+    /**
+     * 加载缓存值，同一键已有加载进行中时等待该次加载的结果
+     */
+    private V loadOnce(K key) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = loading.putIfAbsent(key, future);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        try {
+            V value = load(key);
+            future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    private V load(K key) {
+        long start = System.nanoTime();
+        try {
+            V value = loader.apply(key);
+            loadSuccessCount.incrementAndGet();
+            put(key, value);
+            return value;
+        } catch (RuntimeException e) {
+            loadFailureCount.incrementAndGet();
+            throw e;
+        } finally {
+            totalLoadNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    private void scheduleRefresh(K key) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    loadOnce(key);
+                } catch (Exception e) {
+                    // 刷新失败时保留旧值，超过最大陈旧时间后由下次访问同步加载
+                    log.debug("缓存 {} 后台刷新 {} 失败: {}", name, key, e.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long loadedMillis;
+
+        private Entry(V value, long loadedMillis) {
+            this.value = value;
+            this.loadedMillis = loadedMillis;
+        }
+    }
+
+    /**
+     * 缓存统计信息
+     */
+    public static class CacheStats {
+        private final long hitCount;
+        private final long missCount;
+        private final long staleHitCount;
+        private final long loadSuccessCount;
+        private final long loadFailureCount;
+        private final long totalLoadNanos;
+        private final long evictionCount;
+        private final int size;
+
+        public CacheStats(long hitCount, long missCount, long staleHitCount, long loadSuccessCount,
+                          long loadFailureCount, long totalLoadNanos, long evictionCount, int size) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.staleHitCount = staleHitCount;
+            this.loadSuccessCount = loadSuccessCount;
+            this.loadFailureCount = loadFailureCount;
+            this.totalLoadNanos = totalLoadNanos;
+            this.evictionCount = evictionCount;
+            this.size = size;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        /**
+         * 已过期但未超过最大陈旧时间或后台刷新进行中而返回旧值的次数
+         */
+        public long getStaleHitCount() {
+            return staleHitCount;
+        }
+
+        public long getLoadSuccessCount() {
+            return loadSuccessCount;
+        }
+
+        public long getLoadFailureCount() {
+            return loadFailureCount;
+        }
+
+        public long getTotalLoadNanos() {
+            return totalLoadNanos;
+        }
+
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * 命中率（含返回旧值的情况）
+         */
+        public double getHitRate() {
+            long requests = hitCount + staleHitCount + missCount;
+            return requests > 0 ? (double) (hitCount + staleHitCount) / requests : 0.0;
+        }
+    }
+}
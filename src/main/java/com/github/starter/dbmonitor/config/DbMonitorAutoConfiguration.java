@@ -2,6 +2,7 @@ package com.github.starter.dbmonitor.config;
 
 import com.github.starter.dbmonitor.job.DbMonitorJobHandler;
 import com.github.starter.dbmonitor.repository.JdbcMonitorConfigRepository;
+import com.github.starter.dbmonitor.service.BackfillService;
 import com.github.starter.dbmonitor.service.DbMonitorService;
 import com.github.starter.dbmonitor.service.DbMonitorMetricsService;
 import com.github.starter.dbmonitor.service.DataSourceService;
@@ -40,6 +41,9 @@ public class DbMonitorAutoConfiguration {
     
     @Autowired
     private DbMonitorService dbMonitorService;
+
+    @Autowired
+    private BackfillService backfillService;
     
     private XxlJobExecutor xxlJobExecutor;
     
@@ -104,6 +108,10 @@ public class DbMonitorAutoConfiguration {
     @Scheduled(cron = "${db.monitor.xxl-job.cron:0 */10 * * * ?}")
     @ConditionalOnProperty(prefix = "db.monitor.xxl-job", name = "enabled", havingValue = "false", matchIfMissing = true)
     public void scheduledMonitorTask() {
+        if (dbMonitorProperties.getDueScheduler().isEnabled()) {
+            // 启用到期调度时由 DueDispatchService 按到期时间触发
+            return;
+        }
         log.info("执行定时数据库监控任务");
         try {
             dbMonitorService.executeMonitoring();
@@ -112,6 +120,18 @@ public class DbMonitorAutoConfiguration {
         }
     }
     
+    /**
+     * 定时任务 - 历史数据回填，抢占待执行或执行节点宕机后超时的回填任务，在独立线程中执行
+     */
+    @Scheduled(fixedDelayString = "#{${db.monitor.backfill.poll-interval-seconds:30} * 1000}")
+    public void scheduledBackfillDispatch() {
+        try {
+            backfillService.dispatch();
+        } catch (Exception e) {
+            log.error("历史数据回填任务调度失败: {}", e.getMessage(), e);
+        }
+    }
+
     /**
      * 定时任务 - 数据清理
      */
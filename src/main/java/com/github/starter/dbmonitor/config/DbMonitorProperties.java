@@ -3,7 +3,9 @@ package com.github.starter.dbmonitor.config;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 数据库监控配置属性
@@ -59,6 +61,66 @@ public class DbMonitorProperties {
      * 指标暴露配置
      */
     private Metrics metrics = new Metrics();
+
+    /**
+     * 增长率预测配置
+     */
+    private Forecast forecast = new Forecast();
+
+    /**
+     * 异常检测配置
+     */
+    private Anomaly anomaly = new Anomaly();
+
+    /**
+     * 统计数据实时推送（SSE）配置
+     */
+    private Stream stream = new Stream();
+
+    /**
+     * 磁盘空间估算配置
+     */
+    private DiskEstimation diskEstimation = new DiskEstimation();
+
+    /**
+     * 表结构元数据缓存配置
+     */
+    private SchemaCache schemaCache = new SchemaCache();
+
+    /**
+     * 到期调度配置
+     */
+    private DueScheduler dueScheduler = new DueScheduler();
+
+    /**
+     * 积压追赶配置
+     */
+    private CatchUp catchUp = new CatchUp();
+
+    /**
+     * 历史数据回填配置
+     */
+    private Backfill backfill = new Backfill();
+
+    /**
+     * 只读副本路由配置
+     */
+    private ReadReplica readReplica = new ReadReplica();
+
+    /**
+     * 监控查询专用连接池配置
+     */
+    private IsolatedPool isolatedPool = new IsolatedPool();
+
+    /**
+     * 监控查询超时配置
+     */
+    private QueryTimeout queryTimeout = new QueryTimeout();
+
+    /**
+     * 负载感知限流配置
+     */
+    private LoadGovernor loadGovernor = new LoadGovernor();
     
     @Data
     public static class TimeInterval {
@@ -142,6 +204,11 @@ public class DbMonitorProperties {
          * 数据保留天数
          */
         private int retentionDays = 30;
+
+        /**
+         * 每个事务提交的时间段数，每批统计记录与最后统计时间一起提交
+         */
+        private int commitBatchSegments = 12;
     }
     
     @Data
@@ -165,6 +232,34 @@ public class DbMonitorProperties {
          * 端点暴露配置
          */
         private Endpoints endpoints = new Endpoints();
+
+        /**
+         * 指标和统计接口响应缓存配置
+         */
+        private ResponseCache responseCache = new ResponseCache();
+    }
+
+    @Data
+    public static class ResponseCache {
+        /**
+         * 是否按统计数据版本缓存指标和统计接口的响应
+         */
+        private boolean enabled = true;
+
+        /**
+         * 响应体超过该大小（字节）且客户端支持时进行 gzip 压缩
+         */
+        private int gzipMinSizeBytes = 2048;
+
+        /**
+         * 探测统计表最新记录（感知其他节点写入）的最小间隔（毫秒）
+         */
+        private long versionProbeIntervalMillis = 5000;
+
+        /**
+         * 缓存响应的最长有效时间（秒），超过后即使版本未变也重新生成
+         */
+        private long maxAgeSeconds = 60;
     }
 
     @Data
@@ -217,6 +312,434 @@ public class DbMonitorProperties {
          * 如果不指定，则使用 configDataSourceName 或 dataSourceName
          */
         private String dataSourceName;
+
+        /**
+         * 批量导入时每个事务写入的配置数量
+         */
+        private int importBatchSize = 500;
+
+        /**
+         * 单次批量导入允许的最大配置数量
+         */
+        private int importMaxSize = 10000;
+
+        /**
+         * 是否在内存中缓存启用的配置，每次执行只查询配置版本号
+         */
+        private boolean enabledCache = true;
+
+        /**
+         * 启用配置缓存的最长有效时间（秒），用于兜底绕过接口直接修改配置表的情况
+         */
+        private int enabledCacheMaxAgeSeconds = 600;
+    }
+
+    @Data
+    public static class Forecast {
+        /**
+         * 是否启用增长率预测
+         */
+        private boolean enabled = true;
+
+        /**
+         * 增长率 EWMA 平滑系数（0-1，越大越看重最新窗口）
+         */
+        private double ewmaAlpha = 0.3;
+
+        /**
+         * Holt 线性趋势模型的水平平滑系数
+         */
+        private double levelAlpha = 0.5;
+
+        /**
+         * Holt 线性趋势模型的趋势平滑系数
+         */
+        private double trendBeta = 0.1;
+
+        /**
+         * 单表磁盘空间阈值（字节），用于计算距离阈值的天数，0 表示不计算
+         */
+        private long diskThresholdBytes = 0L;
+    }
+
+    @Data
+    public static class Anomaly {
+        /**
+         * 是否启用异常检测（可通过监控配置的 extendConfig 中的 anomaly 节点按表覆盖）
+         */
+        private boolean enabled = true;
+
+        /**
+         * 判定为异常的 z-score 阈值
+         */
+        private double scoreThreshold = 3.0;
+
+        /**
+         * 开始检测前至少需要的样本数
+         */
+        private int minSamples = 12;
+
+        /**
+         * 使用按周小时季节基线前，该小时桶至少需要的样本数
+         */
+        private int minSeasonalSamples = 4;
+
+        /**
+         * 判定降为零（DROP_TO_ZERO）时按基线速率该窗口至少应写入的行数，低于该值的稀疏表只在 z-score 超过阈值时判定
+         */
+        private double dropToZeroMinExpectedRows = 10;
+
+        /**
+         * 滚动均值和方差的有效样本上限，超过后旧样本的权重按指数衰减
+         */
+        private int maxSamples = 1000;
+
+        /**
+         * 内存中保留的异常事件数量上限
+         */
+        private int maxEvents = 500;
+    }
+
+    @Data
+    public static class Stream {
+        /**
+         * 是否启用实时推送
+         */
+        private boolean enabled = true;
+
+        /**
+         * 最大订阅者数量
+         */
+        private int maxSubscribers = 100;
+
+        /**
+         * 每个订阅者的待发送队列容量，队列满时该订阅者被断开
+         */
+        private int queueCapacity = 256;
+
+        /**
+         * 连接超时时间（毫秒），0 表示不超时
+         */
+        private long timeoutMillis = 30 * 60 * 1000L;
+
+        /**
+         * 心跳间隔（秒），用于及时发现已断开的连接
+         */
+        private int heartbeatIntervalSeconds = 15;
+
+        /**
+         * 常驻发送线程数，发送阻塞时按需增加线程，最多与订阅者数量相同，阻塞的订阅者不会占满发送线程
+         */
+        private int senderThreads = 2;
+
+        /**
+         * 单次发送阻塞超过该时间（毫秒）的订阅者被断开，0 表示不检查
+         */
+        private long sendTimeoutMillis = 30000L;
+    }
+
+    @Data
+    public static class DiskEstimation {
+        /**
+         * 表平均行大小缓存配置
+         */
+        private RowSizeCache rowSizeCache = new RowSizeCache();
+
+        /**
+         * 基于抽样的实际行大小测量配置
+         */
+        private Sampling sampling = new Sampling();
+    }
+
+    @Data
+    public static class Sampling {
+        /**
+         * 是否启用抽样测量（默认关闭，开启后会对业务表执行有限的抽样查询）
+         */
+        private boolean enabled = false;
+
+        /**
+         * 每次抽样的最大行数（按时间字段倒序取时间窗口内最近的行）
+         */
+        private int sampleRows = 1000;
+
+        /**
+         * 抽样查询超时时间（秒），超时后放弃本次抽样
+         */
+        private int queryTimeoutSeconds = 2;
+
+        /**
+         * 抽样结果缓存时间（分钟）
+         */
+        private long ttlMinutes = 60;
+
+        /**
+         * 抽样结果与数据库目录统计融合时抽样结果的权重（0-1）
+         */
+        private double sampleWeight = 0.7;
+
+        /**
+         * 最大缓存表数量
+         */
+        private int maxSize = 1000;
+    }
+
+    @Data
+    public static class RowSizeCache {
+        /**
+         * 缓存过期时间（分钟）
+         */
+        private long ttlMinutes = 30;
+
+        /**
+         * 缓存项存在超过该时间（分钟）后被访问时，在后台提前刷新，0 表示不提前刷新
+         */
+        private long refreshAfterMinutes = 25;
+
+        /**
+         * 缓存项过期后仍可返回旧值的最长时间（分钟），期间访问时返回旧值并在后台刷新，超过后同步加载
+         */
+        private long maxStaleMinutes = 10;
+
+        /**
+         * 最大缓存表数量，超过后按最近最少使用淘汰
+         */
+        private int maxSize = 1000;
+    }
+
+    @Data
+    public static class SchemaCache {
+        /**
+         * 缓存过期时间（分钟），变更探测失效之外的兜底
+         */
+        private long ttlMinutes = 30;
+
+        /**
+         * 变更探测间隔（秒），每个数据源在该间隔内最多执行一次版本探测查询
+         */
+        private long probeIntervalSeconds = 60;
+
+        /**
+         * 最大缓存表数量，超过后按最近最少使用淘汰
+         */
+        private int maxSize = 2000;
+    }
+
+    @Data
+    public static class DueScheduler {
+        /**
+         * 是否启用到期调度：按每个配置的下次到期时间只执行到期的配置，且只统计完整的统计间隔
+         */
+        private boolean enabled = false;
+
+        /**
+         * 内置到期调度的最长休眠时间（秒），未启用 XXL-Job 时按最早到期时间唤醒，最迟每隔该时间检查一次新增或修改的配置
+         */
+        private int dispatchIntervalSeconds = 60;
+    }
+
+    @Data
+    public static class CatchUp {
+        /**
+         * 是否启用追赶模式：积压的时间段过多时按窗口分桶扫描，一次查询统计多个时间段
+         */
+        private boolean enabled = true;
+
+        /**
+         * 积压时间段数超过该值时进入追赶模式，追赶完成后恢复逐段查询
+         */
+        private int backlogThreshold = 12;
+
+        /**
+         * 追赶模式下每次分桶扫描覆盖的时间段数
+         */
+        private int segmentsPerScan = 12;
+
+        /**
+         * 追赶模式下每个数据源每秒最多执行的扫描查询数，小于等于 0 时不限制
+         */
+        private double maxQueriesPerSecond = 2.0;
+    }
+
+    @Data
+    public static class Backfill {
+        /**
+         * 是否启用历史数据回填任务的后台执行
+         */
+        private boolean enabled = true;
+
+        /**
+         * 同时执行的回填任务数，回填在独立线程中执行，不占用常规监控的调度
+         */
+        private int concurrency = 1;
+
+        /**
+         * 每批回填的时间段数，每批执行一次分桶扫描并推进一次检查点
+         */
+        private int chunkSegments = 144;
+
+        /**
+         * 每批回填之间的暂停时间（毫秒），用于限制回填对业务库的压力
+         */
+        private long chunkPauseMillis = 1000;
+
+        /**
+         * 单个回填任务最多回填的天数
+         */
+        private int maxDays = 400;
+
+        /**
+         * 执行中的回填任务超过该时间（秒）未推进检查点时视为执行节点宕机，可被其他节点接管
+         */
+        private int staleSeconds = 300;
+
+        /**
+         * 检查待执行回填任务的间隔（秒）
+         */
+        private int pollIntervalSeconds = 30;
+    }
+
+    @Data
+    public static class ReadReplica {
+        /**
+         * 目标数据源名称 -> 只读副本数据源 Bean 名称列表（按优先级排列）
+         * 计数、分桶扫描、抽样和目录查询优先路由到复制延迟满足要求的副本，统计数据的写入始终使用主库
+         */
+        private Map<String, List<String>> replicas = new HashMap<>();
+
+        /**
+         * 副本复制延迟的缓存时间（秒），缓存期内不重复查询延迟
+         */
+        private int lagCacheSeconds = 10;
+
+        /**
+         * 目录查询（表结构、行数估算、空间统计等）可接受的最大复制延迟（秒）
+         */
+        private int catalogMaxLagSeconds = 60;
+    }
+
+    @Data
+    public static class IsolatedPool {
+        /**
+         * 是否为每个被监控的数据源创建监控专用的连接池
+         * 专用连接池使用业务数据源（HikariCP）的 URL 和账号单独建立连接，监控查询不再占用业务连接池
+         */
+        private boolean enabled = false;
+
+        /**
+         * 每个专用连接池的最大连接数
+         */
+        private int maxPoolSize = 2;
+
+        /**
+         * 获取连接的超时时间（毫秒），连接池耗尽时监控查询在超时后失败，不会长时间阻塞
+         */
+        private long connectionTimeoutMillis = 5000;
+
+        /**
+         * 空闲连接的回收时间（毫秒），专用连接池不保留最小空闲连接
+         */
+        private long idleTimeoutMillis = 60000;
+
+        /**
+         * 专用连接池上执行的语句超时时间（秒），小于等于 0 时不限制
+         */
+        private int statementTimeoutSeconds = 60;
+    }
+
+    @Data
+    public static class QueryTimeout {
+        /**
+         * 增量查询的默认语句超时时间（秒），小于等于 0 时不限制
+         * 可通过 dataSources 按数据源覆盖，或通过监控配置 extendConfig 中的 queryTimeoutSeconds 按表覆盖
+         */
+        private int defaultSeconds = 300;
+
+        /**
+         * 数据源名称 -> 语句超时时间（秒）
+         */
+        private Map<String, Integer> dataSources = new HashMap<>();
+
+        /**
+         * 单个配置一次执行的截止时间（秒），超过后取消执行中的语句并停止统计剩余时间段，小于等于 0 时不限制
+         */
+        private int runTimeoutSeconds = 1800;
+
+        /**
+         * 启用到期调度时，查询超时的配置延迟多久（秒）后再重试超时的时间段
+         */
+        private int retryDelaySeconds = 300;
+
+        /**
+         * 保留的最近超时记录数
+         */
+        private int maxRecordedTimeouts = 100;
+    }
+
+    @Data
+    public static class LoadGovernor {
+        /**
+         * 是否启用负载感知限流：定期采样目标库的负载信号，按 AIMD 方式调整每个数据源的并发数和查询间隔
+         */
+        private boolean enabled = false;
+
+        /**
+         * 负载信号的采样间隔（秒）
+         */
+        private int sampleIntervalSeconds = 15;
+
+        /**
+         * 每个数据源同时执行的监控查询数上限，负载正常时并发数逐步加一直到该值。
+         * 本节点的定时执行、分片执行、手动触发和回填任务共用该上限，单次定时执行中的配置串行执行，只占用一个许可
+         */
+        private int maxConcurrency = 4;
+
+        /**
+         * 负载过高时并发数和查询间隔的调整系数，并发数乘以该系数，查询间隔除以该系数
+         */
+        private double decreaseFactor = 0.5;
+
+        /**
+         * 负载正常时每次采样减少的查询间隔（毫秒）
+         */
+        private long paceStepMillis = 100;
+
+        /**
+         * 查询间隔的上限（毫秒）
+         */
+        private long maxPaceMillis = 5000;
+
+        /**
+         * 正在执行的会话数（MySQL Threads_running）超过该值时降低并发和放慢节奏
+         */
+        private int threadsRunningHigh = 32;
+
+        /**
+         * 正在执行的会话数超过该值时暂停统计
+         */
+        private int threadsRunningPause = 64;
+
+        /**
+         * 复制延迟（秒）超过该值时降低并发和放慢节奏
+         */
+        private long replicaLagHighSeconds = 30;
+
+        /**
+         * 复制延迟（秒）超过该值时暂停统计
+         */
+        private long replicaLagPauseSeconds = 300;
+
+        /**
+         * 监控查询耗时相对各自基线（同一配置同一类查询的历史耗时）的平滑倍数超过该值时降低并发和放慢节奏，
+         * 本身就慢的查询不会被当作负载过高；小于等于 0 时不按耗时判断
+         */
+        private double latencyRatioHigh = 3.0;
+
+        /**
+         * 暂停或并发已满时等待查询许可的最长时间（秒），超时后本次执行停止，时间段在下次执行时重试，
+         * 次数计入 db_monitor_governor_throttled_total 而不是查询超时
+         */
+        private int maxWaitSeconds = 300;
     }
 
     @Data
@@ -227,8 +750,76 @@ public class DbMonitorProperties {
         private boolean enabled = true;
 
         /**
-         * 分片超时时间（秒）
+         * 分片超时时间（秒），租约模式下单轮执行超过该时间后不再抢占新的配置
          */
         private int timeoutSeconds = 3600; // 1小时
+
+        /**
+         * 分片分配策略：CONFIG_ID（按 id 取模）、COST_BALANCED（按实测执行耗时均衡）
+         */
+        private String strategy = "CONFIG_ID";
+
+        /**
+         * COST_BALANCED 模式下单个分片允许超出平均负载的比例
+         */
+        private double balanceTolerance = 0.25;
+
+        /**
+         * 执行耗时的指数平滑系数（0~1，越大越偏向最近一次耗时）
+         */
+        private double costSmoothingFactor = 0.3;
+
+        /**
+         * 平滑耗时与已保存的执行成本相差超过该倍数时才写回配置表，避免频繁触发重新分配
+         */
+        private double costUpdateRatio = 2.0;
+
+        /**
+         * 租约模式配置
+         */
+        private Lease lease = new Lease();
+    }
+
+    @Data
+    public static class Lease {
+        /**
+         * 是否启用租约模式，启用后各执行器忽略分片参数，从配置表中动态抢占待执行的配置
+         */
+        private boolean enabled = false;
+
+        /**
+         * 当前执行器的租约持有者标识，为空时使用进程名加随机后缀
+         */
+        private String ownerId;
+
+        /**
+         * 每次抢占的配置数量
+         */
+        private int batchSize = 5;
+
+        /**
+         * 租约时长（秒），执行器宕机后租约过期即可被其他执行器接管
+         */
+        private int leaseSeconds = 300;
+
+        /**
+         * 租约续期间隔（秒），应明显小于租约时长
+         */
+        private int renewIntervalSeconds = 60;
+
+        /**
+         * 执行失败的配置在该时间（秒）内不会被再次抢占
+         */
+        private int retryDelaySeconds = 300;
+
+        /**
+         * 各执行器触发时间允许的偏差（秒），最后统计时间晚于本轮开始时间减去该值的配置视为本轮已执行
+         */
+        private int runSkewSeconds = 60;
+
+        /**
+         * 单飞保护：非租约模式下执行每个配置前也获取该配置的租约，防止多个调度入口或多个节点同时执行同一配置
+         */
+        private boolean singleFlight = true;
     }
 }
\ No newline at end of file
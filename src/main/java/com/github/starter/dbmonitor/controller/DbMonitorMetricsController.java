@@ -2,16 +2,27 @@ package com.github.starter.dbmonitor.controller;
 
 import com.github.starter.dbmonitor.config.condition.ConditionalOnEndpointsEnabled;
 import com.github.starter.dbmonitor.config.condition.ConditionalOnMetricsEndpointsEnabled;
+import com.github.starter.dbmonitor.service.AnomalyDetectionService;
+import com.github.starter.dbmonitor.service.CatchUpService;
 import com.github.starter.dbmonitor.service.DbMonitorMetricsService;
+import com.github.starter.dbmonitor.service.GrowthForecastService;
+import com.github.starter.dbmonitor.service.LoadGovernorService;
+import com.github.starter.dbmonitor.service.QueryTimeoutService;
+import com.github.starter.dbmonitor.service.StatisticsSnapshotService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -24,39 +35,139 @@ import java.util.Map;
 @Slf4j
 public class DbMonitorMetricsController {
     
+    private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    
     @Autowired
     private DbMonitorMetricsService metricsService;
     
+    @Autowired
+    private StatisticsSnapshotService snapshotService;
+    
+    @Autowired
+    private GrowthForecastService growthForecastService;
+    
+    @Autowired
+    private AnomalyDetectionService anomalyDetectionService;
+    
+    @Autowired
+    private CatchUpService catchUpService;
+
+    @Autowired
+    private QueryTimeoutService queryTimeoutService;
+
+    @Autowired
+    private LoadGovernorService loadGovernorService;
+    
     /**
      * 获取 Prometheus 格式的监控指标
+     * 内容未变化时返回 304，响应体较大且客户端支持时进行 gzip 压缩
      */
     @GetMapping("/metrics")
-    public ResponseEntity<String> getPrometheusMetrics() {
+    public ResponseEntity<byte[]> getPrometheusMetrics(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
-            String metrics = metricsService.generatePrometheusMetrics();
-            return ResponseEntity.ok()
-                    .header("Content-Type", "text/plain; version=0.0.4; charset=utf-8")
-                    .body(metrics);
+            StatisticsSnapshotService.Snapshot snapshot = snapshotService.freshTextSnapshot(
+                    PROMETHEUS_CONTENT_TYPE, metricsService.generatePrometheusMetrics());
+            return SnapshotResponses.toResponse(snapshot, ifNoneMatch, acceptEncoding);
         } catch (Exception e) {
             log.error("获取 Prometheus 指标失败: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("# Error generating metrics");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .header(HttpHeaders.CONTENT_TYPE, PROMETHEUS_CONTENT_TYPE)
+                    .body("# Error generating metrics".getBytes(StandardCharsets.UTF_8));
         }
     }
     
     /**
      * 获取 JSON 格式的监控指标
+     * 内容未变化时返回 304，响应体较大且客户端支持时进行 gzip 压缩
      */
     @GetMapping("/metrics/json")
-    public ResponseEntity<Map<String, Object>> getJsonMetrics() {
+    public ResponseEntity<byte[]> getJsonMetrics(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
-            Map<String, Object> metrics = metricsService.generateJsonMetrics();
-            return ResponseEntity.ok(metrics);
+            StatisticsSnapshotService.Snapshot snapshot = snapshotService.freshJsonSnapshot(
+                    metricsService.generateJsonMetrics());
+            return SnapshotResponses.toResponse(snapshot, ifNoneMatch, acceptEncoding);
         } catch (Exception e) {
             log.error("获取 JSON 指标失败: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
     
+    /**
+     * 获取各表的增长率预测
+     */
+    @GetMapping("/forecast")
+    public ResponseEntity<byte[]> getForecasts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        try {
+            StatisticsSnapshotService.Snapshot snapshot = snapshotService.getJsonSnapshot(
+                    "forecast", growthForecastService::getForecastsAsMaps);
+            return SnapshotResponses.toResponse(snapshot, ifNoneMatch, acceptEncoding);
+        } catch (Exception e) {
+            log.error("获取增长率预测失败: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * 获取最近的写入量异常事件（按时间倒序）
+     */
+    @GetMapping("/anomalies")
+    public ResponseEntity<List<AnomalyDetectionService.AnomalyEvent>> getAnomalies(
+            @RequestParam(required = false) String dataSourceName,
+            @RequestParam(required = false) String tableName,
+            @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(anomalyDetectionService.getRecentEvents(dataSourceName, tableName, limit));
+        } catch (Exception e) {
+            log.error("获取异常事件失败: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * 获取处于追赶模式的配置的积压深度和预计完成时间
+     */
+    @GetMapping("/catch-up")
+    public ResponseEntity<List<CatchUpService.CatchUpProgress>> getCatchUpBacklogs() {
+        try {
+            return ResponseEntity.ok(catchUpService.getBacklogs());
+        } catch (Exception e) {
+            log.error("获取追赶进度失败: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * 获取最近超时的时间段（等待下次执行重试）
+     */
+    @GetMapping("/query-timeouts")
+    public ResponseEntity<List<QueryTimeoutService.SegmentTimeout>> getQueryTimeouts() {
+        try {
+            return ResponseEntity.ok(queryTimeoutService.getRecentTimeouts());
+        } catch (Exception e) {
+            log.error("获取查询超时记录失败: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * 获取各数据源的负载感知限流状态
+     */
+    @GetMapping("/governor")
+    public ResponseEntity<Map<String, LoadGovernorService.GovernorState>> getGovernorStates() {
+        try {
+            return ResponseEntity.ok(loadGovernorService.getStates());
+        } catch (Exception e) {
+            log.error("获取负载感知限流状态失败: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
     /**
      * 获取监控健康状态
      */
@@ -1,16 +1,18 @@
 package com.github.starter.dbmonitor.controller;
 
 import com.github.starter.dbmonitor.config.condition.ConditionalOnEndpointsEnabled;
-import com.github.starter.dbmonitor.entity.DbMonitorStatistics;
 import com.github.starter.dbmonitor.service.DbMonitorService;
+import com.github.starter.dbmonitor.service.StatisticsSnapshotService;
+import com.github.starter.dbmonitor.service.StatisticsStreamService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * 数据库监控统计数据接口
@@ -25,28 +27,59 @@ public class DbMonitorStatisticsController {
     @Autowired
     private DbMonitorService dbMonitorService;
     
+    @Autowired
+    private StatisticsSnapshotService snapshotService;
+    
+    @Autowired
+    private StatisticsStreamService streamService;
+    
     /**
      * 获取最新的监控统计数据
+     * 统计数据未变化时返回 304，响应体较大且客户端支持时进行 gzip 压缩
      */
     @GetMapping("/statistics")
-    public ResponseEntity<List<DbMonitorStatistics>> getLatestStatistics() {
+    public ResponseEntity<byte[]> getLatestStatistics(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
-            List<DbMonitorStatistics> statistics = dbMonitorService.getLatestStatistics();
-            return ResponseEntity.ok(statistics);
+            StatisticsSnapshotService.Snapshot snapshot = snapshotService.getJsonSnapshot(
+                    "statistics", dbMonitorService::getLatestStatistics);
+            return SnapshotResponses.toResponse(snapshot, ifNoneMatch, acceptEncoding);
         } catch (Exception e) {
             log.error("获取监控统计数据失败: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
     
+    /**
+     * 订阅实时统计数据（Server-Sent Events）
+     * 推送 statistics（新写入的统计数据）和 progress（监控任务进度）两类事件
+     */
+    @GetMapping(value = "/statistics/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamStatistics(
+            @RequestParam(required = false) String dataSourceName,
+            @RequestParam(required = false) String tableName) {
+        try {
+            return ResponseEntity.ok(streamService.subscribe(dataSourceName, tableName));
+        } catch (IllegalStateException e) {
+            log.warn("订阅实时统计数据失败: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+    
     /**
      * 获取指定表的监控统计数据
+     * 统计数据未变化时返回 304，响应体较大且客户端支持时进行 gzip 压缩
      */
     @GetMapping("/statistics/{tableName}")
-    public ResponseEntity<List<DbMonitorStatistics>> getStatisticsByTable(@PathVariable String tableName) {
+    public ResponseEntity<byte[]> getStatisticsByTable(
+            @PathVariable String tableName,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
-            List<DbMonitorStatistics> statistics = dbMonitorService.getTableStatistics(tableName);
-            return ResponseEntity.ok(statistics);
+            StatisticsSnapshotService.Snapshot snapshot = snapshotService.getJsonSnapshot(
+                    "statistics:" + tableName, () -> dbMonitorService.getTableStatistics(tableName));
+            return SnapshotResponses.toResponse(snapshot, ifNoneMatch, acceptEncoding);
         } catch (Exception e) {
             log.error("获取表 {} 的监控统计数据失败: {}", tableName, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
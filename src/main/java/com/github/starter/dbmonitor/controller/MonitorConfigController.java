@@ -2,15 +2,20 @@ package com.github.starter.dbmonitor.controller;
 
 import com.github.starter.dbmonitor.config.condition.ConditionalOnConfigEndpointsEnabled;
 import com.github.starter.dbmonitor.config.condition.ConditionalOnEndpointsEnabled;
+import com.github.starter.dbmonitor.entity.BackfillJob;
 import com.github.starter.dbmonitor.entity.MonitorConfig;
+import com.github.starter.dbmonitor.service.BackfillService;
 import com.github.starter.dbmonitor.service.MonitorConfigService;
 import com.github.starter.dbmonitor.service.DatabaseSecurityService;
+import com.github.starter.dbmonitor.service.QueryTimeoutService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +36,12 @@ public class MonitorConfigController {
 
     @Autowired
     private DatabaseSecurityService databaseSecurityService;
+
+    @Autowired
+    private BackfillService backfillService;
+
+    @Autowired
+    private QueryTimeoutService queryTimeoutService;
     
     /**
      * 创建监控配置
@@ -53,6 +64,159 @@ public class MonitorConfigController {
         }
     }
     
+    /**
+     * 批量导入监控配置，逐条返回校验或写入失败的原因
+     */
+    @PostMapping("/import")
+    public ResponseEntity<Map<String, Object>> importConfigs(
+            @RequestBody List<MonitorConfig> configs,
+            @RequestParam(required = false) String createdBy) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            MonitorConfigService.ImportResult result = monitorConfigService.importConfigs(configs, createdBy);
+            response.put("success", result.getErrors().isEmpty());
+            response.put("message", String.format("共 %d 个监控配置，成功导入 %d 个，失败 %d 个",
+                    result.getTotal(), result.getImported(), result.getErrors().size()));
+            response.put("data", result);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("批量导入监控配置失败: {}", e.getMessage(), e);
+            response.put("success", false);
+            response.put("message", "批量导入监控配置失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+
+    /**
+     * 停止配置在本节点上的执行，取消执行中的查询，未完成的时间段在下次执行时重试
+     */
+    @PostMapping("/{id}/stop")
+    public ResponseEntity<Map<String, Object>> stopRun(@PathVariable Long id) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            boolean stopped = queryTimeoutService.cancel(id);
+            response.put("success", stopped);
+            response.put("message", stopped ? "已停止执行并取消执行中的查询" : "监控配置未在本节点执行");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("停止监控配置执行失败: {}", e.getMessage(), e);
+            response.put("success", false);
+            response.put("message", "停止监控配置执行失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * 创建历史数据回填任务，从 startTime 回填到已有统计数据的最早时间
+     */
+    @PostMapping("/{id}/backfill")
+    public ResponseEntity<Map<String, Object>> createBackfill(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            BackfillJob job = backfillService.submit(id, startTime);
+            response.put("success", true);
+            response.put("message", "回填任务创建成功");
+            response.put("data", job);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("创建回填任务失败: {}", e.getMessage(), e);
+            response.put("success", false);
+            response.put("message", "创建回填任务失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+
+    /**
+     * 获取监控配置的回填任务
+     */
+    @GetMapping("/{id}/backfill")
+    public ResponseEntity<Map<String, Object>> getBackfills(@PathVariable Long id) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            response.put("success", true);
+            response.put("data", backfillService.getJobs(id));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("获取回填任务失败: {}", e.getMessage(), e);
+            response.put("success", false);
+            response.put("message", "获取回填任务失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * 获取回填任务进度
+     */
+    @GetMapping("/backfill/{jobId}")
+    public ResponseEntity<Map<String, Object>> getBackfill(@PathVariable Long jobId) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            Optional<BackfillJob> job = backfillService.getJob(jobId);
+            if (!job.isPresent()) {
+                response.put("success", false);
+                response.put("message", "回填任务不存在");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+            int total = job.get().getTotalSegments();
+            response.put("success", true);
+            response.put("data", job.get());
+            response.put("progress", total > 0 ? job.get().getCompletedSegments() * 100.0 / total : 100.0);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("获取回填任务失败: {}", e.getMessage(), e);
+            response.put("success", false);
+            response.put("message", "获取回填任务失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * 取消回填任务
+     */
+    @PostMapping("/backfill/{jobId}/cancel")
+    public ResponseEntity<Map<String, Object>> cancelBackfill(@PathVariable Long jobId) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            boolean cancelled = backfillService.cancel(jobId);
+            response.put("success", cancelled);
+            response.put("message", cancelled ? "回填任务已取消" : "回填任务不存在或已结束");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("取消回填任务失败: {}", e.getMessage(), e);
+            response.put("success", false);
+            response.put("message", "取消回填任务失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * 从检查点恢复失败或已取消的回填任务
+     */
+    @PostMapping("/backfill/{jobId}/resume")
+    public ResponseEntity<Map<String, Object>> resumeBackfill(@PathVariable Long jobId) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            boolean resumed = backfillService.resume(jobId);
+            response.put("success", resumed);
+            response.put("message", resumed ? "回填任务已恢复" : "回填任务不存在或不是失败、已取消状态");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("恢复回填任务失败: {}", e.getMessage(), e);
+            response.put("success", false);
+            response.put("message", "恢复回填任务失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
     /**
      * 更新监控配置
      */
@@ -0,0 +1,55 @@
+package com.github.starter.dbmonitor.controller;
+
+import com.github.starter.dbmonitor.service.StatisticsSnapshotService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * 快照响应构建工具
+ * 统一处理 ETag 条件请求（304）和 gzip 压缩；生成时间通过 Date 响应头返回，不写入响应体，避免影响 ETag
+ */
+final class SnapshotResponses {
+
+    private SnapshotResponses() {
+    }
+
+    /**
+     * 根据快照和请求头构建响应
+     */
+    static ResponseEntity<byte[]> toResponse(StatisticsSnapshotService.Snapshot snapshot,
+                                             String ifNoneMatch, String acceptEncoding) {
+        if (snapshot.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.getETag())
+                    .headers(headers -> headers.setDate(System.currentTimeMillis()))
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(snapshot.getETag())
+                .headers(headers -> headers.setDate(System.currentTimeMillis()))
+                .header(HttpHeaders.CONTENT_TYPE, snapshot.getContentType())
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (snapshot.getGzipBody() != null && acceptsGzip(acceptEncoding)) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.getGzipBody());
+        }
+        return builder.body(snapshot.getBody());
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String encoding : acceptEncoding.split(",")) {
+            String value = encoding.trim().toLowerCase();
+            if (value.equals("gzip") || (value.startsWith("gzip;") && !value.replace(" ", "").endsWith("q=0"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
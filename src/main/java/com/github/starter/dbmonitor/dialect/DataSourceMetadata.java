@@ -0,0 +1,69 @@
+package com.github.starter.dbmonitor.dialect;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 数据源元数据
+ * 每个数据源首次访问时读取一次 DatabaseMetaData 后缓存，避免重复获取连接
+ */
+@Data
+@AllArgsConstructor
+public class DataSourceMetadata {
+
+    /**
+     * 数据源名称
+     */
+    private String dataSourceName;
+
+    /**
+     * 数据库产品名称
+     */
+    private String productName;
+
+    /**
+     * 数据库产品版本
+     */
+    private String productVersion;
+
+    /**
+     * 连接默认 schema（不支持 schema 的数据库为 catalog）
+     */
+    private String defaultSchema;
+
+    /**
+     * 是否支持批量更新
+     */
+    private boolean supportsBatchUpdates;
+
+    /**
+     * 是否支持事务
+     */
+    private boolean supportsTransactions;
+
+    /**
+     * 数据库方言
+     */
+    private DbDialect dialect;
+
+    /**
+     * 是否支持批量目录统计
+     */
+    public boolean isSupportsCatalogStats() {
+        return dialect.catalogStatsSql(1) != null;
+    }
+
+    /**
+     * 是否支持各索引大小统计
+     */
+    public boolean isSupportsIndexStats() {
+        return dialect.indexSizeSql(1) != null;
+    }
+
+    /**
+     * 是否支持单次查询分桶计数
+     */
+    public boolean isSupportsBucketedCount() {
+        return dialect.secondsSince("c") != null;
+    }
+}
@@ -0,0 +1,160 @@
+package com.github.starter.dbmonitor.dialect;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 数据源元数据注册表
+ * 每个数据源只获取一次连接读取元数据（try-with-resources 保证归还连接池），之后所有仓储方法共享缓存结果
+ */
+@Component
+@Slf4j
+public class DataSourceMetadataRegistry {
+
+    private static final boolean HIKARI_PRESENT = ClassUtils.isPresent(
+            "com.zaxxer.hikari.HikariDataSource", DataSourceMetadataRegistry.class.getClassLoader());
+
+    /**
+     * 数据源名称 -> 元数据
+     */
+    private final Map<String, DataSourceMetadata> registry = new ConcurrentHashMap<>();
+
+    /**
+     * 数据源名称 -> 数据源，用于连接池使用情况统计
+     */
+    private final Map<String, DataSource> dataSources = new ConcurrentHashMap<>();
+
+    /**
+     * 获取数据源元数据，首次调用时读取并缓存；读取失败时返回通用方言的元数据且不缓存
+     */
+    public DataSourceMetadata getMetadata(String dataSourceName, DataSource dataSource) {
+        DataSourceMetadata metadata = registry.get(dataSourceName);
+        if (metadata != null) {
+            return metadata;
+        }
+
+        try {
+            metadata = load(dataSourceName, dataSource);
+        } catch (Exception e) {
+            log.warn("读取数据源 {} 的元数据失败，暂按通用方言处理: {}", dataSourceName, e.getMessage());
+            return new DataSourceMetadata(dataSourceName, null, null, null, false, false, DbDialects.resolve(null));
+        }
+
+        dataSources.put(dataSourceName, dataSource);
+        DataSourceMetadata existing = registry.putIfAbsent(dataSourceName, metadata);
+        if (existing != null) {
+            return existing;
+        }
+        log.info("数据源 {} 元数据已注册: {} {}，方言: {}，默认 schema: {}", dataSourceName,
+                metadata.getProductName(), metadata.getProductVersion(), metadata.getDialect().getName(),
+                metadata.getDefaultSchema());
+        return metadata;
+    }
+
+    /**
+     * 获取已注册的所有数据源元数据（按名称排序）
+     */
+    public Map<String, DataSourceMetadata> getAll() {
+        return Collections.unmodifiableMap(new TreeMap<>(registry));
+    }
+
+    /**
+     * 移除数据源元数据，下次访问时重新读取
+     */
+    public void evict(String dataSourceName) {
+        registry.remove(dataSourceName);
+        dataSources.remove(dataSourceName);
+    }
+
+    /**
+     * 获取已注册数据源的连接池使用情况，连接池类型不支持时返回 null
+     */
+    public PoolUsage getPoolUsage(String dataSourceName) {
+        DataSource dataSource = dataSources.get(dataSourceName);
+        if (dataSource == null || !HIKARI_PRESENT) {
+            return null;
+        }
+        try {
+            return HikariPoolInspector.inspect(dataSource);
+        } catch (Exception e) {
+            log.debug("获取数据源 {} 的连接池使用情况失败: {}", dataSourceName, e.getMessage());
+            return null;
+        }
+    }
+
+    private DataSourceMetadata load(String dataSourceName, DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String defaultSchema = readDefaultSchema(connection);
+            return new DataSourceMetadata(
+                    dataSourceName,
+                    metaData.getDatabaseProductName(),
+                    metaData.getDatabaseProductVersion(),
+                    defaultSchema,
+                    metaData.supportsBatchUpdates(),
+                    metaData.supportsTransactions(),
+                    DbDialects.resolve(metaData.getURL()));
+        }
+    }
+
+    private String readDefaultSchema(Connection connection) {
+        try {
+            String schema = connection.getSchema();
+            if (schema != null) {
+                return schema;
+            }
+        } catch (Exception | AbstractMethodError e) {
+            // JDBC 4.1 之前的驱动不支持 getSchema
+        }
+        try {
+            return connection.getCatalog();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 连接池使用情况
+     */
+    @Data
+    public static class PoolUsage {
+        private final int activeConnections;
+        private final int idleConnections;
+        private final int totalConnections;
+        private final int pendingThreads;
+        private final int maxPoolSize;
+    }
+
+    /**
+     * HikariCP 连接池检查（单独的类，未引入 HikariCP 时不会被加载）
+     */
+    private static final class HikariPoolInspector {
+
+        private static PoolUsage inspect(DataSource dataSource) throws SQLException {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                return null;
+            }
+            HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            if (pool == null) {
+                // 连接池尚未初始化
+                return null;
+            }
+            return new PoolUsage(pool.getActiveConnections(), pool.getIdleConnections(),
+                    pool.getTotalConnections(), pool.getThreadsAwaitingConnection(), hikari.getMaximumPoolSize());
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.github.starter.dbmonitor.dialect;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 数据库方言 SPI
+ * 封装不同数据库在目录查询、行数估算、关系大小和分桶计数上的差异，
+ * 每个数据源只解析一次并缓存。自定义方言可通过 META-INF/services/com.github.starter.dbmonitor.dialect.DbDialect 注册，
+ * 优先于内置方言匹配
+ */
+public interface DbDialect {
+
+    /**
+     * 方言名称（如 mysql、postgresql、h2）
+     */
+    String getName();
+
+    /**
+     * 是否支持指定的 JDBC URL
+     */
+    boolean supports(String jdbcUrl);
+
+    /**
+     * 当前 schema 的 SQL 表达式
+     */
+    String currentSchema();
+
+    /**
+     * 与目录中表名比较时使用的参数占位符（元数据名称统一大写的数据库需要转换）
+     */
+    default String nameParameter() {
+        return "?";
+    }
+
+    /**
+     * 生成指定数量的表名参数占位符，用于 IN 查询
+     */
+    default String namePlaceholders(int count) {
+        return String.join(", ", Collections.nCopies(count, nameParameter()));
+    }
+
+    /**
+     * information_schema.columns 中表示数据类型名称的列
+     */
+    default String dataTypeColumn() {
+        return "data_type";
+    }
+
+    /**
+     * information_schema.columns 中表示列注释的表达式
+     */
+    default String columnCommentColumn() {
+        return "NULL";
+    }
+
+    /**
+     * 查询当前 schema 下所有表名
+     */
+    default String listTablesSql() {
+        return "SELECT table_name FROM information_schema.tables " +
+               "WHERE table_schema = " + currentSchema() + " AND table_type = 'BASE TABLE'";
+    }
+
+    /**
+     * 查询表名失败时的备用语句，不支持时返回 null
+     */
+    default String listTablesFallbackSql() {
+        return null;
+    }
+
+    /**
+     * 检查表是否存在，参数为表名
+     */
+    default String tableExistsSql() {
+        return "SELECT COUNT(*) FROM information_schema.tables " +
+               "WHERE table_schema = " + currentSchema() + " AND table_name = " + nameParameter();
+    }
+
+    /**
+     * 检查列是否存在，参数为表名和列名
+     */
+    default String columnExistsSql() {
+        return "SELECT COUNT(*) FROM information_schema.columns " +
+               "WHERE table_schema = " + currentSchema() + " AND table_name = " + nameParameter() +
+               " AND column_name = " + nameParameter();
+    }
+
+    /**
+     * 查询表的列名，参数为表名
+     */
+    default String columnNamesSql() {
+        return "SELECT column_name FROM information_schema.columns " +
+               "WHERE table_schema = " + currentSchema() + " AND table_name = " + nameParameter() +
+               " ORDER BY ordinal_position";
+    }
+
+    /**
+     * 查询表的详细列信息，参数为表名
+     * 结果包含 column_name、data_type、is_nullable、column_default、column_comment、char_length、num_precision
+     */
+    default String columnDetailsSql() {
+        return "SELECT column_name, " + dataTypeColumn() + " AS data_type, is_nullable, column_default, " +
+               columnCommentColumn() + " AS column_comment, " +
+               "character_maximum_length AS char_length, numeric_precision AS num_precision " +
+               "FROM information_schema.columns " +
+               "WHERE table_schema = " + currentSchema() + " AND table_name = " + nameParameter() +
+               " ORDER BY ordinal_position";
+    }
+
+    /**
+     * 查询表中可能的时间字段，参数为表名
+     */
+    default String timeColumnsSql() {
+        String dataType = "LOWER(" + dataTypeColumn() + ")";
+        return "SELECT column_name FROM information_schema.columns " +
+               "WHERE table_schema = " + currentSchema() + " AND table_name = " + nameParameter() + " " +
+               "AND (" + dataType + " IN ('datetime', 'timestamp', 'date', 'time', " +
+               "'timestamp without time zone', 'timestamp with time zone') " +
+               "OR (" + dataType + " = 'bigint' AND LOWER(column_name) LIKE '%time%') " +
+               "OR LOWER(column_name) IN ('created_at', 'updated_at', 'create_time', 'update_time', " +
+               "'created_time', 'updated_time', 'gmt_create', 'gmt_modified')) " +
+               "ORDER BY ordinal_position";
+    }
+
+    /**
+     * information_schema.tables 中表示表创建时间的列，用于表结构变更探测，不支持时返回 null
+     */
+    default String tableCreateTimeColumn() {
+        return null;
+    }
+
+    /**
+     * 批量查询表结构，参数为表名列表
+     * 结果包含 table_name、column_name、data_type、create_time，按表和字段顺序排列
+     */
+    default String schemaColumnsSql(int tableCount) {
+        String createTime = tableCreateTimeColumn();
+        return "SELECT c.table_name, c.column_name, c." + dataTypeColumn() + " AS data_type, " +
+               (createTime != null ? "t." + createTime : "NULL") + " AS create_time " +
+               "FROM information_schema.columns c " +
+               "JOIN information_schema.tables t ON t.table_schema = c.table_schema AND t.table_name = c.table_name " +
+               "WHERE c.table_schema = " + currentSchema() + " AND c.table_name IN (" + namePlaceholders(tableCount) + ") " +
+               "ORDER BY c.table_name, c.ordinal_position";
+    }
+
+    /**
+     * 批量探测表结构版本，参数为表名列表
+     * 结果包含 table_name、create_time、column_count，只返回存在的表
+     */
+    default String schemaVersionSql(int tableCount) {
+        String createTime = tableCreateTimeColumn();
+        return "SELECT t.table_name, " + (createTime != null ? "t." + createTime : "NULL") + " AS create_time, " +
+               "(SELECT COUNT(*) FROM information_schema.columns c " +
+               "WHERE c.table_schema = t.table_schema AND c.table_name = t.table_name) AS column_count " +
+               "FROM information_schema.tables t " +
+               "WHERE t.table_schema = " + currentSchema() + " AND t.table_name IN (" + namePlaceholders(tableCount) + ")";
+    }
+
+    /**
+     * 批量查询表目录统计信息，参数为表名列表
+     * 结果包含 table_name、table_rows、data_length、index_length、avg_row_length，不支持时返回 null
+     */
+    String catalogStatsSql(int tableCount);
+
+    /**
+     * 批量查询各索引大小，参数为表名列表
+     * 结果包含 table_name、index_name、size_bytes，不支持时返回 null
+     */
+    default String indexSizeSql(int tableCount) {
+        return null;
+    }
+
+    /**
+     * 基于统计信息的表行数估算（不扫描表），参数为表名，不支持时返回 null
+     */
+    String estimatedRowCountSql();
+
+    /**
+     * 表的总占用空间（数据 + 索引），参数为表名，不支持时返回 null
+     */
+    String relationSizeSql();
+
+    /**
+     * 时间字段相对于参数时间点的秒数表达式（包含一个时间参数），不支持时返回 null
+     * 使用差值而非 epoch 秒，避免不同数据库对无时区时间的时区解释不一致
+     */
+    String secondsSince(String timeColumn);
+
+    /**
+     * 查询只读副本复制延迟（秒）的语句，延迟从结果第一行的 {@link #replicationLagColumn()} 列读取；
+     * 返回 null 表示无法查询延迟，此时视为副本与主库同步
+     */
+    default String replicationLagSql() {
+        return null;
+    }
+
+    /**
+     * 复制延迟查询结果中表示延迟秒数的列，列值为 NULL 表示复制已中断
+     */
+    default String replicationLagColumn() {
+        return "lag_seconds";
+    }
+
+    /**
+     * 按顺序尝试的复制延迟查询语句，前一条执行失败时尝试下一条，默认只有 {@link #replicationLagSql()}；
+     * 用于同一数据库不同版本语法不同的情况，返回空列表表示无法查询延迟
+     */
+    default List<String> replicationLagSqls() {
+        String sql = replicationLagSql();
+        return sql != null ? Collections.singletonList(sql) : Collections.<String>emptyList();
+    }
+
+    /**
+     * 复制延迟查询结果中可能表示延迟秒数的列，读取第一个存在的列，默认只有 {@link #replicationLagColumn()}
+     */
+    default List<String> replicationLagColumns() {
+        return Collections.singletonList(replicationLagColumn());
+    }
+
+    /**
+     * 查询数据库当前正在执行的会话数（结果列 active_sessions），用于判断数据库负载，不支持时返回 null
+     */
+    default String activeSessionsSql() {
+        return null;
+    }
+
+    /**
+     * 为查询追加行数限制
+     */
+    default String limit(String sql, int rows) {
+        return sql + " LIMIT " + rows;
+    }
+
+    /**
+     * 按唯一键插入或覆盖一行的语句，参数顺序与 columns 一致；返回 null 表示不支持，由调用方先更新再插入
+     */
+    default String upsertSql(String table, List<String> columns, List<String> keyColumns) {
+        return null;
+    }
+
+    /**
+     * 生成 INSERT INTO table (columns) VALUES (?, ...) 语句
+     */
+    static String insertSql(String table, List<String> columns) {
+        return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES (" +
+               String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.starter.dbmonitor.dialect;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * 数据库方言解析
+ * 通过 ServiceLoader 注册的自定义方言优先，其次为内置的 MySQL、PostgreSQL、H2 方言，均不匹配时使用通用方言
+ */
+@Slf4j
+public final class DbDialects {
+
+    private static final List<DbDialect> DIALECTS = loadDialects();
+
+    private DbDialects() {
+    }
+
+    /**
+     * 根据 JDBC URL 解析方言
+     */
+    public static DbDialect resolve(String jdbcUrl) {
+        if (jdbcUrl != null) {
+            String url = jdbcUrl.toLowerCase();
+            for (DbDialect dialect : DIALECTS) {
+                if (dialect.supports(url)) {
+                    return dialect;
+                }
+            }
+        }
+        return GenericDialect.fromUrl(jdbcUrl);
+    }
+
+    /**
+     * 获取所有已注册的方言（按匹配优先级排序）
+     */
+    public static List<DbDialect> getDialects() {
+        return DIALECTS;
+    }
+
+    private static List<DbDialect> loadDialects() {
+        List<DbDialect> dialects = new ArrayList<>();
+        try {
+            for (DbDialect dialect : ServiceLoader.load(DbDialect.class)) {
+                log.info("注册自定义数据库方言: {} ({})", dialect.getName(), dialect.getClass().getName());
+                dialects.add(dialect);
+            }
+        } catch (Throwable e) {
+            log.warn("加载自定义数据库方言失败: {}", e.getMessage());
+        }
+        dialects.add(new MySqlDialect());
+        dialects.add(new PostgreSqlDialect());
+        dialects.add(new H2Dialect());
+        return Collections.unmodifiableList(dialects);
+    }
+}
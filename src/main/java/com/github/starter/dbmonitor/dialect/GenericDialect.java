@@ -0,0 +1,67 @@
+package com.github.starter.dbmonitor.dialect;
+
+/**
+ * 通用方言
+ * 用于未内置支持的数据库，只使用标准 information_schema 查询，不提供目录统计和分桶计数的原生实现
+ */
+public class GenericDialect implements DbDialect {
+
+    private final String name;
+
+    public GenericDialect(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 从 JDBC URL 中解析数据库类型名称（jdbc:oracle:thin:... -> oracle）
+     */
+    public static GenericDialect fromUrl(String jdbcUrl) {
+        if (jdbcUrl != null && jdbcUrl.startsWith("jdbc:")) {
+            int end = jdbcUrl.indexOf(':', 5);
+            if (end > 5) {
+                return new GenericDialect(jdbcUrl.substring(5, end).toLowerCase());
+            }
+        }
+        return new GenericDialect("unknown");
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean supports(String jdbcUrl) {
+        return false;
+    }
+
+    @Override
+    public String currentSchema() {
+        return "CURRENT_SCHEMA";
+    }
+
+    @Override
+    public String catalogStatsSql(int tableCount) {
+        return null;
+    }
+
+    @Override
+    public String estimatedRowCountSql() {
+        return null;
+    }
+
+    @Override
+    public String relationSizeSql() {
+        return null;
+    }
+
+    @Override
+    public String secondsSince(String timeColumn) {
+        return null;
+    }
+
+    @Override
+    public String limit(String sql, int rows) {
+        return sql + " FETCH FIRST " + rows + " ROWS ONLY";
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.starter.dbmonitor.dialect;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * H2 方言
+ * 元数据名称统一大写，行数估算使用 information_schema.tables.row_count_estimate，不提供空间大小统计
+ */
+public class H2Dialect implements DbDialect {
+
+    @Override
+    public String getName() {
+        return "h2";
+    }
+
+    @Override
+    public boolean supports(String jdbcUrl) {
+        return jdbcUrl.startsWith("jdbc:h2:");
+    }
+
+    @Override
+    public String currentSchema() {
+        return "SCHEMA()";
+    }
+
+    @Override
+    public String nameParameter() {
+        return "UPPER(?)";
+    }
+
+    @Override
+    public String dataTypeColumn() {
+        // H2 1.4 的 data_type 为 java.sql.Types 编码，类型名称在 type_name 中
+        return "type_name";
+    }
+
+    @Override
+    public String columnCommentColumn() {
+        return "remarks";
+    }
+
+    @Override
+    public String listTablesSql() {
+        return "SELECT LOWER(table_name) FROM information_schema.tables " +
+               "WHERE table_schema = SCHEMA() AND table_type IN ('TABLE', 'BASE TABLE')";
+    }
+
+    @Override
+    public String catalogStatsSql(int tableCount) {
+        return "SELECT table_name, row_count_estimate AS table_rows, " +
+               "CAST(NULL AS BIGINT) AS data_length, CAST(NULL AS BIGINT) AS index_length, " +
+               "CAST(NULL AS BIGINT) AS avg_row_length " +
+               "FROM information_schema.tables " +
+               "WHERE table_schema = SCHEMA() AND table_name IN (" + namePlaceholders(tableCount) + ")";
+    }
+
+    @Override
+    public String estimatedRowCountSql() {
+        return "SELECT row_count_estimate FROM information_schema.tables " +
+               "WHERE table_schema = SCHEMA() AND table_name = UPPER(?)";
+    }
+
+    @Override
+    public String relationSizeSql() {
+        return null;
+    }
+
+    @Override
+    public String secondsSince(String timeColumn) {
+        return "DATEDIFF('SECOND', CAST(? AS TIMESTAMP), " + timeColumn + ")";
+    }
+
+    @Override
+    public String upsertSql(String table, List<String> columns, List<String> keyColumns) {
+        return "MERGE INTO " + table + " (" + String.join(", ", columns) + ") KEY (" + String.join(", ", keyColumns) +
+               ") VALUES (" + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+    }
+}
@@ -0,0 +1,115 @@
+package com.github.starter.dbmonitor.dialect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * MySQL 方言
+ * 目录统计来自 information_schema.tables，各索引大小来自 InnoDB 持久化统计信息
+ */
+public class MySqlDialect implements DbDialect {
+
+    @Override
+    public String getName() {
+        return "mysql";
+    }
+
+    @Override
+    public boolean supports(String jdbcUrl) {
+        return jdbcUrl.startsWith("jdbc:mysql:") || jdbcUrl.startsWith("jdbc:mariadb:");
+    }
+
+    @Override
+    public String currentSchema() {
+        return "DATABASE()";
+    }
+
+    @Override
+    public String columnCommentColumn() {
+        return "column_comment";
+    }
+
+    @Override
+    public String tableCreateTimeColumn() {
+        // ALTER TABLE 重建表时 create_time 会更新；update_time 随数据变更，不适合作为结构变更信号
+        return "create_time";
+    }
+
+    @Override
+    public String listTablesFallbackSql() {
+        return "SHOW TABLES";
+    }
+
+    @Override
+    public String catalogStatsSql(int tableCount) {
+        return "SELECT table_name, table_rows, data_length, index_length, avg_row_length " +
+               "FROM information_schema.tables " +
+               "WHERE table_schema = DATABASE() AND table_name IN (" + namePlaceholders(tableCount) + ")";
+    }
+
+    @Override
+    public String indexSizeSql(int tableCount) {
+        return "SELECT table_name, index_name, stat_value * @@innodb_page_size AS size_bytes " +
+               "FROM mysql.innodb_index_stats " +
+               "WHERE database_name = DATABASE() AND stat_name = 'size' " +
+               "AND table_name IN (" + namePlaceholders(tableCount) + ")";
+    }
+
+    @Override
+    public String estimatedRowCountSql() {
+        return "SELECT table_rows FROM information_schema.tables " +
+               "WHERE table_schema = DATABASE() AND table_name = ?";
+    }
+
+    @Override
+    public String relationSizeSql() {
+        return "SELECT data_length + index_length FROM information_schema.tables " +
+               "WHERE table_schema = DATABASE() AND table_name = ?";
+    }
+
+    @Override
+    public String secondsSince(String timeColumn) {
+        return "TIMESTAMPDIFF(SECOND, ?, " + timeColumn + ")";
+    }
+
+    @Override
+    public String activeSessionsSql() {
+        return "SELECT CAST(VARIABLE_VALUE AS UNSIGNED) AS active_sessions FROM performance_schema.global_status " +
+               "WHERE VARIABLE_NAME = 'Threads_running'";
+    }
+
+    @Override
+    public String replicationLagSql() {
+        return "SHOW REPLICA STATUS";
+    }
+
+    @Override
+    public String replicationLagColumn() {
+        return "Seconds_Behind_Source";
+    }
+
+    /**
+     * MySQL 8.0.22 起提供 SHOW REPLICA STATUS，8.4 移除了 SHOW SLAVE STATUS，旧版本和 MariaDB 只支持后者
+     */
+    @Override
+    public List<String> replicationLagSqls() {
+        return Arrays.asList("SHOW REPLICA STATUS", "SHOW SLAVE STATUS");
+    }
+
+    @Override
+    public List<String> replicationLagColumns() {
+        return Arrays.asList("Seconds_Behind_Source", "Seconds_Behind_Master");
+    }
+
+    @Override
+    public String upsertSql(String table, List<String> columns, List<String> keyColumns) {
+        List<String> assignments = new ArrayList<>();
+        for (String column : columns) {
+            if (!keyColumns.contains(column)) {
+                assignments.add(column + " = VALUES(" + column + ")");
+            }
+        }
+        return DbDialect.insertSql(table, columns) + " ON DUPLICATE KEY UPDATE " + String.join(", ", assignments);
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.starter.dbmonitor.dialect;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PostgreSQL 方言
+ * 行数估算使用 pg_class.reltuples，空间大小使用 pg_table_size / pg_indexes_size / pg_total_relation_size，
+ * 均只读取系统目录，不扫描业务表
+ */
+public class PostgreSqlDialect implements DbDialect {
+
+    private static final String RELATION_FROM = "FROM pg_class c " +
+            "JOIN pg_namespace n ON n.oid = c.relnamespace " +
+            "WHERE n.nspname = current_schema() AND c.relkind IN ('r', 'p') ";
+
+    @Override
+    public String getName() {
+        return "postgresql";
+    }
+
+    @Override
+    public boolean supports(String jdbcUrl) {
+        return jdbcUrl.startsWith("jdbc:postgresql:");
+    }
+
+    @Override
+    public String currentSchema() {
+        return "current_schema()";
+    }
+
+    @Override
+    public String catalogStatsSql(int tableCount) {
+        // reltuples 在未 ANALYZE 时为 -1（PG 14+）或 0
+        return "SELECT c.relname AS table_name, " +
+               "CAST(GREATEST(c.reltuples, 0) AS BIGINT) AS table_rows, " +
+               "pg_table_size(c.oid) AS data_length, " +
+               "pg_indexes_size(c.oid) AS index_length, " +
+               "CASE WHEN c.reltuples > 0 THEN CAST(pg_table_size(c.oid) / c.reltuples AS BIGINT) END AS avg_row_length " +
+               RELATION_FROM + "AND c.relname IN (" + namePlaceholders(tableCount) + ")";
+    }
+
+    @Override
+    public String indexSizeSql(int tableCount) {
+        return "SELECT t.relname AS table_name, i.relname AS index_name, pg_relation_size(i.oid) AS size_bytes " +
+               "FROM pg_index x " +
+               "JOIN pg_class t ON t.oid = x.indrelid " +
+               "JOIN pg_class i ON i.oid = x.indexrelid " +
+               "JOIN pg_namespace n ON n.oid = t.relnamespace " +
+               "WHERE n.nspname = current_schema() AND t.relname IN (" + namePlaceholders(tableCount) + ")";
+    }
+
+    @Override
+    public String estimatedRowCountSql() {
+        return "SELECT CAST(GREATEST(c.reltuples, 0) AS BIGINT) " + RELATION_FROM + "AND c.relname = ?";
+    }
+
+    @Override
+    public String relationSizeSql() {
+        return "SELECT pg_total_relation_size(c.oid) " + RELATION_FROM + "AND c.relname = ?";
+    }
+
+    @Override
+    public String secondsSince(String timeColumn) {
+        return "EXTRACT(EPOCH FROM (" + timeColumn + " - CAST(? AS TIMESTAMP)))";
+    }
+
+    @Override
+    public String activeSessionsSql() {
+        return "SELECT COUNT(*) AS active_sessions FROM pg_stat_activity WHERE state = 'active'";
+    }
+
+    @Override
+    public String replicationLagSql() {
+        // 已回放到接收位置时没有待应用的变更，避免主库空闲时回放时间戳停滞被误判为延迟
+        return "SELECT CASE WHEN NOT pg_is_in_recovery() " +
+               "OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+               "ELSE CAST(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) AS BIGINT) END AS lag_seconds";
+    }
+
+    @Override
+    public String upsertSql(String table, List<String> columns, List<String> keyColumns) {
+        List<String> assignments = new ArrayList<>();
+        for (String column : columns) {
+            if (!keyColumns.contains(column)) {
+                assignments.add(column + " = EXCLUDED." + column);
+            }
+        }
+        return DbDialect.insertSql(table, columns) + " ON CONFLICT (" + String.join(", ", keyColumns) +
+               ") DO UPDATE SET " + String.join(", ", assignments);
+    }
+}
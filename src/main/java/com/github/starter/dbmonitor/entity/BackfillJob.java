@@ -0,0 +1,80 @@
+package com.github.starter.dbmonitor.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 历史数据回填任务实体
+ */
+@Data
+@NoArgsConstructor
+public class BackfillJob {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+    public static final String STATUS_CANCELLED = "CANCELLED";
+
+    /**
+     * 主键ID
+     */
+    private Long id;
+
+    /**
+     * 监控配置ID
+     */
+    private Long configId;
+
+    /**
+     * 回填开始时间（已按统计间隔对齐）
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 回填结束时间（已有统计数据的最早时间）
+     */
+    private LocalDateTime endTime;
+
+    /**
+     * 检查点：该时间之前的时间段已回填完成
+     */
+    private LocalDateTime checkpointTime;
+
+    /**
+     * 需要回填的时间段总数
+     */
+    private Integer totalSegments;
+
+    /**
+     * 已回填的时间段数
+     */
+    private Integer completedSegments;
+
+    /**
+     * 任务状态：PENDING、RUNNING、COMPLETED、FAILED、CANCELLED
+     */
+    private String status;
+
+    /**
+     * 执行任务的节点
+     */
+    private String owner;
+
+    /**
+     * 失败原因
+     */
+    private String errorMessage;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdTime;
+
+    /**
+     * 更新时间，执行中的任务每完成一批时间段更新一次，超时未更新的任务可被其他节点接管
+     */
+    private LocalDateTime updatedTime;
+}
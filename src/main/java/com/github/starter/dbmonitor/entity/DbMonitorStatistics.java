@@ -59,6 +59,16 @@ public class DbMonitorStatistics {
      */
     private Long avgRowSizeBytes;
     
+    /**
+     * 增量数据预估索引空间大小（字节）
+     */
+    private Long estimatedIndexSizeBytes;
+    
+    /**
+     * 平均每行索引大小（字节）
+     */
+    private Long avgIndexRowSizeBytes;
+    
     /**
      * 时间间隔类型
      */
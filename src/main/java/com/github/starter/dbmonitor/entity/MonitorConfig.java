@@ -93,6 +93,16 @@ public class MonitorConfig {
      * 最后统计时间（用于断点续传）
      */
     private LocalDateTime lastStatisticTime;
+
+    /**
+     * 下次到期时间（最后统计时间加一个统计间隔），与最后统计时间一起更新
+     */
+    private LocalDateTime nextDueTime;
+
+    /**
+     * 平滑后的单次执行耗时（毫秒），用于按成本均衡分片
+     */
+    private Long runCostMillis;
     
     /**
      * 构造函数
@@ -0,0 +1,56 @@
+package com.github.starter.dbmonitor.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 表的数据库目录统计信息（来自 information_schema.tables）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TableCatalogStats {
+
+    /**
+     * 表名
+     */
+    private String tableName;
+
+    /**
+     * 表行数（数据库统计的估计值）
+     */
+    private Long tableRows;
+
+    /**
+     * 数据大小（字节）
+     */
+    private Long dataLength;
+
+    /**
+     * 索引大小（字节）
+     */
+    private Long indexLength;
+
+    /**
+     * 平均行长度（字节）
+     */
+    private Long avgRowLength;
+
+    /**
+     * 计算平均行大小：优先使用数据大小/行数，其次使用平均行长度，无法计算时返回 null
+     */
+    public Long getEffectiveAvgRowSize() {
+        if (tableRows != null && tableRows > 0 && dataLength != null && dataLength > 0) {
+            return dataLength / tableRows;
+        }
+        return avgRowLength != null && avgRowLength > 0 ? avgRowLength : null;
+    }
+
+    /**
+     * 表的总大小（数据 + 索引）
+     */
+    public long getTotalSize() {
+        return (dataLength != null ? dataLength : 0L) + (indexLength != null ? indexLength : 0L);
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.starter.dbmonitor.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 表结构元数据（来自 information_schema.columns）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TableSchema {
+
+    /**
+     * 表名
+     */
+    private String tableName;
+
+    /**
+     * 表是否存在
+     */
+    private boolean exists;
+
+    /**
+     * 按字段顺序排列的列信息
+     */
+    private List<Column> columns = new ArrayList<>();
+
+    /**
+     * 变更标记（表创建时间 + 列数量），与版本探测结果不一致时缓存失效
+     */
+    private String changeMarker;
+
+    /**
+     * 不存在的表
+     */
+    public static TableSchema missing(String tableName) {
+        return new TableSchema(tableName, false, new ArrayList<>(), null);
+    }
+
+    /**
+     * 根据表创建时间和列数量生成变更标记
+     */
+    public static String changeMarker(String createTime, long columnCount) {
+        return (createTime != null ? createTime : "") + "|" + columnCount;
+    }
+
+    /**
+     * 是否包含指定列（不区分大小写）
+     */
+    public boolean hasColumn(String columnName) {
+        for (Column column : columns) {
+            if (column.getName().equalsIgnoreCase(columnName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 列信息
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Column {
+
+        /**
+         * 列名
+         */
+        private String name;
+
+        /**
+         * 数据类型（小写）
+         */
+        private String dataType;
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.starter.dbmonitor.repository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 查询取消句柄
+ * 执行中的语句登记到句柄上，取消时对所有登记的语句调用 {@link Statement#cancel()}，取消后不再执行新的语句
+ */
+@Slf4j
+public class CancellationHandle {
+
+    private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean cancelled;
+
+    /**
+     * 取消句柄上执行中的所有语句
+     */
+    public void cancel() {
+        cancelled = true;
+        for (Statement statement : statements) {
+            try {
+                statement.cancel();
+            } catch (Exception e) {
+                log.debug("取消执行中的语句失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 登记即将执行的语句，句柄已取消时抛出 {@link SQLTimeoutException}，由查询方按句柄状态转换为 {@link QueryCancelledException}
+     */
+    void register(Statement statement) throws SQLException {
+        statements.add(statement);
+        // 先登记再检查，与 cancel 并发时语句要么被取消，要么不执行
+        if (cancelled) {
+            statements.remove(statement);
+            throw new SQLTimeoutException("查询已取消");
+        }
+    }
+
+    void unregister(Statement statement) {
+        statements.remove(statement);
+    }
+}
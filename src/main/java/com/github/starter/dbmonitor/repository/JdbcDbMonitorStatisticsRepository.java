@@ -1,22 +1,32 @@
 package com.github.starter.dbmonitor.repository;
 
 import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.dialect.DbDialect;
 import com.github.starter.dbmonitor.entity.DbMonitorStatistics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -27,6 +37,21 @@ import java.util.Optional;
 @Slf4j
 public class JdbcDbMonitorStatisticsRepository extends MultiDataSourceRepository {
 
+    /**
+     * 统计记录写入的列
+     */
+    private static final List<String> COLUMNS = Arrays.asList(
+            "data_source_name", "table_name", "statistic_time", "start_time", "end_time",
+            "increment_count", "estimated_disk_size_bytes", "avg_row_size_bytes",
+            "estimated_index_size_bytes", "avg_index_row_size_bytes",
+            "interval_type", "interval_value", "created_time", "additional_info");
+
+    /**
+     * 统计记录的唯一键，同一表的同一时间段只保留一条记录
+     */
+    private static final List<String> UNIQUE_KEY_COLUMNS = Arrays.asList(
+            "data_source_name", "table_name", "start_time", "end_time");
+
     @Autowired
     private DbMonitorProperties dbMonitorProperties;
 
@@ -58,6 +83,22 @@ public class JdbcDbMonitorStatisticsRepository extends MultiDataSourceRepository
         String dataSourceName = getConfigDataSourceName();
         return getJdbcTemplate(dataSourceName);
     }
+
+    /**
+     * 获取统计数据所在的数据源名称
+     */
+    public String getStatisticsDataSourceName() {
+        return getConfigDataSourceName();
+    }
+
+    /**
+     * 在统计数据源的事务中执行（统计数据源可能不是 Spring 默认事务管理器所管理的数据源）
+     */
+    public <T> T executeInTransaction(TransactionCallback<T> action) {
+        DataSourceTransactionManager transactionManager =
+                new DataSourceTransactionManager(getConfigJdbcTemplate().getDataSource());
+        return new TransactionTemplate(transactionManager).execute(action);
+    }
     
     // RowMapper for DbMonitorStatistics
     private final RowMapper<DbMonitorStatistics> rowMapper = new RowMapper<DbMonitorStatistics>() {
@@ -76,6 +117,8 @@ public class JdbcDbMonitorStatisticsRepository extends MultiDataSourceRepository
             statistics.setIncrementCount(rs.getLong("increment_count"));
             statistics.setEstimatedDiskSizeBytes(rs.getLong("estimated_disk_size_bytes"));
             statistics.setAvgRowSizeBytes(rs.getLong("avg_row_size_bytes"));
+            statistics.setEstimatedIndexSizeBytes(rs.getLong("estimated_index_size_bytes"));
+            statistics.setAvgIndexRowSizeBytes(rs.getLong("avg_index_row_size_bytes"));
             statistics.setIntervalType(rs.getString("interval_type"));
             statistics.setIntervalValue(rs.getInt("interval_value"));
             statistics.setCreatedTime(rs.getTimestamp("created_time") != null ? 
@@ -105,10 +148,13 @@ public class JdbcDbMonitorStatisticsRepository extends MultiDataSourceRepository
                 "increment_count BIGINT DEFAULT 0, " +
                 "estimated_disk_size_bytes BIGINT DEFAULT 0, " +
                 "avg_row_size_bytes BIGINT DEFAULT 0, " +
+                "estimated_index_size_bytes BIGINT DEFAULT 0, " +
+                "avg_index_row_size_bytes BIGINT DEFAULT 0, " +
                 "interval_type VARCHAR(20) NOT NULL, " +
                 "interval_value INT NOT NULL, " +
                 "created_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
                 "additional_info TEXT, " +
+                "UNIQUE KEY uk_data_source_table_range (data_source_name, table_name, start_time, end_time), " +
                 "INDEX idx_data_source_table_time (data_source_name, table_name, statistic_time), " +
                 "INDEX idx_statistic_time (statistic_time), " +
                 "INDEX idx_created_time (created_time)" +
@@ -131,8 +177,9 @@ public class JdbcDbMonitorStatisticsRepository extends MultiDataSourceRepository
         String sql = "INSERT INTO " + tableName +
                 " (data_source_name, table_name, statistic_time, start_time, end_time, " +
                 "increment_count, estimated_disk_size_bytes, avg_row_size_bytes, " +
+                "estimated_index_size_bytes, avg_index_row_size_bytes, " +
                 "interval_type, interval_value, created_time, additional_info) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
         KeyHolder keyHolder = new GeneratedKeyHolder();
         
@@ -146,10 +193,12 @@ public class JdbcDbMonitorStatisticsRepository extends MultiDataSourceRepository
             ps.setLong(6, statistics.getIncrementCount() != null ? statistics.getIncrementCount() : 0L);
             ps.setLong(7, statistics.getEstimatedDiskSizeBytes() != null ? statistics.getEstimatedDiskSizeBytes() : 0L);
             ps.setLong(8, statistics.getAvgRowSizeBytes() != null ? statistics.getAvgRowSizeBytes() : 0L);
-            ps.setString(9, statistics.getIntervalType());
-            ps.setInt(10, statistics.getIntervalValue());
-            ps.setObject(11, statistics.getCreatedTime() != null ? statistics.getCreatedTime() : LocalDateTime.now());
-            ps.setString(12, statistics.getAdditionalInfo());
+            ps.setLong(9, statistics.getEstimatedIndexSizeBytes() != null ? statistics.getEstimatedIndexSizeBytes() : 0L);
+            ps.setLong(10, statistics.getAvgIndexRowSizeBytes() != null ? statistics.getAvgIndexRowSizeBytes() : 0L);
+            ps.setString(11, statistics.getIntervalType());
+            ps.setInt(12, statistics.getIntervalValue());
+            ps.setObject(13, statistics.getCreatedTime() != null ? statistics.getCreatedTime() : LocalDateTime.now());
+            ps.setString(14, statistics.getAdditionalInfo());
             return ps;
         }, keyHolder);
         
@@ -160,6 +209,78 @@ public class JdbcDbMonitorStatisticsRepository extends MultiDataSourceRepository
         return statistics;
     }
     
+    /**
+     * 按 (数据源, 表名, 开始时间, 结束时间) 插入或覆盖统计记录，同一时间段被重复统计时不会产生重复记录
+     */
+    public DbMonitorStatistics upsert(DbMonitorStatistics statistics) {
+        String tableName = getTableName();
+        Object[] values = columnValues(statistics);
+        String upsertSql = getDialect(getConfigDataSourceName()).upsertSql(tableName, COLUMNS, UNIQUE_KEY_COLUMNS);
+
+        if (upsertSql != null) {
+            getConfigJdbcTemplate().update(upsertSql, values);
+        } else if (updateByUniqueKey(tableName, values) == 0) {
+            try {
+                getConfigJdbcTemplate().update(DbDialect.insertSql(tableName, COLUMNS), values);
+            } catch (DuplicateKeyException e) {
+                // 并发插入了同一时间段，改为覆盖
+                updateByUniqueKey(tableName, values);
+            }
+        }
+
+        String sql = "SELECT id FROM " + tableName +
+                " WHERE data_source_name = ? AND table_name = ? AND start_time = ? AND end_time = ?";
+        List<Long> ids = getConfigJdbcTemplate().queryForList(sql, Long.class, statistics.getDataSourceName(),
+                statistics.getTableName(), statistics.getStartTime(), statistics.getEndTime());
+        if (!ids.isEmpty()) {
+            statistics.setId(ids.get(0));
+        }
+        return statistics;
+    }
+
+    /**
+     * 按唯一键更新非键列，values 与 COLUMNS 顺序一致
+     */
+    private int updateByUniqueKey(String tableName, Object[] values) {
+        List<String> assignments = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        List<Object> keyParams = new ArrayList<>();
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            if (UNIQUE_KEY_COLUMNS.contains(COLUMNS.get(i))) {
+                keyParams.add(values[i]);
+            } else {
+                assignments.add(COLUMNS.get(i) + " = ?");
+                params.add(values[i]);
+            }
+        }
+        params.addAll(keyParams);
+        String sql = "UPDATE " + tableName + " SET " + String.join(", ", assignments) +
+                " WHERE data_source_name = ? AND table_name = ? AND start_time = ? AND end_time = ?";
+        return getConfigJdbcTemplate().update(sql, params.toArray());
+    }
+
+    /**
+     * 统计记录各列的值，与 COLUMNS 顺序一致
+     */
+    private Object[] columnValues(DbMonitorStatistics statistics) {
+        return new Object[]{
+                statistics.getDataSourceName(),
+                statistics.getTableName(),
+                statistics.getStatisticTime(),
+                statistics.getStartTime(),
+                statistics.getEndTime(),
+                statistics.getIncrementCount() != null ? statistics.getIncrementCount() : 0L,
+                statistics.getEstimatedDiskSizeBytes() != null ? statistics.getEstimatedDiskSizeBytes() : 0L,
+                statistics.getAvgRowSizeBytes() != null ? statistics.getAvgRowSizeBytes() : 0L,
+                statistics.getEstimatedIndexSizeBytes() != null ? statistics.getEstimatedIndexSizeBytes() : 0L,
+                statistics.getAvgIndexRowSizeBytes() != null ? statistics.getAvgIndexRowSizeBytes() : 0L,
+                statistics.getIntervalType(),
+                statistics.getIntervalValue(),
+                statistics.getCreatedTime() != null ? statistics.getCreatedTime() : LocalDateTime.now(),
+                statistics.getAdditionalInfo()
+        };
+    }
+
     /**
      * 批量插入统计记录
      */
@@ -172,8 +293,9 @@ public class JdbcDbMonitorStatisticsRepository extends MultiDataSourceRepository
         String sql = "INSERT INTO " + tableName +
                 " (data_source_name, table_name, statistic_time, start_time, end_time, " +
                 "increment_count, estimated_disk_size_bytes, avg_row_size_bytes, " +
+                "estimated_index_size_bytes, avg_index_row_size_bytes, " +
                 "interval_type, interval_value, created_time, additional_info) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
         return getConfigJdbcTemplate().batchUpdate(sql, statisticsList, statisticsList.size(),
                 (ps, statistics) -> {
@@ -185,10 +307,12 @@ public class JdbcDbMonitorStatisticsRepository extends MultiDataSourceRepository
                     ps.setLong(6, statistics.getIncrementCount() != null ? statistics.getIncrementCount() : 0L);
                     ps.setLong(7, statistics.getEstimatedDiskSizeBytes() != null ? statistics.getEstimatedDiskSizeBytes() : 0L);
                     ps.setLong(8, statistics.getAvgRowSizeBytes() != null ? statistics.getAvgRowSizeBytes() : 0L);
-                    ps.setString(9, statistics.getIntervalType());
-                    ps.setInt(10, statistics.getIntervalValue());
-                    ps.setObject(11, statistics.getCreatedTime() != null ? statistics.getCreatedTime() : LocalDateTime.now());
-                    ps.setString(12, statistics.getAdditionalInfo());
+                    ps.setLong(9, statistics.getEstimatedIndexSizeBytes() != null ? statistics.getEstimatedIndexSizeBytes() : 0L);
+                    ps.setLong(10, statistics.getAvgIndexRowSizeBytes() != null ? statistics.getAvgIndexRowSizeBytes() : 0L);
+                    ps.setString(11, statistics.getIntervalType());
+                    ps.setInt(12, statistics.getIntervalValue());
+                    ps.setObject(13, statistics.getCreatedTime() != null ? statistics.getCreatedTime() : LocalDateTime.now());
+                    ps.setString(14, statistics.getAdditionalInfo());
                 }).length;
     }
     
@@ -253,6 +377,39 @@ public class JdbcDbMonitorStatisticsRepository extends MultiDataSourceRepository
         }
     }
 
+    /**
+     * 获取指定数据源和表最早的统计开始时间，没有统计记录时返回 null
+     */
+    public LocalDateTime findEarliestStartTime(String dataSourceName, String tableName) {
+        String sql = "SELECT MIN(start_time) FROM " + getTableName() + " WHERE data_source_name = ? AND table_name = ?";
+        Timestamp earliest = getConfigJdbcTemplate().queryForObject(sql, Timestamp.class,
+                dataSourceName, tableName);
+        return earliest != null ? earliest.toLocalDateTime() : null;
+    }
+
+    /**
+     * 查询每个 (数据源, 表) 最新的一条统计记录
+     * 使用单条分组查询覆盖所有数据源，避免逐个数据源扫描完整历史
+     */
+    public List<DbMonitorStatistics> findLatestPerDataSourceAndTable() {
+        String tableName = getTableName();
+        String sql = "SELECT s.* FROM " + tableName + " s " +
+                "INNER JOIN (SELECT data_source_name, table_name, MAX(statistic_time) AS max_statistic_time " +
+                "FROM " + tableName + " GROUP BY data_source_name, table_name) latest " +
+                "ON s.data_source_name = latest.data_source_name " +
+                "AND s.table_name = latest.table_name " +
+                "AND s.statistic_time = latest.max_statistic_time " +
+                "ORDER BY s.data_source_name, s.table_name, s.id DESC";
+        List<DbMonitorStatistics> rows = getConfigJdbcTemplate().query(sql, rowMapper);
+
+        // 同一统计时间可能存在多条记录，只保留ID最大的一条
+        Map<String, DbMonitorStatistics> latest = new LinkedHashMap<>();
+        for (DbMonitorStatistics row : rows) {
+            latest.putIfAbsent(row.getDataSourceName() + "." + row.getTableName(), row);
+        }
+        return new ArrayList<>(latest.values());
+    }
+
     /**
      * 删除指定时间之前的记录
      */
@@ -280,6 +437,7 @@ public class JdbcDbMonitorStatisticsRepository extends MultiDataSourceRepository
         String sql = "UPDATE " + tableName + " SET " +
                 "data_source_name = ?, table_name = ?, statistic_time = ?, start_time = ?, end_time = ?, " +
                 "increment_count = ?, estimated_disk_size_bytes = ?, avg_row_size_bytes = ?, " +
+                "estimated_index_size_bytes = ?, avg_index_row_size_bytes = ?, " +
                 "interval_type = ?, interval_value = ?, additional_info = ? WHERE id = ?";
 
         int rows = getConfigJdbcTemplate().update(sql,
@@ -291,6 +449,8 @@ public class JdbcDbMonitorStatisticsRepository extends MultiDataSourceRepository
                 statistics.getIncrementCount(),
                 statistics.getEstimatedDiskSizeBytes(),
                 statistics.getAvgRowSizeBytes(),
+                statistics.getEstimatedIndexSizeBytes(),
+                statistics.getAvgIndexRowSizeBytes(),
                 statistics.getIntervalType(),
                 statistics.getIntervalValue(),
                 statistics.getAdditionalInfo(),
@@ -308,6 +468,16 @@ public class JdbcDbMonitorStatisticsRepository extends MultiDataSourceRepository
         return getConfigJdbcTemplate().queryForObject(sql, Long.class);
     }
 
+    /**
+     * 获取最大记录ID（用于感知统计数据变化）
+     */
+    public long findMaxId() {
+        String tableName = getTableName();
+        String sql = "SELECT MAX(id) FROM " + tableName;
+        Long maxId = getConfigJdbcTemplate().queryForObject(sql, Long.class);
+        return maxId != null ? maxId : 0L;
+    }
+
     /**
      * 统计指定数据源和表的记录数
      */
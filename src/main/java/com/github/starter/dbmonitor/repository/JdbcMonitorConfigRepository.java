@@ -1,22 +1,29 @@
 package com.github.starter.dbmonitor.repository;
 
 import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.BackfillJob;
 import com.github.starter.dbmonitor.entity.MonitorConfig;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -37,10 +44,24 @@ public class JdbcMonitorConfigRepository extends MultiDataSourceRepository {
         return dbMonitorProperties.getConfigTable().getTableName();
     }
 
+    /**
+     * 获取配置版本表名，配置表的增删改和启停都会使版本号加一
+     */
+    private String getVersionTableName() {
+        return getTableName() + "_version";
+    }
+
+    /**
+     * 获取历史数据回填任务表名
+     */
+    private String getBackfillTableName() {
+        return getTableName() + "_backfill";
+    }
+
     /**
      * 获取配置存储数据源名称
      */
-    private String getConfigDataSourceName() {
+    public String getConfigDataSourceName() {
         // 优先使用配置表专门的数据源配置
         if (dbMonitorProperties.getConfigTable().getDataSourceName() != null &&
             !dbMonitorProperties.getConfigTable().getDataSourceName().trim().isEmpty()) {
@@ -64,6 +85,15 @@ public class JdbcMonitorConfigRepository extends MultiDataSourceRepository {
         String dataSourceName = getConfigDataSourceName();
         return getJdbcTemplate(dataSourceName);
     }
+
+    /**
+     * 在配置存储数据源的事务中执行（配置数据源可能不是 Spring 默认事务管理器所管理的数据源）
+     */
+    public <T> T executeInTransaction(TransactionCallback<T> action) {
+        DataSourceTransactionManager transactionManager =
+                new DataSourceTransactionManager(getConfigJdbcTemplate().getDataSource());
+        return new TransactionTemplate(transactionManager).execute(action);
+    }
     
     // RowMapper for MonitorConfig
     private final RowMapper<MonitorConfig> rowMapper = new RowMapper<MonitorConfig>() {
@@ -94,6 +124,14 @@ public class JdbcMonitorConfigRepository extends MultiDataSourceRepository {
                 config.setLastStatisticTime(lastStatisticTimestamp.toLocalDateTime());
             }
 
+            java.sql.Timestamp nextDueTimestamp = rs.getTimestamp("next_due_time");
+            if (nextDueTimestamp != null) {
+                config.setNextDueTime(nextDueTimestamp.toLocalDateTime());
+            }
+
+            long runCostMillis = rs.getLong("run_cost_millis");
+            config.setRunCostMillis(rs.wasNull() ? null : runCostMillis);
+
             return config;
         }
     };
@@ -125,12 +163,20 @@ public class JdbcMonitorConfigRepository extends MultiDataSourceRepository {
                 "updated_by VARCHAR(100), " +
                 "extend_config TEXT, " +
                 "last_statistic_time TIMESTAMP NULL, " +
+                "run_cost_millis BIGINT NULL, " +
+                "next_due_time TIMESTAMP NULL, " +
+                "lease_owner VARCHAR(100) NULL, " +
+                "lease_until TIMESTAMP NULL, " +
                 "INDEX idx_data_source_table (data_source_name, table_name), " +
-                "INDEX idx_enabled (enabled)" +
+                "INDEX idx_enabled (enabled), " +
+                "INDEX idx_lease_until (lease_until), " +
+                "INDEX idx_next_due_time (next_due_time)" +
                 ")";
 
         try {
             getConfigJdbcTemplate().execute(sql);
+            createVersionTableIfNotExists();
+            createBackfillTableIfNotExists();
             log.info("监控配置表 {} 创建或已存在，数据源: {}", tableName, getConfigDataSourceName());
         } catch (Exception e) {
             log.error("创建监控配置表 {} 失败: {}", tableName, e.getMessage(), e);
@@ -138,6 +184,71 @@ public class JdbcMonitorConfigRepository extends MultiDataSourceRepository {
         }
     }
     
+    /**
+     * 创建配置版本表并写入初始版本
+     */
+    private void createVersionTableIfNotExists() {
+        String versionTableName = getVersionTableName();
+        getConfigJdbcTemplate().execute("CREATE TABLE IF NOT EXISTS " + versionTableName + " (" +
+                "id INT PRIMARY KEY, " +
+                "version BIGINT NOT NULL DEFAULT 0, " +
+                "updated_time TIMESTAMP NULL" +
+                ")");
+        Integer rows = getConfigJdbcTemplate().queryForObject(
+                "SELECT COUNT(*) FROM " + versionTableName + " WHERE id = 1", Integer.class);
+        if (rows == null || rows == 0) {
+            getConfigJdbcTemplate().update("INSERT INTO " + versionTableName +
+                    " (id, version, updated_time) VALUES (1, 0, ?)", LocalDateTime.now());
+        }
+    }
+
+    /**
+     * 创建历史数据回填任务表
+     */
+    private void createBackfillTableIfNotExists() {
+        getConfigJdbcTemplate().execute("CREATE TABLE IF NOT EXISTS " + getBackfillTableName() + " (" +
+                "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "config_id BIGINT NOT NULL, " +
+                "start_time TIMESTAMP NOT NULL, " +
+                "end_time TIMESTAMP NOT NULL, " +
+                "checkpoint_time TIMESTAMP NOT NULL, " +
+                "total_segments INT NOT NULL, " +
+                "completed_segments INT NOT NULL DEFAULT 0, " +
+                "status VARCHAR(20) NOT NULL, " +
+                "owner VARCHAR(100) NULL, " +
+                "error_message TEXT, " +
+                "created_time TIMESTAMP NULL, " +
+                "updated_time TIMESTAMP NULL, " +
+                "INDEX idx_backfill_config (config_id), " +
+                "INDEX idx_backfill_status (status, updated_time)" +
+                ")");
+    }
+
+    /**
+     * 查询配置版本号
+     */
+    public long findConfigVersion() {
+        String sql = "SELECT version FROM " + getVersionTableName() + " WHERE id = 1";
+        try {
+            Long version = getConfigJdbcTemplate().queryForObject(sql, Long.class);
+            return version != null ? version : 0L;
+        } catch (EmptyResultDataAccessException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * 配置版本号加一，版本表不可用时只记录日志，不影响配置写入
+     */
+    private void incrementConfigVersion() {
+        String sql = "UPDATE " + getVersionTableName() + " SET version = version + 1, updated_time = ? WHERE id = 1";
+        try {
+            getConfigJdbcTemplate().update(sql, LocalDateTime.now());
+        } catch (Exception e) {
+            log.warn("更新监控配置版本号失败，启用配置缓存将依赖最大缓存时间刷新: {}", e.getMessage());
+        }
+    }
+
     /**
      * 插入监控配置
      */
@@ -173,10 +284,55 @@ public class JdbcMonitorConfigRepository extends MultiDataSourceRepository {
         if (keyHolder.getKey() != null) {
             config.setId(keyHolder.getKey().longValue());
         }
+        incrementConfigVersion();
         
         return config;
     }
     
+    /**
+     * 批量插入监控配置（JDBC 批处理，不回填自增ID）
+     */
+    public int batchInsert(List<MonitorConfig> configs) {
+        if (configs == null || configs.isEmpty()) {
+            return 0;
+        }
+
+        String tableName = getTableName();
+        String sql = "INSERT INTO " + tableName +
+                " (config_name, data_source_name, table_name, time_column_name, time_column_type, " +
+                "enabled, interval_type, interval_value, description, created_time, updated_time, " +
+                "created_by, updated_by, extend_config, last_statistic_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+        int[][] results = getConfigJdbcTemplate().batchUpdate(sql, configs, configs.size(),
+                (ps, config) -> {
+                    ps.setString(1, config.getConfigName());
+                    ps.setString(2, config.getDataSourceName());
+                    ps.setString(3, config.getTableName());
+                    ps.setString(4, config.getTimeColumnName());
+                    ps.setString(5, config.getTimeColumnType());
+                    ps.setBoolean(6, config.getEnabled() != null ? config.getEnabled() : true);
+                    ps.setString(7, config.getIntervalType() != null ? config.getIntervalType() : "MINUTES");
+                    ps.setInt(8, config.getIntervalValue() != null ? config.getIntervalValue() : 10);
+                    ps.setString(9, config.getDescription());
+                    ps.setObject(10, config.getCreatedTime() != null ? config.getCreatedTime() : LocalDateTime.now());
+                    ps.setObject(11, config.getUpdatedTime() != null ? config.getUpdatedTime() : LocalDateTime.now());
+                    ps.setString(12, config.getCreatedBy());
+                    ps.setString(13, config.getUpdatedBy());
+                    ps.setString(14, config.getExtendConfig());
+                    ps.setObject(15, config.getLastStatisticTime());
+                });
+
+        int inserted = 0;
+        for (int[] batch : results) {
+            for (int rows : batch) {
+                // 部分驱动返回 SUCCESS_NO_INFO（-2），按成功一行计
+                inserted += rows == Statement.SUCCESS_NO_INFO ? 1 : rows;
+            }
+        }
+        incrementConfigVersion();
+        return inserted;
+    }
+
     /**
      * 更新监控配置
      */
@@ -204,6 +360,9 @@ public class JdbcMonitorConfigRepository extends MultiDataSourceRepository {
                 config.getUpdatedBy(),
                 config.getExtendConfig(),
                 config.getId());
+        if (rows > 0) {
+            incrementConfigVersion();
+        }
         
         return rows > 0;
     }
@@ -245,6 +404,21 @@ public class JdbcMonitorConfigRepository extends MultiDataSourceRepository {
         return getConfigJdbcTemplate().query(sql, rowMapper);
     }
 
+    /**
+     * 查找所有监控配置的唯一性字段（配置名称、数据源、表名），用于批量导入时的重复检查
+     */
+    public List<MonitorConfig> findAllIdentities() {
+        String tableName = getTableName();
+        String sql = "SELECT config_name, data_source_name, table_name FROM " + tableName;
+        return getConfigJdbcTemplate().query(sql, (rs, rowNum) -> {
+            MonitorConfig config = new MonitorConfig();
+            config.setConfigName(rs.getString("config_name"));
+            config.setDataSourceName(rs.getString("data_source_name"));
+            config.setTableName(rs.getString("table_name"));
+            return config;
+        });
+    }
+
     /**
      * 查找启用的监控配置
      */
@@ -272,6 +446,15 @@ public class JdbcMonitorConfigRepository extends MultiDataSourceRepository {
         return getConfigJdbcTemplate().query(sql, rowMapper, dataSourceName);
     }
 
+    /**
+     * 查找所有配置了监控的数据源名称
+     */
+    public List<String> findDistinctDataSourceNames() {
+        String tableName = getTableName();
+        String sql = "SELECT DISTINCT data_source_name FROM " + tableName + " ORDER BY data_source_name";
+        return getConfigJdbcTemplate().queryForList(sql, String.class);
+    }
+
     /**
      * 根据数据源和表名查找监控配置
      */
@@ -296,6 +479,148 @@ public class JdbcMonitorConfigRepository extends MultiDataSourceRepository {
         return rows > 0;
     }
 
+    /**
+     * 更新监控配置的最后统计时间和下次到期时间
+     */
+    public boolean updateLastStatisticTime(Long configId, LocalDateTime lastStatisticTime, LocalDateTime nextDueTime) {
+        String tableName = getTableName();
+        String sql = "UPDATE " + tableName + " SET last_statistic_time = ?, next_due_time = ?, updated_time = ? WHERE id = ?";
+        int rows = getConfigJdbcTemplate().update(sql, lastStatisticTime, nextDueTime, LocalDateTime.now(), configId);
+        return rows > 0;
+    }
+
+    /**
+     * 查找已到期的启用配置：下次到期时间为空（从未统计或尚未写入）或不晚于指定时间
+     */
+    public List<MonitorConfig> findDueEnabled(LocalDateTime dueBefore) {
+        String tableName = getTableName();
+        String sql = "SELECT * FROM " + tableName +
+                " WHERE enabled = TRUE AND (next_due_time IS NULL OR next_due_time <= ?) ORDER BY next_due_time, id";
+        return getConfigJdbcTemplate().query(sql, rowMapper, dueBefore);
+    }
+
+    /**
+     * 查找已到期的启用配置（支持分片）
+     */
+    public List<MonitorConfig> findDueEnabledWithSharding(LocalDateTime dueBefore, int shardIndex, int shardTotal) {
+        String tableName = getTableName();
+        String sql = "SELECT * FROM " + tableName + " WHERE enabled = TRUE AND ABS(id) % ? = ? " +
+                "AND (next_due_time IS NULL OR next_due_time <= ?) ORDER BY next_due_time, id";
+        return getConfigJdbcTemplate().query(sql, rowMapper, shardTotal, shardIndex, dueBefore);
+    }
+
+    /**
+     * 批量更新监控配置的执行成本，分片分配依赖该值，因此整批只更新一次配置版本号
+     *
+     * @param runCosts 配置ID -> 执行成本（毫秒）
+     * @return 实际更新的配置数
+     */
+    public int updateRunCosts(Map<Long, Long> runCosts) {
+        if (runCosts == null || runCosts.isEmpty()) {
+            return 0;
+        }
+        String tableName = getTableName();
+        String sql = "UPDATE " + tableName + " SET run_cost_millis = ? WHERE id = ?";
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(runCosts.entrySet());
+        int[][] results = getConfigJdbcTemplate().batchUpdate(sql, entries, entries.size(),
+                (ps, entry) -> {
+                    ps.setLong(1, entry.getValue());
+                    ps.setLong(2, entry.getKey());
+                });
+        int rows = 0;
+        for (int[] batch : results) {
+            for (int count : batch) {
+                rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+            }
+        }
+        if (rows > 0) {
+            incrementConfigVersion();
+        }
+        return rows;
+    }
+
+    /**
+     * 抢占一批可执行的监控配置：已启用、租约空闲或已过期、且最后统计时间早于 claimBefore（本轮尚未执行），
+     * dueBefore 不为空时还要求下次到期时间不晚于该时间。
+     * 先按方言限制行数查询候选配置，再带着同样的条件做条件更新，多个执行器并发抢占同一配置时只有一个能更新成功；
+     * 租约变化不影响分片分配，因此不更新配置版本号
+     *
+     * @return 本次抢占成功的配置
+     */
+    public List<MonitorConfig> claimConfigs(String leaseOwner, int batchSize, LocalDateTime now,
+                                            LocalDateTime leaseUntil, LocalDateTime claimBefore,
+                                            LocalDateTime dueBefore) {
+        String tableName = getTableName();
+        String claimable = "enabled = TRUE AND (lease_until IS NULL OR lease_until <= ?) " +
+                "AND (last_statistic_time IS NULL OR last_statistic_time < ?)" +
+                (dueBefore != null ? " AND (next_due_time IS NULL OR next_due_time <= ?)" : "");
+        List<Object> claimableParams = new ArrayList<>();
+        claimableParams.add(now);
+        claimableParams.add(claimBefore);
+        if (dueBefore != null) {
+            claimableParams.add(dueBefore);
+        }
+        // 执行成本高的配置优先，缩短整轮执行的完成时间
+        String candidateSql = getDialect(getConfigDataSourceName()).limit(
+                "SELECT id FROM " + tableName + " WHERE " + claimable + " ORDER BY run_cost_millis DESC, id",
+                batchSize);
+        List<Long> candidateIds = getConfigJdbcTemplate().queryForList(candidateSql, Long.class,
+                claimableParams.toArray());
+        if (candidateIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        String idPlaceholders = String.join(",", Collections.nCopies(candidateIds.size(), "?"));
+        List<Object> params = new ArrayList<>();
+        params.add(leaseOwner);
+        params.add(leaseUntil);
+        params.addAll(candidateIds);
+        params.addAll(claimableParams);
+        int rows = getConfigJdbcTemplate().update("UPDATE " + tableName +
+                " SET lease_owner = ?, lease_until = ? WHERE id IN (" + idPlaceholders + ") AND " + claimable,
+                params.toArray());
+        if (rows == 0) {
+            return new ArrayList<>();
+        }
+
+        List<Object> queryParams = new ArrayList<>(candidateIds);
+        queryParams.add(leaseOwner);
+        return getConfigJdbcTemplate().query("SELECT * FROM " + tableName +
+                " WHERE id IN (" + idPlaceholders + ") AND lease_owner = ? ORDER BY run_cost_millis DESC, id",
+                rowMapper, queryParams.toArray());
+    }
+
+    /**
+     * 获取单个配置的执行租约，用于非租约模式下的跨节点单飞保护；
+     * 无持有者（包括仅处于失败重试延迟中）或租约已过期时可获取
+     */
+    public boolean tryAcquireLease(Long configId, String leaseOwner, LocalDateTime now, LocalDateTime leaseUntil) {
+        String tableName = getTableName();
+        String sql = "UPDATE " + tableName + " SET lease_owner = ?, lease_until = ? " +
+                "WHERE id = ? AND (lease_owner IS NULL OR lease_until IS NULL OR lease_until <= ?)";
+        int rows = getConfigJdbcTemplate().update(sql, leaseOwner, leaseUntil, configId, now);
+        return rows > 0;
+    }
+
+    /**
+     * 续期指定持有者所有未过期的租约，已过期的租约可能已被其他执行器接管，不再续期
+     */
+    public int renewLeases(String leaseOwner, LocalDateTime now, LocalDateTime leaseUntil) {
+        String tableName = getTableName();
+        String sql = "UPDATE " + tableName + " SET lease_until = ? WHERE lease_owner = ? AND lease_until > ?";
+        return getConfigJdbcTemplate().update(sql, leaseUntil, leaseOwner, now);
+    }
+
+    /**
+     * 释放租约，nextClaimTime 为空表示立即可被抢占，否则在该时间之前不会被再次抢占
+     */
+    public boolean releaseLease(Long configId, String leaseOwner, LocalDateTime nextClaimTime) {
+        String tableName = getTableName();
+        String sql = "UPDATE " + tableName + " SET lease_owner = NULL, lease_until = ? WHERE id = ? AND lease_owner = ?";
+        int rows = getConfigJdbcTemplate().update(sql, nextClaimTime, configId, leaseOwner);
+        return rows > 0;
+    }
+
     /**
      * 根据ID删除监控配置
      */
@@ -303,6 +628,9 @@ public class JdbcMonitorConfigRepository extends MultiDataSourceRepository {
         String tableName = getTableName();
         String sql = "DELETE FROM " + tableName + " WHERE id = ?";
         int rows = getConfigJdbcTemplate().update(sql, id);
+        if (rows > 0) {
+            incrementConfigVersion();
+        }
         return rows > 0;
     }
     
@@ -313,6 +641,9 @@ public class JdbcMonitorConfigRepository extends MultiDataSourceRepository {
         String tableName = getTableName();
         String sql = "UPDATE " + tableName + " SET enabled = ?, updated_by = ?, updated_time = ? WHERE id = ?";
         int rows = getConfigJdbcTemplate().update(sql, enabled, updatedBy, LocalDateTime.now(), id);
+        if (rows > 0) {
+            incrementConfigVersion();
+        }
         return rows > 0;
     }
 
@@ -336,6 +667,139 @@ public class JdbcMonitorConfigRepository extends MultiDataSourceRepository {
             params[i + 3] = ids.get(i);
         }
 
-        return getConfigJdbcTemplate().update(sql, params);
+        int rows = getConfigJdbcTemplate().update(sql, params);
+        if (rows > 0) {
+            incrementConfigVersion();
+        }
+        return rows;
+    }
+
+    // RowMapper for BackfillJob
+    private final RowMapper<BackfillJob> backfillJobRowMapper = (rs, rowNum) -> {
+        BackfillJob job = new BackfillJob();
+        job.setId(rs.getLong("id"));
+        job.setConfigId(rs.getLong("config_id"));
+        job.setStartTime(rs.getTimestamp("start_time").toLocalDateTime());
+        job.setEndTime(rs.getTimestamp("end_time").toLocalDateTime());
+        job.setCheckpointTime(rs.getTimestamp("checkpoint_time").toLocalDateTime());
+        job.setTotalSegments(rs.getInt("total_segments"));
+        job.setCompletedSegments(rs.getInt("completed_segments"));
+        job.setStatus(rs.getString("status"));
+        job.setOwner(rs.getString("owner"));
+        job.setErrorMessage(rs.getString("error_message"));
+        job.setCreatedTime(rs.getTimestamp("created_time") != null ?
+            rs.getTimestamp("created_time").toLocalDateTime() : null);
+        job.setUpdatedTime(rs.getTimestamp("updated_time") != null ?
+            rs.getTimestamp("updated_time").toLocalDateTime() : null);
+        return job;
+    };
+
+    /**
+     * 插入历史数据回填任务
+     */
+    public BackfillJob insertBackfillJob(BackfillJob job) {
+        String sql = "INSERT INTO " + getBackfillTableName() +
+                " (config_id, start_time, end_time, checkpoint_time, total_segments, completed_segments, " +
+                "status, created_time, updated_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        getConfigJdbcTemplate().update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            ps.setLong(1, job.getConfigId());
+            ps.setObject(2, job.getStartTime());
+            ps.setObject(3, job.getEndTime());
+            ps.setObject(4, job.getCheckpointTime());
+            ps.setInt(5, job.getTotalSegments());
+            ps.setInt(6, job.getCompletedSegments());
+            ps.setString(7, job.getStatus());
+            ps.setObject(8, job.getCreatedTime());
+            ps.setObject(9, job.getUpdatedTime());
+            return ps;
+        }, keyHolder);
+
+        Number key = keyHolder.getKey();
+        if (key != null) {
+            job.setId(key.longValue());
+        }
+        return job;
+    }
+
+    /**
+     * 根据ID查找历史数据回填任务
+     */
+    public Optional<BackfillJob> findBackfillJob(Long id) {
+        String sql = "SELECT * FROM " + getBackfillTableName() + " WHERE id = ?";
+        List<BackfillJob> jobs = getConfigJdbcTemplate().query(sql, backfillJobRowMapper, id);
+        return jobs.isEmpty() ? Optional.empty() : Optional.of(jobs.get(0));
+    }
+
+    /**
+     * 查找监控配置的历史数据回填任务，按创建顺序倒序
+     */
+    public List<BackfillJob> findBackfillJobsByConfigId(Long configId) {
+        String sql = "SELECT * FROM " + getBackfillTableName() + " WHERE config_id = ? ORDER BY id DESC";
+        return getConfigJdbcTemplate().query(sql, backfillJobRowMapper, configId);
+    }
+
+    /**
+     * 查找可执行的回填任务：待执行，或执行中但超过 staleBefore 未更新（执行节点宕机）
+     */
+    public List<BackfillJob> findRunnableBackfillJobs(LocalDateTime staleBefore) {
+        String sql = "SELECT * FROM " + getBackfillTableName() + " WHERE status = ? " +
+                "OR (status = ? AND (updated_time IS NULL OR updated_time < ?)) ORDER BY id";
+        return getConfigJdbcTemplate().query(sql, backfillJobRowMapper,
+                BackfillJob.STATUS_PENDING, BackfillJob.STATUS_RUNNING, staleBefore);
+    }
+
+    /**
+     * 抢占回填任务，与查询时的条件相同，多个节点并发抢占同一任务时只有一个能更新成功
+     */
+    public boolean claimBackfillJob(Long id, String owner, LocalDateTime now, LocalDateTime staleBefore) {
+        String sql = "UPDATE " + getBackfillTableName() + " SET status = ?, owner = ?, error_message = NULL, " +
+                "updated_time = ? WHERE id = ? AND (status = ? " +
+                "OR (status = ? AND (updated_time IS NULL OR updated_time < ?)))";
+        return getConfigJdbcTemplate().update(sql, BackfillJob.STATUS_RUNNING, owner, now, id,
+                BackfillJob.STATUS_PENDING, BackfillJob.STATUS_RUNNING, staleBefore) > 0;
+    }
+
+    /**
+     * 推进回填检查点，任务已取消或已被其他节点接管时返回 false
+     */
+    public boolean updateBackfillCheckpoint(Long id, String owner, LocalDateTime checkpointTime,
+                                            int completedSegments, LocalDateTime now) {
+        String sql = "UPDATE " + getBackfillTableName() + " SET checkpoint_time = ?, completed_segments = ?, " +
+                "updated_time = ? WHERE id = ? AND owner = ? AND status = ?";
+        return getConfigJdbcTemplate().update(sql, checkpointTime, completedSegments, now, id, owner,
+                BackfillJob.STATUS_RUNNING) > 0;
+    }
+
+    /**
+     * 结束回填任务（完成或失败）
+     */
+    public boolean finishBackfillJob(Long id, String owner, String status, String errorMessage, LocalDateTime now) {
+        String sql = "UPDATE " + getBackfillTableName() + " SET status = ?, error_message = ?, updated_time = ? " +
+                "WHERE id = ? AND owner = ? AND status = ?";
+        return getConfigJdbcTemplate().update(sql, status, errorMessage, now, id, owner,
+                BackfillJob.STATUS_RUNNING) > 0;
+    }
+
+    /**
+     * 取消待执行或执行中的回填任务，执行中的任务在完成当前批次后停止
+     */
+    public boolean cancelBackfillJob(Long id, LocalDateTime now) {
+        String sql = "UPDATE " + getBackfillTableName() + " SET status = ?, updated_time = ? " +
+                "WHERE id = ? AND status IN (?, ?)";
+        return getConfigJdbcTemplate().update(sql, BackfillJob.STATUS_CANCELLED, now, id,
+                BackfillJob.STATUS_PENDING, BackfillJob.STATUS_RUNNING) > 0;
+    }
+
+    /**
+     * 从检查点恢复失败或已取消的回填任务
+     */
+    public boolean resumeBackfillJob(Long id, LocalDateTime now) {
+        String sql = "UPDATE " + getBackfillTableName() + " SET status = ?, updated_time = ? " +
+                "WHERE id = ? AND status IN (?, ?)";
+        return getConfigJdbcTemplate().update(sql, BackfillJob.STATUS_PENDING, now, id,
+                BackfillJob.STATUS_FAILED, BackfillJob.STATUS_CANCELLED) > 0;
     }
 }
@@ -1,28 +1,83 @@
 package com.github.starter.dbmonitor.repository;
 
 import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.dialect.DbDialect;
+import com.github.starter.dbmonitor.entity.TableCatalogStats;
+import com.github.starter.dbmonitor.entity.TableSchema;
+import com.github.starter.dbmonitor.service.IsolatedPoolService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
 import org.springframework.stereotype.Repository;
 
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 基于JdbcTemplate的轻量级表操作数据访问层
  * 支持多数据源操作，避免引入MyBatis等重量级ORM框架
+ * 与数据库相关的 SQL 由各数据源的 {@link DbDialect} 生成
  */
 @Repository
 @Slf4j
 public class JdbcTableOperationRepository extends MultiDataSourceRepository {
 
+    /**
+     * 批量查询目录统计信息时单条 IN 查询的最大表数量
+     */
+    private static final int CATALOG_BATCH_SIZE = 500;
+
+    /**
+     * 只读副本名称 -> 最近一次复制延迟采样
+     */
+    private final Map<String, ReplicaLag> replicaLags = new ConcurrentHashMap<>();
+
+    /**
+     * 数据源名称 -> 执行成功的复制延迟查询语句下标
+     */
+    private final Map<String, Integer> replicationLagSqlIndexes = new ConcurrentHashMap<>();
+
     @Autowired
     private DbMonitorProperties dbMonitorProperties;
 
+    @Autowired
+    private IsolatedPoolService isolatedPoolService;
+
+    /**
+     * 启用专用连接池时，被监控数据源的查询使用监控专用连接池并设置语句超时
+     */
+    @Override
+    protected JdbcTemplate createJdbcTemplate(String dataSourceName) {
+        DataSource pool = isolatedPoolService.getPool(dataSourceName);
+        if (pool == null) {
+            return super.createJdbcTemplate(dataSourceName);
+        }
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(pool);
+        if (isolatedPoolService.getStatementTimeoutSeconds() > 0) {
+            jdbcTemplate.setQueryTimeout(isolatedPoolService.getStatementTimeoutSeconds());
+        }
+        return jdbcTemplate;
+    }
+
     /**
      * 获取默认数据源名称
      */
@@ -37,6 +92,159 @@ public class JdbcTableOperationRepository extends MultiDataSourceRepository {
         return getJdbcTemplate(getDefaultDataSourceName());
     }
 
+    /**
+     * 获取读查询使用的JdbcTemplate：优先使用数据已同步到 freshUntil 的只读副本，没有满足要求的副本时使用主库
+     *
+     * @param dataSourceName 目标数据源名称，null 表示默认数据源
+     * @param freshUntil     查询要求副本已同步到的时间点（通常为统计窗口的结束时间），
+     *                       null 表示目录查询，按可接受的最大复制延迟判断
+     */
+    private JdbcTemplate readTemplateOf(String dataSourceName, LocalDateTime freshUntil) {
+        String primary = dataSourceName != null ? dataSourceName : getDefaultDataSourceName();
+        String replica = routeRead(primary, freshUntil);
+        return getJdbcTemplate(replica != null ? replica : primary);
+    }
+
+    /**
+     * 按配置顺序选择第一个已同步到要求时间点的只读副本，没有时返回 null
+     * 复制延迟在缓存期内复用上次采样结果，采样结果不满足要求且已过期时重新采样
+     */
+    private String routeRead(String dataSourceName, LocalDateTime freshUntil) {
+        DbMonitorProperties.ReadReplica readReplica = dbMonitorProperties.getReadReplica();
+        List<String> replicas = readReplica.getReplicas().get(dataSourceName);
+        if (replicas == null || replicas.isEmpty()) {
+            return null;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime required = freshUntil != null ? freshUntil
+                : now.minusSeconds(Math.max(0, readReplica.getCatalogMaxLagSeconds()));
+        for (String replica : replicas) {
+            ReplicaLag lag = replicaLags.get(replica);
+            if (lag == null || (!lag.covers(required)
+                    && !lag.sampledAt.plusSeconds(Math.max(0, readReplica.getLagCacheSeconds())).isAfter(now))) {
+                lag = sampleReplicaLag(replica, now);
+                replicaLags.put(replica, lag);
+            }
+            if (lag.covers(required)) {
+                return replica;
+            }
+            log.debug("只读副本 {} 的数据同步到 {}，早于查询要求的 {}，跳过该副本", replica, lag.syncedUntil, required);
+        }
+        return null;
+    }
+
+    /**
+     * 查询只读副本的复制延迟，副本不存在、复制中断或查询失败时标记为不可用
+     */
+    private ReplicaLag sampleReplicaLag(String replica, LocalDateTime now) {
+        if (!hasDataSource(replica)) {
+            log.warn("未找到只读副本数据源 {}，读查询使用主库", replica);
+            return new ReplicaLag(null, now);
+        }
+        try {
+            DbDialect dialect = getDialect(replica);
+            if (dialect.replicationLagSqls().isEmpty()) {
+                // 无法查询延迟的数据库视为与主库同步
+                return new ReplicaLag(now, now);
+            }
+            Object lagSeconds = queryReplicationLag(replica, dialect);
+            if (!(lagSeconds instanceof Number)) {
+                log.warn("只读副本 {} 的复制未运行或延迟未知，读查询使用主库", replica);
+                return new ReplicaLag(null, now);
+            }
+            return new ReplicaLag(now.minusSeconds(((Number) lagSeconds).longValue()), now);
+        } catch (Exception e) {
+            log.warn("查询只读副本 {} 的复制延迟失败，读查询使用主库: {}", replica, e.getMessage());
+            return new ReplicaLag(null, now);
+        }
+    }
+
+    /**
+     * 查询数据源当前正在执行的会话数（MySQL 为 Threads_running），方言不支持时返回 null，查询失败时抛出异常
+     */
+    public Long getActiveSessions(String dataSourceName) {
+        String sql = dialectOf(dataSourceName).activeSessionsSql();
+        if (sql == null) {
+            return null;
+        }
+        JdbcTemplate template = dataSourceName != null ? getJdbcTemplate(dataSourceName) : getDefaultJdbcTemplate();
+        return template.queryForObject(sql, Long.class);
+    }
+
+    /**
+     * 数据源的复制延迟（秒）：配置了只读副本时为各副本最新采样中的最大延迟，否则为数据源自身作为副本的延迟；
+     * 无法获取时返回 null
+     */
+    public Long getReplicationLagSeconds(String dataSourceName) {
+        String name = dataSourceName != null ? dataSourceName : getDefaultDataSourceName();
+        List<String> replicas = dbMonitorProperties.getReadReplica().getReplicas().get(name);
+        if (replicas == null || replicas.isEmpty()) {
+            try {
+                DbDialect dialect = getDialect(name);
+                if (dialect.replicationLagSqls().isEmpty()) {
+                    return null;
+                }
+                Object lagSeconds = queryReplicationLag(name, dialect);
+                return lagSeconds instanceof Number ? ((Number) lagSeconds).longValue() : null;
+            } catch (Exception e) {
+                log.debug("查询数据源 {} 的复制延迟失败: {}", name, e.getMessage());
+                return null;
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Long maxLag = null;
+        for (String replica : replicas) {
+            ReplicaLag lag = sampleReplicaLag(replica, now);
+            replicaLags.put(replica, lag);
+            if (lag.syncedUntil != null) {
+                long seconds = Duration.between(lag.syncedUntil, lag.sampledAt).getSeconds();
+                maxLag = maxLag == null ? seconds : Math.max(maxLag, seconds);
+            }
+        }
+        return maxLag;
+    }
+
+    /**
+     * 按方言给出的语句依次查询数据源作为副本的复制延迟，记住第一条执行成功的语句，所有语句都失败时抛出最后一个异常；
+     * 复制未运行时返回 null
+     */
+    private Object queryReplicationLag(String dataSourceName, DbDialect dialect) {
+        List<String> sqls = dialect.replicationLagSqls();
+        Integer known = replicationLagSqlIndexes.get(dataSourceName);
+        int first = known != null && known < sqls.size() ? known : 0;
+        RuntimeException failure = null;
+        for (int i = first; i < sqls.size(); i++) {
+            List<Map<String, Object>> rows;
+            try {
+                rows = getJdbcTemplate(dataSourceName).queryForList(sqls.get(i));
+            } catch (RuntimeException e) {
+                failure = e;
+                continue;
+            }
+            replicationLagSqlIndexes.put(dataSourceName, i);
+            if (rows.isEmpty()) {
+                return null;
+            }
+            for (String column : dialect.replicationLagColumns()) {
+                if (rows.get(0).containsKey(column)) {
+                    return rows.get(0).get(column);
+                }
+            }
+            return null;
+        }
+        replicationLagSqlIndexes.remove(dataSourceName);
+        throw failure;
+    }
+
+    /**
+     * 获取数据源的方言，null 表示默认数据源
+     */
+    private DbDialect dialectOf(String dataSourceName) {
+        return getDialect(dataSourceName != null ? dataSourceName : getDefaultDataSourceName());
+    }
+
     /**
      * 获取数据库中所有表名（使用默认数据源）
      */
@@ -49,19 +257,21 @@ public class JdbcTableOperationRepository extends MultiDataSourceRepository {
      */
     public List<String> getAllTableNames(String dataSourceName) {
         try {
-            JdbcTemplate template = (dataSourceName != null) ? getJdbcTemplate(dataSourceName) : getDefaultJdbcTemplate();
+            JdbcTemplate template = readTemplateOf(dataSourceName, null);
+            DbDialect dialect = dialectOf(dataSourceName);
 
             // 尝试使用标准的 INFORMATION_SCHEMA 查询
             try {
-                String sql = "SELECT table_name FROM information_schema.tables " +
-                           "WHERE table_schema = DATABASE() AND table_type = 'BASE TABLE'";
-                return template.queryForList(sql, String.class);
+                return template.queryForList(dialect.listTablesSql(), String.class);
             } catch (Exception e) {
-                log.debug("使用 INFORMATION_SCHEMA 查询失败，尝试使用 SHOW TABLES: {}", e.getMessage());
+                if (dialect.listTablesFallbackSql() == null) {
+                    throw e;
+                }
+                log.debug("使用 INFORMATION_SCHEMA 查询失败，尝试使用备用语句: {}", e.getMessage());
             }
 
-            // 如果上面的查询失败，尝试使用 SHOW TABLES
-            return template.queryForList("SHOW TABLES", String.class);
+            // 如果上面的查询失败，尝试使用方言的备用语句（如 SHOW TABLES）
+            return template.queryForList(dialect.listTablesFallbackSql(), String.class);
 
         } catch (Exception e) {
             log.error("获取数据源 {} 的数据库表名失败: {}", dataSourceName, e.getMessage(), e);
@@ -81,18 +291,16 @@ public class JdbcTableOperationRepository extends MultiDataSourceRepository {
      */
     public boolean checkTableExists(String dataSourceName, String tableName) {
         try {
-            JdbcTemplate template = (dataSourceName != null) ? getJdbcTemplate(dataSourceName) : getDefaultJdbcTemplate();
+            JdbcTemplate template = readTemplateOf(dataSourceName, null);
 
-            String sql = "SELECT COUNT(*) FROM information_schema.tables " +
-                        "WHERE table_schema = DATABASE() AND table_name = ?";
-            Integer count = template.queryForObject(sql, Integer.class, tableName);
+            Integer count = template.queryForObject(dialectOf(dataSourceName).tableExistsSql(), Integer.class, tableName);
             return count != null && count > 0;
         } catch (Exception e) {
             log.debug("使用 INFORMATION_SCHEMA 检查表存在性失败，尝试直接查询表: {}", e.getMessage());
             try {
-                JdbcTemplate template = (dataSourceName != null) ? getJdbcTemplate(dataSourceName) : getDefaultJdbcTemplate();
+                JdbcTemplate template = readTemplateOf(dataSourceName, null);
                 // 尝试直接查询表
-                template.queryForObject("SELECT 1 FROM " + tableName + " LIMIT 1", Integer.class);
+                template.queryForList(dialectOf(dataSourceName).limit("SELECT 1 FROM " + tableName, 1));
                 return true;
             } catch (Exception ex) {
                 log.debug("数据源 {} 中的表 {} 不存在或无法访问", dataSourceName, tableName);
@@ -106,10 +314,7 @@ public class JdbcTableOperationRepository extends MultiDataSourceRepository {
      */
     public List<String> getTableColumns(String tableName) {
         try {
-            String sql = "SELECT column_name FROM information_schema.columns " +
-                        "WHERE table_schema = DATABASE() AND table_name = ? " +
-                        "ORDER BY ordinal_position";
-            return getDefaultJdbcTemplate().queryForList(sql, String.class, tableName);
+            return readTemplateOf(null, null).queryForList(dialectOf(null).columnNamesSql(), String.class, tableName);
         } catch (Exception e) {
             log.error("获取表 {} 的列信息失败: {}", tableName, e.getMessage(), e);
             return new ArrayList<>();
@@ -128,12 +333,8 @@ public class JdbcTableOperationRepository extends MultiDataSourceRepository {
      */
     public List<Map<String, Object>> getTableColumnDetails(String dataSourceName, String tableName) {
         try {
-            JdbcTemplate template = (dataSourceName != null) ? getJdbcTemplate(dataSourceName) : getDefaultJdbcTemplate();
-            String sql = "SELECT column_name, data_type, is_nullable, column_default, column_comment " +
-                        "FROM information_schema.columns " +
-                        "WHERE table_schema = DATABASE() AND table_name = ? " +
-                        "ORDER BY ordinal_position";
-            return template.queryForList(sql, tableName);
+            JdbcTemplate template = readTemplateOf(dataSourceName, null);
+            return template.queryForList(dialectOf(dataSourceName).columnDetailsSql(), tableName);
         } catch (Exception e) {
             log.error("获取数据源 {} 表 {} 的详细列信息失败: {}", dataSourceName, tableName, e.getMessage(), e);
             return new ArrayList<>();
@@ -145,14 +346,7 @@ public class JdbcTableOperationRepository extends MultiDataSourceRepository {
      */
     public List<String> detectTimeColumns(String tableName) {
         try {
-            String sql = "SELECT column_name FROM information_schema.columns " +
-                        "WHERE table_schema = DATABASE() AND table_name = ? " +
-                        "AND (data_type IN ('datetime', 'timestamp', 'date', 'time') " +
-                        "OR (data_type = 'bigint' AND (column_name LIKE '%time%' OR column_name LIKE '%Time%')) " +
-                        "OR column_name IN ('created_at', 'updated_at', 'create_time', 'update_time', " +
-                        "'created_time', 'updated_time', 'gmt_create', 'gmt_modified')) " +
-                        "ORDER BY ordinal_position";
-            return getDefaultJdbcTemplate().queryForList(sql, String.class, tableName);
+            return readTemplateOf(null, null).queryForList(dialectOf(null).timeColumnsSql(), String.class, tableName);
         } catch (Exception e) {
             log.error("检测表 {} 的时间字段失败: {}", tableName, e.getMessage(), e);
             return new ArrayList<>();
@@ -164,9 +358,8 @@ public class JdbcTableOperationRepository extends MultiDataSourceRepository {
      */
     public boolean checkColumnExists(String tableName, String columnName) {
         try {
-            String sql = "SELECT COUNT(*) FROM information_schema.columns " +
-                        "WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ?";
-            Integer count = getDefaultJdbcTemplate().queryForObject(sql, Integer.class, tableName, columnName);
+            Integer count = readTemplateOf(null, null).queryForObject(dialectOf(null).columnExistsSql(),
+                    Integer.class, tableName, columnName);
             return count != null && count > 0;
         } catch (Exception e) {
             log.error("检查表 {} 的列 {} 是否存在失败: {}", tableName, columnName, e.getMessage(), e);
@@ -183,18 +376,27 @@ public class JdbcTableOperationRepository extends MultiDataSourceRepository {
     }
 
     /**
-     * 查询指定数据源中表的增量数据
+     * 查询指定数据源中表的增量数据，使用数据源默认的语句超时，查询失败时抛出异常而不是按 0 行返回
      */
     public Long queryTableIncrement(String dataSourceName, String tableName, String timeColumn,
                                    LocalDateTime startTime, LocalDateTime endTime) {
-        try {
-            JdbcTemplate template = (dataSourceName != null) ? getJdbcTemplate(dataSourceName) : getDefaultJdbcTemplate();
-            String sql = "SELECT COUNT(*) FROM " + tableName + " WHERE " + timeColumn + " >= ? AND " + timeColumn + " < ?";
-            return template.queryForObject(sql, Long.class, startTime, endTime);
-        } catch (Exception e) {
-            log.error("查询数据源 {} 中表 {} 的增量数据失败: {}", dataSourceName, tableName, e.getMessage(), e);
-            return 0L;
-        }
+        return queryTableIncrement(dataSourceName, tableName, timeColumn, startTime, endTime, 0, null);
+    }
+
+    /**
+     * 在语句超时限制下查询指定数据源中表的增量数据，查询失败、超时或被取消时抛出异常
+     *
+     * @param timeoutSeconds 语句超时时间（秒），小于等于 0 时使用数据源的默认设置
+     * @param handle         取消句柄，执行中的语句登记到句柄上以便取消，可以为 null
+     */
+    public long queryTableIncrement(String dataSourceName, String tableName, String timeColumn,
+                                    LocalDateTime startTime, LocalDateTime endTime,
+                                    int timeoutSeconds, CancellationHandle handle) {
+        JdbcTemplate template = readTemplateOf(dataSourceName, endTime);
+        String sql = "SELECT COUNT(*) FROM " + tableName + " WHERE " + timeColumn + " >= ? AND " + timeColumn + " < ?";
+        Long count = queryCancellable(template, sql, timeoutSeconds, handle,
+                rs -> rs.next() ? rs.getLong(1) : 0L, startTime, endTime);
+        return count != null ? count : 0L;
     }
     
     /**
@@ -209,11 +411,13 @@ public class JdbcTableOperationRepository extends MultiDataSourceRepository {
      */
     public Long getAvgRowSizeFromInformationSchema(String dataSourceName, String tableName) {
         try {
-            JdbcTemplate template = (dataSourceName != null) ? getJdbcTemplate(dataSourceName) : getDefaultJdbcTemplate();
-            String sql = "SELECT ROUND(data_length / table_rows) as avg_row_length " +
-                        "FROM information_schema.tables " +
-                        "WHERE table_schema = DATABASE() AND table_name = ? AND table_rows > 0";
-            return template.queryForObject(sql, Long.class, tableName);
+            JdbcTemplate template = readTemplateOf(dataSourceName, null);
+            String sql = dialectOf(dataSourceName).catalogStatsSql(1);
+            if (sql == null) {
+                return null;
+            }
+            List<TableCatalogStats> stats = template.query(sql, (rs, rowNum) -> mapCatalogStats(rs), tableName);
+            return stats.isEmpty() ? null : stats.get(0).getEffectiveAvgRowSize();
         } catch (Exception e) {
             log.debug("从数据源 {} 的 INFORMATION_SCHEMA 获取表 {} 的平均行大小失败: {}", dataSourceName, tableName, e.getMessage());
             return null;
@@ -232,10 +436,11 @@ public class JdbcTableOperationRepository extends MultiDataSourceRepository {
      */
     public Map<String, Object> getTableStatusInfo(String dataSourceName, String tableName) {
         try {
-            JdbcTemplate template = (dataSourceName != null) ? getJdbcTemplate(dataSourceName) : getDefaultJdbcTemplate();
-            String sql = "SELECT table_rows, data_length, index_length, avg_row_length " +
-                        "FROM information_schema.tables " +
-                        "WHERE table_schema = DATABASE() AND table_name = ?";
+            JdbcTemplate template = readTemplateOf(dataSourceName, null);
+            String sql = dialectOf(dataSourceName).catalogStatsSql(1);
+            if (sql == null) {
+                return null;
+            }
             List<Map<String, Object>> results = template.queryForList(sql, tableName);
             return results.isEmpty() ? null : results.get(0);
         } catch (Exception e) {
@@ -244,6 +449,307 @@ public class JdbcTableOperationRepository extends MultiDataSourceRepository {
         }
     }
     
+    /**
+     * 批量获取多张表的目录统计信息（每批一条 IN 查询）
+     *
+     * @return 表名（小写） -> 目录统计信息，查询失败时返回空 Map
+     */
+    public Map<String, TableCatalogStats> getTableCatalogStats(String dataSourceName, Collection<String> tableNames) {
+        Map<String, TableCatalogStats> result = new HashMap<>();
+        if (tableNames == null || tableNames.isEmpty()) {
+            return result;
+        }
+
+        List<String> names = new ArrayList<>(new LinkedHashSet<>(tableNames));
+        try {
+            JdbcTemplate template = readTemplateOf(dataSourceName, null);
+            DbDialect dialect = dialectOf(dataSourceName);
+            for (int from = 0; from < names.size(); from += CATALOG_BATCH_SIZE) {
+                List<String> batch = names.subList(from, Math.min(from + CATALOG_BATCH_SIZE, names.size()));
+                String sql = dialect.catalogStatsSql(batch.size());
+                if (sql == null) {
+                    break;
+                }
+                template.query(sql, rs -> {
+                    TableCatalogStats stats = mapCatalogStats(rs);
+                    result.put(stats.getTableName().toLowerCase(), stats);
+                }, batch.toArray());
+            }
+        } catch (Exception e) {
+            log.debug("批量获取数据源 {} 的表目录统计信息失败: {}", dataSourceName, e.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * 批量获取表的各索引大小（字节）
+     * MySQL 读取 mysql.innodb_index_stats，PostgreSQL 读取 pg_index，无权限或方言不支持时返回空结果
+     *
+     * @return 小写表名 -> (索引名 -> 索引大小)
+     */
+    public Map<String, Map<String, Long>> getIndexSizeStats(String dataSourceName, Collection<String> tableNames) {
+        Map<String, Map<String, Long>> result = new HashMap<>();
+        if (tableNames == null || tableNames.isEmpty()) {
+            return result;
+        }
+
+        List<String> names = new ArrayList<>(new LinkedHashSet<>(tableNames));
+        try {
+            JdbcTemplate template = readTemplateOf(dataSourceName, null);
+            DbDialect dialect = dialectOf(dataSourceName);
+            for (int from = 0; from < names.size(); from += CATALOG_BATCH_SIZE) {
+                List<String> batch = names.subList(from, Math.min(from + CATALOG_BATCH_SIZE, names.size()));
+                String sql = dialect.indexSizeSql(batch.size());
+                if (sql == null) {
+                    break;
+                }
+                template.query(sql, rs -> {
+                    Long sizeBytes = getNullableLong(rs, "size_bytes");
+                    if (sizeBytes != null) {
+                        result.computeIfAbsent(rs.getString("table_name").toLowerCase(), k -> new HashMap<>())
+                                .put(rs.getString("index_name"), sizeBytes);
+                    }
+                }, batch.toArray());
+            }
+        } catch (Exception e) {
+            log.debug("批量获取数据源 {} 的索引统计信息失败: {}", dataSourceName, e.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * 批量获取多张表的表结构（每批一条查询），结果中不包含不存在的表
+     *
+     * @return 表名（小写） -> 表结构
+     */
+    public Map<String, TableSchema> getTableSchemas(String dataSourceName, Collection<String> tableNames) {
+        Map<String, TableSchema> result = new HashMap<>();
+        if (tableNames == null || tableNames.isEmpty()) {
+            return result;
+        }
+
+        List<String> names = new ArrayList<>(new LinkedHashSet<>(tableNames));
+        JdbcTemplate template = readTemplateOf(dataSourceName, null);
+        DbDialect dialect = dialectOf(dataSourceName);
+        Map<String, String> createTimes = new HashMap<>();
+        for (int from = 0; from < names.size(); from += CATALOG_BATCH_SIZE) {
+            List<String> batch = names.subList(from, Math.min(from + CATALOG_BATCH_SIZE, names.size()));
+            template.query(dialect.schemaColumnsSql(batch.size()), rs -> {
+                String tableName = rs.getString("table_name");
+                String key = tableName.toLowerCase();
+                TableSchema schema = result.computeIfAbsent(key,
+                        k -> new TableSchema(tableName, true, new ArrayList<>(), null));
+                String dataType = rs.getString("data_type");
+                schema.getColumns().add(new TableSchema.Column(rs.getString("column_name"),
+                        dataType != null ? dataType.toLowerCase() : null));
+                createTimes.put(key, rs.getString("create_time"));
+            }, batch.toArray());
+        }
+        for (Map.Entry<String, TableSchema> entry : result.entrySet()) {
+            entry.getValue().setChangeMarker(TableSchema.changeMarker(
+                    createTimes.get(entry.getKey()), entry.getValue().getColumns().size()));
+        }
+        return result;
+    }
+
+    /**
+     * 批量探测表结构版本（每批一条查询），结果中不包含不存在的表
+     *
+     * @return 表名（小写） -> 变更标记
+     */
+    public Map<String, String> getSchemaVersions(String dataSourceName, Collection<String> tableNames) {
+        Map<String, String> result = new HashMap<>();
+        if (tableNames == null || tableNames.isEmpty()) {
+            return result;
+        }
+
+        List<String> names = new ArrayList<>(new LinkedHashSet<>(tableNames));
+        JdbcTemplate template = readTemplateOf(dataSourceName, null);
+        DbDialect dialect = dialectOf(dataSourceName);
+        for (int from = 0; from < names.size(); from += CATALOG_BATCH_SIZE) {
+            List<String> batch = names.subList(from, Math.min(from + CATALOG_BATCH_SIZE, names.size()));
+            template.query(dialect.schemaVersionSql(batch.size()), rs -> {
+                result.put(rs.getString("table_name").toLowerCase(),
+                        TableSchema.changeMarker(rs.getString("create_time"), rs.getLong("column_count")));
+            }, batch.toArray());
+        }
+        return result;
+    }
+
+    /**
+     * 基于统计信息估算表行数（只读取系统目录，不扫描表），方言不支持或查询失败时返回 null
+     */
+    public Long getEstimatedRowCount(String dataSourceName, String tableName) {
+        try {
+            String sql = dialectOf(dataSourceName).estimatedRowCountSql();
+            if (sql == null) {
+                return null;
+            }
+            JdbcTemplate template = readTemplateOf(dataSourceName, null);
+            List<Long> rows = template.queryForList(sql, Long.class, tableName);
+            return rows.isEmpty() ? null : rows.get(0);
+        } catch (Exception e) {
+            log.debug("估算数据源 {} 表 {} 的行数失败: {}", dataSourceName, tableName, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 获取表的总占用空间（数据 + 索引，字节），方言不支持或查询失败时返回 null
+     */
+    public Long getRelationSize(String dataSourceName, String tableName) {
+        try {
+            String sql = dialectOf(dataSourceName).relationSizeSql();
+            if (sql == null) {
+                return null;
+            }
+            JdbcTemplate template = readTemplateOf(dataSourceName, null);
+            List<Long> sizes = template.queryForList(sql, Long.class, tableName);
+            return sizes.isEmpty() ? null : sizes.get(0);
+        } catch (Exception e) {
+            log.debug("获取数据源 {} 表 {} 的占用空间失败: {}", dataSourceName, tableName, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 按固定时间桶统计时间范围内的增量数据，一次查询返回所有桶的计数
+     * 方言不支持分桶表达式时退化为逐桶 COUNT 查询，没有数据的桶计数为 0，查询失败时抛出异常
+     *
+     * @return 桶开始时间 -> 增量行数（按时间升序）
+     */
+    public Map<LocalDateTime, Long> queryBucketedIncrement(String dataSourceName, String tableName, String timeColumn,
+                                                           LocalDateTime startTime, LocalDateTime endTime,
+                                                           int bucketSeconds) {
+        return queryBucketedIncrement(dataSourceName, tableName, timeColumn, startTime, endTime, bucketSeconds, 0, null);
+    }
+
+    /**
+     * 在语句超时限制下按固定时间桶统计增量数据，查询失败、超时或被取消时抛出异常
+     *
+     * @param timeoutSeconds 每条语句的超时时间（秒），小于等于 0 时使用数据源的默认设置
+     * @param handle         取消句柄，可以为 null
+     * @return 桶开始时间 -> 增量行数（按时间升序）
+     */
+    public Map<LocalDateTime, Long> queryBucketedIncrement(String dataSourceName, String tableName, String timeColumn,
+                                                           LocalDateTime startTime, LocalDateTime endTime,
+                                                           int bucketSeconds, int timeoutSeconds,
+                                                           CancellationHandle handle) {
+        Map<LocalDateTime, Long> result = new TreeMap<>();
+        for (LocalDateTime bucket = startTime; bucket.isBefore(endTime); bucket = bucket.plusSeconds(bucketSeconds)) {
+            result.put(bucket, 0L);
+        }
+
+        String secondsSince = dialectOf(dataSourceName).secondsSince(timeColumn);
+        if (secondsSince == null) {
+            for (LocalDateTime bucket : result.keySet()) {
+                LocalDateTime bucketEnd = bucket.plusSeconds(bucketSeconds);
+                result.put(bucket, queryTableIncrement(dataSourceName, tableName, timeColumn,
+                        bucket, bucketEnd.isAfter(endTime) ? endTime : bucketEnd, timeoutSeconds, handle));
+            }
+            return result;
+        }
+
+        JdbcTemplate template = readTemplateOf(dataSourceName, endTime);
+        String sql = "SELECT bucket_index, COUNT(*) AS increment_count FROM (" +
+                    "SELECT FLOOR(" + secondsSince + " / " + bucketSeconds + ") AS bucket_index FROM " + tableName +
+                    " WHERE " + timeColumn + " >= ? AND " + timeColumn + " < ?) buckets GROUP BY bucket_index";
+        queryCancellable(template, sql, timeoutSeconds, handle, rs -> {
+            while (rs.next()) {
+                long bucketIndex = rs.getLong("bucket_index");
+                result.put(startTime.plusSeconds(bucketIndex * bucketSeconds), rs.getLong("increment_count"));
+            }
+            return null;
+        }, startTime, startTime, endTime);
+        return result;
+    }
+
+    /**
+     * 在独立的语句上执行查询：设置语句超时，执行期间将语句登记到取消句柄，
+     * 超时产生的 SQLException 由 JdbcTemplate 转换为 DataAccessException；句柄已取消时的失败转换为
+     * {@link QueryCancelledException}，不计为查询超时
+     */
+    private <T> T queryCancellable(JdbcTemplate template, String sql, int timeoutSeconds, CancellationHandle handle,
+                                   ResultSetExtractor<T> extractor, Object... args) {
+        int timeout = timeoutSeconds > 0 ? timeoutSeconds : template.getQueryTimeout();
+        try {
+            return executeCancellable(template, sql, timeout, handle, extractor, args);
+        } catch (DataAccessException e) {
+            if (handle != null && handle.isCancelled()) {
+                throw new QueryCancelledException("查询已取消", e);
+            }
+            throw e;
+        }
+    }
+
+    private <T> T executeCancellable(JdbcTemplate template, String sql, int timeout, CancellationHandle handle,
+                                     ResultSetExtractor<T> extractor, Object... args) {
+        return template.execute((ConnectionCallback<T>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                if (timeout > 0) {
+                    statement.setQueryTimeout(timeout);
+                }
+                for (int i = 0; i < args.length; i++) {
+                    StatementCreatorUtils.setParameterValue(statement, i + 1, SqlTypeValue.TYPE_UNKNOWN, args[i]);
+                }
+                if (handle != null) {
+                    handle.register(statement);
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    return extractor.extractData(rs);
+                } finally {
+                    if (handle != null) {
+                        handle.unregister(statement);
+                    }
+                }
+            }
+        });
+    }
+
+    private TableCatalogStats mapCatalogStats(ResultSet rs) throws SQLException {
+        return new TableCatalogStats(
+                rs.getString("table_name"),
+                getNullableLong(rs, "table_rows"),
+                getNullableLong(rs, "data_length"),
+                getNullableLong(rs, "index_length"),
+                getNullableLong(rs, "avg_row_length"));
+    }
+
+    private Long getNullableLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    /**
+     * 抽样统计时间窗口内最近若干行指定列的实际字节数
+     * 按时间字段倒序并限制行数，查询超时后放弃，避免对业务库造成压力；执行中的语句登记到取消句柄，停止执行时一并取消
+     *
+     * @param handle 取消句柄，可以为 null
+     * @return 包含 sample_rows（抽样行数）和 total_bytes（抽样列总字节数）的结果
+     */
+    public Map<String, Object> sampleColumnBytes(String dataSourceName, String tableName, String timeColumn,
+                                                 List<String> columns, LocalDateTime startTime, LocalDateTime endTime,
+                                                 int sampleRows, int queryTimeoutSeconds, CancellationHandle handle) {
+        JdbcTemplate template = readTemplateOf(dataSourceName, endTime);
+
+        StringBuilder byteSum = new StringBuilder();
+        for (String column : columns) {
+            if (byteSum.length() > 0) {
+                byteSum.append(" + ");
+            }
+            byteSum.append("COALESCE(OCTET_LENGTH(").append(column).append("), 0)");
+        }
+
+        String sql = "SELECT COUNT(*) AS sample_rows, SUM(" + byteSum + ") AS total_bytes FROM (" +
+                    "SELECT " + String.join(", ", columns) + " FROM " + tableName +
+                    " WHERE " + timeColumn + " >= ? AND " + timeColumn + " < ?" +
+                    " ORDER BY " + timeColumn + " DESC";
+        sql = dialectOf(dataSourceName).limit(sql, sampleRows) + ") sampled";
+        return queryCancellable(template, sql, queryTimeoutSeconds, handle,
+                rs -> rs.next() ? new ColumnMapRowMapper().mapRow(rs, 1) : Collections.<String, Object>emptyMap(),
+                startTime, endTime);
+    }
+
     /**
      * 执行自定义查询（用于灵活的数据查询）
      */
@@ -269,26 +775,20 @@ public class JdbcTableOperationRepository extends MultiDataSourceRepository {
     }
     
     /**
-     * 获取数据库类型
+     * 获取数据库类型（默认数据源）
      */
     public String getDatabaseType() {
+        return getDatabaseType(null);
+    }
+
+    /**
+     * 获取指定数据源的数据库类型（由缓存的方言决定，不再每次读取连接元数据）
+     */
+    public String getDatabaseType(String dataSourceName) {
         try {
-            String url = getDefaultJdbcTemplate().getDataSource().getConnection().getMetaData().getURL();
-            if (url.contains("mysql")) {
-                return "mysql";
-            } else if (url.contains("postgresql")) {
-                return "postgresql";
-            } else if (url.contains("oracle")) {
-                return "oracle";
-            } else if (url.contains("sqlserver")) {
-                return "sqlserver";
-            } else if (url.contains("h2")) {
-                return "h2";
-            } else {
-                return "unknown";
-            }
+            return dialectOf(dataSourceName).getName();
         } catch (Exception e) {
-            log.error("获取数据库类型失败: {}", e.getMessage(), e);
+            log.error("获取数据源 {} 的数据库类型失败: {}", dataSourceName, e.getMessage(), e);
             return "unknown";
         }
     }
@@ -305,4 +805,25 @@ public class JdbcTableOperationRepository extends MultiDataSourceRepository {
             return false;
         }
     }
+
+    /**
+     * 只读副本的复制延迟采样
+     */
+    private static class ReplicaLag {
+        /**
+         * 副本数据已同步到的时间点，null 表示副本不可用
+         */
+        private final LocalDateTime syncedUntil;
+
+        private final LocalDateTime sampledAt;
+
+        ReplicaLag(LocalDateTime syncedUntil, LocalDateTime sampledAt) {
+            this.syncedUntil = syncedUntil;
+            this.sampledAt = sampledAt;
+        }
+
+        boolean covers(LocalDateTime required) {
+            return syncedUntil != null && !syncedUntil.isBefore(required);
+        }
+    }
 }
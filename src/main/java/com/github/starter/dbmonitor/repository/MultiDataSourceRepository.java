@@ -1,5 +1,8 @@
 package com.github.starter.dbmonitor.repository;
 
+import com.github.starter.dbmonitor.dialect.DataSourceMetadata;
+import com.github.starter.dbmonitor.dialect.DataSourceMetadataRegistry;
+import com.github.starter.dbmonitor.dialect.DbDialect;
 import com.github.starter.dbmonitor.service.DataSourceService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,6 +24,9 @@ public class MultiDataSourceRepository {
     @Autowired
     private DataSourceService dataSourceService;
     
+    @Autowired
+    private DataSourceMetadataRegistry metadataRegistry;
+    
     // 缓存JdbcTemplate实例，避免重复创建
     private final Map<String, JdbcTemplate> jdbcTemplateCache = new ConcurrentHashMap<>();
     
@@ -36,9 +42,34 @@ public class MultiDataSourceRepository {
     }
     
     /**
-     * 创建JdbcTemplate实例
+     * 根据数据源名称获取缓存的数据源元数据
+     * 始终按业务数据源注册，子类使用监控专用连接池时连接池指标仍反映业务连接池
+     */
+    protected DataSourceMetadata getMetadata(String dataSourceName) {
+        if (dataSourceName == null || dataSourceName.trim().isEmpty()) {
+            throw new IllegalArgumentException("数据源名称不能为空");
+        }
+        return metadataRegistry.getMetadata(dataSourceName, dataSourceService.getDataSource(dataSourceName));
+    }
+    
+    /**
+     * 根据数据源名称获取数据库方言
+     */
+    protected DbDialect getDialect(String dataSourceName) {
+        return getMetadata(dataSourceName).getDialect();
+    }
+    
+    /**
+     * 是否存在指定名称的数据源，不会回退到默认数据源
+     */
+    protected boolean hasDataSource(String dataSourceName) {
+        return dataSourceService.containsDataSource(dataSourceName);
+    }
+    
+    /**
+     * 创建JdbcTemplate实例，子类可覆盖以使用专用数据源
      */
-    private JdbcTemplate createJdbcTemplate(String dataSourceName) {
+    protected JdbcTemplate createJdbcTemplate(String dataSourceName) {
         try {
             DataSource dataSource = dataSourceService.getDataSource(dataSourceName);
             JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
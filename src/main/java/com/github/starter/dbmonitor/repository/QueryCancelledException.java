@@ -0,0 +1,18 @@
+package com.github.starter.dbmonitor.repository;
+
+import org.springframework.dao.TransientDataAccessException;
+
+/**
+ * 查询因取消句柄被取消（手动停止执行或应用关闭）而中止
+ * 驱动对 Statement.cancel() 报告的异常与语句超时相同，这里按句柄状态区分，不计入查询超时
+ */
+public class QueryCancelledException extends TransientDataAccessException {
+
+    public QueryCancelledException(String msg) {
+        super(msg);
+    }
+
+    public QueryCancelledException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+}
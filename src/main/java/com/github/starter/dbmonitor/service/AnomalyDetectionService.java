@@ -0,0 +1,372 @@
+package com.github.starter.dbmonitor.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.DbMonitorStatistics;
+import com.github.starter.dbmonitor.entity.MonitorConfig;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 增量异常检测服务
+ * 对每条新产生的统计数据计算写入速率的 z-score，基线为滚动均值/方差（Welford 算法）
+ * 以及按周小时（168 个桶）划分的季节基线，每张表只保存固定大小的状态
+ */
+@Service
+@Slf4j
+public class AnomalyDetectionService {
+
+    private static final int HOURS_PER_WEEK = 168;
+
+    @Autowired
+    private DbMonitorProperties dbMonitorProperties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<String, TableDetector> detectors = new ConcurrentHashMap<>();
+
+    /**
+     * 已解析的 extendConfig 检测设置，按 extendConfig 原文缓存
+     */
+    private final Map<String, Settings> settingsCache = new ConcurrentHashMap<>();
+
+    private final Deque<AnomalyEvent> events = new ArrayDeque<>();
+
+    /**
+     * 评估新产生的统计数据，返回检测到的异常事件（无异常时返回 null）
+     */
+    public AnomalyEvent evaluate(MonitorConfig config, DbMonitorStatistics statistics) {
+        Settings settings = resolveSettings(config);
+        if (!settings.isEnabled() || statistics.getStartTime() == null || statistics.getEndTime() == null) {
+            return null;
+        }
+
+        long windowSeconds = Duration.between(statistics.getStartTime(), statistics.getEndTime()).getSeconds();
+        if (windowSeconds <= 0) {
+            return null;
+        }
+
+        long rows = statistics.getIncrementCount() != null ? statistics.getIncrementCount() : 0L;
+        double rate = (double) rows / windowSeconds;
+        int hourOfWeek = hourOfWeek(statistics.getStartTime());
+
+        TableDetector detector = detectors.computeIfAbsent(
+                key(statistics.getDataSourceName(), statistics.getTableName()),
+                k -> new TableDetector(statistics.getDataSourceName(), statistics.getTableName()));
+
+        AnomalyEvent event = detector.evaluate(statistics, rate, rows, windowSeconds, hourOfWeek, settings,
+                dbMonitorProperties.getAnomaly().getMaxSamples());
+        if (event != null) {
+            recordEvent(event);
+            log.warn("检测到表 {}.{} 写入量异常: 类型 {}，速率 {}/s，基线 {}/s，z-score {}",
+                    event.getDataSourceName(), event.getTableName(), event.getType(),
+                    String.format("%.4f", event.getRowsPerSecond()),
+                    String.format("%.4f", event.getBaselineRowsPerSecond()),
+                    String.format("%.2f", event.getScore()));
+        }
+        return event;
+    }
+
+    /**
+     * 查询最近的异常事件（按时间倒序），数据源和表名为空时不过滤
+     */
+    public List<AnomalyEvent> getRecentEvents(String dataSourceName, String tableName, int limit) {
+        List<AnomalyEvent> result = new ArrayList<>();
+        synchronized (events) {
+            Iterator<AnomalyEvent> iterator = events.descendingIterator();
+            while (iterator.hasNext() && result.size() < limit) {
+                AnomalyEvent event = iterator.next();
+                if (dataSourceName != null && !dataSourceName.equals(event.getDataSourceName())) {
+                    continue;
+                }
+                if (tableName != null && !tableName.equalsIgnoreCase(event.getTableName())) {
+                    continue;
+                }
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取所有表的检测状态，按数据源和表名排序
+     */
+    public List<TableDetector> getDetectors() {
+        List<TableDetector> result = new ArrayList<>(detectors.values());
+        result.sort(Comparator.comparing(TableDetector::getDataSourceName)
+                .thenComparing(TableDetector::getTableName));
+        return result;
+    }
+
+    /**
+     * 清空检测状态和事件
+     */
+    public void clear() {
+        detectors.clear();
+        settingsCache.clear();
+        synchronized (events) {
+            events.clear();
+        }
+    }
+
+    private void recordEvent(AnomalyEvent event) {
+        int maxEvents = Math.max(1, dbMonitorProperties.getAnomaly().getMaxEvents());
+        synchronized (events) {
+            events.addLast(event);
+            while (events.size() > maxEvents) {
+                events.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * 解析监控配置的检测设置：全局配置为默认值，extendConfig 中的 anomaly 节点可覆盖
+     */
+    Settings resolveSettings(MonitorConfig config) {
+        String extendConfig = config != null ? config.getExtendConfig() : null;
+        if (extendConfig == null || extendConfig.trim().isEmpty()) {
+            return Settings.from(dbMonitorProperties.getAnomaly());
+        }
+        if (settingsCache.size() > 1024) {
+            settingsCache.clear();
+        }
+        return settingsCache.computeIfAbsent(extendConfig, this::parseSettings);
+    }
+
+    private Settings parseSettings(String extendConfig) {
+        Settings settings = Settings.from(dbMonitorProperties.getAnomaly());
+        try {
+            JsonNode anomaly = objectMapper.readTree(extendConfig).path("anomaly");
+            if (anomaly.isObject()) {
+                settings.setEnabled(anomaly.path("enabled").asBoolean(settings.isEnabled()));
+                settings.setScoreThreshold(anomaly.path("scoreThreshold").asDouble(settings.getScoreThreshold()));
+                settings.setMinSamples(anomaly.path("minSamples").asInt(settings.getMinSamples()));
+                settings.setSeasonal(anomaly.path("seasonal").asBoolean(settings.isSeasonal()));
+                settings.setDropToZero(anomaly.path("dropToZero").asBoolean(settings.isDropToZero()));
+                settings.setDropToZeroMinExpectedRows(anomaly.path("dropToZeroMinExpectedRows")
+                        .asDouble(settings.getDropToZeroMinExpectedRows()));
+            }
+        } catch (Exception e) {
+            log.warn("解析监控配置扩展信息中的异常检测设置失败，使用全局配置: {}", e.getMessage());
+        }
+        return settings;
+    }
+
+    private String key(String dataSourceName, String tableName) {
+        return dataSourceName + "." + (tableName != null ? tableName.toLowerCase() : null);
+    }
+
+    private static int hourOfWeek(LocalDateTime time) {
+        return (time.getDayOfWeek().getValue() - 1) * 24 + time.getHour();
+    }
+
+    /**
+     * 异常类型
+     */
+    public enum AnomalyType {
+        /** 写入量突增 */
+        SPIKE,
+        /** 写入量突降 */
+        DROP,
+        /** 写入量降为零（如数据管道卡住） */
+        DROP_TO_ZERO
+    }
+
+    /**
+     * 单表检测设置
+     */
+    @Data
+    static class Settings {
+        private boolean enabled;
+        private double scoreThreshold;
+        private int minSamples;
+        private int minSeasonalSamples;
+        private boolean seasonal = true;
+        private boolean dropToZero = true;
+        private double dropToZeroMinExpectedRows;
+
+        static Settings from(DbMonitorProperties.Anomaly anomaly) {
+            Settings settings = new Settings();
+            settings.setEnabled(anomaly.isEnabled());
+            settings.setScoreThreshold(anomaly.getScoreThreshold());
+            settings.setMinSamples(anomaly.getMinSamples());
+            settings.setMinSeasonalSamples(anomaly.getMinSeasonalSamples());
+            settings.setDropToZeroMinExpectedRows(anomaly.getDropToZeroMinExpectedRows());
+            return settings;
+        }
+    }
+
+    /**
+     * 异常事件
+     */
+    @Data
+    public static class AnomalyEvent {
+        private String dataSourceName;
+        private String tableName;
+        private AnomalyType type;
+        private double score;
+        private double rowsPerSecond;
+        private double baselineRowsPerSecond;
+        private boolean seasonalBaseline;
+        private long incrementCount;
+        private LocalDateTime startTime;
+        private LocalDateTime endTime;
+        private LocalDateTime detectedTime;
+    }
+
+    /**
+     * Welford 滚动统计量，样本数达到上限后按指数衰减旧样本
+     */
+    static final class RunningStats {
+        private long count;
+        private double mean;
+        private double m2;
+
+        void add(double value, int maxSamples) {
+            maxSamples = Math.max(2, maxSamples);
+            if (count < maxSamples) {
+                count++;
+            }
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+            if (count == maxSamples) {
+                // 保持有效样本数不变，使方差随均值一起滚动
+                m2 *= (double) (count - 1) / count;
+            }
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        double getMean() {
+            return mean;
+        }
+
+        double getStdDev() {
+            return count > 1 ? Math.sqrt(m2 / (count - 1)) : 0.0;
+        }
+    }
+
+    /**
+     * 单表检测状态：全局滚动统计 + 168 个周小时桶
+     */
+    public static class TableDetector {
+        private final String dataSourceName;
+        private final String tableName;
+        private final RunningStats overall = new RunningStats();
+        private final RunningStats[] hourOfWeek = new RunningStats[HOURS_PER_WEEK];
+
+        private double lastScore;
+        private AnomalyType lastAnomaly;
+        private long anomalyCount;
+
+        TableDetector(String dataSourceName, String tableName) {
+            this.dataSourceName = dataSourceName;
+            this.tableName = tableName;
+        }
+
+        synchronized AnomalyEvent evaluate(DbMonitorStatistics statistics, double rate, long rows, long windowSeconds,
+                                           int hour, Settings settings, int maxSamples) {
+            RunningStats bucket = hourOfWeek[hour];
+            if (bucket == null) {
+                bucket = new RunningStats();
+                hourOfWeek[hour] = bucket;
+            }
+
+            // 先用已有基线评分，再把当前样本并入基线
+            boolean useSeasonal = settings.isSeasonal() && bucket.getCount() >= settings.getMinSeasonalSamples();
+            RunningStats baseline = useSeasonal ? bucket : overall;
+            AnomalyEvent event = null;
+            lastScore = 0.0;
+            lastAnomaly = null;
+
+            if (overall.getCount() >= settings.getMinSamples()) {
+                double mean = baseline.getMean();
+                double stdDev = Math.max(baseline.getStdDev(), Math.max(Math.abs(mean) * 0.01, 1e-9));
+                lastScore = (rate - mean) / stdDev;
+
+                // 稀疏表的窗口经常没有写入，只有基线预期的行数足够多或 z-score 超过阈值时才判定为降为零
+                boolean expectsRows = mean * windowSeconds >= settings.getDropToZeroMinExpectedRows();
+                if (settings.isDropToZero() && rows == 0 && mean > 0
+                        && (expectsRows || lastScore <= -settings.getScoreThreshold())) {
+                    lastAnomaly = AnomalyType.DROP_TO_ZERO;
+                } else if (lastScore >= settings.getScoreThreshold()) {
+                    lastAnomaly = AnomalyType.SPIKE;
+                } else if (lastScore <= -settings.getScoreThreshold()) {
+                    lastAnomaly = AnomalyType.DROP;
+                }
+
+                if (lastAnomaly != null) {
+                    anomalyCount++;
+                    event = new AnomalyEvent();
+                    event.setDataSourceName(dataSourceName);
+                    event.setTableName(tableName);
+                    event.setType(lastAnomaly);
+                    event.setScore(lastScore);
+                    event.setRowsPerSecond(rate);
+                    event.setBaselineRowsPerSecond(mean);
+                    event.setSeasonalBaseline(useSeasonal);
+                    event.setIncrementCount(rows);
+                    event.setStartTime(statistics.getStartTime());
+                    event.setEndTime(statistics.getEndTime());
+                    event.setDetectedTime(LocalDateTime.now());
+                }
+            }
+
+            overall.add(rate, maxSamples);
+            bucket.add(rate, maxSamples);
+            return event;
+        }
+
+        public String getDataSourceName() {
+            return dataSourceName;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        /**
+         * 最近一次评估的 z-score
+         */
+        public synchronized double getLastScore() {
+            return lastScore;
+        }
+
+        /**
+         * 最近一次评估是否异常
+         */
+        public synchronized boolean isAnomalous() {
+            return lastAnomaly != null;
+        }
+
+        public synchronized AnomalyType getLastAnomaly() {
+            return lastAnomaly;
+        }
+
+        public synchronized long getAnomalyCount() {
+            return anomalyCount;
+        }
+
+        public synchronized long getSampleCount() {
+            return overall.getCount();
+        }
+    }
+}
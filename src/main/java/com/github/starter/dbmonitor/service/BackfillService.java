@@ -0,0 +1,315 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.BackfillJob;
+import com.github.starter.dbmonitor.entity.MonitorConfig;
+import com.github.starter.dbmonitor.repository.JdbcDbMonitorStatisticsRepository;
+import com.github.starter.dbmonitor.repository.JdbcMonitorConfigRepository;
+import com.github.starter.dbmonitor.repository.JdbcTableOperationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 历史数据回填服务
+ * 新增的监控配置只有一个统计间隔的历史数据，回填任务从指定时间开始按统计间隔补齐到已有统计数据的最早时间。
+ * 回填在独立线程中按批执行，每批一次分桶扫描并持久化检查点，批次之间暂停以限制对业务库的压力；
+ * 任务失败或执行节点宕机后可从检查点恢复
+ */
+@Service
+@Slf4j
+public class BackfillService {
+
+    @Autowired
+    private DbMonitorProperties dbMonitorProperties;
+
+    @Autowired
+    private JdbcMonitorConfigRepository monitorConfigRepository;
+
+    @Autowired
+    private JdbcDbMonitorStatisticsRepository statisticsRepository;
+
+    @Autowired
+    private JdbcTableOperationRepository tableOperationRepository;
+
+    @Autowired
+    private MonitorConfigService monitorConfigService;
+
+    @Autowired
+    private DbMonitorService dbMonitorService;
+
+    @Autowired
+    private StatisticsSnapshotService statisticsSnapshotService;
+
+    @Autowired
+    private ConfigLeaseService configLeaseService;
+
+    @Autowired
+    private LoadGovernorService loadGovernorService;
+
+    @Autowired
+    private QueryTimeoutService queryTimeoutService;
+
+    private volatile ExecutorService executor;
+
+    /**
+     * 本节点正在执行的回填任务ID
+     */
+    private final Set<Long> runningJobIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 创建回填任务：从 startTime 回填到已有统计数据的最早时间，时间段与常规统计的时间段首尾对齐
+     */
+    public BackfillJob submit(Long configId, LocalDateTime startTime) {
+        if (startTime == null) {
+            throw new IllegalArgumentException("回填开始时间不能为空");
+        }
+        MonitorConfig config = monitorConfigRepository.findById(configId)
+                .orElseThrow(() -> new IllegalArgumentException("监控配置不存在: " + configId));
+        for (BackfillJob existing : monitorConfigRepository.findBackfillJobsByConfigId(configId)) {
+            if (BackfillJob.STATUS_PENDING.equals(existing.getStatus())
+                    || BackfillJob.STATUS_RUNNING.equals(existing.getStatus())) {
+                throw new IllegalArgumentException("监控配置已有未完成的回填任务: " + existing.getId());
+            }
+        }
+
+        LocalDateTime endTime = statisticsRepository.findEarliestStartTime(config.getDataSourceName(), config.getTableName());
+        if (endTime == null) {
+            endTime = config.getLastStatisticTime();
+        }
+        if (endTime == null) {
+            // 尚未统计过的配置以当前时间为界，常规统计从该时间继续，保证回填与常规统计首尾相接
+            endTime = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+            monitorConfigService.updateLastStatisticTime(config, endTime);
+        }
+        if (!startTime.isBefore(endTime)) {
+            throw new IllegalArgumentException("回填开始时间必须早于已有统计数据的最早时间: " + endTime);
+        }
+        int maxDays = dbMonitorProperties.getBackfill().getMaxDays();
+        if (startTime.isBefore(endTime.minusDays(maxDays))) {
+            throw new IllegalArgumentException("回填时间范围不能超过 " + maxDays + " 天");
+        }
+
+        long intervalSeconds = DueConfigQueue.intervalMinutes(config) * 60;
+        long segments = (Duration.between(startTime, endTime).getSeconds() + intervalSeconds - 1) / intervalSeconds;
+        LocalDateTime alignedStart = endTime.minusSeconds(segments * intervalSeconds);
+
+        LocalDateTime now = LocalDateTime.now();
+        BackfillJob job = new BackfillJob();
+        job.setConfigId(configId);
+        job.setStartTime(alignedStart);
+        job.setEndTime(endTime);
+        job.setCheckpointTime(alignedStart);
+        job.setTotalSegments((int) segments);
+        job.setCompletedSegments(0);
+        job.setStatus(BackfillJob.STATUS_PENDING);
+        job.setCreatedTime(now);
+        job.setUpdatedTime(now);
+        monitorConfigRepository.insertBackfillJob(job);
+        log.info("创建回填任务 {}，监控配置 {}，从 {} 回填到 {}，共 {} 个时间段",
+                job.getId(), config.getConfigName(), alignedStart, endTime, segments);
+
+        dispatch();
+        return job;
+    }
+
+    /**
+     * 根据ID获取回填任务
+     */
+    public Optional<BackfillJob> getJob(Long jobId) {
+        return monitorConfigRepository.findBackfillJob(jobId);
+    }
+
+    /**
+     * 获取监控配置的回填任务
+     */
+    public List<BackfillJob> getJobs(Long configId) {
+        return monitorConfigRepository.findBackfillJobsByConfigId(configId);
+    }
+
+    /**
+     * 取消回填任务，执行中的任务在完成当前批次后停止
+     */
+    public boolean cancel(Long jobId) {
+        return monitorConfigRepository.cancelBackfillJob(jobId, LocalDateTime.now());
+    }
+
+    /**
+     * 从检查点恢复失败或已取消的回填任务
+     */
+    public boolean resume(Long jobId) {
+        boolean resumed = monitorConfigRepository.resumeBackfillJob(jobId, LocalDateTime.now());
+        if (resumed) {
+            dispatch();
+        }
+        return resumed;
+    }
+
+    /**
+     * 抢占待执行的回填任务（包括执行节点宕机后超时未推进的任务），在回填线程中执行
+     */
+    public synchronized void dispatch() {
+        DbMonitorProperties.Backfill backfill = dbMonitorProperties.getBackfill();
+        if (!backfill.isEnabled()) {
+            return;
+        }
+        int slots = Math.max(1, backfill.getConcurrency()) - runningJobIds.size();
+        if (slots <= 0) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleBefore = now.minusSeconds(Math.max(1, backfill.getStaleSeconds()));
+        List<BackfillJob> runnable;
+        try {
+            runnable = monitorConfigRepository.findRunnableBackfillJobs(staleBefore);
+        } catch (Exception e) {
+            log.warn("查询待执行的回填任务失败: {}", e.getMessage());
+            return;
+        }
+
+        String owner = configLeaseService.getOwnerId();
+        for (BackfillJob job : runnable) {
+            if (slots <= 0) {
+                break;
+            }
+            if (runningJobIds.contains(job.getId())
+                    || !monitorConfigRepository.claimBackfillJob(job.getId(), owner, now, staleBefore)) {
+                continue;
+            }
+            job.setOwner(owner);
+            job.setStatus(BackfillJob.STATUS_RUNNING);
+            runningJobIds.add(job.getId());
+            slots--;
+            getExecutor().execute(() -> {
+                try {
+                    runJob(job);
+                } finally {
+                    runningJobIds.remove(job.getId());
+                }
+            });
+        }
+    }
+
+    /**
+     * 从检查点开始按批执行回填任务
+     */
+    void runJob(BackfillJob job) {
+        String owner = job.getOwner();
+        QueryTimeoutService.ActiveRun run = null;
+        try {
+            Optional<MonitorConfig> found = monitorConfigRepository.findById(job.getConfigId());
+            if (!found.isPresent()) {
+                monitorConfigRepository.finishBackfillJob(job.getId(), owner, BackfillJob.STATUS_FAILED,
+                        "监控配置不存在: " + job.getConfigId(), LocalDateTime.now());
+                return;
+            }
+            MonitorConfig config = found.get();
+            // 登记到超时服务，停止配置或应用关闭时取消执行中的扫描
+            run = queryTimeoutService.startWithoutDeadline(config);
+            DbMonitorProperties.Backfill backfill = dbMonitorProperties.getBackfill();
+            long intervalSeconds = DueConfigQueue.intervalMinutes(config) * 60;
+            long chunkSeconds = intervalSeconds * Math.max(1, backfill.getChunkSegments());
+            LocalDateTime checkpoint = job.getCheckpointTime();
+            int completed = job.getCompletedSegments() != null ? job.getCompletedSegments() : 0;
+            log.info("开始执行回填任务 {}，监控配置 {}，从 {} 回填到 {}",
+                    job.getId(), config.getConfigName(), checkpoint, job.getEndTime());
+
+            while (checkpoint.isBefore(job.getEndTime())) {
+                LocalDateTime chunkEnd = checkpoint.plusSeconds(chunkSeconds);
+                if (chunkEnd.isAfter(job.getEndTime())) {
+                    chunkEnd = job.getEndTime();
+                }
+
+                loadGovernorService.acquire(config.getDataSourceName(), run.getDeadlineMillis(), run.getHandle());
+                long queryStart = System.currentTimeMillis();
+                Map<LocalDateTime, Long> counts;
+                try {
+                    counts = tableOperationRepository.queryBucketedIncrement(
+                            config.getDataSourceName(), config.getTableName(), config.getTimeColumnName(),
+                            checkpoint, chunkEnd, (int) intervalSeconds,
+                            queryTimeoutService.nextTimeoutSeconds(config, run), run.getHandle());
+                } finally {
+                    loadGovernorService.release(config.getDataSourceName(),
+                            LoadGovernorService.latencyKey(config, "backfill"), System.currentTimeMillis() - queryStart);
+                }
+                for (Map.Entry<LocalDateTime, Long> entry : counts.entrySet()) {
+                    LocalDateTime segmentEnd = entry.getKey().plusSeconds(intervalSeconds);
+                    statisticsRepository.upsert(dbMonitorService.buildStatistics(config, entry.getKey(),
+                            segmentEnd.isAfter(chunkEnd) ? chunkEnd : segmentEnd, entry.getValue(), run.getHandle()));
+                }
+                completed += counts.size();
+                checkpoint = chunkEnd;
+                statisticsSnapshotService.markChanged();
+
+                if (!monitorConfigRepository.updateBackfillCheckpoint(job.getId(), owner, checkpoint, completed,
+                        LocalDateTime.now())) {
+                    log.info("回填任务 {} 已取消或已被其他节点接管，停止执行", job.getId());
+                    return;
+                }
+                job.setCheckpointTime(checkpoint);
+                job.setCompletedSegments(completed);
+
+                if (checkpoint.isBefore(job.getEndTime()) && backfill.getChunkPauseMillis() > 0) {
+                    Thread.sleep(backfill.getChunkPauseMillis());
+                }
+            }
+
+            monitorConfigRepository.finishBackfillJob(job.getId(), owner, BackfillJob.STATUS_COMPLETED, null,
+                    LocalDateTime.now());
+            log.info("回填任务 {} 执行完成，监控配置 {}，共回填 {} 个时间段", job.getId(), config.getConfigName(), completed);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("回填任务 {} 被中断，超时后将从检查点 {} 恢复", job.getId(), job.getCheckpointTime());
+        } catch (Exception e) {
+            if (executor != null && executor.isShutdown()) {
+                log.info("应用关闭，回填任务 {} 停止，超时后将从检查点 {} 恢复", job.getId(), job.getCheckpointTime());
+                return;
+            }
+            log.error("回填任务 {} 执行失败，可从检查点 {} 恢复: {}", job.getId(), job.getCheckpointTime(), e.getMessage(), e);
+            try {
+                monitorConfigRepository.finishBackfillJob(job.getId(), owner, BackfillJob.STATUS_FAILED,
+                        e.getMessage(), LocalDateTime.now());
+            } catch (Exception ex) {
+                log.warn("更新回填任务 {} 的状态失败: {}", job.getId(), ex.getMessage());
+            }
+        } finally {
+            queryTimeoutService.finish(run);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private ExecutorService getExecutor() {
+        if (executor == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    executor = Executors.newCachedThreadPool(runnable -> {
+                        Thread thread = new Thread(runnable, "db-monitor-backfill");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return executor;
+    }
+}
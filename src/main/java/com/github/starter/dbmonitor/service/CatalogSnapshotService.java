@@ -0,0 +1,144 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.entity.MonitorConfig;
+import com.github.starter.dbmonitor.entity.TableCatalogStats;
+import com.github.starter.dbmonitor.repository.JdbcTableOperationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 表目录快照服务
+ * 每次监控任务开始时，按数据源一次性批量拉取所有监控表的 information_schema.tables 统计信息
+ * 以及 mysql.innodb_index_stats 中的各索引大小，
+ * 磁盘空间估算优先读取快照，避免逐表、逐时间段查询 information_schema
+ */
+@Service
+@Slf4j
+public class CatalogSnapshotService {
+
+    @Autowired
+    private JdbcTableOperationRepository tableOperationRepository;
+
+    @Autowired
+    private GrowthForecastService growthForecastService;
+
+    /**
+     * 数据源名称 -> 目录快照
+     */
+    private final Map<String, CatalogSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * 为监控配置涉及的所有数据源预取目录快照（每个数据源一次查询）
+     */
+    public void prefetch(Collection<MonitorConfig> configs) {
+        Map<String, Set<String>> tablesByDataSource = new LinkedHashMap<>();
+        for (MonitorConfig config : configs) {
+            tablesByDataSource.computeIfAbsent(config.getDataSourceName(), k -> new LinkedHashSet<>())
+                    .add(config.getTableName());
+        }
+        for (Map.Entry<String, Set<String>> entry : tablesByDataSource.entrySet()) {
+            refresh(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 刷新指定数据源的目录快照
+     */
+    public CatalogSnapshot refresh(String dataSourceName, Collection<String> tableNames) {
+        long start = System.currentTimeMillis();
+        Map<String, TableCatalogStats> tables = tableOperationRepository.getTableCatalogStats(dataSourceName, tableNames);
+        Map<String, Map<String, Long>> indexSizes = tableOperationRepository.getIndexSizeStats(dataSourceName, tableNames);
+        CatalogSnapshot snapshot = new CatalogSnapshot(tables, indexSizes, System.currentTimeMillis());
+        snapshots.put(snapshotKey(dataSourceName), snapshot);
+
+        for (TableCatalogStats stats : tables.values()) {
+            growthForecastService.observeTableSize(dataSourceName, stats.getTableName(), stats.getTotalSize());
+        }
+
+        log.debug("数据源 {} 目录快照刷新完成，请求 {} 张表，获取 {} 张表，耗时 {} ms",
+                dataSourceName, tableNames.size(), tables.size(), System.currentTimeMillis() - start);
+        return snapshot;
+    }
+
+    /**
+     * 从快照中获取表的目录统计信息，快照中不存在时返回 null
+     */
+    public TableCatalogStats getTableStats(String dataSourceName, String tableName) {
+        if (tableName == null) {
+            return null;
+        }
+        CatalogSnapshot snapshot = snapshots.get(snapshotKey(dataSourceName));
+        return snapshot != null ? snapshot.getTables().get(tableName.toLowerCase()) : null;
+    }
+
+    /**
+     * 从快照中获取表的各索引大小（索引名 -> 字节），无索引统计信息时返回空结果
+     */
+    public Map<String, Long> getIndexSizes(String dataSourceName, String tableName) {
+        if (tableName == null) {
+            return Collections.emptyMap();
+        }
+        CatalogSnapshot snapshot = snapshots.get(snapshotKey(dataSourceName));
+        Map<String, Long> indexSizes = snapshot != null ? snapshot.getIndexSizes().get(tableName.toLowerCase()) : null;
+        return indexSizes != null ? indexSizes : Collections.<String, Long>emptyMap();
+    }
+
+    /**
+     * 获取所有数据源的目录快照
+     */
+    public Map<String, CatalogSnapshot> getSnapshots() {
+        return Collections.unmodifiableMap(snapshots);
+    }
+
+    /**
+     * 清空所有快照
+     */
+    public void clear() {
+        snapshots.clear();
+    }
+
+    private String snapshotKey(String dataSourceName) {
+        return dataSourceName != null ? dataSourceName : "";
+    }
+
+    /**
+     * 单个数据源的目录快照
+     */
+    public static class CatalogSnapshot {
+        private final Map<String, TableCatalogStats> tables;
+        private final Map<String, Map<String, Long>> indexSizes;
+        private final long loadedMillis;
+
+        public CatalogSnapshot(Map<String, TableCatalogStats> tables, long loadedMillis) {
+            this(tables, Collections.<String, Map<String, Long>>emptyMap(), loadedMillis);
+        }
+
+        public CatalogSnapshot(Map<String, TableCatalogStats> tables, Map<String, Map<String, Long>> indexSizes,
+                               long loadedMillis) {
+            this.tables = Collections.unmodifiableMap(tables);
+            this.indexSizes = Collections.unmodifiableMap(indexSizes);
+            this.loadedMillis = loadedMillis;
+        }
+
+        public Map<String, TableCatalogStats> getTables() {
+            return tables;
+        }
+
+        public Map<String, Map<String, Long>> getIndexSizes() {
+            return indexSizes;
+        }
+
+        public long getLoadedMillis() {
+            return loadedMillis;
+        }
+    }
+}
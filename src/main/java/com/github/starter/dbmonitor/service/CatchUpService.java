@@ -0,0 +1,178 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.MonitorConfig;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 积压追赶服务
+ * 停机恢复后单个配置可能积压大量时间段，追赶模式下按窗口分桶扫描减少查询次数，
+ * 并按数据源限制扫描速率，避免集中补数压垮业务库；同时记录各配置的积压深度和预计完成时间
+ */
+@Service
+@Slf4j
+public class CatchUpService {
+
+    @Autowired
+    private DbMonitorProperties dbMonitorProperties;
+
+    /**
+     * 数据源名称 -> 扫描速率限制
+     */
+    private final Map<String, TokenBucket> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * 配置ID -> 追赶进度
+     */
+    private final Map<Long, CatchUpProgress> backlogs = new ConcurrentHashMap<>();
+
+    /**
+     * 积压的时间段数是否需要进入追赶模式
+     */
+    public boolean isCatchUp(int segmentCount) {
+        DbMonitorProperties.CatchUp catchUp = dbMonitorProperties.getCatchUp();
+        return catchUp.isEnabled() && segmentCount > Math.max(1, catchUp.getBacklogThreshold());
+    }
+
+    /**
+     * 每次分桶扫描覆盖的时间段数
+     */
+    public int getSegmentsPerScan() {
+        return Math.max(1, dbMonitorProperties.getCatchUp().getSegmentsPerScan());
+    }
+
+    /**
+     * 获取数据源的扫描许可，超出速率限制时等待
+     */
+    public void acquire(String dataSourceName) {
+        double permitsPerSecond = dbMonitorProperties.getCatchUp().getMaxQueriesPerSecond();
+        if (permitsPerSecond <= 0) {
+            return;
+        }
+        TokenBucket bucket = limiters.computeIfAbsent(String.valueOf(dataSourceName),
+                k -> new TokenBucket(permitsPerSecond, System.nanoTime()));
+        long waitNanos = bucket.reserve(System.nanoTime());
+        if (waitNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待数据源 " + dataSourceName + " 的追赶扫描许可时被中断", e);
+        }
+    }
+
+    /**
+     * 配置进入追赶模式
+     */
+    public void begin(MonitorConfig config, int totalSegments, LocalDateTime backlogStartTime) {
+        CatchUpProgress progress = new CatchUpProgress();
+        progress.setConfigId(config.getId());
+        progress.setConfigName(config.getConfigName());
+        progress.setDataSourceName(config.getDataSourceName());
+        progress.setTableName(config.getTableName());
+        progress.setTotalSegments(totalSegments);
+        progress.setRemainingSegments(totalSegments);
+        progress.setBacklogStartTime(backlogStartTime);
+        progress.setStartedTime(LocalDateTime.now());
+        backlogs.put(config.getId(), progress);
+    }
+
+    /**
+     * 更新追赶进度，按已处理时间段的平均耗时估算剩余时间
+     */
+    public void progress(MonitorConfig config, int processedSegments) {
+        CatchUpProgress progress = backlogs.get(config.getId());
+        if (progress == null || processedSegments <= 0) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        long elapsedMillis = Duration.between(progress.getStartedTime(), now).toMillis();
+        int remaining = Math.max(0, progress.getTotalSegments() - processedSegments);
+        long etaMillis = elapsedMillis * remaining / processedSegments;
+        progress.setRemainingSegments(remaining);
+        progress.setEtaSeconds(TimeUnit.MILLISECONDS.toSeconds(etaMillis));
+        progress.setEstimatedCompletionTime(now.plusNanos(TimeUnit.MILLISECONDS.toNanos(etaMillis)));
+    }
+
+    /**
+     * 配置追赶结束
+     */
+    public void finish(MonitorConfig config) {
+        CatchUpProgress progress = backlogs.remove(config.getId());
+        if (progress != null) {
+            log.info("监控配置 {} 追赶结束，共处理 {} 个时间段，剩余 {} 个", config.getConfigName(),
+                    progress.getTotalSegments() - progress.getRemainingSegments(), progress.getRemainingSegments());
+        }
+    }
+
+    /**
+     * 当前处于追赶模式的配置，按剩余时间段数倒序
+     */
+    public List<CatchUpProgress> getBacklogs() {
+        List<CatchUpProgress> result = new ArrayList<>(backlogs.values());
+        result.sort(Comparator.comparingInt(CatchUpProgress::getRemainingSegments).reversed());
+        return result;
+    }
+
+    /**
+     * 追赶进度
+     */
+    @Data
+    public static class CatchUpProgress {
+        private Long configId;
+        private String configName;
+        private String dataSourceName;
+        private String tableName;
+        private int totalSegments;
+        private int remainingSegments;
+        private LocalDateTime backlogStartTime;
+        private LocalDateTime startedTime;
+        private Long etaSeconds;
+        private LocalDateTime estimatedCompletionTime;
+    }
+
+    /**
+     * 令牌桶，最多积累一秒的许可；许可不足时预支，返回需要等待的时长，使并发调用方按顺序排队
+     */
+    static final class TokenBucket {
+        private final double permitsPerSecond;
+        private final double capacity;
+        private double tokens;
+        private long lastNanos;
+
+        TokenBucket(double permitsPerSecond, long nowNanos) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.capacity = Math.max(1.0, permitsPerSecond);
+            this.tokens = capacity;
+            this.lastNanos = nowNanos;
+        }
+
+        /**
+         * 预支一个许可
+         *
+         * @return 需要等待的纳秒数
+         */
+        synchronized long reserve(long nowNanos) {
+            if (nowNanos > lastNanos) {
+                tokens = Math.min(capacity, tokens + (nowNanos - lastNanos) / 1e9 * permitsPerSecond);
+                lastNanos = nowNanos;
+            }
+            tokens -= 1;
+            return tokens >= 0 ? 0L : (long) (-tokens / permitsPerSecond * 1e9);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.MonitorConfig;
+import com.github.starter.dbmonitor.repository.JdbcMonitorConfigRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 监控配置租约服务
+ * 各执行器从配置表中小批量抢占待执行的配置，执行期间在后台续期租约，执行完成后释放；
+ * 执行器变慢或宕机时，其未完成的配置在租约过期后由其他执行器接管。
+ * 同时提供单个配置的单飞保护：进程内占位加配置表租约，避免多个调度入口或多个节点重复执行同一配置
+ */
+@Service
+@Slf4j
+public class ConfigLeaseService {
+
+    private static final int MAX_OWNER_LENGTH = 100;
+
+    @Autowired
+    private DbMonitorProperties dbMonitorProperties;
+
+    @Autowired
+    private JdbcMonitorConfigRepository monitorConfigRepository;
+
+    private volatile String ownerId;
+
+    private volatile ScheduledExecutorService renewExecutor;
+
+    /**
+     * 本进程内正在执行的配置ID
+     */
+    private final Set<Long> runningConfigIds = ConcurrentHashMap.newKeySet();
+
+    private int activeRuns;
+
+    private ScheduledFuture<?> renewTask;
+
+    /**
+     * 是否启用租约模式
+     */
+    public boolean isEnabled() {
+        return getLease().isEnabled();
+    }
+
+    /**
+     * 当前执行器的租约持有者标识
+     */
+    public String getOwnerId() {
+        if (ownerId == null) {
+            synchronized (this) {
+                if (ownerId == null) {
+                    String configured = getLease().getOwnerId();
+                    String owner = configured != null && !configured.trim().isEmpty()
+                            ? configured.trim()
+                            : ManagementFactory.getRuntimeMXBean().getName() + "-"
+                                    + UUID.randomUUID().toString().substring(0, 8);
+                    ownerId = owner.length() > MAX_OWNER_LENGTH ? owner.substring(owner.length() - MAX_OWNER_LENGTH) : owner;
+                }
+            }
+        }
+        return ownerId;
+    }
+
+    /**
+     * 抢占一批本轮尚未执行的配置，启用到期调度时只抢占已到期的配置
+     *
+     * @param runStartTime 本轮执行的开始时间
+     */
+    public List<MonitorConfig> claim(LocalDateTime runStartTime) {
+        DbMonitorProperties.Lease lease = getLease();
+        LocalDateTime now = LocalDateTime.now();
+        List<MonitorConfig> claimed = monitorConfigRepository.claimConfigs(getOwnerId(),
+                Math.max(1, lease.getBatchSize()), now, now.plusSeconds(Math.max(1, lease.getLeaseSeconds())),
+                runStartTime.minusSeconds(Math.max(0, lease.getRunSkewSeconds())),
+                dbMonitorProperties.getDueScheduler().isEnabled() ? now : null);
+        if (!claimed.isEmpty()) {
+            log.debug("执行器 {} 抢占了 {} 个监控配置", getOwnerId(), claimed.size());
+        }
+        return claimed;
+    }
+
+    /**
+     * 释放配置租约，执行失败的配置在重试间隔内不会被再次抢占
+     */
+    public void release(MonitorConfig config, boolean succeeded) {
+        LocalDateTime nextClaimTime = succeeded ? null
+                : LocalDateTime.now().plusSeconds(Math.max(0, getLease().getRetryDelaySeconds()));
+        try {
+            if (!monitorConfigRepository.releaseLease(config.getId(), getOwnerId(), nextClaimTime)) {
+                log.warn("监控配置 {} 的租约已不属于执行器 {}，可能已过期并被其他执行器接管",
+                        config.getConfigName(), getOwnerId());
+            }
+        } catch (Exception e) {
+            log.warn("释放监控配置 {} 的租约失败，将在租约过期后自动释放: {}", config.getConfigName(), e.getMessage());
+        }
+    }
+
+    /**
+     * 单飞保护：进入配置执行。先在本进程内占位，非租约模式下再获取配置表中该配置的租约；
+     * 获取成功后刷新最后统计时间，避免基于过期的断点重复统计。租约列不可用时只做进程内保护
+     *
+     * @return 是否可以执行该配置，返回 true 时执行结束后必须调用 {@link #exit(MonitorConfig)}
+     */
+    public boolean tryEnter(MonitorConfig config) {
+        if (!runningConfigIds.add(config.getId())) {
+            log.warn("监控配置 {} 正在本节点的其他调度中执行，跳过本次执行", config.getConfigName());
+            return false;
+        }
+        if (isEnabled() || !getLease().isSingleFlight()) {
+            // 租约模式下配置已由当前执行器抢占
+            return true;
+        }
+
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            if (!monitorConfigRepository.tryAcquireLease(config.getId(), getOwnerId(), now,
+                    now.plusSeconds(Math.max(1, getLease().getLeaseSeconds())))) {
+                runningConfigIds.remove(config.getId());
+                log.warn("监控配置 {} 正在其他节点执行，跳过本次执行", config.getConfigName());
+                return false;
+            }
+            monitorConfigRepository.findById(config.getId())
+                    .ifPresent(latest -> config.setLastStatisticTime(latest.getLastStatisticTime()));
+        } catch (Exception e) {
+            log.warn("获取监控配置 {} 的执行租约失败，仅做进程内单飞保护: {}", config.getConfigName(), e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * 单飞保护：退出配置执行，释放进程内占位和非租约模式下获取的租约
+     */
+    public void exit(MonitorConfig config) {
+        try {
+            if (!isEnabled() && getLease().isSingleFlight()) {
+                monitorConfigRepository.releaseLease(config.getId(), getOwnerId(), null);
+            }
+        } catch (Exception e) {
+            log.debug("释放监控配置 {} 的执行租约失败: {}", config.getConfigName(), e.getMessage());
+        } finally {
+            runningConfigIds.remove(config.getId());
+        }
+    }
+
+    /**
+     * 一轮执行开始，存在执行中的轮次时在后台定期续期当前执行器持有的租约
+     */
+    public synchronized void beginRun() {
+        if (activeRuns++ == 0) {
+            renewTask = startRenewal();
+        }
+    }
+
+    /**
+     * 一轮执行结束，所有轮次结束后停止续期
+     */
+    public synchronized void endRun() {
+        if (activeRuns > 0 && --activeRuns == 0 && renewTask != null) {
+            renewTask.cancel(false);
+            renewTask = null;
+        }
+    }
+
+    private ScheduledFuture<?> startRenewal() {
+        DbMonitorProperties.Lease lease = getLease();
+        long interval = Math.max(1, lease.getRenewIntervalSeconds());
+        return getRenewExecutor().scheduleWithFixedDelay(() -> {
+            try {
+                LocalDateTime now = LocalDateTime.now();
+                int renewed = monitorConfigRepository.renewLeases(getOwnerId(), now,
+                        now.plusSeconds(Math.max(1, lease.getLeaseSeconds())));
+                log.debug("执行器 {} 续期了 {} 个租约", getOwnerId(), renewed);
+            } catch (Exception e) {
+                log.warn("执行器 {} 续期租约失败: {}", getOwnerId(), e.getMessage());
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (renewExecutor != null) {
+            renewExecutor.shutdownNow();
+        }
+    }
+
+    private ScheduledExecutorService getRenewExecutor() {
+        if (renewExecutor == null) {
+            synchronized (this) {
+                if (renewExecutor == null) {
+                    renewExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "db-monitor-lease-renewal");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return renewExecutor;
+    }
+
+    private DbMonitorProperties.Lease getLease() {
+        return dbMonitorProperties.getSharding().getLease();
+    }
+}
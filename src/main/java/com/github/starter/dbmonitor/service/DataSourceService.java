@@ -66,6 +66,15 @@ public class DataSourceService {
         }
     }
     
+    /**
+     * 是否存在指定名称的数据源 Bean（不回退到默认数据源）
+     */
+    public boolean containsDataSource(String dataSourceName) {
+        return dataSourceName != null && !dataSourceName.isEmpty()
+                && applicationContext.containsBean(dataSourceName)
+                && applicationContext.isTypeMatch(dataSourceName, DataSource.class);
+    }
+
     /**
      * 检查数据源是否可用
      */
@@ -1,5 +1,8 @@
 package com.github.starter.dbmonitor.service;
 
+import com.github.starter.dbmonitor.cache.RefreshAheadCache;
+import com.github.starter.dbmonitor.dialect.DataSourceMetadata;
+import com.github.starter.dbmonitor.dialect.DataSourceMetadataRegistry;
 import com.github.starter.dbmonitor.config.DbMonitorProperties;
 import com.github.starter.dbmonitor.entity.DbMonitorStatistics;
 import com.github.starter.dbmonitor.repository.JdbcDbMonitorStatisticsRepository;
@@ -27,109 +30,63 @@ public class DbMonitorMetricsService {
     @Autowired
     private DataSourceService dataSourceService;
     
+    @Autowired
+    private MonitorConfigService monitorConfigService;
+
+    @Autowired
+    private GrowthForecastService growthForecastService;
+
+    @Autowired
+    private AnomalyDetectionService anomalyDetectionService;
+
+    @Autowired
+    private StatisticsStreamService statisticsStreamService;
+
+    @Autowired
+    private DiskSpaceEstimationService diskSpaceEstimationService;
+
+    @Autowired
+    private RowSizeSamplingService rowSizeSamplingService;
+
+    @Autowired
+    private SchemaMetadataService schemaMetadataService;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private DataSourceMetadataRegistry metadataRegistry;
+
+    @Autowired
+    private IsolatedPoolService isolatedPoolService;
+
+    @Autowired
+    private QueryTimeoutService queryTimeoutService;
+
+    @Autowired
+    private LoadGovernorService loadGovernorService;
+
+    @Autowired
+    private StatisticsSnapshotService snapshotService;
+    
     /**
-     * 生成 Prometheus 格式的监控指标
+     * 生成 Prometheus 格式的监控指标（覆盖所有配置了监控的数据源）
+     * 由统计数据得出的指标按统计数据版本缓存，健康状态、连接池、限流等实时指标每次请求重新生成
      */
     public String generatePrometheusMetrics() {
         StringBuilder metrics = new StringBuilder();
         
         try {
-            // 获取最新的监控统计数据
-            List<DbMonitorStatistics> statistics = statisticsRepository.findByDataSourceNameOrderByStatisticTimeDesc(
-                    dbMonitorProperties.getDataSourceName());
-            
-            // 按表名分组获取最新的统计数据
-            Map<String, DbMonitorStatistics> latestStatistics = new HashMap<>();
-            for (DbMonitorStatistics stat : statistics) {
-                if (!latestStatistics.containsKey(stat.getTableName())) {
-                    latestStatistics.put(stat.getTableName(), stat);
-                }
-            }
-            
-            // 生成增量数据指标
-            metrics.append("# HELP db_monitor_increment_total Total number of records added to table in the specified time interval\n");
-            metrics.append("# TYPE db_monitor_increment_total counter\n");
-            
-            for (DbMonitorStatistics stat : latestStatistics.values()) {
-                metrics.append(String.format(
-                        "db_monitor_increment_total{data_source=\"%s\",table=\"%s\",interval_type=\"%s\",interval_value=\"%d\"} %d\n",
-                        stat.getDataSourceName(),
-                        stat.getTableName(),
-                        stat.getIntervalType(),
-                        stat.getIntervalValue(),
-                        stat.getIncrementCount()
-                ));
-            }
-            
-            // 生成磁盘空间指标
-            metrics.append("\n# HELP db_monitor_estimated_disk_size_bytes Estimated disk space usage for incremental data in bytes\n");
-            metrics.append("# TYPE db_monitor_estimated_disk_size_bytes gauge\n");
-            
-            for (DbMonitorStatistics stat : latestStatistics.values()) {
-                long diskSize = stat.getEstimatedDiskSizeBytes() != null ? stat.getEstimatedDiskSizeBytes() : 0L;
-                metrics.append(String.format(
-                        "db_monitor_estimated_disk_size_bytes{data_source=\"%s\",table=\"%s\",interval_type=\"%s\",interval_value=\"%d\"} %d\n",
-                        stat.getDataSourceName(),
-                        stat.getTableName(),
-                        stat.getIntervalType(),
-                        stat.getIntervalValue(),
-                        diskSize
-                ));
-            }
-            
-            // 生成平均行大小指标
-            metrics.append("\n# HELP db_monitor_avg_row_size_bytes Average row size in bytes\n");
-            metrics.append("# TYPE db_monitor_avg_row_size_bytes gauge\n");
-            
-            for (DbMonitorStatistics stat : latestStatistics.values()) {
-                long avgRowSize = stat.getAvgRowSizeBytes() != null ? stat.getAvgRowSizeBytes() : 0L;
-                metrics.append(String.format(
-                        "db_monitor_avg_row_size_bytes{data_source=\"%s\",table=\"%s\"} %d\n",
-                        stat.getDataSourceName(),
-                        stat.getTableName(),
-                        avgRowSize
-                ));
-            }
-            
-            // 生成总磁盘空间指标
-            long totalDiskSize = latestStatistics.values().stream()
-                    .mapToLong(stat -> stat.getEstimatedDiskSizeBytes() != null ? stat.getEstimatedDiskSizeBytes() : 0L)
-                    .sum();
-            
-            metrics.append("\n# HELP db_monitor_total_estimated_disk_size_bytes Total estimated disk space usage for all monitored tables in bytes\n");
-            metrics.append("# TYPE db_monitor_total_estimated_disk_size_bytes gauge\n");
-            metrics.append(String.format("db_monitor_total_estimated_disk_size_bytes{data_source=\"%s\"} %d\n",
-                    dbMonitorProperties.getDataSourceName(), totalDiskSize));
-            
-            // 生成监控任务状态指标
-            metrics.append("\n# HELP db_monitor_last_execution_timestamp_seconds Last execution timestamp\n");
-            metrics.append("# TYPE db_monitor_last_execution_timestamp_seconds gauge\n");
-            
-            for (DbMonitorStatistics stat : latestStatistics.values()) {
-                metrics.append(String.format(
-                        "db_monitor_last_execution_timestamp_seconds{data_source=\"%s\",table=\"%s\"} %d\n",
-                        stat.getDataSourceName(),
-                        stat.getTableName(),
-                        stat.getStatisticTime().atZone(java.time.ZoneOffset.systemDefault()).toEpochSecond()
-                ));
-            }
-            
-            // 生成监控表数量指标
-            metrics.append("\n# HELP db_monitor_monitored_tables_total Total number of monitored tables\n");
-            metrics.append("# TYPE db_monitor_monitored_tables_total gauge\n");
-            metrics.append(String.format("db_monitor_monitored_tables_total{data_source=\"%s\"} %d\n",
-                    dbMonitorProperties.getDataSourceName(), latestStatistics.size()));
-            
-            // 生成数据源健康状态指标
-            metrics.append("\n# HELP db_monitor_datasource_health Data source health status (1=healthy, 0=unhealthy)\n");
-            metrics.append("# TYPE db_monitor_datasource_health gauge\n");
-            
-            boolean isHealthy = dataSourceService.isDataSourceAvailable(dbMonitorProperties.getDataSourceName());
-            metrics.append(String.format("db_monitor_datasource_health{data_source=\"%s\"} %d\n",
-                    dbMonitorProperties.getDataSourceName(), isHealthy ? 1 : 0));
-            
+            metrics.append(snapshotService.getCachedValue("metrics:statistics", this::generateStatisticsMetrics));
         } catch (Exception e) {
-            log.error("生成 Prometheus 指标失败: {}", e.getMessage(), e);
+            log.error("生成 Prometheus 统计指标失败: {}", e.getMessage(), e);
+            metrics.append("# Error generating metrics: ").append(e.getMessage()).append("\n");
+        }
+        
+        try {
+            appendLiveMetrics(metrics);
+        } catch (Exception e) {
+            log.error("生成 Prometheus 实时指标失败: {}", e.getMessage(), e);
             metrics.append("# Error generating metrics: ").append(e.getMessage()).append("\n");
         }
         
@@ -137,72 +94,200 @@ public class DbMonitorMetricsService {
     }
     
     /**
-     * 生成 JSON 格式的监控指标
+     * 生成由统计数据得出的指标（增量、磁盘空间、各数据源汇总）
+     */
+    private String generateStatisticsMetrics() {
+        StringBuilder metrics = new StringBuilder();
+        
+        // 一次分组查询获取所有 (数据源, 表) 的最新统计数据
+        Map<String, Map<String, DbMonitorStatistics>> fleetStatistics = getFleetStatistics();
+        List<DbMonitorStatistics> latestStatistics = flatten(fleetStatistics);
+        
+        // 生成增量数据指标
+        metrics.append("# HELP db_monitor_increment_total Total number of records added to table in the specified time interval\n");
+        metrics.append("# TYPE db_monitor_increment_total counter\n");
+        
+        for (DbMonitorStatistics stat : latestStatistics) {
+            metrics.append(String.format(
+                    "db_monitor_increment_total{data_source=\"%s\",table=\"%s\",interval_type=\"%s\",interval_value=\"%d\"} %d\n",
+                    stat.getDataSourceName(),
+                    stat.getTableName(),
+                    stat.getIntervalType(),
+                    stat.getIntervalValue(),
+                    stat.getIncrementCount()
+            ));
+        }
+        
+        // 生成磁盘空间指标
+        metrics.append("\n# HELP db_monitor_estimated_disk_size_bytes Estimated disk space usage for incremental data in bytes\n");
+        metrics.append("# TYPE db_monitor_estimated_disk_size_bytes gauge\n");
+        
+        for (DbMonitorStatistics stat : latestStatistics) {
+            long diskSize = stat.getEstimatedDiskSizeBytes() != null ? stat.getEstimatedDiskSizeBytes() : 0L;
+            metrics.append(String.format(
+                    "db_monitor_estimated_disk_size_bytes{data_source=\"%s\",table=\"%s\",interval_type=\"%s\",interval_value=\"%d\"} %d\n",
+                    stat.getDataSourceName(),
+                    stat.getTableName(),
+                    stat.getIntervalType(),
+                    stat.getIntervalValue(),
+                    diskSize
+            ));
+        }
+        
+        // 生成平均行大小指标
+        metrics.append("\n# HELP db_monitor_avg_row_size_bytes Average row size in bytes\n");
+        metrics.append("# TYPE db_monitor_avg_row_size_bytes gauge\n");
+        
+        for (DbMonitorStatistics stat : latestStatistics) {
+            long avgRowSize = stat.getAvgRowSizeBytes() != null ? stat.getAvgRowSizeBytes() : 0L;
+            metrics.append(String.format(
+                    "db_monitor_avg_row_size_bytes{data_source=\"%s\",table=\"%s\"} %d\n",
+                    stat.getDataSourceName(),
+                    stat.getTableName(),
+                    avgRowSize
+            ));
+        }
+        
+        // 生成索引空间指标
+        metrics.append("\n# HELP db_monitor_estimated_index_size_bytes Estimated index space usage for incremental data in bytes\n");
+        metrics.append("# TYPE db_monitor_estimated_index_size_bytes gauge\n");
+        
+        for (DbMonitorStatistics stat : latestStatistics) {
+            long indexSize = stat.getEstimatedIndexSizeBytes() != null ? stat.getEstimatedIndexSizeBytes() : 0L;
+            metrics.append(String.format(
+                    "db_monitor_estimated_index_size_bytes{data_source=\"%s\",table=\"%s\",interval_type=\"%s\",interval_value=\"%d\"} %d\n",
+                    stat.getDataSourceName(),
+                    stat.getTableName(),
+                    stat.getIntervalType(),
+                    stat.getIntervalValue(),
+                    indexSize
+            ));
+        }
+        
+        metrics.append("\n# HELP db_monitor_avg_index_row_size_bytes Average index size per row in bytes\n");
+        metrics.append("# TYPE db_monitor_avg_index_row_size_bytes gauge\n");
+        
+        for (DbMonitorStatistics stat : latestStatistics) {
+            long avgIndexRowSize = stat.getAvgIndexRowSizeBytes() != null ? stat.getAvgIndexRowSizeBytes() : 0L;
+            metrics.append(String.format(
+                    "db_monitor_avg_index_row_size_bytes{data_source=\"%s\",table=\"%s\"} %d\n",
+                    stat.getDataSourceName(),
+                    stat.getTableName(),
+                    avgIndexRowSize
+            ));
+        }
+        
+        // 生成各数据源的总磁盘空间指标
+        metrics.append("\n# HELP db_monitor_total_estimated_disk_size_bytes Total estimated disk space usage for all monitored tables in bytes\n");
+        metrics.append("# TYPE db_monitor_total_estimated_disk_size_bytes gauge\n");
+        for (Map.Entry<String, Map<String, DbMonitorStatistics>> entry : fleetStatistics.entrySet()) {
+            metrics.append(String.format("db_monitor_total_estimated_disk_size_bytes{data_source=\"%s\"} %d\n",
+                    entry.getKey(), sumEstimatedDiskSize(entry.getValue().values())));
+        }
+        
+        // 生成各数据源的总增量指标
+        metrics.append("\n# HELP db_monitor_datasource_increment_total Total number of records added to all monitored tables of the data source in the latest interval\n");
+        metrics.append("# TYPE db_monitor_datasource_increment_total gauge\n");
+        for (Map.Entry<String, Map<String, DbMonitorStatistics>> entry : fleetStatistics.entrySet()) {
+            metrics.append(String.format("db_monitor_datasource_increment_total{data_source=\"%s\"} %d\n",
+                    entry.getKey(), sumIncrementCount(entry.getValue().values())));
+        }
+        
+        // 生成监控任务状态指标
+        metrics.append("\n# HELP db_monitor_last_execution_timestamp_seconds Last execution timestamp\n");
+        metrics.append("# TYPE db_monitor_last_execution_timestamp_seconds gauge\n");
+        
+        for (DbMonitorStatistics stat : latestStatistics) {
+            metrics.append(String.format(
+                    "db_monitor_last_execution_timestamp_seconds{data_source=\"%s\",table=\"%s\"} %d\n",
+                    stat.getDataSourceName(),
+                    stat.getTableName(),
+                    stat.getStatisticTime().atZone(java.time.ZoneOffset.systemDefault()).toEpochSecond()
+            ));
+        }
+        
+        // 生成监控表数量指标
+        metrics.append("\n# HELP db_monitor_monitored_tables_total Total number of monitored tables\n");
+        metrics.append("# TYPE db_monitor_monitored_tables_total gauge\n");
+        for (Map.Entry<String, Map<String, DbMonitorStatistics>> entry : fleetStatistics.entrySet()) {
+            metrics.append(String.format("db_monitor_monitored_tables_total{data_source=\"%s\"} %d\n",
+                    entry.getKey(), entry.getValue().size()));
+        }
+        
+        return metrics.toString();
+    }
+    
+    /**
+     * 生成实时指标（不缓存）
+     */
+    private void appendLiveMetrics(StringBuilder metrics) {
+        // 生成数据源健康状态指标
+        metrics.append("\n# HELP db_monitor_datasource_health Data source health status (1=healthy, 0=unhealthy)\n");
+        metrics.append("# TYPE db_monitor_datasource_health gauge\n");
+        
+        for (String dataSourceName : getFleetStatistics().keySet()) {
+            boolean isHealthy = dataSourceService.isDataSourceAvailable(dataSourceName);
+            metrics.append(String.format("db_monitor_datasource_health{data_source=\"%s\"} %d\n",
+                    dataSourceName, isHealthy ? 1 : 0));
+        }
+        
+        appendIndexSizeMetrics(metrics);
+        appendDataSourcePoolMetrics(metrics);
+        appendIsolatedPoolMetrics(metrics);
+        appendQueryTimeoutMetrics(metrics);
+        appendLoadGovernorMetrics(metrics);
+        appendForecastMetrics(metrics);
+        appendAnomalyMetrics(metrics);
+        appendCacheMetrics(metrics, collectCacheStats());
+        
+        // 实时推送订阅指标
+        metrics.append("\n# HELP db_monitor_stream_subscribers Number of live statistics stream subscribers\n");
+        metrics.append("# TYPE db_monitor_stream_subscribers gauge\n");
+        metrics.append(String.format("db_monitor_stream_subscribers %d\n", statisticsStreamService.getSubscriberCount()));
+        metrics.append("\n# HELP db_monitor_stream_evicted_total Stream subscribers disconnected by timeout, overflow or send failure\n");
+        metrics.append("# TYPE db_monitor_stream_evicted_total counter\n");
+        metrics.append(String.format("db_monitor_stream_evicted_total %d\n", statisticsStreamService.getEvictedCount()));
+    }
+    
+    /**
+     * 生成 JSON 格式的监控指标（覆盖所有配置了监控的数据源）
+     * 由统计数据得出的部分按统计数据版本缓存，健康状态、预测和异常事件每次请求重新读取；
+     * 响应体不含生成时间，内容未变化时 ETag 保持不变
      */
     public Map<String, Object> generateJsonMetrics() {
-        Map<String, Object> metrics = new HashMap<>();
+        Map<String, Object> metrics = new LinkedHashMap<>();
         
         try {
-            // 获取最新的监控统计数据
-            List<DbMonitorStatistics> statistics = statisticsRepository.findByDataSourceNameOrderByStatisticTimeDesc(
-                    dbMonitorProperties.getDataSourceName());
+            metrics.putAll(snapshotService.getCachedValue("metrics:json", this::generateJsonStatistics));
             
-            // 按表名分组获取最新的统计数据
-            Map<String, DbMonitorStatistics> latestStatistics = new HashMap<>();
-            for (DbMonitorStatistics stat : statistics) {
-                if (!latestStatistics.containsKey(stat.getTableName())) {
-                    latestStatistics.put(stat.getTableName(), stat);
-                }
+            // 各数据源的健康状态每次请求检查一次
+            Map<String, Boolean> health = new HashMap<>();
+            for (String dataSourceName : getFleetStatistics().keySet()) {
+                health.put(dataSourceName, dataSourceService.isDataSourceAvailable(dataSourceName));
             }
-            
-            // 基本信息
-            metrics.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-            metrics.put("data_source", dbMonitorProperties.getDataSourceName());
-            metrics.put("monitored_tables_count", latestStatistics.size());
-            
-            // 数据源健康状态
-            boolean isHealthy = dataSourceService.isDataSourceAvailable(dbMonitorProperties.getDataSourceName());
+            String defaultDataSourceName = dbMonitorProperties.getDataSourceName();
+            boolean isHealthy = health.containsKey(defaultDataSourceName)
+                    ? health.get(defaultDataSourceName)
+                    : dataSourceService.isDataSourceAvailable(defaultDataSourceName);
             metrics.put("datasource_health", isHealthy ? "healthy" : "unhealthy");
             
-            // 表级别的统计数据
-            List<Map<String, Object>> tableMetrics = new ArrayList<>();
-            for (DbMonitorStatistics stat : latestStatistics.values()) {
-                Map<String, Object> tableMetric = new HashMap<>();
-                tableMetric.put("table_name", stat.getTableName());
-                tableMetric.put("increment_count", stat.getIncrementCount());
-                tableMetric.put("estimated_disk_size_bytes", stat.getEstimatedDiskSizeBytes());
-                tableMetric.put("estimated_disk_size_formatted", formatBytes(stat.getEstimatedDiskSizeBytes()));
-                tableMetric.put("avg_row_size_bytes", stat.getAvgRowSizeBytes());
-                tableMetric.put("avg_row_size_formatted", formatBytes(stat.getAvgRowSizeBytes()));
-                tableMetric.put("last_execution_time", stat.getStatisticTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-                tableMetric.put("start_time", stat.getStartTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-                tableMetric.put("end_time", stat.getEndTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-                tableMetric.put("interval_type", stat.getIntervalType());
-                tableMetric.put("interval_value", stat.getIntervalValue());
-                tableMetrics.add(tableMetric);
+            // 缓存的汇总数据不能修改，复制后再加入健康状态
+            @SuppressWarnings("unchecked")
+            Map<String, Map<String, Object>> cachedDataSources = (Map<String, Map<String, Object>>) metrics.get("data_sources");
+            Map<String, Object> dataSourceMetrics = new LinkedHashMap<>();
+            for (Map.Entry<String, Map<String, Object>> entry : cachedDataSources.entrySet()) {
+                Map<String, Object> dataSourceMetric = new LinkedHashMap<>(entry.getValue());
+                dataSourceMetric.put("datasource_health",
+                        Boolean.TRUE.equals(health.get(entry.getKey())) ? "healthy" : "unhealthy");
+                dataSourceMetrics.put(entry.getKey(), dataSourceMetric);
             }
-            metrics.put("table_metrics", tableMetrics);
-            
-            // 汇总统计
-            long totalIncrementCount = latestStatistics.values().stream()
-                    .mapToLong(DbMonitorStatistics::getIncrementCount)
-                    .sum();
-            metrics.put("total_increment_count", totalIncrementCount);
+            metrics.put("data_sources", dataSourceMetrics);
             
-            long totalEstimatedDiskSize = latestStatistics.values().stream()
-                    .mapToLong(stat -> stat.getEstimatedDiskSizeBytes() != null ? stat.getEstimatedDiskSizeBytes() : 0L)
-                    .sum();
-            metrics.put("total_estimated_disk_size_bytes", totalEstimatedDiskSize);
-            metrics.put("total_estimated_disk_size_formatted", formatBytes(totalEstimatedDiskSize));
+            // 增长率预测
+            metrics.put("forecasts", growthForecastService.getForecastsAsMaps());
             
-            // 磁盘空间详细信息
-            Map<String, Object> diskSpaceDetails = new HashMap<>();
-            diskSpaceDetails.put("total_estimated_size_bytes", totalEstimatedDiskSize);
-            diskSpaceDetails.put("total_estimated_size_formatted", formatBytes(totalEstimatedDiskSize));
-            diskSpaceDetails.put("average_row_size_bytes", calculateAverageRowSize(latestStatistics.values()));
-            diskSpaceDetails.put("largest_table_increment", findLargestTableIncrement(latestStatistics.values()));
-            diskSpaceDetails.put("largest_disk_usage", findLargestDiskUsage(latestStatistics.values()));
-            metrics.put("disk_space_summary", diskSpaceDetails);
+            // 最近的异常事件
+            metrics.put("anomalies", anomalyDetectionService.getRecentEvents(null, null, 20));
             
         } catch (Exception e) {
             log.error("生成 JSON 指标失败: {}", e.getMessage(), e);
@@ -212,6 +297,485 @@ public class DbMonitorMetricsService {
         return metrics;
     }
     
+    /**
+     * 生成 JSON 指标中由统计数据得出的部分
+     */
+    private Map<String, Object> generateJsonStatistics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        
+        // 一次分组查询获取所有 (数据源, 表) 的最新统计数据
+        Map<String, Map<String, DbMonitorStatistics>> fleetStatistics = getFleetStatistics();
+        List<DbMonitorStatistics> latestStatistics = flatten(fleetStatistics);
+        
+        // 基本信息
+        metrics.put("data_source", dbMonitorProperties.getDataSourceName());
+        metrics.put("monitored_tables_count", latestStatistics.size());
+        
+        // 表级别的统计数据
+        List<Map<String, Object>> tableMetrics = new ArrayList<>();
+        for (DbMonitorStatistics stat : latestStatistics) {
+            Map<String, Object> tableMetric = new LinkedHashMap<>();
+            tableMetric.put("data_source", stat.getDataSourceName());
+            tableMetric.put("table_name", stat.getTableName());
+            tableMetric.put("increment_count", stat.getIncrementCount());
+            tableMetric.put("estimated_disk_size_bytes", stat.getEstimatedDiskSizeBytes());
+            tableMetric.put("estimated_disk_size_formatted", formatBytes(stat.getEstimatedDiskSizeBytes()));
+            tableMetric.put("avg_row_size_bytes", stat.getAvgRowSizeBytes());
+            tableMetric.put("avg_row_size_formatted", formatBytes(stat.getAvgRowSizeBytes()));
+            tableMetric.put("estimated_index_size_bytes", stat.getEstimatedIndexSizeBytes());
+            tableMetric.put("estimated_index_size_formatted", formatBytes(stat.getEstimatedIndexSizeBytes()));
+            tableMetric.put("avg_index_row_size_bytes", stat.getAvgIndexRowSizeBytes());
+            tableMetric.put("last_execution_time", stat.getStatisticTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            tableMetric.put("start_time", stat.getStartTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            tableMetric.put("end_time", stat.getEndTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            tableMetric.put("interval_type", stat.getIntervalType());
+            tableMetric.put("interval_value", stat.getIntervalValue());
+            tableMetrics.add(tableMetric);
+        }
+        metrics.put("table_metrics", tableMetrics);
+        
+        // 各数据源汇总统计
+        Map<String, Object> dataSourceMetrics = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, DbMonitorStatistics>> entry : fleetStatistics.entrySet()) {
+            Collection<DbMonitorStatistics> tableStatistics = entry.getValue().values();
+            long dataSourceDiskSize = sumEstimatedDiskSize(tableStatistics);
+            
+            Map<String, Object> dataSourceMetric = new LinkedHashMap<>();
+            dataSourceMetric.put("monitored_tables_count", tableStatistics.size());
+            dataSourceMetric.put("total_increment_count", sumIncrementCount(tableStatistics));
+            dataSourceMetric.put("total_estimated_disk_size_bytes", dataSourceDiskSize);
+            dataSourceMetric.put("total_estimated_disk_size_formatted", formatBytes(dataSourceDiskSize));
+            dataSourceMetrics.put(entry.getKey(), dataSourceMetric);
+        }
+        metrics.put("data_sources", dataSourceMetrics);
+        
+        // 汇总统计
+        metrics.put("total_increment_count", sumIncrementCount(latestStatistics));
+        
+        long totalEstimatedDiskSize = sumEstimatedDiskSize(latestStatistics);
+        metrics.put("total_estimated_disk_size_bytes", totalEstimatedDiskSize);
+        metrics.put("total_estimated_disk_size_formatted", formatBytes(totalEstimatedDiskSize));
+        
+        // 磁盘空间详细信息
+        Map<String, Object> diskSpaceDetails = new LinkedHashMap<>();
+        diskSpaceDetails.put("total_estimated_size_bytes", totalEstimatedDiskSize);
+        diskSpaceDetails.put("total_estimated_size_formatted", formatBytes(totalEstimatedDiskSize));
+        diskSpaceDetails.put("average_row_size_bytes", calculateAverageRowSize(latestStatistics));
+        diskSpaceDetails.put("largest_table_increment", findLargestTableIncrement(latestStatistics));
+        diskSpaceDetails.put("largest_disk_usage", findLargestDiskUsage(latestStatistics));
+        metrics.put("disk_space_summary", diskSpaceDetails);
+        
+        return metrics;
+    }
+    
+    /**
+     * 收集各本地缓存的统计信息
+     */
+    private Map<String, RefreshAheadCache.CacheStats> collectCacheStats() {
+        Map<String, RefreshAheadCache.CacheStats> cacheStats = new LinkedHashMap<>();
+        cacheStats.put("row_size", diskSpaceEstimationService.getRowSizeCacheStats());
+        if (rowSizeSamplingService.isEnabled()) {
+            cacheStats.put("row_sample", rowSizeSamplingService.getCacheStats());
+        }
+        cacheStats.put("schema", schemaMetadataService.getCacheStats());
+        return cacheStats;
+    }
+    
+    /**
+     * 生成本地缓存指标
+     */
+    private void appendCacheMetrics(StringBuilder metrics, Map<String, RefreshAheadCache.CacheStats> cacheStats) {
+        metrics.append("\n# HELP db_monitor_cache_requests_total Cache lookups by result (hit, stale, miss)\n");
+        metrics.append("# TYPE db_monitor_cache_requests_total counter\n");
+        for (Map.Entry<String, RefreshAheadCache.CacheStats> entry : cacheStats.entrySet()) {
+            RefreshAheadCache.CacheStats stats = entry.getValue();
+            metrics.append(String.format("db_monitor_cache_requests_total{cache=\"%s\",result=\"hit\"} %d\n", entry.getKey(), stats.getHitCount()));
+            metrics.append(String.format("db_monitor_cache_requests_total{cache=\"%s\",result=\"stale\"} %d\n", entry.getKey(), stats.getStaleHitCount()));
+            metrics.append(String.format("db_monitor_cache_requests_total{cache=\"%s\",result=\"miss\"} %d\n", entry.getKey(), stats.getMissCount()));
+        }
+        
+        metrics.append("\n# HELP db_monitor_cache_loads_total Cache loads (including background refreshes) by result\n");
+        metrics.append("# TYPE db_monitor_cache_loads_total counter\n");
+        for (Map.Entry<String, RefreshAheadCache.CacheStats> entry : cacheStats.entrySet()) {
+            RefreshAheadCache.CacheStats stats = entry.getValue();
+            metrics.append(String.format("db_monitor_cache_loads_total{cache=\"%s\",result=\"success\"} %d\n", entry.getKey(), stats.getLoadSuccessCount()));
+            metrics.append(String.format("db_monitor_cache_loads_total{cache=\"%s\",result=\"failure\"} %d\n", entry.getKey(), stats.getLoadFailureCount()));
+        }
+        
+        metrics.append("\n# HELP db_monitor_cache_load_seconds_total Total time spent loading cache entries\n");
+        metrics.append("# TYPE db_monitor_cache_load_seconds_total counter\n");
+        for (Map.Entry<String, RefreshAheadCache.CacheStats> entry : cacheStats.entrySet()) {
+            metrics.append(String.format("db_monitor_cache_load_seconds_total{cache=\"%s\"} %s\n",
+                    entry.getKey(), entry.getValue().getTotalLoadNanos() / 1e9));
+        }
+        
+        metrics.append("\n# HELP db_monitor_cache_evictions_total Entries evicted by the size bound\n");
+        metrics.append("# TYPE db_monitor_cache_evictions_total counter\n");
+        for (Map.Entry<String, RefreshAheadCache.CacheStats> entry : cacheStats.entrySet()) {
+            metrics.append(String.format("db_monitor_cache_evictions_total{cache=\"%s\"} %d\n",
+                    entry.getKey(), entry.getValue().getEvictionCount()));
+        }
+        
+        metrics.append("\n# HELP db_monitor_cache_size Current number of cache entries\n");
+        metrics.append("# TYPE db_monitor_cache_size gauge\n");
+        for (Map.Entry<String, RefreshAheadCache.CacheStats> entry : cacheStats.entrySet()) {
+            metrics.append(String.format("db_monitor_cache_size{cache=\"%s\"} %d\n",
+                    entry.getKey(), entry.getValue().getSize()));
+        }
+    }
+    
+    /**
+     * 生成异常检测指标
+     */
+    private void appendAnomalyMetrics(StringBuilder metrics) {
+        List<AnomalyDetectionService.TableDetector> detectors = anomalyDetectionService.getDetectors();
+        if (detectors.isEmpty()) {
+            return;
+        }
+        
+        metrics.append("\n# HELP db_monitor_anomaly_score Z-score of the latest window against the rolling/seasonal baseline\n");
+        metrics.append("# TYPE db_monitor_anomaly_score gauge\n");
+        for (AnomalyDetectionService.TableDetector detector : detectors) {
+            metrics.append(String.format("db_monitor_anomaly_score{data_source=\"%s\",table=\"%s\"} %s\n",
+                    detector.getDataSourceName(), detector.getTableName(), detector.getLastScore()));
+        }
+        
+        metrics.append("\n# HELP db_monitor_anomaly Whether the latest window is anomalous (1=anomalous, 0=normal)\n");
+        metrics.append("# TYPE db_monitor_anomaly gauge\n");
+        for (AnomalyDetectionService.TableDetector detector : detectors) {
+            AnomalyDetectionService.AnomalyType type = detector.getLastAnomaly();
+            metrics.append(String.format("db_monitor_anomaly{data_source=\"%s\",table=\"%s\",type=\"%s\"} %d\n",
+                    detector.getDataSourceName(), detector.getTableName(),
+                    type != null ? type.name() : "NONE", type != null ? 1 : 0));
+        }
+        
+        metrics.append("\n# HELP db_monitor_anomaly_events_total Number of anomalies detected since startup\n");
+        metrics.append("# TYPE db_monitor_anomaly_events_total counter\n");
+        for (AnomalyDetectionService.TableDetector detector : detectors) {
+            metrics.append(String.format("db_monitor_anomaly_events_total{data_source=\"%s\",table=\"%s\"} %d\n",
+                    detector.getDataSourceName(), detector.getTableName(), detector.getAnomalyCount()));
+        }
+    }
+    
+    /**
+     * 生成数据源元数据和连接池使用情况指标（只读取已注册的数据源，不获取新连接）
+     */
+    private void appendDataSourcePoolMetrics(StringBuilder metrics) {
+        Map<String, DataSourceMetadata> registered = metadataRegistry.getAll();
+        if (registered.isEmpty()) {
+            return;
+        }
+        
+        metrics.append("\n# HELP db_monitor_datasource_info Data source product and dialect information\n");
+        metrics.append("# TYPE db_monitor_datasource_info gauge\n");
+        for (DataSourceMetadata metadata : registered.values()) {
+            metrics.append(String.format("db_monitor_datasource_info{data_source=\"%s\",product=\"%s\",version=\"%s\",dialect=\"%s\"} 1\n",
+                    metadata.getDataSourceName(), labelValue(metadata.getProductName()),
+                    labelValue(metadata.getProductVersion()), metadata.getDialect().getName()));
+        }
+        
+        Map<String, DataSourceMetadataRegistry.PoolUsage> poolUsages = new LinkedHashMap<>();
+        for (String dataSourceName : registered.keySet()) {
+            DataSourceMetadataRegistry.PoolUsage usage = metadataRegistry.getPoolUsage(dataSourceName);
+            if (usage != null) {
+                poolUsages.put(dataSourceName, usage);
+            }
+        }
+        if (poolUsages.isEmpty()) {
+            return;
+        }
+        
+        metrics.append("\n# HELP db_monitor_datasource_pool_connections Connections in the data source pool by state\n");
+        metrics.append("# TYPE db_monitor_datasource_pool_connections gauge\n");
+        for (Map.Entry<String, DataSourceMetadataRegistry.PoolUsage> entry : poolUsages.entrySet()) {
+            DataSourceMetadataRegistry.PoolUsage usage = entry.getValue();
+            metrics.append(String.format("db_monitor_datasource_pool_connections{data_source=\"%s\",state=\"active\"} %d\n",
+                    entry.getKey(), usage.getActiveConnections()));
+            metrics.append(String.format("db_monitor_datasource_pool_connections{data_source=\"%s\",state=\"idle\"} %d\n",
+                    entry.getKey(), usage.getIdleConnections()));
+            metrics.append(String.format("db_monitor_datasource_pool_connections{data_source=\"%s\",state=\"total\"} %d\n",
+                    entry.getKey(), usage.getTotalConnections()));
+        }
+        
+        metrics.append("\n# HELP db_monitor_datasource_pool_max_connections Maximum size of the data source pool\n");
+        metrics.append("# TYPE db_monitor_datasource_pool_max_connections gauge\n");
+        for (Map.Entry<String, DataSourceMetadataRegistry.PoolUsage> entry : poolUsages.entrySet()) {
+            metrics.append(String.format("db_monitor_datasource_pool_max_connections{data_source=\"%s\"} %d\n",
+                    entry.getKey(), entry.getValue().getMaxPoolSize()));
+        }
+        
+        metrics.append("\n# HELP db_monitor_datasource_pool_pending_threads Threads waiting for a connection from the data source pool\n");
+        metrics.append("# TYPE db_monitor_datasource_pool_pending_threads gauge\n");
+        for (Map.Entry<String, DataSourceMetadataRegistry.PoolUsage> entry : poolUsages.entrySet()) {
+            metrics.append(String.format("db_monitor_datasource_pool_pending_threads{data_source=\"%s\"} %d\n",
+                    entry.getKey(), entry.getValue().getPendingThreads()));
+        }
+    }
+    
+    /**
+     * 生成监控专用连接池的使用情况和饱和度指标（只读取已创建的连接池）
+     */
+    private void appendIsolatedPoolMetrics(StringBuilder metrics) {
+        Map<String, DataSourceMetadataRegistry.PoolUsage> poolUsages = isolatedPoolService.getPoolUsages();
+        if (poolUsages.isEmpty()) {
+            return;
+        }
+        
+        metrics.append("\n# HELP db_monitor_isolated_pool_connections Connections in the monitoring-only pool by state\n");
+        metrics.append("# TYPE db_monitor_isolated_pool_connections gauge\n");
+        for (Map.Entry<String, DataSourceMetadataRegistry.PoolUsage> entry : poolUsages.entrySet()) {
+            DataSourceMetadataRegistry.PoolUsage usage = entry.getValue();
+            metrics.append(String.format("db_monitor_isolated_pool_connections{data_source=\"%s\",state=\"active\"} %d\n",
+                    entry.getKey(), usage.getActiveConnections()));
+            metrics.append(String.format("db_monitor_isolated_pool_connections{data_source=\"%s\",state=\"idle\"} %d\n",
+                    entry.getKey(), usage.getIdleConnections()));
+            metrics.append(String.format("db_monitor_isolated_pool_connections{data_source=\"%s\",state=\"total\"} %d\n",
+                    entry.getKey(), usage.getTotalConnections()));
+        }
+        
+        metrics.append("\n# HELP db_monitor_isolated_pool_pending_threads Threads waiting for a connection from the monitoring-only pool\n");
+        metrics.append("# TYPE db_monitor_isolated_pool_pending_threads gauge\n");
+        for (Map.Entry<String, DataSourceMetadataRegistry.PoolUsage> entry : poolUsages.entrySet()) {
+            metrics.append(String.format("db_monitor_isolated_pool_pending_threads{data_source=\"%s\"} %d\n",
+                    entry.getKey(), entry.getValue().getPendingThreads()));
+        }
+        
+        metrics.append("\n# HELP db_monitor_isolated_pool_saturation Active connections divided by the maximum size of the monitoring-only pool\n");
+        metrics.append("# TYPE db_monitor_isolated_pool_saturation gauge\n");
+        for (Map.Entry<String, DataSourceMetadataRegistry.PoolUsage> entry : poolUsages.entrySet()) {
+            DataSourceMetadataRegistry.PoolUsage usage = entry.getValue();
+            double saturation = usage.getMaxPoolSize() > 0
+                    ? (double) usage.getActiveConnections() / usage.getMaxPoolSize() : 0.0;
+            metrics.append(String.format(Locale.ROOT, "db_monitor_isolated_pool_saturation{data_source=\"%s\"} %.4f\n",
+                    entry.getKey(), saturation));
+        }
+    }
+    
+    /**
+     * 生成各表增量查询的累计超时次数指标
+     */
+    private void appendQueryTimeoutMetrics(StringBuilder metrics) {
+        Map<String, Map<String, Long>> timeoutCounts = queryTimeoutService.getTimeoutCounts();
+        if (timeoutCounts.isEmpty()) {
+            return;
+        }
+        
+        metrics.append("\n# HELP db_monitor_query_timeouts_total Increment queries that timed out or were cancelled\n");
+        metrics.append("# TYPE db_monitor_query_timeouts_total counter\n");
+        for (Map.Entry<String, Map<String, Long>> dataSource : timeoutCounts.entrySet()) {
+            for (Map.Entry<String, Long> table : dataSource.getValue().entrySet()) {
+                metrics.append(String.format("db_monitor_query_timeouts_total{data_source=\"%s\",table=\"%s\"} %d\n",
+                        dataSource.getKey(), table.getKey(), table.getValue()));
+            }
+        }
+    }
+    
+    /**
+     * 生成负载感知限流的状态指标
+     */
+    private void appendLoadGovernorMetrics(StringBuilder metrics) {
+        Map<String, LoadGovernorService.GovernorState> states = loadGovernorService.getStates();
+        if (states.isEmpty()) {
+            return;
+        }
+        
+        metrics.append("\n# HELP db_monitor_governor_concurrency_limit Current concurrency limit of monitoring queries\n");
+        metrics.append("# TYPE db_monitor_governor_concurrency_limit gauge\n");
+        for (Map.Entry<String, LoadGovernorService.GovernorState> entry : states.entrySet()) {
+            metrics.append(String.format("db_monitor_governor_concurrency_limit{data_source=\"%s\"} %d\n",
+                    entry.getKey(), entry.getValue().getConcurrencyLimit()));
+        }
+        
+        metrics.append("\n# HELP db_monitor_governor_in_flight Monitoring queries currently running\n");
+        metrics.append("# TYPE db_monitor_governor_in_flight gauge\n");
+        for (Map.Entry<String, LoadGovernorService.GovernorState> entry : states.entrySet()) {
+            metrics.append(String.format("db_monitor_governor_in_flight{data_source=\"%s\"} %d\n",
+                    entry.getKey(), entry.getValue().getInFlight()));
+        }
+        
+        metrics.append("\n# HELP db_monitor_governor_pace_millis Minimum interval between monitoring query starts\n");
+        metrics.append("# TYPE db_monitor_governor_pace_millis gauge\n");
+        for (Map.Entry<String, LoadGovernorService.GovernorState> entry : states.entrySet()) {
+            metrics.append(String.format("db_monitor_governor_pace_millis{data_source=\"%s\"} %d\n",
+                    entry.getKey(), entry.getValue().getPaceMillis()));
+        }
+        
+        metrics.append("\n# HELP db_monitor_governor_paused Whether counting is paused because the database is overloaded\n");
+        metrics.append("# TYPE db_monitor_governor_paused gauge\n");
+        for (Map.Entry<String, LoadGovernorService.GovernorState> entry : states.entrySet()) {
+            metrics.append(String.format("db_monitor_governor_paused{data_source=\"%s\"} %d\n",
+                    entry.getKey(), entry.getValue().isPaused() ? 1 : 0));
+        }
+        
+        metrics.append("\n# HELP db_monitor_governor_throttled_total Monitoring runs stopped after waiting too long for a query permit\n");
+        metrics.append("# TYPE db_monitor_governor_throttled_total counter\n");
+        for (Map.Entry<String, LoadGovernorService.GovernorState> entry : states.entrySet()) {
+            metrics.append(String.format("db_monitor_governor_throttled_total{data_source=\"%s\"} %d\n",
+                    entry.getKey(), entry.getValue().getThrottledCount()));
+        }
+        
+        metrics.append("\n# HELP db_monitor_governor_query_latency_millis Moving average latency of monitoring queries\n");
+        metrics.append("# TYPE db_monitor_governor_query_latency_millis gauge\n");
+        for (Map.Entry<String, LoadGovernorService.GovernorState> entry : states.entrySet()) {
+            metrics.append(String.format("db_monitor_governor_query_latency_millis{data_source=\"%s\"} %d\n",
+                    entry.getKey(), entry.getValue().getAvgLatencyMillis()));
+        }
+        
+        metrics.append("\n# HELP db_monitor_governor_query_latency_ratio Moving average of monitoring query latency relative to each query's own baseline\n");
+        metrics.append("# TYPE db_monitor_governor_query_latency_ratio gauge\n");
+        for (Map.Entry<String, LoadGovernorService.GovernorState> entry : states.entrySet()) {
+            metrics.append(String.format(Locale.ROOT, "db_monitor_governor_query_latency_ratio{data_source=\"%s\"} %.2f\n",
+                    entry.getKey(), entry.getValue().getLatencyRatio()));
+        }
+        
+        metrics.append("\n# HELP db_monitor_governor_threads_running Sessions currently executing on the database at the last sample\n");
+        metrics.append("# TYPE db_monitor_governor_threads_running gauge\n");
+        for (Map.Entry<String, LoadGovernorService.GovernorState> entry : states.entrySet()) {
+            if (entry.getValue().getThreadsRunning() != null) {
+                metrics.append(String.format("db_monitor_governor_threads_running{data_source=\"%s\"} %d\n",
+                        entry.getKey(), entry.getValue().getThreadsRunning()));
+            }
+        }
+        
+        metrics.append("\n# HELP db_monitor_governor_replica_lag_seconds Replication lag at the last sample\n");
+        metrics.append("# TYPE db_monitor_governor_replica_lag_seconds gauge\n");
+        for (Map.Entry<String, LoadGovernorService.GovernorState> entry : states.entrySet()) {
+            if (entry.getValue().getReplicaLagSeconds() != null) {
+                metrics.append(String.format("db_monitor_governor_replica_lag_seconds{data_source=\"%s\"} %d\n",
+                        entry.getKey(), entry.getValue().getReplicaLagSeconds()));
+            }
+        }
+    }
+    
+    private String labelValue(String value) {
+        return value != null ? value.replace("\\", "\\\\").replace("\"", "\\\"") : "";
+    }
+    
+    /**
+     * 生成各索引当前大小指标（基于最近一次预取的目录快照，不查询数据库）
+     */
+    private void appendIndexSizeMetrics(StringBuilder metrics) {
+        Map<String, CatalogSnapshotService.CatalogSnapshot> snapshots = catalogSnapshotService.getSnapshots();
+        boolean headerWritten = false;
+        for (Map.Entry<String, CatalogSnapshotService.CatalogSnapshot> snapshot : snapshots.entrySet()) {
+            for (Map.Entry<String, Map<String, Long>> table : snapshot.getValue().getIndexSizes().entrySet()) {
+                for (Map.Entry<String, Long> index : table.getValue().entrySet()) {
+                    if (!headerWritten) {
+                        metrics.append("\n# HELP db_monitor_table_index_size_bytes Current index size in bytes from InnoDB persistent statistics\n");
+                        metrics.append("# TYPE db_monitor_table_index_size_bytes gauge\n");
+                        headerWritten = true;
+                    }
+                    metrics.append(String.format("db_monitor_table_index_size_bytes{data_source=\"%s\",table=\"%s\",index=\"%s\"} %d\n",
+                            snapshot.getKey(), table.getKey(), index.getKey(), index.getValue()));
+                }
+            }
+        }
+    }
+    
+    /**
+     * 生成增长率预测指标（基于内存中的预测状态，不查询历史数据）
+     */
+    private void appendForecastMetrics(StringBuilder metrics) {
+        List<GrowthForecastService.TableForecast> forecasts = growthForecastService.getForecasts();
+        if (forecasts.isEmpty()) {
+            return;
+        }
+        
+        metrics.append("\n# HELP db_monitor_forecast_rows_per_second Smoothed (EWMA) insert rate in rows per second\n");
+        metrics.append("# TYPE db_monitor_forecast_rows_per_second gauge\n");
+        for (GrowthForecastService.TableForecast forecast : forecasts) {
+            metrics.append(String.format("db_monitor_forecast_rows_per_second{data_source=\"%s\",table=\"%s\"} %s\n",
+                    forecast.getDataSourceName(), forecast.getTableName(), forecast.getRowsPerSecond()));
+        }
+        
+        metrics.append("\n# HELP db_monitor_forecast_rows_next_day Forecast rows inserted in the next 24h (Holt linear trend)\n");
+        metrics.append("# TYPE db_monitor_forecast_rows_next_day gauge\n");
+        for (GrowthForecastService.TableForecast forecast : forecasts) {
+            metrics.append(String.format("db_monitor_forecast_rows_next_day{data_source=\"%s\",table=\"%s\"} %s\n",
+                    forecast.getDataSourceName(), forecast.getTableName(), forecast.getForecastRowsNextDay()));
+        }
+        
+        metrics.append("\n# HELP db_monitor_forecast_bytes_per_day Smoothed (EWMA) disk growth in bytes per day\n");
+        metrics.append("# TYPE db_monitor_forecast_bytes_per_day gauge\n");
+        for (GrowthForecastService.TableForecast forecast : forecasts) {
+            metrics.append(String.format("db_monitor_forecast_bytes_per_day{data_source=\"%s\",table=\"%s\"} %s\n",
+                    forecast.getDataSourceName(), forecast.getTableName(), forecast.getBytesPerDay()));
+        }
+        
+        long threshold = dbMonitorProperties.getForecast().getDiskThresholdBytes();
+        if (threshold <= 0) {
+            return;
+        }
+        metrics.append("\n# HELP db_monitor_forecast_days_until_threshold Days until the table reaches the configured disk threshold\n");
+        metrics.append("# TYPE db_monitor_forecast_days_until_threshold gauge\n");
+        for (GrowthForecastService.TableForecast forecast : forecasts) {
+            Double days = forecast.getDaysUntilThreshold(threshold);
+            if (days != null) {
+                metrics.append(String.format("db_monitor_forecast_days_until_threshold{data_source=\"%s\",table=\"%s\"} %s\n",
+                        forecast.getDataSourceName(), forecast.getTableName(), days));
+            }
+        }
+    }
+    
+    /**
+     * 获取所有数据源的最新统计数据，按统计数据版本缓存
+     */
+    private Map<String, Map<String, DbMonitorStatistics>> getFleetStatistics() {
+        return snapshotService.getCachedValue("fleet-statistics", this::loadFleetStatistics);
+    }
+    
+    /**
+     * 加载所有数据源的最新统计数据，按数据源、表名分组
+     * 覆盖默认数据源、所有配置了监控的数据源以及统计表中出现过的数据源
+     */
+    private Map<String, Map<String, DbMonitorStatistics>> loadFleetStatistics() {
+        Map<String, Map<String, DbMonitorStatistics>> fleetStatistics = new TreeMap<>();
+        fleetStatistics.put(dbMonitorProperties.getDataSourceName(), new TreeMap<>());
+        
+        try {
+            for (String dataSourceName : monitorConfigService.getMonitoredDataSourceNames()) {
+                fleetStatistics.computeIfAbsent(dataSourceName, key -> new TreeMap<>());
+            }
+        } catch (Exception e) {
+            log.warn("获取配置了监控的数据源列表失败: {}", e.getMessage());
+        }
+        
+        for (DbMonitorStatistics stat : statisticsRepository.findLatestPerDataSourceAndTable()) {
+            fleetStatistics.computeIfAbsent(stat.getDataSourceName(), key -> new TreeMap<>())
+                    .put(stat.getTableName(), stat);
+        }
+        return fleetStatistics;
+    }
+    
+    /**
+     * 展开分组后的统计数据
+     */
+    private List<DbMonitorStatistics> flatten(Map<String, Map<String, DbMonitorStatistics>> fleetStatistics) {
+        List<DbMonitorStatistics> result = new ArrayList<>();
+        for (Map<String, DbMonitorStatistics> tableStatistics : fleetStatistics.values()) {
+            result.addAll(tableStatistics.values());
+        }
+        return result;
+    }
+    
+    /**
+     * 汇总增量数据行数
+     */
+    private long sumIncrementCount(Collection<DbMonitorStatistics> statistics) {
+        return statistics.stream()
+                .mapToLong(stat -> stat.getIncrementCount() != null ? stat.getIncrementCount() : 0L)
+                .sum();
+    }
+    
+    /**
+     * 汇总预估磁盘空间
+     */
+    private long sumEstimatedDiskSize(Collection<DbMonitorStatistics> statistics) {
+        return statistics.stream()
+                .mapToLong(stat -> stat.getEstimatedDiskSizeBytes() != null ? stat.getEstimatedDiskSizeBytes() : 0L)
+                .sum();
+    }
+    
     /**
      * 获取健康状态
      */
@@ -1,9 +1,12 @@
 package com.github.starter.dbmonitor.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.starter.dbmonitor.config.DbMonitorProperties;
 import com.github.starter.dbmonitor.entity.DbMonitorStatistics;
 import com.github.starter.dbmonitor.entity.MonitorConfig;
+import com.github.starter.dbmonitor.repository.CancellationHandle;
 import com.github.starter.dbmonitor.repository.JdbcTableOperationRepository;
+import com.github.starter.dbmonitor.repository.QueryCancelledException;
 import com.github.starter.dbmonitor.repository.JdbcDbMonitorStatisticsRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,9 +14,15 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * 数据库监控服务
@@ -44,6 +53,44 @@ public class DbMonitorService {
 
     @Autowired
     private DatabaseSecurityService databaseSecurityService;
+
+    @Autowired
+    private StatisticsSnapshotService statisticsSnapshotService;
+
+    @Autowired
+    private GrowthForecastService growthForecastService;
+
+    @Autowired
+    private AnomalyDetectionService anomalyDetectionService;
+
+    @Autowired
+    private StatisticsStreamService statisticsStreamService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private ShardAssignmentService shardAssignmentService;
+
+    @Autowired
+    private ConfigLeaseService configLeaseService;
+
+    @Autowired
+    private CatchUpService catchUpService;
+
+    @Autowired
+    private QueryTimeoutService queryTimeoutService;
+
+    @Autowired
+    private LoadGovernorService loadGovernorService;
+
+    /**
+     * 租约模式下连续抢占为空的最大次数，候选配置被其他执行器抢走时会得到空结果，需要重试
+     */
+    private static final int MAX_EMPTY_CLAIMS = 3;
     
     /**
      * 执行数据库监控任务（非分片模式）
@@ -58,7 +105,10 @@ public class DbMonitorService {
      * @param shardingParam 分片参数，格式："shardIndex/shardTotal" 或 null（非分片模式）
      */
     public void executeMonitoring(String shardingParam) {
-        if (shardingParam != null && !shardingParam.trim().isEmpty()) {
+        if (configLeaseService.isEnabled()) {
+            log.info("开始执行数据库监控任务（租约模式），忽略分片参数: {}", shardingParam);
+            executeMonitoringWithLeases();
+        } else if (shardingParam != null && !shardingParam.trim().isEmpty()) {
             log.info("开始执行数据库监控任务（分片模式），分片参数: {}", shardingParam);
             executeMonitoringWithSharding(shardingParam);
         } else {
@@ -72,30 +122,52 @@ public class DbMonitorService {
      */
     private void executeMonitoringWithoutSharding() {
         try {
-            // 获取所有启用的监控配置
-            List<MonitorConfig> enabledConfigs = monitorConfigService.getEnabledConfigs();
+            // 获取所有启用的监控配置，启用到期调度时只取已到期的配置
+            boolean dueScheduling = monitorConfigService.isDueSchedulingEnabled();
+            List<MonitorConfig> enabledConfigs = dueScheduling
+                    ? monitorConfigService.getDueConfigs(null, LocalDateTime.now())
+                    : monitorConfigService.getEnabledConfigs();
 
             if (enabledConfigs.isEmpty()) {
-                log.info("没有启用的监控配置，跳过监控任务");
+                if (dueScheduling) {
+                    log.debug("没有到期的监控配置，跳过监控任务");
+                } else {
+                    log.info("没有启用的监控配置，跳过监控任务");
+                }
                 return;
             }
 
+            // 按数据源批量预取所有监控表的目录统计信息
+            catalogSnapshotService.prefetch(enabledConfigs);
+
             int successCount = 0;
             int failureCount = 0;
+            int skippedCount = 0;
 
             // 遍历每个监控配置进行监控，每个配置使用独立事务
-            for (MonitorConfig config : enabledConfigs) {
-                try {
-                    monitorTableWithConfigInTransaction(config);
-                    successCount++;
-                } catch (Exception e) {
-                    failureCount++;
-                    log.error("监控配置 {} 执行失败: {}", config.getConfigName(), e.getMessage(), e);
+            // 本轮执行中各数据源是否暂停统计，每个数据源只检查一次
+            Map<String, Boolean> pausedDataSources = new HashMap<>();
+            configLeaseService.beginRun();
+            try {
+                for (MonitorConfig config : enabledConfigs) {
+                    try {
+                        if (monitorTableWithGuard(config, pausedDataSources)) {
+                            successCount++;
+                        } else {
+                            skippedCount++;
+                        }
+                    } catch (Exception e) {
+                        failureCount++;
+                        log.error("监控配置 {} 执行失败: {}", config.getConfigName(), e.getMessage(), e);
+                    }
                 }
+            } finally {
+                configLeaseService.endRun();
+                shardAssignmentService.flushRunCosts();
             }
 
-            log.info("数据库监控任务执行完成，成功: {}, 失败: {}, 总计: {}",
-                    successCount, failureCount, enabledConfigs.size());
+            log.info("数据库监控任务执行完成，成功: {}, 失败: {}, 跳过: {}, 总计: {}",
+                    successCount, failureCount, skippedCount, enabledConfigs.size());
 
         } catch (Exception e) {
             log.error("执行数据库监控任务时发生错误: {}", e.getMessage(), e);
@@ -108,11 +180,18 @@ public class DbMonitorService {
      */
     private void executeMonitoringWithSharding(String shardingParam) {
         try {
-            // 直接使用分片参数查询当前分片需要处理的监控配置
-            List<MonitorConfig> shardConfigs = monitorConfigService.getEnabledConfigs(shardingParam);
+            // 直接使用分片参数查询当前分片需要处理的监控配置，启用到期调度时只取已到期的配置
+            boolean dueScheduling = monitorConfigService.isDueSchedulingEnabled();
+            List<MonitorConfig> shardConfigs = dueScheduling
+                    ? monitorConfigService.getDueConfigs(shardingParam, LocalDateTime.now())
+                    : monitorConfigService.getEnabledConfigs(shardingParam);
 
             if (shardConfigs.isEmpty()) {
-                log.info("当前分片无需处理的监控配置，跳过执行");
+                if (dueScheduling) {
+                    log.debug("当前分片没有到期的监控配置，跳过执行");
+                } else {
+                    log.info("当前分片无需处理的监控配置，跳过执行");
+                }
                 return;
             }
 
@@ -124,23 +203,38 @@ public class DbMonitorService {
             log.info("分片执行 - 当前分片 {}/{} 需处理配置数: {}",
                     shardIndex + 1, shardTotal, shardConfigs.size());
 
+            // 按数据源批量预取当前分片所有监控表的目录统计信息
+            catalogSnapshotService.prefetch(shardConfigs);
+
             int successCount = 0;
             int failureCount = 0;
+            int skippedCount = 0;
 
             // 遍历当前分片的监控配置进行监控
-            for (MonitorConfig config : shardConfigs) {
-                try {
-                    monitorTableWithConfigInTransaction(config);
-                    successCount++;
-                    log.debug("分片执行 - 监控配置 {} 执行成功", config.getConfigName());
-                } catch (Exception e) {
-                    failureCount++;
-                    log.error("分片执行 - 监控配置 {} 执行失败: {}", config.getConfigName(), e.getMessage(), e);
+            // 本轮执行中各数据源是否暂停统计，每个数据源只检查一次
+            Map<String, Boolean> pausedDataSources = new HashMap<>();
+            configLeaseService.beginRun();
+            try {
+                for (MonitorConfig config : shardConfigs) {
+                    try {
+                        if (monitorTableWithGuard(config, pausedDataSources)) {
+                            successCount++;
+                            log.debug("分片执行 - 监控配置 {} 执行成功", config.getConfigName());
+                        } else {
+                            skippedCount++;
+                        }
+                    } catch (Exception e) {
+                        failureCount++;
+                        log.error("分片执行 - 监控配置 {} 执行失败: {}", config.getConfigName(), e.getMessage(), e);
+                    }
                 }
+            } finally {
+                configLeaseService.endRun();
+                shardAssignmentService.flushRunCosts();
             }
 
-            log.info("分片数据库监控任务执行完成 - 分片 {}/{}, 成功: {}, 失败: {}, 总计: {}",
-                    shardIndex + 1, shardTotal, successCount, failureCount, shardConfigs.size());
+            log.info("分片数据库监控任务执行完成 - 分片 {}/{}, 成功: {}, 失败: {}, 跳过: {}, 总计: {}",
+                    shardIndex + 1, shardTotal, successCount, failureCount, skippedCount, shardConfigs.size());
 
         } catch (Exception e) {
             log.error("执行分片数据库监控任务时发生错误: {}", e.getMessage(), e);
@@ -149,19 +243,141 @@ public class DbMonitorService {
     }
 
     /**
-     * 在独立事务中监控单个配置
+     * 执行数据库监控任务（租约模式）
+     * 循环小批量抢占本轮尚未执行的配置直到没有可抢占的配置或超出分片超时时间，执行较快的执行器会抢占更多配置
      */
-    @Transactional
-    public void monitorTableWithConfigInTransaction(MonitorConfig config) {
-        monitorTableWithConfig(config);
+    private void executeMonitoringWithLeases() {
+        LocalDateTime runStartTime = LocalDateTime.now();
+        long deadline = System.currentTimeMillis() + dbMonitorProperties.getSharding().getTimeoutSeconds() * 1000L;
+        String ownerId = configLeaseService.getOwnerId();
+        // 本轮已执行过的配置，执行后最后统计时间未推进的配置再次被抢占时不重复执行
+        Set<Long> executedIds = new HashSet<>();
+        int successCount = 0;
+        int failureCount = 0;
+        int emptyClaims = 0;
+
+        Map<String, Boolean> pausedDataSources = new HashMap<>();
+        configLeaseService.beginRun();
+        try {
+            while (System.currentTimeMillis() < deadline) {
+                List<MonitorConfig> claimed = configLeaseService.claim(runStartTime);
+                if (claimed.isEmpty()) {
+                    if (++emptyClaims >= MAX_EMPTY_CLAIMS) {
+                        break;
+                    }
+                    continue;
+                }
+                emptyClaims = 0;
+
+                catalogSnapshotService.prefetch(claimed);
+
+                for (MonitorConfig config : claimed) {
+                    if (!executedIds.add(config.getId())) {
+                        configLeaseService.release(config, false);
+                        continue;
+                    }
+                    try {
+                        boolean executed = monitorTableWithGuard(config, pausedDataSources);
+                        configLeaseService.release(config, executed);
+                        successCount += executed ? 1 : 0;
+                    } catch (Exception e) {
+                        failureCount++;
+                        configLeaseService.release(config, false);
+                        log.error("租约执行 - 监控配置 {} 执行失败: {}", config.getConfigName(), e.getMessage(), e);
+                    }
+                }
+            }
+
+            if (System.currentTimeMillis() >= deadline) {
+                log.warn("租约执行 - 执行器 {} 本轮执行超过 {} 秒，停止抢占新的配置",
+                        ownerId, dbMonitorProperties.getSharding().getTimeoutSeconds());
+            }
+            log.info("租约模式数据库监控任务执行完成 - 执行器 {}, 成功: {}, 失败: {}",
+                    ownerId, successCount, failureCount);
+
+        } catch (Exception e) {
+            log.error("执行租约模式数据库监控任务时发生错误: {}", e.getMessage(), e);
+            throw new RuntimeException("租约监控任务执行失败", e);
+        } finally {
+            configLeaseService.endRun();
+            shardAssignmentService.flushRunCosts();
+        }
     }
-    
+
+    /**
+     * 在单飞保护下监控单个配置，该配置正在本节点的其他调度或其他节点上执行时跳过；
+     * 数据源暂停统计时直接跳过，不逐个配置等待查询许可；
+     * 启用到期调度时，执行结束后按新的最后统计时间重新排期
+     *
+     * @param pausedDataSources 本轮执行中各数据源是否暂停统计的检查结果
+     * @return 是否实际执行
+     */
+    private boolean monitorTableWithGuard(MonitorConfig config, Map<String, Boolean> pausedDataSources) {
+        if (isDataSourcePaused(config, pausedDataSources)) {
+            if (monitorConfigService.isDueSchedulingEnabled()) {
+                monitorConfigService.deferDue(config, queryTimeoutService.retryTime());
+            }
+            return false;
+        }
+        if (!configLeaseService.tryEnter(config)) {
+            if (monitorConfigService.isDueSchedulingEnabled()) {
+                monitorConfigService.completeDue(config);
+            }
+            return false;
+        }
+        boolean timedOut = false;
+        try {
+            long start = System.currentTimeMillis();
+            monitorTableWithConfig(config);
+            shardAssignmentService.recordRunCost(config, System.currentTimeMillis() - start);
+            return true;
+        } catch (RuntimeException e) {
+            timedOut = QueryTimeoutService.isQueryTimeout(e) || e instanceof LoadGovernorService.ThrottledException;
+            throw e;
+        } finally {
+            configLeaseService.exit(config);
+            if (monitorConfigService.isDueSchedulingEnabled()) {
+                if (timedOut) {
+                    // 超时的时间段延迟一段时间后再重试，避免反复执行同一条慢查询
+                    monitorConfigService.deferDue(config, queryTimeoutService.retryTime());
+                } else {
+                    monitorConfigService.completeDue(config);
+                }
+            }
+        }
+    }
+
+    /**
+     * 配置的数据源是否暂停统计，每个数据源在本轮执行中只检查一次
+     */
+    private boolean isDataSourcePaused(MonitorConfig config, Map<String, Boolean> pausedDataSources) {
+        String dataSourceName = config.getDataSourceName();
+        Boolean paused = pausedDataSources.get(dataSourceName);
+        if (paused == null) {
+            try {
+                paused = loadGovernorService.isPaused(dataSourceName);
+            } catch (Exception e) {
+                log.debug("检查数据源 {} 是否暂停统计失败: {}", dataSourceName, e.getMessage());
+                paused = false;
+            }
+            pausedDataSources.put(dataSourceName, paused);
+            if (paused) {
+                log.warn("数据源 {} 负载过高已暂停统计，本轮跳过该数据源的监控配置", dataSourceName);
+            }
+        }
+        return paused;
+    }
+
     /**
      * 使用监控配置监控单个表（支持断点续传）
+     * 不在整个配置上开启事务：增量查询在事务之外执行，统计结果按批提交，宕机最多丢失一批未提交的时间段。
+     * 某个时间段统计失败（含查询超时）时提交之前的时间段并停止本次执行，断点停在失败的时间段，下次执行时重试
      */
     private void monitorTableWithConfig(MonitorConfig config) {
+        QueryTimeoutService.ActiveRun run = queryTimeoutService.start(config);
         try {
-            LocalDateTime currentTime = LocalDateTime.now();
+            // 截断到秒，使时间段边界与数据库中保存的时间一致，重复统计同一时间段时能命中唯一键
+            LocalDateTime currentTime = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
 
             // 计算需要统计的时间段列表（支持断点续传）
             List<TimeRange> timeRanges = calculateTimeRanges(config, currentTime);
@@ -174,58 +390,116 @@ public class DbMonitorService {
             log.info("监控配置 {} - 表 {} 需要统计 {} 个时间段",
                     config.getConfigName(), config.getTableName(), timeRanges.size());
 
+            // 积压过多时进入追赶模式，按窗口分桶扫描，统计记录仍按原间隔逐段保存
+            boolean catchUp = catchUpService.isCatchUp(timeRanges.size());
+            Map<LocalDateTime, Long> scannedCounts = new HashMap<>();
+            if (catchUp) {
+                catchUpService.begin(config, timeRanges.size(), timeRanges.get(0).getStartTime());
+                log.info("监控配置 {} - 表 {} 积压 {} 个时间段，进入追赶模式，每次扫描 {} 个时间段",
+                        config.getConfigName(), config.getTableName(), timeRanges.size(),
+                        catchUpService.getSegmentsPerScan());
+            }
+
             LocalDateTime lastEndTime = null;
             long totalIncrementCount = 0;
             long totalEstimatedSize = 0;
-
-            // 逐个时间段进行统计
-            for (TimeRange timeRange : timeRanges) {
-                try {
-                    // 使用配置的时间字段查询增量数据
-                    Long incrementCount = queryTableIncrementWithConfig(config, timeRange.getStartTime(), timeRange.getEndTime());
-
-                    // 估算增量数据的磁盘空间使用量（使用配置的数据源）
-                    DiskSpaceEstimationService.DiskSpaceEstimation diskSpaceEstimation =
-                        diskSpaceEstimationService.estimateIncrementalDiskSpace(config.getDataSourceName(), config.getTableName(), incrementCount);
-
-                    // 创建统计记录
-                    DbMonitorStatistics statistics = new DbMonitorStatistics(
-                        config.getDataSourceName(),
-                        config.getTableName(),
-                        timeRange.getStartTime(),
-                        timeRange.getEndTime(),
-                        incrementCount,
-                        diskSpaceEstimation.getTotalEstimatedSize(),
-                        diskSpaceEstimation.getAvgRowSize(),
-                        config.getIntervalType(),
-                        config.getIntervalValue()
-                    );
-
-                    // 设置创建时间
-                    statistics.setCreatedTime(LocalDateTime.now());
-
-                    // 保存统计记录
-                    statisticsRepository.insert(statistics);
-
-                    totalIncrementCount += incrementCount;
-                    totalEstimatedSize += diskSpaceEstimation.getTotalEstimatedSize();
-                    lastEndTime = timeRange.getEndTime();
-
-                    log.debug("监控配置 {} - 表 {} 时间段 {} 到 {} 的增量数据: {} 行",
-                            config.getConfigName(), config.getTableName(),
-                            timeRange.getStartTime(), timeRange.getEndTime(), incrementCount);
-
-                } catch (Exception e) {
-                    log.error("监控配置 {} - 表 {} 时间段 {} 到 {} 统计失败: {}",
-                            config.getConfigName(), config.getTableName(),
-                            timeRange.getStartTime(), timeRange.getEndTime(), e.getMessage(), e);
-                    // 继续处理下一个时间段
+            int completedSegments = 0;
+            int batchSize = Math.max(1, dbMonitorProperties.getMonitorTable().getCommitBatchSegments());
+            List<DbMonitorStatistics> batch = new ArrayList<>(batchSize);
+            statisticsStreamService.publishProgress(config, "STARTED", 0, timeRanges.size(), 0L);
+
+            // 逐个时间段进行统计，查询增量时不持有事务；每批时间段的统计记录与断点在一个短事务中提交
+            RuntimeException segmentFailure = null;
+            try {
+                for (int i = 0; i < timeRanges.size(); i++) {
+                    TimeRange timeRange = timeRanges.get(i);
+                    try {
+                        // 使用配置的时间字段查询增量数据
+                        Long incrementCount = catchUp
+                                ? queryCatchUpIncrement(config, timeRanges, i, scannedCounts, run)
+                                : queryTableIncrementWithConfig(config, timeRange.getStartTime(), timeRange.getEndTime(), run);
+
+                        // 创建统计记录
+                        batch.add(buildStatistics(config, timeRange.getStartTime(), timeRange.getEndTime(), incrementCount,
+                                run.getHandle()));
+
+                        log.debug("监控配置 {} - 表 {} 时间段 {} 到 {} 的增量数据: {} 行",
+                                config.getConfigName(), config.getTableName(),
+                                timeRange.getStartTime(), timeRange.getEndTime(), incrementCount);
+
+                    } catch (RuntimeException e) {
+                        segmentFailure = e;
+                        if (e instanceof LoadGovernorService.ThrottledException) {
+                            log.warn("监控配置 {} - 表 {} 时间段 {} 到 {} 等待查询许可超时，停止本次执行，下次从该时间段重试: {}",
+                                    config.getConfigName(), config.getTableName(),
+                                    timeRange.getStartTime(), timeRange.getEndTime(), e.getMessage());
+                        } else if (e instanceof QueryCancelledException) {
+                            log.info("监控配置 {} - 表 {} 时间段 {} 到 {} 的执行已被停止，下次从该时间段继续",
+                                    config.getConfigName(), config.getTableName(),
+                                    timeRange.getStartTime(), timeRange.getEndTime());
+                        } else if (QueryTimeoutService.isQueryTimeout(e)) {
+                            queryTimeoutService.recordTimeout(config, timeRange.getStartTime(), timeRange.getEndTime(),
+                                    e.getMessage());
+                            log.warn("监控配置 {} - 表 {} 时间段 {} 到 {} 查询超时，停止本次执行，下次从该时间段重试: {}",
+                                    config.getConfigName(), config.getTableName(),
+                                    timeRange.getStartTime(), timeRange.getEndTime(), e.getMessage());
+                        } else {
+                            log.error("监控配置 {} - 表 {} 时间段 {} 到 {} 统计失败，停止本次执行，下次从该时间段重试: {}",
+                                    config.getConfigName(), config.getTableName(),
+                                    timeRange.getStartTime(), timeRange.getEndTime(), e.getMessage(), e);
+                        }
+                        statisticsStreamService.publishProgress(config, "SEGMENT_FAILED",
+                                completedSegments, timeRanges.size(), totalIncrementCount);
+                    }
+                    if (catchUp && segmentFailure == null) {
+                        catchUpService.progress(config, i + 1);
+                    }
+
+                    // 统计失败时提交已完成的时间段，断点不越过失败的时间段
+                    boolean lastBatch = segmentFailure != null || i == timeRanges.size() - 1;
+                    if (batch.isEmpty() || (batch.size() < batchSize && !lastBatch)) {
+                        if (segmentFailure != null) {
+                            break;
+                        }
+                        continue;
+                    }
+
+                    // 提交本批统计记录并推进断点，提交失败时停止本次执行，下次从已提交的断点继续
+                    commitBatch(config, batch);
+                    for (DbMonitorStatistics statistics : batch) {
+                        growthForecastService.observe(statistics);
+                        anomalyDetectionService.evaluate(config, statistics);
+                    }
+                    // 预测和异常检测更新后再使缓存失效，避免刷新出缺少本批结果的指标快照
+                    statisticsSnapshotService.markChanged();
+                    for (DbMonitorStatistics statistics : batch) {
+                        statisticsStreamService.publishStatistics(statistics);
+
+                        totalIncrementCount += statistics.getIncrementCount();
+                        totalEstimatedSize += statistics.getEstimatedDiskSizeBytes();
+                        completedSegments++;
+                        statisticsStreamService.publishProgress(config, "SEGMENT_COMPLETED",
+                                completedSegments, timeRanges.size(), totalIncrementCount);
+                    }
+                    lastEndTime = batch.get(batch.size() - 1).getEndTime();
+                    batch.clear();
+                    if (segmentFailure != null) {
+                        break;
+                    }
+                }
+            } finally {
+                if (catchUp) {
+                    catchUpService.finish(config);
                 }
             }
 
-            // 更新配置的最后统计时间
+            if (segmentFailure != null) {
+                throw segmentFailure;
+            }
+
             if (lastEndTime != null) {
-                monitorConfigService.updateLastStatisticTime(config.getId(), lastEndTime);
+                statisticsStreamService.publishProgress(config, "COMPLETED",
+                        completedSegments, timeRanges.size(), totalIncrementCount);
                 log.info("监控配置 {} - 表 {} 完成统计，总计 {} 行，估计磁盘空间: {} ({})",
                         config.getConfigName(), config.getTableName(), totalIncrementCount,
                         formatBytes(totalEstimatedSize), totalEstimatedSize);
@@ -234,33 +508,136 @@ public class DbMonitorService {
         } catch (Exception e) {
             log.error("监控配置 {} 执行失败: {}", config.getConfigName(), e.getMessage(), e);
             throw e;
+        } finally {
+            queryTimeoutService.finish(run);
         }
     }
     
 
     
     /**
-     * 使用监控配置查询表的增量数据
+     * 使用监控配置查询表的增量数据，语句超时取配置的超时与本次执行剩余时间的较小值，查询失败或超时时抛出异常
+     */
+    private Long queryTableIncrementWithConfig(MonitorConfig config, LocalDateTime startTime, LocalDateTime endTime,
+                                              QueryTimeoutService.ActiveRun run) {
+        // 使用配置中指定的数据源查询增量数据，查询前按数据源负载获取许可，等待不超过本次执行的截止时间
+        loadGovernorService.acquire(config.getDataSourceName(), run.getDeadlineMillis(), run.getHandle());
+        long queryStart = System.currentTimeMillis();
+        long count;
+        try {
+            count = tableOperationRepository.queryTableIncrement(config.getDataSourceName(), config.getTableName(),
+                    config.getTimeColumnName(), startTime, endTime,
+                    queryTimeoutService.nextTimeoutSeconds(config, run), run.getHandle());
+        } finally {
+            loadGovernorService.release(config.getDataSourceName(),
+                    LoadGovernorService.latencyKey(config, "increment"), System.currentTimeMillis() - queryStart);
+        }
+        log.debug("数据源 {} 中的表 {} 使用时间字段 {} 查询到增量数据: {}",
+                config.getDataSourceName(), config.getTableName(), config.getTimeColumnName(), count);
+        return count;
+    }
+
+    /**
+     * 在统计数据源的短事务中写入一批统计记录并推进断点
+     * 配置表与统计表在同一数据源时两者原子提交；否则断点在统计记录提交后推进，
+     * 两次提交之间宕机时下次重新统计这一批时间段，重复写入按唯一键覆盖
+     */
+    private void commitBatch(MonitorConfig config, List<DbMonitorStatistics> batch) {
+        LocalDateTime checkpoint = batch.get(batch.size() - 1).getEndTime();
+        boolean sameDataSource = Objects.equals(statisticsRepository.getStatisticsDataSourceName(),
+                monitorConfigService.getConfigDataSourceName());
+        Boolean checkpointSaved = statisticsRepository.executeInTransaction(status -> {
+            for (DbMonitorStatistics statistics : batch) {
+                // 同一时间段已存在记录时覆盖
+                statisticsRepository.upsert(statistics);
+            }
+            // 事务内只写配置表，提交成功后再同步内存中的断点，回滚时不会提前推进
+            return sameDataSource && monitorConfigService.saveLastStatisticTime(config, checkpoint);
+        });
+        if (!sameDataSource) {
+            monitorConfigService.updateLastStatisticTime(config, checkpoint);
+        } else if (Boolean.TRUE.equals(checkpointSaved)) {
+            monitorConfigService.applyLastStatisticTime(config, checkpoint);
+        }
+    }
+
+    /**
+     * 构建时间段的统计记录，同时估算增量数据的磁盘空间使用量（使用配置的数据源）
+     */
+    DbMonitorStatistics buildStatistics(MonitorConfig config, LocalDateTime startTime, LocalDateTime endTime,
+                                        Long incrementCount, CancellationHandle handle) {
+        DiskSpaceEstimationService.DiskSpaceEstimation diskSpaceEstimation =
+            diskSpaceEstimationService.estimateIncrementalDiskSpace(config, startTime, endTime, incrementCount, handle);
+
+        DbMonitorStatistics statistics = new DbMonitorStatistics(
+            config.getDataSourceName(),
+            config.getTableName(),
+            startTime,
+            endTime,
+            incrementCount,
+            diskSpaceEstimation.getTotalEstimatedSize(),
+            diskSpaceEstimation.getAvgRowSize(),
+            config.getIntervalType(),
+            config.getIntervalValue()
+        );
+
+        statistics.setEstimatedIndexSizeBytes(diskSpaceEstimation.getEstimatedIndexSize());
+        statistics.setAvgIndexRowSizeBytes(diskSpaceEstimation.getAvgIndexRowSize());
+        statistics.setAdditionalInfo(buildIndexGrowthInfo(diskSpaceEstimation.getIndexGrowth()));
+
+        // 设置创建时间
+        statistics.setCreatedTime(LocalDateTime.now());
+        return statistics;
+    }
+
+    /**
+     * 追赶模式下查询时间段的增量数据：从当前时间段开始按窗口分桶扫描一次，窗口内后续时间段直接使用扫描结果
      */
-    private Long queryTableIncrementWithConfig(MonitorConfig config,
-                                              LocalDateTime startTime, LocalDateTime endTime) {
+    private Long queryCatchUpIncrement(MonitorConfig config, List<TimeRange> timeRanges, int index,
+                                       Map<LocalDateTime, Long> scannedCounts, QueryTimeoutService.ActiveRun run) {
+        TimeRange timeRange = timeRanges.get(index);
+        Long scanned = scannedCounts.get(timeRange.getStartTime());
+        if (scanned != null) {
+            return scanned;
+        }
+
+        int windowEnd = Math.min(timeRanges.size(), index + catchUpService.getSegmentsPerScan());
+        LocalDateTime scanEndTime = timeRanges.get(windowEnd - 1).getEndTime();
+        catchUpService.acquire(config.getDataSourceName());
+        scannedCounts.clear();
+        loadGovernorService.acquire(config.getDataSourceName(), run.getDeadlineMillis(), run.getHandle());
+        long queryStart = System.currentTimeMillis();
         try {
-            // 使用配置中指定的数据源查询增量数据
-            Long count = tableOperationRepository.queryTableIncrement(
-                config.getDataSourceName(), config.getTableName(), config.getTimeColumnName(), startTime, endTime);
-            log.debug("数据源 {} 中的表 {} 使用时间字段 {} 查询到增量数据: {}",
-                    config.getDataSourceName(), config.getTableName(), config.getTimeColumnName(), count);
-            return count != null ? count : 0L;
+            scannedCounts.putAll(tableOperationRepository.queryBucketedIncrement(config.getDataSourceName(),
+                    config.getTableName(), config.getTimeColumnName(), timeRange.getStartTime(), scanEndTime,
+                    (int) (getIntervalMinutes(config) * 60), queryTimeoutService.nextTimeoutSeconds(config, run),
+                    run.getHandle()));
+        } finally {
+            loadGovernorService.release(config.getDataSourceName(),
+                    LoadGovernorService.latencyKey(config, "scan"), System.currentTimeMillis() - queryStart);
+        }
+        log.debug("追赶模式 - 表 {} 扫描 {} 到 {}，共 {} 个时间段",
+                config.getTableName(), timeRange.getStartTime(), scanEndTime, windowEnd - index);
+
+        Long count = scannedCounts.get(timeRange.getStartTime());
+        return count != null ? count : 0L;
+    }
 
+    /**
+     * 将各索引的增量大小序列化为统计记录的附加信息，无索引统计时返回 null
+     */
+    private String buildIndexGrowthInfo(Map<String, Long> indexGrowth) {
+        if (indexGrowth == null || indexGrowth.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(Collections.singletonMap("index_growth_bytes", indexGrowth));
         } catch (Exception e) {
-            log.error("查询数据源 {} 中的表 {} 增量数据时发生错误: {}",
-                    config.getDataSourceName(), config.getTableName(), e.getMessage(), e);
-            return 0L;
+            log.debug("序列化索引增量信息失败: {}", e.getMessage());
+            return null;
         }
     }
-    
 
-    
     /**
      * 计算开始时间（基于监控配置）
      */
@@ -311,6 +688,7 @@ public class DbMonitorService {
         LocalDateTime cutoffTime = LocalDateTime.now().minusDays(retentionDays);
         
         statisticsRepository.deleteByCreatedTimeBefore(cutoffTime);
+        statisticsSnapshotService.markChanged();
         log.info("清理了 {} 天前的监控数据", retentionDays);
     }
     
@@ -366,6 +744,7 @@ public class DbMonitorService {
 
     /**
      * 计算需要统计的时间段列表（支持断点续传）
+     * 启用到期调度时只统计完整的间隔，不足一个间隔的尾段留到下次到期时统计，使下次到期时间与统计间隔对齐
      */
     private List<TimeRange> calculateTimeRanges(MonitorConfig config, LocalDateTime currentTime) {
         List<TimeRange> timeRanges = new ArrayList<>();
@@ -385,6 +764,8 @@ public class DbMonitorService {
         // 计算间隔时长（分钟）
         long intervalMinutes = getIntervalMinutes(config);
 
+        boolean completeSegmentsOnly = monitorConfigService.isDueSchedulingEnabled();
+
         // 从上次统计结束时间开始，按间隔切分到当前时间
         LocalDateTime segmentStart = lastStatisticTime;
 
@@ -393,6 +774,9 @@ public class DbMonitorService {
 
             // 最后一个段不能超过当前时间
             if (segmentEnd.isAfter(currentTime)) {
+                if (completeSegmentsOnly) {
+                    break;
+                }
                 segmentEnd = currentTime;
             }
 
@@ -417,19 +801,7 @@ public class DbMonitorService {
      * 获取间隔时长（分钟）
      */
     private long getIntervalMinutes(MonitorConfig config) {
-        String type = config.getIntervalType();
-        int value = config.getIntervalValue();
-
-        switch (type.toUpperCase()) {
-            case "MINUTES":
-                return value;
-            case "HOURS":
-                return value * 60L;
-            case "DAYS":
-                return value * 24L * 60L;
-            default:
-                return value; // 默认按分钟
-        }
+        return DueConfigQueue.intervalMinutes(config);
     }
 
 
@@ -1,13 +1,29 @@
 package com.github.starter.dbmonitor.service;
 
+import com.github.starter.dbmonitor.cache.RefreshAheadCache;
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.MonitorConfig;
+import com.github.starter.dbmonitor.entity.TableCatalogStats;
+import com.github.starter.dbmonitor.repository.CancellationHandle;
 import com.github.starter.dbmonitor.repository.JdbcTableOperationRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 磁盘空间估计服务
@@ -16,10 +32,52 @@ import java.util.Map;
 @Slf4j
 public class DiskSpaceEstimationService {
     
+    /**
+     * InnoDB 聚簇索引名称，聚簇索引即行数据本身，已计入数据空间估算
+     */
+    private static final Set<String> CLUSTERED_INDEX_NAMES = new HashSet<>(Arrays.asList("primary", "gen_clust_index"));
+    
     @Autowired
     private JdbcTableOperationRepository tableOperationRepository;
     
-    private final Map<String, Long> tableRowSizeCache = new HashMap<>();
+    @Autowired
+    private DbMonitorProperties dbMonitorProperties;
+    
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+    
+    @Autowired
+    private RowSizeSamplingService rowSizeSamplingService;
+    
+    /**
+     * 表平均行大小缓存（TTL 过期 + LRU 淘汰 + 后台提前刷新）
+     */
+    private RefreshAheadCache<RowSizeKey, Long> tableRowSizeCache;
+    
+    private ExecutorService refreshExecutor;
+    
+    @PostConstruct
+    public void initCache() {
+        DbMonitorProperties.RowSizeCache config = dbMonitorProperties.getDiskEstimation().getRowSizeCache();
+        refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "db-monitor-row-size-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        tableRowSizeCache = new RefreshAheadCache<>("row_size", config.getMaxSize(),
+                TimeUnit.MINUTES.toMillis(config.getTtlMinutes()),
+                TimeUnit.MINUTES.toMillis(config.getRefreshAfterMinutes()),
+                TimeUnit.MINUTES.toMillis(config.getMaxStaleMinutes()),
+                key -> calculateAvgRowSize(key.dataSourceName, key.tableName),
+                refreshExecutor);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
     
     /**
      * 估算增量数据的磁盘空间使用量
@@ -58,7 +116,7 @@ public class DiskSpaceEstimationService {
             log.debug("数据源 {} 表 {} 的平均行大小: {} 字节, 增量数据 {} 行, 估计磁盘空间: {} 字节",
                      dataSourceName, tableName, avgRowSize, incrementCount, totalEstimatedSize);
 
-            return new DiskSpaceEstimation(totalEstimatedSize, avgRowSize);
+            return withIndexEstimation(dataSourceName, tableName, incrementCount, totalEstimatedSize, avgRowSize);
 
         } catch (Exception e) {
             log.error("估算数据源 {} 表 {} 增量数据磁盘空间时发生错误: {}", dataSourceName, tableName, e.getMessage(), e);
@@ -66,6 +124,67 @@ public class DiskSpaceEstimationService {
         }
     }
     
+    /**
+     * 估算监控配置在指定时间段内增量数据的磁盘空间使用量
+     * 启用抽样测量时优先使用时间窗口内的抽样行大小，否则使用目录统计和表结构估算
+     *
+     * @param handle 本次执行的取消句柄，抽样查询登记到该句柄上，可以为 null
+     */
+    public DiskSpaceEstimation estimateIncrementalDiskSpace(MonitorConfig config,
+                                                           LocalDateTime startTime,
+                                                           LocalDateTime endTime,
+                                                           Long incrementCount,
+                                                           CancellationHandle handle) {
+        if (incrementCount == null || incrementCount <= 0 || !rowSizeSamplingService.isEnabled()) {
+            return estimateIncrementalDiskSpace(config.getDataSourceName(), config.getTableName(), incrementCount);
+        }
+
+        try {
+            Long avgRowSize = rowSizeSamplingService.getSampledAvgRowSize(config, startTime, endTime, handle);
+            if (avgRowSize == null || avgRowSize <= 0) {
+                return estimateIncrementalDiskSpace(config.getDataSourceName(), config.getTableName(), incrementCount);
+            }
+            return withIndexEstimation(config.getDataSourceName(), config.getTableName(), incrementCount,
+                    avgRowSize * incrementCount, avgRowSize);
+        } catch (Exception e) {
+            log.error("抽样估算数据源 {} 表 {} 增量数据磁盘空间时发生错误: {}",
+                    config.getDataSourceName(), config.getTableName(), e.getMessage(), e);
+            return estimateIncrementalDiskSpace(config.getDataSourceName(), config.getTableName(), incrementCount);
+        }
+    }
+    
+    /**
+     * 在数据空间估算结果上附加索引空间估算，只读取本次任务预取的目录快照，不产生额外查询
+     * 有 innodb_index_stats 统计时按各二级索引大小分摊到每行，否则按 index_length 分摊
+     */
+    private DiskSpaceEstimation withIndexEstimation(String dataSourceName, String tableName, Long incrementCount,
+                                                    Long totalEstimatedSize, Long avgRowSize) {
+        TableCatalogStats catalogStats = catalogSnapshotService.getTableStats(dataSourceName, tableName);
+        if (catalogStats == null || catalogStats.getTableRows() == null || catalogStats.getTableRows() <= 0) {
+            return new DiskSpaceEstimation(totalEstimatedSize, avgRowSize);
+        }
+        
+        double tableRows = catalogStats.getTableRows();
+        Map<String, Long> indexGrowth = new TreeMap<>();
+        long indexBytes = 0L;
+        for (Map.Entry<String, Long> entry : catalogSnapshotService.getIndexSizes(dataSourceName, tableName).entrySet()) {
+            if (CLUSTERED_INDEX_NAMES.contains(entry.getKey().toLowerCase())) {
+                continue;
+            }
+            indexBytes += entry.getValue();
+            indexGrowth.put(entry.getKey(), Math.round(entry.getValue() / tableRows * incrementCount));
+        }
+        if (indexGrowth.isEmpty() && catalogStats.getIndexLength() != null) {
+            indexBytes = catalogStats.getIndexLength();
+        }
+        
+        long avgIndexRowSize = Math.round(indexBytes / tableRows);
+        long estimatedIndexSize = Math.round(indexBytes / tableRows * incrementCount);
+        log.debug("数据源 {} 表 {} 的平均每行索引大小: {} 字节, 估计索引空间: {} 字节",
+                dataSourceName, tableName, avgIndexRowSize, estimatedIndexSize);
+        return new DiskSpaceEstimation(totalEstimatedSize, avgRowSize, estimatedIndexSize, avgIndexRowSize, indexGrowth);
+    }
+    
     /**
      * 获取表的平均行大小
      */
@@ -77,18 +196,14 @@ public class DiskSpaceEstimationService {
      * 获取表的平均行大小（支持指定数据源）
      */
     private Long getAvgRowSize(String dataSourceName, String tableName) {
-        // 先从缓存中获取
-        String cacheKey = (dataSourceName != null ? dataSourceName + "." : "") + tableName.toLowerCase();
-        if (tableRowSizeCache.containsKey(cacheKey)) {
-            return tableRowSizeCache.get(cacheKey);
+        // 优先使用本次监控任务预取的目录快照，无需额外查询
+        TableCatalogStats catalogStats = catalogSnapshotService.getTableStats(dataSourceName, tableName);
+        if (catalogStats != null && catalogStats.getEffectiveAvgRowSize() != null) {
+            return catalogStats.getEffectiveAvgRowSize();
         }
 
-        Long avgRowSize = calculateAvgRowSize(dataSourceName, tableName);
-
-        // 缓存结果（缓存30分钟）
-        tableRowSizeCache.put(cacheKey, avgRowSize);
-
-        return avgRowSize;
+        // 过期前提前在后台刷新，刷新期间继续使用旧值
+        return tableRowSizeCache.get(new RowSizeKey(dataSourceName, tableName));
     }
     
     /**
@@ -199,8 +314,10 @@ public class DiskSpaceEstimationService {
             long totalSize = 0;
             for (Map<String, Object> columnInfo : schemaInfo) {
                 String dataType = columnInfo.get("DATA_TYPE").toString().toLowerCase();
-                long charLength = Long.valueOf(columnInfo.get("CHAR_LENGTH").toString());
-                int numPrecision = Integer.valueOf(columnInfo.get("NUM_PRECISION").toString());
+                Object charLengthObj = columnInfo.get("CHAR_LENGTH");
+                Object numPrecisionObj = columnInfo.get("NUM_PRECISION");
+                long charLength = charLengthObj != null ? Long.parseLong(charLengthObj.toString()) : 0L;
+                int numPrecision = numPrecisionObj != null ? Integer.parseInt(numPrecisionObj.toString()) : 0;
 
                 totalSize += estimateColumnSize(dataType, charLength, numPrecision);
             }
@@ -215,7 +332,7 @@ public class DiskSpaceEstimationService {
     /**
      * 估算单个字段的大小
      */
-    private long estimateColumnSize(String dataType, long charLength, int numPrecision) {
+    static long estimateColumnSize(String dataType, long charLength, int numPrecision) {
         switch (dataType) {
             // 整数类型
             case "tinyint":
@@ -284,20 +401,74 @@ public class DiskSpaceEstimationService {
      * 清理缓存
      */
     public void clearCache() {
-        tableRowSizeCache.clear();
+        tableRowSizeCache.invalidateAll();
         log.info("已清理磁盘空间估算缓存");
     }
     
+    /**
+     * 获取平均行大小缓存的统计信息
+     */
+    public RefreshAheadCache.CacheStats getRowSizeCacheStats() {
+        return tableRowSizeCache.getStats();
+    }
+    
+    /**
+     * 平均行大小缓存键（表名不区分大小写）
+     */
+    private static final class RowSizeKey {
+        private final String dataSourceName;
+        private final String tableName;
+        
+        private RowSizeKey(String dataSourceName, String tableName) {
+            this.dataSourceName = dataSourceName;
+            this.tableName = tableName;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RowSizeKey)) {
+                return false;
+            }
+            RowSizeKey other = (RowSizeKey) o;
+            return Objects.equals(dataSourceName, other.dataSourceName)
+                    && tableName.equalsIgnoreCase(other.tableName);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(dataSourceName, tableName.toLowerCase());
+        }
+        
+        @Override
+        public String toString() {
+            return (dataSourceName != null ? dataSourceName + "." : "") + tableName;
+        }
+    }
+    
     /**
      * 磁盘空间估计结果
      */
     public static class DiskSpaceEstimation {
         private final Long totalEstimatedSize;
         private final Long avgRowSize;
+        private final Long estimatedIndexSize;
+        private final Long avgIndexRowSize;
+        private final Map<String, Long> indexGrowth;
         
         public DiskSpaceEstimation(Long totalEstimatedSize, Long avgRowSize) {
+            this(totalEstimatedSize, avgRowSize, 0L, 0L, Collections.<String, Long>emptyMap());
+        }
+        
+        public DiskSpaceEstimation(Long totalEstimatedSize, Long avgRowSize, Long estimatedIndexSize,
+                                   Long avgIndexRowSize, Map<String, Long> indexGrowth) {
             this.totalEstimatedSize = totalEstimatedSize;
             this.avgRowSize = avgRowSize;
+            this.estimatedIndexSize = estimatedIndexSize;
+            this.avgIndexRowSize = avgIndexRowSize;
+            this.indexGrowth = Collections.unmodifiableMap(indexGrowth);
         }
         
         public Long getTotalEstimatedSize() {
@@ -307,5 +478,20 @@ public class DiskSpaceEstimationService {
         public Long getAvgRowSize() {
             return avgRowSize;
         }
+        
+        public Long getEstimatedIndexSize() {
+            return estimatedIndexSize;
+        }
+        
+        public Long getAvgIndexRowSize() {
+            return avgIndexRowSize;
+        }
+        
+        /**
+         * 各二级索引的增量大小（索引名 -> 字节），仅有 innodb_index_stats 统计时有数据
+         */
+        public Map<String, Long> getIndexGrowth() {
+            return indexGrowth;
+        }
     }
 }
\ No newline at end of file
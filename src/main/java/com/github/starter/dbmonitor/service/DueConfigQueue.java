@@ -0,0 +1,123 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.entity.MonitorConfig;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 按下次到期时间排序的监控配置最小堆
+ * 重新排期时不删除堆中旧条目，出堆时与最新到期时间比对后丢弃（惰性删除），每次出堆的开销只与到期配置数相关
+ */
+class DueConfigQueue {
+
+    private final PriorityQueue<Entry> heap = new PriorityQueue<>();
+
+    /**
+     * 配置ID -> 当前有效的到期时间，不在表中的配置视为已出堆（执行中）
+     */
+    private final Map<Long, LocalDateTime> scheduled = new HashMap<>();
+
+    DueConfigQueue(Collection<MonitorConfig> configs, LocalDateTime now) {
+        for (MonitorConfig config : configs) {
+            schedule(config, now);
+        }
+    }
+
+    /**
+     * 按配置的最后统计时间（重新）排期，已在堆中的配置以新的到期时间为准
+     */
+    synchronized void schedule(MonitorConfig config, LocalDateTime now) {
+        scheduleAt(config, dueTimeOf(config, now));
+    }
+
+    /**
+     * 按指定的到期时间（重新）排期
+     */
+    synchronized void scheduleAt(MonitorConfig config, LocalDateTime dueTime) {
+        if (config.getId() == null) {
+            return;
+        }
+        scheduled.put(config.getId(), dueTime);
+        heap.add(new Entry(config.getId(), dueTime));
+    }
+
+    /**
+     * 取出所有到期的配置ID，按到期时间先后排列
+     */
+    synchronized List<Long> pollDue(LocalDateTime now) {
+        List<Long> due = new ArrayList<>();
+        while (!heap.isEmpty() && !heap.peek().dueTime.isAfter(now)) {
+            Entry entry = heap.poll();
+            if (entry.dueTime.equals(scheduled.get(entry.configId))) {
+                scheduled.remove(entry.configId);
+                due.add(entry.configId);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * 最早的到期时间，没有排期的配置时返回 null
+     */
+    synchronized LocalDateTime peekDueTime() {
+        while (!heap.isEmpty() && !heap.peek().dueTime.equals(scheduled.get(heap.peek().configId))) {
+            heap.poll();
+        }
+        return heap.isEmpty() ? null : heap.peek().dueTime;
+    }
+
+    synchronized int size() {
+        return scheduled.size();
+    }
+
+    /**
+     * 配置的下次到期时间：从未统计过的配置立即到期，否则为最后统计时间加一个统计间隔
+     */
+    static LocalDateTime dueTimeOf(MonitorConfig config, LocalDateTime now) {
+        if (config.getLastStatisticTime() == null) {
+            return now;
+        }
+        return config.getLastStatisticTime().plusMinutes(intervalMinutes(config));
+    }
+
+    /**
+     * 配置的统计间隔（分钟）
+     */
+    static long intervalMinutes(MonitorConfig config) {
+        String type = config.getIntervalType();
+        int value = config.getIntervalValue();
+
+        switch (type.toUpperCase()) {
+            case "MINUTES":
+                return value;
+            case "HOURS":
+                return value * 60L;
+            case "DAYS":
+                return value * 24L * 60L;
+            default:
+                return value; // 默认按分钟
+        }
+    }
+
+    private static class Entry implements Comparable<Entry> {
+        private final long configId;
+        private final LocalDateTime dueTime;
+
+        Entry(long configId, LocalDateTime dueTime) {
+            this.configId = configId;
+            this.dueTime = dueTime;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int result = dueTime.compareTo(other.dueTime);
+            return result != 0 ? result : Long.compare(configId, other.configId);
+        }
+    }
+}
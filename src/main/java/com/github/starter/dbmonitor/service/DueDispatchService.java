@@ -0,0 +1,150 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内置到期调度（未启用 XXL-Job 且启用到期调度时使用）
+ * 在独立线程上按到期队列中最早的到期时间休眠，到期后执行已到期的配置；配置重新排期到更早的时间时立即唤醒。
+ * 最长休眠 dispatch-interval-seconds，用于发现新增或修改的配置，不与回填、清理等 Spring 定时任务共用调度线程
+ */
+@Service
+@Slf4j
+public class DueDispatchService {
+
+    @Autowired
+    private DbMonitorProperties dbMonitorProperties;
+
+    @Autowired
+    private DbMonitorService dbMonitorService;
+
+    @Autowired
+    private MonitorConfigService monitorConfigService;
+
+    private volatile ScheduledExecutorService executor;
+
+    private ScheduledFuture<?> nextDispatch;
+
+    /**
+     * 已安排的下一次调度时间
+     */
+    private LocalDateTime nextDispatchTime;
+
+    private boolean dispatching;
+
+    /**
+     * 应用启动完成后开始调度
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (this) {
+            if (executor != null) {
+                return;
+            }
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "db-monitor-due-dispatch");
+                thread.setDaemon(true);
+                return thread;
+            });
+            monitorConfigService.setDueTimeListener(this::wakeUpAt);
+            scheduleAt(LocalDateTime.now());
+        }
+        log.info("内置到期调度已启动，最长检查间隔: {} 秒", maxSleepSeconds());
+    }
+
+    /**
+     * 配置重新排期到比已安排的调度更早的时间时提前唤醒；调度执行中时由本轮结束后统一计算下一次调度时间
+     */
+    public synchronized void wakeUpAt(LocalDateTime dueTime) {
+        if (executor == null || executor.isShutdown() || dispatching) {
+            return;
+        }
+        if (nextDispatchTime != null && !dueTime.isBefore(nextDispatchTime)) {
+            return;
+        }
+        scheduleAt(dueTime);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        monitorConfigService.setDueTimeListener(null);
+        ScheduledExecutorService current = executor;
+        if (current != null) {
+            current.shutdownNow();
+        }
+    }
+
+    /**
+     * 执行已到期的配置，结束后按到期队列安排下一次调度
+     */
+    void dispatch() {
+        LocalDateTime dispatchStart = LocalDateTime.now();
+        synchronized (this) {
+            dispatching = true;
+            nextDispatch = null;
+            nextDispatchTime = null;
+        }
+        try {
+            dbMonitorService.executeMonitoring();
+        } catch (Exception e) {
+            log.error("到期调度数据库监控任务执行失败: {}", e.getMessage(), e);
+        } finally {
+            synchronized (this) {
+                dispatching = false;
+                if (executor != null && !executor.isShutdown()) {
+                    LocalDateTime nextDueTime = null;
+                    try {
+                        nextDueTime = monitorConfigService.getNextDueTime();
+                    } catch (Exception e) {
+                        log.warn("查询下次到期时间失败: {}", e.getMessage());
+                    }
+                    scheduleAt(nextDispatchTimeOf(nextDueTime, dispatchStart, LocalDateTime.now()));
+                }
+            }
+        }
+    }
+
+    /**
+     * 下一次调度时间：本轮开始前就已到期的配置说明执行后未推进（失败或被跳过），按最长检查间隔重试，
+     * 避免反复执行；本轮执行期间到期的配置立即调度；其余按最早到期时间，且不晚于最长检查间隔
+     */
+    LocalDateTime nextDispatchTimeOf(LocalDateTime nextDueTime, LocalDateTime dispatchStart, LocalDateTime now) {
+        LocalDateTime latest = now.plusSeconds(maxSleepSeconds());
+        if (nextDueTime == null || !nextDueTime.isAfter(dispatchStart)) {
+            return latest;
+        }
+        return nextDueTime.isAfter(latest) ? latest : nextDueTime;
+    }
+
+    private void scheduleAt(LocalDateTime dispatchTime) {
+        if (nextDispatch != null) {
+            nextDispatch.cancel(false);
+        }
+        long delayMillis = Math.max(0L, Duration.between(LocalDateTime.now(), dispatchTime).toMillis());
+        nextDispatchTime = dispatchTime;
+        nextDispatch = executor.schedule(this::dispatch, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private boolean isEnabled() {
+        return dbMonitorProperties.getDueScheduler().isEnabled() && !dbMonitorProperties.getXxlJob().isEnabled();
+    }
+
+    private long maxSleepSeconds() {
+        return Math.max(1, dbMonitorProperties.getDueScheduler().getDispatchIntervalSeconds());
+    }
+}
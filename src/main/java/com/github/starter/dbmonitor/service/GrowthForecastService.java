@@ -0,0 +1,256 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.DbMonitorStatistics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 增长率预测服务
+ * 每写入一条统计数据即增量更新该表的 EWMA 和 Holt 线性趋势状态，
+ * 每张表只保存固定大小的状态，计算预测时无需回扫历史统计数据
+ */
+@Service
+@Slf4j
+public class GrowthForecastService {
+
+    private static final double SECONDS_PER_DAY = 86400.0;
+
+    @Autowired
+    private DbMonitorProperties dbMonitorProperties;
+
+    private final Map<String, TableForecast> forecasts = new ConcurrentHashMap<>();
+
+    /**
+     * 使用新写入的统计数据更新预测状态
+     */
+    public void observe(DbMonitorStatistics statistics) {
+        DbMonitorProperties.Forecast config = dbMonitorProperties.getForecast();
+        if (!config.isEnabled() || statistics.getStartTime() == null || statistics.getEndTime() == null) {
+            return;
+        }
+
+        long windowSeconds = Duration.between(statistics.getStartTime(), statistics.getEndTime()).getSeconds();
+        if (windowSeconds <= 0) {
+            return;
+        }
+
+        TableForecast forecast = forecasts.computeIfAbsent(
+                key(statistics.getDataSourceName(), statistics.getTableName()),
+                k -> new TableForecast(statistics.getDataSourceName(), statistics.getTableName()));
+
+        long rows = statistics.getIncrementCount() != null ? statistics.getIncrementCount() : 0L;
+        long bytes = statistics.getEstimatedDiskSizeBytes() != null ? statistics.getEstimatedDiskSizeBytes() : 0L;
+        forecast.update(statistics.getEndTime(), windowSeconds, rows, bytes, config);
+    }
+
+    /**
+     * 记录表当前的实际大小（字节），用于计算距离阈值的天数
+     */
+    public void observeTableSize(String dataSourceName, String tableName, long tableSizeBytes) {
+        if (!dbMonitorProperties.getForecast().isEnabled() || tableSizeBytes <= 0) {
+            return;
+        }
+        forecasts.computeIfAbsent(key(dataSourceName, tableName), k -> new TableForecast(dataSourceName, tableName))
+                .setTableSizeBytes(tableSizeBytes);
+    }
+
+    /**
+     * 获取指定表的预测结果
+     */
+    public TableForecast getForecast(String dataSourceName, String tableName) {
+        return forecasts.get(key(dataSourceName, tableName));
+    }
+
+    /**
+     * 获取所有表的预测结果，按数据源和表名排序
+     */
+    public List<TableForecast> getForecasts() {
+        List<TableForecast> result = new ArrayList<>(forecasts.values());
+        result.sort(Comparator.comparing(TableForecast::getDataSourceName)
+                .thenComparing(TableForecast::getTableName));
+        return result;
+    }
+
+    /**
+     * 生成 JSON 格式的预测结果
+     */
+    public List<Map<String, Object>> getForecastsAsMaps() {
+        long threshold = dbMonitorProperties.getForecast().getDiskThresholdBytes();
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (TableForecast forecast : getForecasts()) {
+            result.add(forecast.toMap(threshold));
+        }
+        return result;
+    }
+
+    /**
+     * 清空预测状态
+     */
+    public void clear() {
+        forecasts.clear();
+    }
+
+    private String key(String dataSourceName, String tableName) {
+        return dataSourceName + "." + (tableName != null ? tableName.toLowerCase() : null);
+    }
+
+    /**
+     * 单表预测状态（固定大小）
+     */
+    public static class TableForecast {
+        private final String dataSourceName;
+        private final String tableName;
+
+        private long observations;
+        private double ewmaRowsPerSecond;
+        private double ewmaBytesPerSecond;
+        private double level;
+        private double trend;
+        private double avgWindowSeconds;
+        private long cumulativeBytes;
+        private Long tableSizeBytes;
+        private LocalDateTime lastWindowEnd;
+        private LocalDateTime lastUpdated;
+
+        public TableForecast(String dataSourceName, String tableName) {
+            this.dataSourceName = dataSourceName;
+            this.tableName = tableName;
+        }
+
+        synchronized void update(LocalDateTime windowEnd, long windowSeconds, long rows, long bytes,
+                                 DbMonitorProperties.Forecast config) {
+            // 乱序到达（如历史回填）的窗口不参与在线预测
+            if (lastWindowEnd != null && !windowEnd.isAfter(lastWindowEnd)) {
+                return;
+            }
+
+            double rowsPerSecond = (double) rows / windowSeconds;
+            double bytesPerSecond = (double) bytes / windowSeconds;
+
+            if (observations == 0) {
+                ewmaRowsPerSecond = rowsPerSecond;
+                ewmaBytesPerSecond = bytesPerSecond;
+                level = rowsPerSecond;
+                trend = 0.0;
+                avgWindowSeconds = windowSeconds;
+            } else {
+                double alpha = config.getEwmaAlpha();
+                ewmaRowsPerSecond = alpha * rowsPerSecond + (1 - alpha) * ewmaRowsPerSecond;
+                ewmaBytesPerSecond = alpha * bytesPerSecond + (1 - alpha) * ewmaBytesPerSecond;
+                avgWindowSeconds = alpha * windowSeconds + (1 - alpha) * avgWindowSeconds;
+
+                double previousLevel = level;
+                level = config.getLevelAlpha() * rowsPerSecond
+                        + (1 - config.getLevelAlpha()) * (level + trend);
+                trend = config.getTrendBeta() * (level - previousLevel)
+                        + (1 - config.getTrendBeta()) * trend;
+            }
+
+            observations++;
+            cumulativeBytes += bytes;
+            lastWindowEnd = windowEnd;
+            lastUpdated = LocalDateTime.now();
+        }
+
+        synchronized void setTableSizeBytes(long tableSizeBytes) {
+            this.tableSizeBytes = tableSizeBytes;
+        }
+
+        public String getDataSourceName() {
+            return dataSourceName;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public synchronized long getObservations() {
+            return observations;
+        }
+
+        /**
+         * 平滑后的写入速率（行/秒）
+         */
+        public synchronized double getRowsPerSecond() {
+            return ewmaRowsPerSecond;
+        }
+
+        /**
+         * 平滑后的磁盘增长速率（字节/天）
+         */
+        public synchronized double getBytesPerDay() {
+            return ewmaBytesPerSecond * SECONDS_PER_DAY;
+        }
+
+        /**
+         * 写入速率的变化趋势（行/秒，每天）
+         */
+        public synchronized double getRowsPerSecondTrendPerDay() {
+            return avgWindowSeconds > 0 ? trend / avgWindowSeconds * SECONDS_PER_DAY : 0.0;
+        }
+
+        /**
+         * 基于 Holt 线性趋势预测未来一天的写入行数
+         */
+        public synchronized double getForecastRowsNextDay() {
+            if (avgWindowSeconds <= 0) {
+                return 0.0;
+            }
+            double steps = SECONDS_PER_DAY / avgWindowSeconds;
+            double forecast = avgWindowSeconds * (steps * level + trend * steps * (steps + 1) / 2);
+            return Math.max(0.0, forecast);
+        }
+
+        /**
+         * 当前表大小：优先使用数据库统计的实际大小，否则使用监控以来的累计增长
+         */
+        public synchronized long getCurrentSizeBytes() {
+            return tableSizeBytes != null ? tableSizeBytes : cumulativeBytes;
+        }
+
+        /**
+         * 按当前增长速率计算距离阈值的天数，阈值未配置或无增长时返回 null
+         */
+        public synchronized Double getDaysUntilThreshold(long thresholdBytes) {
+            if (thresholdBytes <= 0) {
+                return null;
+            }
+            long currentSize = getCurrentSizeBytes();
+            if (currentSize >= thresholdBytes) {
+                return 0.0;
+            }
+            double bytesPerDay = getBytesPerDay();
+            return bytesPerDay > 0 ? (thresholdBytes - currentSize) / bytesPerDay : null;
+        }
+
+        public synchronized LocalDateTime getLastUpdated() {
+            return lastUpdated;
+        }
+
+        synchronized Map<String, Object> toMap(long thresholdBytes) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("data_source", dataSourceName);
+            map.put("table_name", tableName);
+            map.put("observations", observations);
+            map.put("rows_per_second", ewmaRowsPerSecond);
+            map.put("rows_per_second_trend_per_day", getRowsPerSecondTrendPerDay());
+            map.put("forecast_rows_next_day", getForecastRowsNextDay());
+            map.put("bytes_per_day", getBytesPerDay());
+            map.put("current_size_bytes", getCurrentSizeBytes());
+            map.put("days_until_threshold", getDaysUntilThreshold(thresholdBytes));
+            map.put("last_updated", lastUpdated);
+            return map;
+        }
+    }
+}
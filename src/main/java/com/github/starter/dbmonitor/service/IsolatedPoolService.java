@@ -0,0 +1,175 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.dialect.DataSourceMetadataRegistry;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ClassUtils;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 监控查询专用连接池服务
+ * 为每个被监控的数据源按业务数据源的 URL 和账号建立一个小容量的独立连接池，
+ * 监控扫描不与业务流量争用连接，专用连接池耗尽时只影响监控查询
+ */
+@Service
+@Slf4j
+public class IsolatedPoolService {
+
+    private static final boolean HIKARI_PRESENT = ClassUtils.isPresent(
+            "com.zaxxer.hikari.HikariDataSource", IsolatedPoolService.class.getClassLoader());
+
+    @Autowired
+    private DbMonitorProperties dbMonitorProperties;
+
+    @Autowired
+    private DataSourceService dataSourceService;
+
+    /**
+     * 数据源名称 -> 专用连接池，无法创建专用连接池的数据源不在表中
+     */
+    private final Map<String, DataSource> pools = new ConcurrentHashMap<>();
+
+    /**
+     * 是否启用专用连接池
+     */
+    public boolean isEnabled() {
+        return dbMonitorProperties.getIsolatedPool().isEnabled();
+    }
+
+    /**
+     * 专用连接池上的语句超时时间（秒），小于等于 0 表示不限制
+     */
+    public int getStatementTimeoutSeconds() {
+        return dbMonitorProperties.getIsolatedPool().getStatementTimeoutSeconds();
+    }
+
+    /**
+     * 获取数据源的专用连接池，首次调用时创建；未启用或无法创建时返回 null，由调用方使用业务数据源
+     */
+    public DataSource getPool(String dataSourceName) {
+        if (!isEnabled() || !HIKARI_PRESENT) {
+            return null;
+        }
+        DataSource pool = pools.get(dataSourceName);
+        if (pool != null) {
+            return pool;
+        }
+        synchronized (pools) {
+            pool = pools.get(dataSourceName);
+            if (pool == null) {
+                pool = HikariPoolFactory.create(dataSourceName, dataSourceService.getDataSource(dataSourceName),
+                        dbMonitorProperties.getIsolatedPool());
+                if (pool != null) {
+                    pools.put(dataSourceName, pool);
+                }
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * 获取已创建的专用连接池使用情况（按数据源名称排序）
+     */
+    public Map<String, DataSourceMetadataRegistry.PoolUsage> getPoolUsages() {
+        if (pools.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, DataSourceMetadataRegistry.PoolUsage> usages = new TreeMap<>();
+        for (Map.Entry<String, DataSource> entry : pools.entrySet()) {
+            DataSourceMetadataRegistry.PoolUsage usage = HikariPoolFactory.inspect(entry.getValue());
+            if (usage != null) {
+                usages.put(entry.getKey(), usage);
+            }
+        }
+        return usages;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (pools) {
+            for (Map.Entry<String, DataSource> entry : pools.entrySet()) {
+                try {
+                    HikariPoolFactory.close(entry.getValue());
+                } catch (Exception e) {
+                    log.warn("关闭数据源 {} 的监控专用连接池失败: {}", entry.getKey(), e.getMessage());
+                }
+            }
+            pools.clear();
+        }
+    }
+
+    /**
+     * HikariCP 连接池创建与检查（单独的类，未引入 HikariCP 时不会被加载）
+     */
+    private static final class HikariPoolFactory {
+
+        private static DataSource create(String dataSourceName, DataSource source,
+                                         DbMonitorProperties.IsolatedPool settings) {
+            HikariDataSource hikari;
+            try {
+                if (source == null || !source.isWrapperFor(HikariDataSource.class)) {
+                    log.warn("数据源 {} 不是 HikariCP 连接池，无法读取连接信息，监控查询继续使用业务连接池", dataSourceName);
+                    return null;
+                }
+                hikari = source.unwrap(HikariDataSource.class);
+            } catch (Exception e) {
+                log.warn("读取数据源 {} 的连接信息失败，监控查询继续使用业务连接池: {}", dataSourceName, e.getMessage());
+                return null;
+            }
+            if (hikari.getJdbcUrl() == null && hikari.getDataSourceClassName() == null) {
+                log.warn("数据源 {} 未配置 JDBC URL，监控查询继续使用业务连接池", dataSourceName);
+                return null;
+            }
+
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("db-monitor-" + dataSourceName);
+            config.setJdbcUrl(hikari.getJdbcUrl());
+            config.setDataSourceClassName(hikari.getDataSourceClassName());
+            if (hikari.getDriverClassName() != null) {
+                config.setDriverClassName(hikari.getDriverClassName());
+            }
+            config.setUsername(hikari.getUsername());
+            config.setPassword(hikari.getPassword());
+            config.setDataSourceProperties(hikari.getDataSourceProperties());
+            config.setSchema(hikari.getSchema());
+            config.setCatalog(hikari.getCatalog());
+            config.setConnectionInitSql(hikari.getConnectionInitSql());
+            config.setConnectionTestQuery(hikari.getConnectionTestQuery());
+            config.setMaximumPoolSize(Math.max(1, settings.getMaxPoolSize()));
+            config.setMinimumIdle(0);
+            config.setConnectionTimeout(Math.max(250L, settings.getConnectionTimeoutMillis()));
+            config.setIdleTimeout(Math.max(10000L, settings.getIdleTimeoutMillis()));
+            // 首次获取连接时才建立连接，数据库不可用时不影响应用启动
+            config.setInitializationFailTimeout(-1);
+
+            log.info("为数据源 {} 创建了监控专用连接池，最大连接数: {}", dataSourceName, config.getMaximumPoolSize());
+            return new HikariDataSource(config);
+        }
+
+        private static DataSourceMetadataRegistry.PoolUsage inspect(DataSource dataSource) {
+            HikariDataSource hikari = (HikariDataSource) dataSource;
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            if (pool == null) {
+                // 连接池尚未初始化
+                return null;
+            }
+            return new DataSourceMetadataRegistry.PoolUsage(pool.getActiveConnections(), pool.getIdleConnections(),
+                    pool.getTotalConnections(), pool.getThreadsAwaitingConnection(), hikari.getMaximumPoolSize());
+        }
+
+        private static void close(DataSource dataSource) {
+            ((HikariDataSource) dataSource).close();
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.MonitorConfig;
+import com.github.starter.dbmonitor.repository.CancellationHandle;
+import com.github.starter.dbmonitor.repository.JdbcTableOperationRepository;
+import com.github.starter.dbmonitor.repository.QueryCancelledException;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 负载感知限流服务
+ * 定期采样目标库的负载信号（正在执行的会话数、复制延迟）和监控查询相对各自基线的耗时倍数，按 AIMD 方式调整每个数据源的
+ * 并发数和查询间隔：负载过高时并发数按比例减少、间隔加倍，负载正常时并发数逐步加一、间隔逐步缩短，超过暂停阈值时暂停统计。
+ * 许可按数据源在本节点内共享，定时执行、分片执行、手动触发和回填任务的监控查询共同受并发数限制；
+ * 单次定时执行中的配置串行执行，此时起作用的主要是查询间隔和暂停，暂停的数据源由调用方整体跳过而不是逐个配置等待
+ */
+@Service
+@Slf4j
+public class LoadGovernorService {
+
+    @Autowired
+    private DbMonitorProperties dbMonitorProperties;
+
+    @Autowired
+    private JdbcTableOperationRepository tableOperationRepository;
+
+    /**
+     * 数据源名称 -> 限流状态
+     */
+    private final Map<String, Governor> governors = new ConcurrentHashMap<>();
+
+    private volatile ScheduledExecutorService sampler;
+
+    /**
+     * 获取数据源的查询许可，并发已满、未到查询间隔或统计暂停时等待；未启用时直接返回。
+     * 等待时间不超过 max-wait-seconds 和本次执行的截止时间，执行被停止时立即结束等待
+     *
+     * @param runDeadlineMillis 本次执行的截止时间，没有截止时间时传 {@link Long#MAX_VALUE}
+     * @param handle            本次执行的取消句柄，可以为 null
+     * @throws ThrottledException      等待超时，本次执行停止，时间段在下次执行时重试
+     * @throws QueryCancelledException 等待期间执行被停止
+     */
+    public void acquire(String dataSourceName, long runDeadlineMillis, CancellationHandle handle) {
+        DbMonitorProperties.LoadGovernor config = dbMonitorProperties.getLoadGovernor();
+        if (!config.isEnabled()) {
+            return;
+        }
+        Governor governor = governorOf(dataSourceName);
+        long deadlineMillis = Math.min(runDeadlineMillis,
+                System.currentTimeMillis() + Math.max(0, config.getMaxWaitSeconds()) * 1000L);
+        boolean acquired;
+        try {
+            acquired = governor.acquire(deadlineMillis, handle);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ThrottledException("等待数据源 " + dataSourceName + " 的查询许可时被中断");
+        }
+        if (handle != null && handle.isCancelled()) {
+            if (acquired) {
+                governor.release(null, 0L);
+            }
+            throw new QueryCancelledException("等待数据源 " + dataSourceName + " 的查询许可时执行已被停止");
+        }
+        if (!acquired) {
+            throw new ThrottledException("数据源 " + dataSourceName + " 负载过高，等待查询许可超过 "
+                    + (deadlineMillis == runDeadlineMillis ? "本次执行的截止时间" : config.getMaxWaitSeconds() + " 秒"));
+        }
+    }
+
+    /**
+     * 归还查询许可并记录查询耗时，耗时与同一 latencyKey 的历史基线比较，而不是与固定阈值比较
+     *
+     * @param latencyKey 耗时基线的标识，见 {@link #latencyKey(MonitorConfig, String)}，为 null 时不参与耗时判断
+     */
+    public void release(String dataSourceName, String latencyKey, long latencyMillis) {
+        if (!dbMonitorProperties.getLoadGovernor().isEnabled()) {
+            return;
+        }
+        Governor governor = governors.get(key(dataSourceName));
+        if (governor != null) {
+            governor.release(latencyKey, latencyMillis);
+        }
+    }
+
+    /**
+     * 数据源当前是否暂停统计，调用方据此在执行该数据源的配置前整体跳过，避免每个配置都等待到超时；未启用时返回 false
+     */
+    public boolean isPaused(String dataSourceName) {
+        if (!dbMonitorProperties.getLoadGovernor().isEnabled()) {
+            return false;
+        }
+        return governorOf(dataSourceName).isPaused();
+    }
+
+    /**
+     * 耗时基线的标识：同一配置的同一类查询（逐段计数、分桶扫描、回填、抽样）耗时相近，分别建立基线
+     */
+    public static String latencyKey(MonitorConfig config, String queryType) {
+        return (config.getId() != null ? config.getId() : config.getTableName()) + ":" + queryType;
+    }
+
+    /**
+     * 采样所有数据源的负载信号并调整限流状态
+     */
+    public void sampleAll() {
+        for (Map.Entry<String, Governor> entry : governors.entrySet()) {
+            try {
+                sample(entry.getKey(), entry.getValue());
+            } catch (Exception e) {
+                log.warn("采样数据源 {} 的负载信号失败: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 各数据源的限流状态（按数据源名称排序）
+     */
+    public Map<String, GovernorState> getStates() {
+        Map<String, GovernorState> states = new TreeMap<>();
+        for (Map.Entry<String, Governor> entry : governors.entrySet()) {
+            states.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return states;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ScheduledExecutorService executor = sampler;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        for (Governor governor : governors.values()) {
+            governor.wakeUp();
+        }
+    }
+
+    private Governor governorOf(String dataSourceName) {
+        String name = key(dataSourceName);
+        Governor governor = governors.get(name);
+        if (governor == null) {
+            Governor created = new Governor(dbMonitorProperties.getLoadGovernor());
+            governor = governors.putIfAbsent(name, created);
+            if (governor == null) {
+                governor = created;
+                // 首次使用的数据源先同步采样一次，避免在未知负载下以最大并发开始
+                sample(name, governor);
+                startSampler();
+            }
+        }
+        return governor;
+    }
+
+    private void sample(String dataSourceName, Governor governor) {
+        Long threadsRunning = null;
+        try {
+            threadsRunning = tableOperationRepository.getActiveSessions(dataSourceName);
+        } catch (Exception e) {
+            log.debug("查询数据源 {} 正在执行的会话数失败: {}", dataSourceName, e.getMessage());
+        }
+        Long replicaLagSeconds = tableOperationRepository.getReplicationLagSeconds(dataSourceName);
+        boolean wasPaused = governor.isPaused();
+        governor.adjust(threadsRunning, replicaLagSeconds);
+        if (governor.isPaused() != wasPaused) {
+            if (governor.isPaused()) {
+                log.warn("数据源 {} 负载过高，暂停统计: 正在执行的会话数={}, 复制延迟={}秒",
+                        dataSourceName, threadsRunning, replicaLagSeconds);
+            } else {
+                log.info("数据源 {} 负载恢复，继续统计", dataSourceName);
+            }
+        }
+    }
+
+    private void startSampler() {
+        if (sampler != null) {
+            return;
+        }
+        synchronized (this) {
+            if (sampler == null) {
+                ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "db-monitor-load-governor");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                long interval = Math.max(1, dbMonitorProperties.getLoadGovernor().getSampleIntervalSeconds());
+                executor.scheduleWithFixedDelay(this::sampleAll, interval, interval, TimeUnit.SECONDS);
+                sampler = executor;
+            }
+        }
+    }
+
+    private static String key(String dataSourceName) {
+        return dataSourceName != null ? dataSourceName : "default";
+    }
+
+    /**
+     * 单个数据源的限流状态
+     */
+    static class Governor {
+
+        /**
+         * 查询耗时滑动平均中最新一次查询的权重
+         */
+        private static final double LATENCY_WEIGHT = 0.2;
+
+        /**
+         * 各查询耗时基线中最新一次查询的权重，基线变化较慢，持续变慢的查询（如表增长）逐步成为新的基线
+         */
+        private static final double BASELINE_WEIGHT = 0.05;
+
+        /**
+         * 耗时基线的下限（毫秒），避免毫秒级查询的正常抖动被放大成很大的倍数
+         */
+        private static final double MIN_BASELINE_MILLIS = 100;
+
+        /**
+         * 等待许可期间检查执行是否被停止的间隔（毫秒）
+         */
+        private static final long CANCEL_CHECK_MILLIS = 200;
+
+        private final DbMonitorProperties.LoadGovernor config;
+
+        private double concurrencyLimit;
+        private long paceMillis;
+        private int inFlight;
+        private boolean paused;
+        private long lastStartMillis;
+        private long throttledCount;
+        private double avgLatencyMillis;
+        private double avgLatencyRatio;
+        private final Map<String, Double> latencyBaselines = new HashMap<>();
+        private Long threadsRunning;
+        private Long replicaLagSeconds;
+        private LocalDateTime sampledTime;
+
+        Governor(DbMonitorProperties.LoadGovernor config) {
+            this.config = config;
+            this.concurrencyLimit = Math.max(1, config.getMaxConcurrency());
+        }
+
+        /**
+         * 等待查询许可直到截止时间或句柄被取消
+         *
+         * @return 是否获得许可，句柄被取消时返回 false
+         */
+        synchronized boolean acquire(long deadlineMillis, CancellationHandle handle) throws InterruptedException {
+            while (true) {
+                if (handle != null && handle.isCancelled()) {
+                    return false;
+                }
+                long now = System.currentTimeMillis();
+                long waitMillis;
+                if (paused || inFlight >= (int) concurrencyLimit) {
+                    waitMillis = deadlineMillis - now;
+                } else if (now < lastStartMillis + paceMillis) {
+                    waitMillis = Math.min(lastStartMillis + paceMillis, deadlineMillis) - now;
+                } else {
+                    inFlight++;
+                    lastStartMillis = now;
+                    return true;
+                }
+                if (now >= deadlineMillis) {
+                    throttledCount++;
+                    return false;
+                }
+                wait(Math.max(1, handle != null ? Math.min(waitMillis, CANCEL_CHECK_MILLIS) : waitMillis));
+            }
+        }
+
+        /**
+         * 归还许可，并把耗时与该查询自身的基线相比得到的倍数计入滑动平均
+         */
+        synchronized void release(String latencyKey, long latencyMillis) {
+            inFlight = Math.max(0, inFlight - 1);
+            if (latencyKey != null) {
+                avgLatencyMillis = avgLatencyMillis == 0 ? latencyMillis
+                        : avgLatencyMillis * (1 - LATENCY_WEIGHT) + latencyMillis * LATENCY_WEIGHT;
+                Double baseline = latencyBaselines.get(latencyKey);
+                double ratio = baseline != null ? latencyMillis / Math.max(MIN_BASELINE_MILLIS, baseline) : 1.0;
+                avgLatencyRatio = avgLatencyRatio == 0 ? ratio
+                        : avgLatencyRatio * (1 - LATENCY_WEIGHT) + ratio * LATENCY_WEIGHT;
+                latencyBaselines.put(latencyKey, baseline == null ? latencyMillis
+                        : baseline * (1 - BASELINE_WEIGHT) + latencyMillis * BASELINE_WEIGHT);
+            }
+            notifyAll();
+        }
+
+        /**
+         * 按采样结果调整并发数和查询间隔，未获取到的信号不参与判断
+         */
+        synchronized void adjust(Long threadsRunning, Long replicaLagSeconds) {
+            this.threadsRunning = threadsRunning;
+            this.replicaLagSeconds = replicaLagSeconds;
+            this.sampledTime = LocalDateTime.now();
+
+            paused = exceeds(threadsRunning, config.getThreadsRunningPause())
+                    || exceeds(replicaLagSeconds, config.getReplicaLagPauseSeconds());
+            boolean congested = paused
+                    || exceeds(threadsRunning, config.getThreadsRunningHigh())
+                    || exceeds(replicaLagSeconds, config.getReplicaLagHighSeconds())
+                    || (config.getLatencyRatioHigh() > 0 && avgLatencyRatio >= config.getLatencyRatioHigh());
+
+            double factor = config.getDecreaseFactor() > 0 && config.getDecreaseFactor() < 1 ? config.getDecreaseFactor() : 0.5;
+            if (congested) {
+                concurrencyLimit = Math.max(1, concurrencyLimit * factor);
+                paceMillis = Math.min(config.getMaxPaceMillis(),
+                        Math.max(config.getPaceStepMillis(), (long) (paceMillis / factor)));
+            } else {
+                concurrencyLimit = Math.min(Math.max(1, config.getMaxConcurrency()), concurrencyLimit + 1);
+                paceMillis = Math.max(0, paceMillis - config.getPaceStepMillis());
+            }
+            notifyAll();
+        }
+
+        synchronized boolean isPaused() {
+            return paused;
+        }
+
+        synchronized void wakeUp() {
+            notifyAll();
+        }
+
+        synchronized GovernorState snapshot() {
+            GovernorState state = new GovernorState();
+            state.setConcurrencyLimit((int) concurrencyLimit);
+            state.setInFlight(inFlight);
+            state.setPaceMillis(paceMillis);
+            state.setPaused(paused);
+            state.setThrottledCount(throttledCount);
+            state.setAvgLatencyMillis((long) avgLatencyMillis);
+            state.setLatencyRatio(Math.round(avgLatencyRatio * 100) / 100.0);
+            state.setThreadsRunning(threadsRunning);
+            state.setReplicaLagSeconds(replicaLagSeconds);
+            state.setSampledTime(sampledTime);
+            return state;
+        }
+
+        private static boolean exceeds(Long value, long threshold) {
+            return value != null && threshold > 0 && value >= threshold;
+        }
+    }
+
+    /**
+     * 数据源的限流状态快照
+     */
+    @Data
+    public static class GovernorState {
+        private int concurrencyLimit;
+        private int inFlight;
+        private long paceMillis;
+        private boolean paused;
+        private long throttledCount;
+        private long avgLatencyMillis;
+        private double latencyRatio;
+        private Long threadsRunning;
+        private Long replicaLagSeconds;
+        private LocalDateTime sampledTime;
+    }
+
+    /**
+     * 等待查询许可超时，与语句超时分开统计，不计入查询超时记录
+     */
+    public static class ThrottledException extends TransientDataAccessResourceException {
+        public ThrottledException(String msg) {
+            super(msg);
+        }
+    }
+}
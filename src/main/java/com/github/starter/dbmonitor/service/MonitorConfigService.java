@@ -1,9 +1,12 @@
 package com.github.starter.dbmonitor.service;
 
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
 import com.github.starter.dbmonitor.entity.MonitorConfig;
+import com.github.starter.dbmonitor.entity.TableSchema;
 import com.github.starter.dbmonitor.repository.JdbcMonitorConfigRepository;
-import com.github.starter.dbmonitor.repository.JdbcTableOperationRepository;
+import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -11,8 +14,18 @@ import org.springframework.util.StringUtils;
 
 import javax.annotation.PostConstruct;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * 监控配置服务
@@ -28,10 +41,42 @@ public class MonitorConfigService {
     private DataSourceService dataSourceService;
 
     @Autowired
-    private JdbcTableOperationRepository tableOperationRepository;
+    private DatabaseSecurityService databaseSecurityService;
 
     @Autowired
-    private DatabaseSecurityService databaseSecurityService;
+    private SchemaMetadataService schemaMetadataService;
+
+    @Autowired
+    private DbMonitorProperties dbMonitorProperties;
+
+    @Autowired
+    private ShardAssignmentService shardAssignmentService;
+
+    /**
+     * 启用配置快照
+     */
+    private volatile EnabledConfigSnapshot enabledSnapshot;
+
+    /**
+     * 上次分片执行的分片参数
+     */
+    private String lastShardingParam;
+
+    /**
+     * 到期队列及其对应的配置快照和分片参数
+     */
+    private final Object dueLock = new Object();
+
+    private DueConfigQueue dueQueue;
+
+    private EnabledConfigSnapshot dueQueueSnapshot;
+
+    private String dueQueueScope;
+
+    /**
+     * 到期队列重新排期的监听器，参数为新的到期时间
+     */
+    private volatile Consumer<LocalDateTime> dueTimeListener;
     
     /**
      * 初始化监控配置表
@@ -70,21 +115,126 @@ public class MonitorConfigService {
         validateTableAndTimeColumn(config);
         
         // 设置默认值
-        config.setCreatedTime(LocalDateTime.now());
-        config.setUpdatedTime(LocalDateTime.now());
-        if (config.getEnabled() == null) {
-            config.setEnabled(true);
-        }
-        if (!StringUtils.hasText(config.getIntervalType())) {
-            config.setIntervalType("MINUTES");
-        }
-        if (config.getIntervalValue() == null) {
-            config.setIntervalValue(10);
-        }
+        applyDefaults(config, null);
         
         return monitorConfigRepository.insert(config);
     }
     
+    /**
+     * 批量导入监控配置
+     * 每个数据源只做一次表结构批量查询，校验失败的配置逐条返回错误，通过校验的配置按批次在独立事务中批量写入
+     */
+    public ImportResult importConfigs(List<MonitorConfig> configs, String createdBy) {
+        ImportResult result = new ImportResult();
+        if (configs == null || configs.isEmpty()) {
+            return result;
+        }
+        int maxSize = dbMonitorProperties.getConfigTable().getImportMaxSize();
+        if (configs.size() > maxSize) {
+            throw new IllegalArgumentException("单次导入的配置数量不能超过 " + maxSize);
+        }
+        result.setTotal(configs.size());
+
+        // 已存在的配置名称和数据源表组合，一次查询
+        Set<String> configNames = new HashSet<>();
+        Set<String> tableKeys = new HashSet<>();
+        for (MonitorConfig existing : monitorConfigRepository.findAllIdentities()) {
+            configNames.add(existing.getConfigName());
+            tableKeys.add(tableKey(existing.getDataSourceName(), existing.getTableName()));
+        }
+
+        // 基本校验和重复检查，按数据源分组
+        Map<String, List<Integer>> byDataSource = new LinkedHashMap<>();
+        for (int i = 0; i < configs.size(); i++) {
+            MonitorConfig config = configs.get(i);
+            try {
+                if (config == null) {
+                    throw new IllegalArgumentException("配置不能为空");
+                }
+                validateConfig(config);
+                databaseSecurityService.sanitizeDataSourceName(config.getDataSourceName());
+                databaseSecurityService.sanitizeTableName(config.getTableName());
+                databaseSecurityService.sanitizeColumnName(config.getTimeColumnName());
+                if (!configNames.add(config.getConfigName())) {
+                    throw new IllegalArgumentException("配置名称已存在: " + config.getConfigName());
+                }
+                if (!tableKeys.add(tableKey(config.getDataSourceName(), config.getTableName()))) {
+                    throw new IllegalArgumentException("数据源 " + config.getDataSourceName() +
+                            " 中的表 " + config.getTableName() + " 已存在监控配置");
+                }
+                byDataSource.computeIfAbsent(config.getDataSourceName(), k -> new ArrayList<>()).add(i);
+            } catch (IllegalArgumentException e) {
+                result.addError(i, config, e.getMessage());
+            }
+        }
+
+        // 每个数据源一次表结构查询，校验表和时间字段
+        List<Integer> accepted = new ArrayList<>();
+        for (Map.Entry<String, List<Integer>> entry : byDataSource.entrySet()) {
+            String dataSourceName = entry.getKey();
+            if (!dataSourceService.isDataSourceAvailable(dataSourceName)) {
+                for (Integer index : entry.getValue()) {
+                    result.addError(index, configs.get(index), "数据源不可用: " + dataSourceName);
+                }
+                continue;
+            }
+
+            List<String> tableNames = new ArrayList<>();
+            for (Integer index : entry.getValue()) {
+                tableNames.add(configs.get(index).getTableName());
+            }
+            Map<String, TableSchema> schemas;
+            try {
+                schemas = schemaMetadataService.getTableSchemas(dataSourceName, tableNames);
+            } catch (Exception e) {
+                log.error("批量导入时查询数据源 {} 的表结构失败: {}", dataSourceName, e.getMessage(), e);
+                for (Integer index : entry.getValue()) {
+                    result.addError(index, configs.get(index), "查询表结构失败: " + e.getMessage());
+                }
+                continue;
+            }
+
+            for (Integer index : entry.getValue()) {
+                MonitorConfig config = configs.get(index);
+                TableSchema schema = schemas.get(config.getTableName().toLowerCase());
+                if (schema == null || !schema.isExists()) {
+                    result.addError(index, config, "数据源 " + dataSourceName + " 中的表不存在: " + config.getTableName());
+                } else if (!schema.hasColumn(config.getTimeColumnName())) {
+                    result.addError(index, config, "数据源 " + dataSourceName + " 中的表 " + config.getTableName() +
+                            " 的时间字段不存在: " + config.getTimeColumnName());
+                } else {
+                    applyDefaults(config, createdBy);
+                    accepted.add(index);
+                }
+            }
+        }
+
+        // 按批次在独立事务中写入，单个批次失败不影响其他批次
+        int batchSize = Math.max(1, dbMonitorProperties.getConfigTable().getImportBatchSize());
+        for (int from = 0; from < accepted.size(); from += batchSize) {
+            List<Integer> indexes = accepted.subList(from, Math.min(from + batchSize, accepted.size()));
+            List<MonitorConfig> batch = new ArrayList<>(indexes.size());
+            for (Integer index : indexes) {
+                batch.add(configs.get(index));
+            }
+            try {
+                Integer inserted = monitorConfigRepository.executeInTransaction(
+                        status -> monitorConfigRepository.batchInsert(batch));
+                result.setImported(result.getImported() + (inserted != null ? inserted : 0));
+            } catch (Exception e) {
+                log.error("批量导入监控配置第 {} 批写入失败: {}", from / batchSize + 1, e.getMessage(), e);
+                for (Integer index : indexes) {
+                    result.addError(index, configs.get(index), "写入失败: " + e.getMessage());
+                }
+            }
+        }
+        result.getErrors().sort(Comparator.comparingInt(ImportError::getIndex));
+
+        log.info("批量导入监控配置完成，共 {} 个，成功 {} 个，失败 {} 个",
+                result.getTotal(), result.getImported(), result.getErrors().size());
+        return result;
+    }
+
     /**
      * 更新监控配置
      */
@@ -138,7 +288,7 @@ public class MonitorConfigService {
      * 获取所有启用的监控配置
      */
     public List<MonitorConfig> getEnabledConfigs() {
-        return monitorConfigRepository.findAllEnabled();
+        return copyOf(loadEnabledConfigs(null));
     }
 
     /**
@@ -149,8 +299,161 @@ public class MonitorConfigService {
             return getEnabledConfigs(); // 非分片模式
         }
 
+        int[] shard = parseShardingParam(shardingParam);
+        int shardIndex = shard[0];
+        int shardTotal = shard[1];
+
+        DbMonitorProperties.Sharding sharding = dbMonitorProperties.getSharding();
+        if (!dbMonitorProperties.getConfigTable().isEnabledCache()) {
+            if (!shardAssignmentService.isCostBalanced(sharding)) {
+                return monitorConfigRepository.findAllEnabledWithSharding(shardIndex, shardTotal);
+            }
+            return shardAssignmentService.assign(monitorConfigRepository.findAllEnabled(),
+                    shardIndex, shardTotal, sharding);
+        }
+
+        // 在内存快照上分配分片
+        return copyOf(shardAssignmentService.assign(loadEnabledConfigs(shardingParam.trim()),
+                shardIndex, shardTotal, sharding));
+    }
+
+    /**
+     * 是否启用按配置到期时间调度
+     */
+    public boolean isDueSchedulingEnabled() {
+        return dbMonitorProperties.getDueScheduler().isEnabled();
+    }
+
+    /**
+     * 获取已到期的启用配置（支持分片）
+     * 启用配置缓存时在内存到期队列上出堆，只在配置快照或分片参数变化时重建队列，每次调度的开销只与到期配置数相关；
+     * 出堆的配置在执行结束后通过 {@link #completeDue(MonitorConfig)} 重新排期
+     *
+     * @param shardingParam 分片参数，非分片模式为 null
+     */
+    public List<MonitorConfig> getDueConfigs(String shardingParam, LocalDateTime now) {
+        String scope = shardingParam == null || shardingParam.trim().isEmpty() ? null : shardingParam.trim();
+        int[] shard = scope == null ? null : parseShardingParam(scope);
+        DbMonitorProperties.Sharding sharding = dbMonitorProperties.getSharding();
+
+        if (dbMonitorProperties.getConfigTable().isEnabledCache()) {
+            loadEnabledConfigs(scope);
+        }
+        EnabledConfigSnapshot snapshot = enabledSnapshot;
+        if (!dbMonitorProperties.getConfigTable().isEnabledCache() || snapshot == null) {
+            return findDueConfigs(shard, sharding, now);
+        }
+
+        synchronized (dueLock) {
+            if (dueQueue == null || dueQueueSnapshot != snapshot || !Objects.equals(dueQueueScope, scope)) {
+                List<MonitorConfig> scoped = shard == null ? snapshot.configs
+                        : shardAssignmentService.assign(snapshot.configs, shard[0], shard[1], sharding);
+                dueQueue = new DueConfigQueue(scoped, now);
+                dueQueueSnapshot = snapshot;
+                dueQueueScope = scope;
+                log.debug("重建监控配置到期队列，配置数: {}", dueQueue.size());
+            }
+
+            List<MonitorConfig> due = new ArrayList<>();
+            for (Long configId : dueQueue.pollDue(now)) {
+                MonitorConfig config = snapshot.configsById.get(configId);
+                if (config != null) {
+                    due.add(config);
+                }
+            }
+            return copyOf(due);
+        }
+    }
+
+    /**
+     * 配置执行结束（无论成功与否），按快照中最新的最后统计时间重新排期
+     */
+    public void completeDue(MonitorConfig config) {
+        LocalDateTime dueTime = null;
+        synchronized (dueLock) {
+            if (dueQueue == null || dueQueueSnapshot == null) {
+                return;
+            }
+            MonitorConfig cached = dueQueueSnapshot.configsById.get(config.getId());
+            if (cached != null) {
+                dueTime = DueConfigQueue.dueTimeOf(cached, LocalDateTime.now());
+                dueQueue.scheduleAt(cached, dueTime);
+            }
+        }
+        notifyDueTime(dueTime);
+    }
+
+    /**
+     * 执行失败需要延迟重试的配置重新入堆，到期时间不早于 retryTime
+     */
+    public void deferDue(MonitorConfig config, LocalDateTime retryTime) {
+        LocalDateTime dueTime = null;
+        synchronized (dueLock) {
+            if (dueQueue == null || dueQueueSnapshot == null) {
+                return;
+            }
+            MonitorConfig cached = dueQueueSnapshot.configsById.get(config.getId());
+            if (cached != null) {
+                dueTime = DueConfigQueue.dueTimeOf(cached, LocalDateTime.now());
+                dueTime = dueTime.isAfter(retryTime) ? dueTime : retryTime;
+                dueQueue.scheduleAt(cached, dueTime);
+            }
+        }
+        notifyDueTime(dueTime);
+    }
+
+    /**
+     * 到期队列中最早的到期时间，队列尚未建立或为空时返回 null
+     */
+    public LocalDateTime getNextDueTime() {
+        synchronized (dueLock) {
+            return dueQueue != null ? dueQueue.peekDueTime() : null;
+        }
+    }
+
+    /**
+     * 设置到期队列重新排期的监听器，内置到期调度据此在更早的到期时间唤醒
+     */
+    public void setDueTimeListener(Consumer<LocalDateTime> dueTimeListener) {
+        this.dueTimeListener = dueTimeListener;
+    }
+
+    /**
+     * 在到期队列锁之外通知监听器，避免与调度器的锁形成环
+     */
+    private void notifyDueTime(LocalDateTime dueTime) {
+        Consumer<LocalDateTime> listener = dueTimeListener;
+        if (listener != null && dueTime != null) {
+            listener.accept(dueTime);
+        }
+    }
+
+    /**
+     * 不使用配置缓存时直接按配置表中的下次到期时间查询
+     */
+    private List<MonitorConfig> findDueConfigs(int[] shard, DbMonitorProperties.Sharding sharding, LocalDateTime now) {
+        if (shard == null) {
+            return monitorConfigRepository.findDueEnabled(now);
+        }
+        if (!shardAssignmentService.isCostBalanced(sharding)) {
+            return monitorConfigRepository.findDueEnabledWithSharding(now, shard[0], shard[1]);
+        }
+        // 按成本分配需要全部配置参与，分配后再过滤到期的配置
+        List<MonitorConfig> due = new ArrayList<>();
+        for (MonitorConfig config : shardAssignmentService.assign(monitorConfigRepository.findAllEnabled(),
+                shard[0], shard[1], sharding)) {
+            if (!DueConfigQueue.dueTimeOf(config, now).isAfter(now)) {
+                due.add(config);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * 解析分片参数 'shardIndex/shardTotal'
+     */
+    private static int[] parseShardingParam(String shardingParam) {
         try {
-            // 解析分片参数
             String[] parts = shardingParam.trim().split("/");
             if (parts.length != 2) {
                 throw new IllegalArgumentException("分片参数格式错误，应为 'shardIndex/shardTotal'");
@@ -162,9 +465,7 @@ public class MonitorConfigService {
             if (shardIndex < 0 || shardTotal <= 0 || shardIndex >= shardTotal) {
                 throw new IllegalArgumentException("分片参数值错误：shardIndex=" + shardIndex + ", shardTotal=" + shardTotal);
             }
-
-            return monitorConfigRepository.findAllEnabledWithSharding(shardIndex, shardTotal);
-
+            return new int[]{shardIndex, shardTotal};
         } catch (NumberFormatException e) {
             throw new IllegalArgumentException("分片参数格式错误，无法解析数字: " + shardingParam, e);
         }
@@ -177,6 +478,13 @@ public class MonitorConfigService {
         return monitorConfigRepository.findByDataSourceName(dataSourceName);
     }
     
+    /**
+     * 获取所有配置了监控的数据源名称
+     */
+    public List<String> getMonitoredDataSourceNames() {
+        return monitorConfigRepository.findDistinctDataSourceNames();
+    }
+    
     /**
      * 删除监控配置
      */
@@ -233,7 +541,7 @@ public class MonitorConfigService {
         databaseSecurityService.sanitizeTableName(tableName);
 
         try {
-            return tableOperationRepository.getTableColumns(tableName);
+            return schemaMetadataService.getColumnNames(dataSourceName, tableName);
         } catch (Exception e) {
             log.error("获取表 {} 的列信息失败: {}", tableName, e.getMessage(), e);
             throw new RuntimeException("获取表列信息失败: " + e.getMessage(), e);
@@ -249,7 +557,7 @@ public class MonitorConfigService {
         databaseSecurityService.sanitizeTableName(tableName);
 
         try {
-            return tableOperationRepository.detectTimeColumns(tableName);
+            return schemaMetadataService.detectTimeColumns(dataSourceName, tableName);
         } catch (Exception e) {
             log.error("自动检测表 {} 的时间字段失败: {}", tableName, e.getMessage(), e);
             throw new RuntimeException("自动检测时间字段失败: " + e.getMessage(), e);
@@ -263,12 +571,115 @@ public class MonitorConfigService {
         return monitorConfigRepository.findByDataSourceNameAndTableName(dataSourceName, tableName);
     }
 
+    /**
+     * 获取监控配置表所在的数据源名称
+     */
+    public String getConfigDataSourceName() {
+        return monitorConfigRepository.getConfigDataSourceName();
+    }
+
     /**
      * 更新监控配置的最后统计时间
      */
     @Transactional
     public boolean updateLastStatisticTime(Long configId, LocalDateTime lastStatisticTime) {
-        return monitorConfigRepository.updateLastStatisticTime(configId, lastStatisticTime);
+        boolean updated = monitorConfigRepository.updateLastStatisticTime(configId, lastStatisticTime);
+        // 断点时间不参与版本号，直接同步到本地快照
+        EnabledConfigSnapshot snapshot = enabledSnapshot;
+        if (updated && snapshot != null) {
+            MonitorConfig cached = snapshot.configsById.get(configId);
+            if (cached != null) {
+                cached.setLastStatisticTime(lastStatisticTime);
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * 更新监控配置的最后统计时间，并按统计间隔写入下次到期时间
+     */
+    @Transactional
+    public boolean updateLastStatisticTime(MonitorConfig config, LocalDateTime lastStatisticTime) {
+        boolean updated = saveLastStatisticTime(config, lastStatisticTime);
+        if (updated) {
+            applyLastStatisticTime(config, lastStatisticTime);
+        }
+        return updated;
+    }
+
+    /**
+     * 只在配置表中写入最后统计时间和下次到期时间，不修改内存中的配置
+     * 用于在调用方的事务中推进断点，事务提交后再调用 {@link #applyLastStatisticTime} 同步内存，回滚时内存中的断点不变
+     */
+    public boolean saveLastStatisticTime(MonitorConfig config, LocalDateTime lastStatisticTime) {
+        LocalDateTime nextDueTime = lastStatisticTime.plusMinutes(DueConfigQueue.intervalMinutes(config));
+        return monitorConfigRepository.updateLastStatisticTime(config.getId(), lastStatisticTime, nextDueTime);
+    }
+
+    /**
+     * 把已提交的最后统计时间和下次到期时间同步到配置对象和启用配置快照
+     */
+    public void applyLastStatisticTime(MonitorConfig config, LocalDateTime lastStatisticTime) {
+        LocalDateTime nextDueTime = lastStatisticTime.plusMinutes(DueConfigQueue.intervalMinutes(config));
+        config.setLastStatisticTime(lastStatisticTime);
+        config.setNextDueTime(nextDueTime);
+        EnabledConfigSnapshot snapshot = enabledSnapshot;
+        MonitorConfig cached = snapshot != null ? snapshot.configsById.get(config.getId()) : null;
+        if (cached != null) {
+            cached.setLastStatisticTime(lastStatisticTime);
+            cached.setNextDueTime(nextDueTime);
+        }
+    }
+
+    /**
+     * 获取启用配置快照，配置版本号未变化时不重新查询配置表
+     * 分片参数变化（执行器扩缩容导致重新分片）或超过最长有效时间时强制重新加载，避免使用其他节点已推进的旧断点
+     *
+     * @param shardingParam 分片参数，非分片模式为 null
+     */
+    private List<MonitorConfig> loadEnabledConfigs(String shardingParam) {
+        DbMonitorProperties.ConfigTable configTable = dbMonitorProperties.getConfigTable();
+        if (!configTable.isEnabledCache()) {
+            return monitorConfigRepository.findAllEnabled();
+        }
+
+        long version;
+        try {
+            version = monitorConfigRepository.findConfigVersion();
+        } catch (Exception e) {
+            log.warn("查询监控配置版本号失败，直接查询启用的配置: {}", e.getMessage());
+            enabledSnapshot = null;
+            return monitorConfigRepository.findAllEnabled();
+        }
+
+        synchronized (this) {
+            EnabledConfigSnapshot snapshot = enabledSnapshot;
+            long now = System.currentTimeMillis();
+            boolean reshard = shardingParam != null && !shardingParam.equals(lastShardingParam);
+            if (snapshot == null || snapshot.version != version || reshard
+                    || now - snapshot.loadedMillis > TimeUnit.SECONDS.toMillis(configTable.getEnabledCacheMaxAgeSeconds())) {
+                snapshot = new EnabledConfigSnapshot(version, now, monitorConfigRepository.findAllEnabled());
+                enabledSnapshot = snapshot;
+                log.debug("重新加载启用的监控配置，版本号: {}，配置数: {}", version, snapshot.configs.size());
+            }
+            if (shardingParam != null) {
+                lastShardingParam = shardingParam;
+            }
+            return snapshot.configs;
+        }
+    }
+
+    /**
+     * 返回配置副本，调用方修改不会影响快照
+     */
+    private static List<MonitorConfig> copyOf(List<MonitorConfig> configs) {
+        List<MonitorConfig> copies = new ArrayList<>(configs.size());
+        for (MonitorConfig config : configs) {
+            MonitorConfig copy = new MonitorConfig();
+            BeanUtils.copyProperties(config, copy);
+            copies.add(copy);
+        }
+        return copies;
     }
     
     /**
@@ -323,14 +734,15 @@ public class MonitorConfigService {
                 throw new IllegalArgumentException("数据源不可用: " + config.getDataSourceName());
             }
 
-            // 检查表是否存在（使用指定的数据源）
-            boolean tableExists = tableOperationRepository.checkTableExists(config.getDataSourceName(), config.getTableName());
+            // 检查表是否存在（使用指定的数据源），走带过期时间的表结构缓存；
+            // 目录快照只在监控任务开始时刷新，表被删除后仍会保留，不能作为存在性依据
+            boolean tableExists = schemaMetadataService.tableExists(config.getDataSourceName(), config.getTableName());
             if (!tableExists) {
                 throw new IllegalArgumentException("数据源 " + config.getDataSourceName() + " 中的表不存在: " + config.getTableName());
             }
 
             // 检查时间字段是否存在（使用指定的数据源）
-            boolean columnExists = checkColumnExistsInDataSource(config.getDataSourceName(), config.getTableName(), config.getTimeColumnName());
+            boolean columnExists = schemaMetadataService.columnExists(config.getDataSourceName(), config.getTableName(), config.getTimeColumnName());
             if (!columnExists) {
                 throw new IllegalArgumentException("数据源 " + config.getDataSourceName() + " 中的表 " + config.getTableName() + " 的时间字段不存在: " + config.getTimeColumnName());
             }
@@ -346,6 +758,34 @@ public class MonitorConfigService {
         }
     }
 
+    /**
+     * 设置新建配置的默认值
+     */
+    private void applyDefaults(MonitorConfig config, String createdBy) {
+        LocalDateTime now = LocalDateTime.now();
+        config.setCreatedTime(now);
+        config.setUpdatedTime(now);
+        if (config.getEnabled() == null) {
+            config.setEnabled(true);
+        }
+        if (!StringUtils.hasText(config.getIntervalType())) {
+            config.setIntervalType("MINUTES");
+        }
+        if (config.getIntervalValue() == null) {
+            config.setIntervalValue(10);
+        }
+        if (createdBy != null && !StringUtils.hasText(config.getCreatedBy())) {
+            config.setCreatedBy(createdBy);
+        }
+        if (createdBy != null && !StringUtils.hasText(config.getUpdatedBy())) {
+            config.setUpdatedBy(createdBy);
+        }
+    }
+
+    private static String tableKey(String dataSourceName, String tableName) {
+        return dataSourceName + "." + (tableName != null ? tableName.toLowerCase() : "");
+    }
+
     /**
      * 启用监控配置
      */
@@ -361,32 +801,64 @@ public class MonitorConfigService {
     }
 
     /**
-     * 从指定数据源获取表的所有列
+     * 获取所有可用的数据源名称
      */
-    private List<String> getTableColumnsFromDataSource(String dataSourceName, String tableName) {
-        // 使用多数据源支持
-        return tableOperationRepository.getTableColumns(tableName);
+    public String[] getAvailableDataSourceNames() {
+        return dataSourceService.getAvailableDataSourceNames();
     }
 
     /**
-     * 检查指定数据源中的列是否存在
+     * 检查数据源是否可用
      */
-    private boolean checkColumnExistsInDataSource(String dataSourceName, String tableName, String columnName) {
-        // 使用多数据源支持
-        return tableOperationRepository.checkColumnExists(tableName, columnName);
+    public boolean isDataSourceAvailable(String dataSourceName) {
+        return dataSourceService.isDataSourceAvailable(dataSourceName);
     }
 
     /**
-     * 获取所有可用的数据源名称
+     * 批量导入结果
      */
-    public String[] getAvailableDataSourceNames() {
-        return dataSourceService.getAvailableDataSourceNames();
+    @Data
+    public static class ImportResult {
+        private int total;
+        private int imported;
+        private List<ImportError> errors = new ArrayList<>();
+
+        void addError(int index, MonitorConfig config, String message) {
+            errors.add(new ImportError(index, config != null ? config.getConfigName() : null, message));
+        }
     }
 
     /**
-     * 检查数据源是否可用
+     * 单个配置的导入错误
      */
-    public boolean isDataSourceAvailable(String dataSourceName) {
-        return dataSourceService.isDataSourceAvailable(dataSourceName);
+    @Data
+    public static class ImportError {
+        /**
+         * 配置在请求列表中的下标
+         */
+        private final int index;
+        private final String configName;
+        private final String message;
+    }
+
+    /**
+     * 启用配置快照
+     */
+    private static final class EnabledConfigSnapshot {
+        private final long version;
+        private final long loadedMillis;
+        private final List<MonitorConfig> configs;
+        private final Map<Long, MonitorConfig> configsById = new HashMap<>();
+
+        private EnabledConfigSnapshot(long version, long loadedMillis, List<MonitorConfig> configs) {
+            this.version = version;
+            this.loadedMillis = loadedMillis;
+            this.configs = configs;
+            for (MonitorConfig config : configs) {
+                if (config.getId() != null) {
+                    configsById.put(config.getId(), config);
+                }
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,302 @@
+package com.github.starter.dbmonitor.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.MonitorConfig;
+import com.github.starter.dbmonitor.repository.CancellationHandle;
+import com.github.starter.dbmonitor.repository.QueryCancelledException;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 监控查询超时服务
+ * 按配置、数据源、全局默认的优先级确定增量查询的语句超时，并为每次配置执行设置截止时间；
+ * 执行中的语句登记到执行的取消句柄上，停止执行时通过 Statement.cancel() 取消。超时的时间段记录下来，下次执行时重试
+ */
+@Service
+@Slf4j
+public class QueryTimeoutService {
+
+    /**
+     * PostgreSQL 语句被取消（含 statement_timeout）的 SQLState
+     */
+    private static final String POSTGRES_QUERY_CANCELED = "57014";
+
+    /**
+     * MySQL 超过 max_execution_time 和语句被中断的错误码
+     */
+    private static final int MYSQL_EXECUTION_TIME_EXCEEDED = 3024;
+    private static final int MYSQL_QUERY_INTERRUPTED = 1317;
+
+    @Autowired
+    private DbMonitorProperties dbMonitorProperties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 配置ID -> 执行中的配置（定时执行与回填任务可能同时执行同一配置）
+     */
+    private final Map<Long, Set<ActiveRun>> activeRuns = new ConcurrentHashMap<>();
+
+    /**
+     * 已解析的 extendConfig 超时设置（未覆盖时为 -1），按 extendConfig 原文缓存
+     */
+    private final Map<String, Integer> configTimeoutCache = new ConcurrentHashMap<>();
+
+    /**
+     * 数据源名称 -> 表名 -> 累计超时次数
+     */
+    private final Map<String, Map<String, AtomicLong>> timeoutCounts = new ConcurrentHashMap<>();
+
+    private final Deque<SegmentTimeout> recentTimeouts = new ArrayDeque<>();
+
+    /**
+     * 开始一次配置执行，截止时间从现在起算
+     */
+    public ActiveRun start(MonitorConfig config) {
+        int runTimeoutSeconds = dbMonitorProperties.getQueryTimeout().getRunTimeoutSeconds();
+        return register(new ActiveRun(config.getId(), config.getConfigName(), LocalDateTime.now(),
+                runTimeoutSeconds > 0 ? System.currentTimeMillis() + runTimeoutSeconds * 1000L : Long.MAX_VALUE));
+    }
+
+    /**
+     * 开始一次不设截止时间的执行（如回填任务），每条语句仍受语句超时限制，停止配置或应用关闭时同样被取消
+     */
+    public ActiveRun startWithoutDeadline(MonitorConfig config) {
+        return register(new ActiveRun(config.getId(), config.getConfigName(), LocalDateTime.now(), Long.MAX_VALUE));
+    }
+
+    /**
+     * 结束配置执行
+     */
+    public void finish(ActiveRun run) {
+        if (run != null && run.getConfigId() != null) {
+            activeRuns.computeIfPresent(run.getConfigId(), (configId, runs) -> {
+                runs.remove(run);
+                return runs.isEmpty() ? null : runs;
+            });
+        }
+    }
+
+    /**
+     * 本次执行中下一条语句的超时时间（秒）：配置的语句超时与剩余执行时间取较小值
+     *
+     * @throws QueryTimeoutException   执行已超过截止时间
+     * @throws QueryCancelledException 执行已被停止
+     */
+    public int nextTimeoutSeconds(MonitorConfig config, ActiveRun run) {
+        if (run.getHandle().isCancelled()) {
+            throw new QueryCancelledException("监控配置 " + config.getConfigName() + " 的执行已被停止");
+        }
+        long remainingMillis = run.getDeadlineMillis() - System.currentTimeMillis();
+        if (remainingMillis <= 0) {
+            throw new QueryTimeoutException("监控配置 " + config.getConfigName() + " 的执行超过截止时间");
+        }
+        int timeout = resolveTimeoutSeconds(config);
+        int remainingSeconds = (int) Math.min(Integer.MAX_VALUE, Math.max(1L, (remainingMillis + 999) / 1000));
+        return timeout > 0 ? Math.min(timeout, remainingSeconds)
+                : run.getDeadlineMillis() == Long.MAX_VALUE ? 0 : remainingSeconds;
+    }
+
+    /**
+     * 配置的语句超时时间（秒）：extendConfig 中的 queryTimeoutSeconds 优先，其次为数据源和全局默认值，小于等于 0 表示不限制
+     */
+    public int resolveTimeoutSeconds(MonitorConfig config) {
+        String extendConfig = config.getExtendConfig();
+        if (extendConfig != null && !extendConfig.trim().isEmpty()) {
+            if (configTimeoutCache.size() > 1024) {
+                configTimeoutCache.clear();
+            }
+            int configured = configTimeoutCache.computeIfAbsent(extendConfig, this::parseTimeout);
+            if (configured >= 0) {
+                return configured;
+            }
+        }
+        DbMonitorProperties.QueryTimeout queryTimeout = dbMonitorProperties.getQueryTimeout();
+        Integer dataSourceTimeout = queryTimeout.getDataSources().get(config.getDataSourceName());
+        return dataSourceTimeout != null ? dataSourceTimeout : queryTimeout.getDefaultSeconds();
+    }
+
+    /**
+     * 停止配置的执行，取消执行中的语句
+     *
+     * @return 配置是否正在执行
+     */
+    public boolean cancel(Long configId) {
+        Set<ActiveRun> runs = activeRuns.get(configId);
+        if (runs == null || runs.isEmpty()) {
+            return false;
+        }
+        for (ActiveRun run : runs) {
+            run.getHandle().cancel();
+            log.info("已停止监控配置 {} 的执行并取消执行中的语句", run.getConfigName());
+        }
+        return true;
+    }
+
+    /**
+     * 停止所有执行中的配置
+     */
+    public int cancelAll() {
+        int cancelled = 0;
+        for (Set<ActiveRun> runs : activeRuns.values()) {
+            for (ActiveRun run : runs) {
+                run.getHandle().cancel();
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        int cancelled = cancelAll();
+        if (cancelled > 0) {
+            log.info("应用关闭，已取消 {} 个执行中的监控配置的查询", cancelled);
+        }
+    }
+
+    /**
+     * 记录超时的时间段
+     */
+    public void recordTimeout(MonitorConfig config, LocalDateTime startTime, LocalDateTime endTime, String reason) {
+        timeoutCounts.computeIfAbsent(String.valueOf(config.getDataSourceName()), k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(config.getTableName(), k -> new AtomicLong()).incrementAndGet();
+        SegmentTimeout timeout = new SegmentTimeout();
+        timeout.setConfigId(config.getId());
+        timeout.setConfigName(config.getConfigName());
+        timeout.setDataSourceName(config.getDataSourceName());
+        timeout.setTableName(config.getTableName());
+        timeout.setStartTime(startTime);
+        timeout.setEndTime(endTime);
+        timeout.setReason(reason);
+        timeout.setOccurredTime(LocalDateTime.now());
+        synchronized (recentTimeouts) {
+            recentTimeouts.addFirst(timeout);
+            while (recentTimeouts.size() > Math.max(1, dbMonitorProperties.getQueryTimeout().getMaxRecordedTimeouts())) {
+                recentTimeouts.removeLast();
+            }
+        }
+    }
+
+    /**
+     * 最近的超时记录（最新的在前）
+     */
+    public List<SegmentTimeout> getRecentTimeouts() {
+        synchronized (recentTimeouts) {
+            return new ArrayList<>(recentTimeouts);
+        }
+    }
+
+    /**
+     * 各表的累计超时次数（数据源名称 -> 表名 -> 次数，按名称排序）
+     */
+    public Map<String, Map<String, Long>> getTimeoutCounts() {
+        Map<String, Map<String, Long>> counts = new TreeMap<>();
+        for (Map.Entry<String, Map<String, AtomicLong>> dataSource : timeoutCounts.entrySet()) {
+            Map<String, Long> tables = new TreeMap<>();
+            for (Map.Entry<String, AtomicLong> table : dataSource.getValue().entrySet()) {
+                tables.put(table.getKey(), table.getValue().get());
+            }
+            counts.put(dataSource.getKey(), tables);
+        }
+        return counts;
+    }
+
+    /**
+     * 超时的配置在到期调度中延迟重试的时间
+     */
+    public LocalDateTime retryTime() {
+        return LocalDateTime.now().plusSeconds(Math.max(0, dbMonitorProperties.getQueryTimeout().getRetryDelaySeconds()));
+    }
+
+    /**
+     * 异常是否由语句超时引起，手动停止或应用关闭取消的查询（{@link QueryCancelledException}）不算超时
+     */
+    public static boolean isQueryTimeout(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof QueryCancelledException) {
+                return false;
+            }
+            if (cause instanceof QueryTimeoutException || cause instanceof SQLTimeoutException) {
+                return true;
+            }
+            if (cause instanceof SQLException) {
+                SQLException sqlException = (SQLException) cause;
+                if (POSTGRES_QUERY_CANCELED.equals(sqlException.getSQLState())
+                        || sqlException.getErrorCode() == MYSQL_EXECUTION_TIME_EXCEEDED
+                        || sqlException.getErrorCode() == MYSQL_QUERY_INTERRUPTED) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private ActiveRun register(ActiveRun run) {
+        if (run.getConfigId() != null) {
+            activeRuns.compute(run.getConfigId(), (configId, runs) -> {
+                Set<ActiveRun> registered = runs != null ? runs : ConcurrentHashMap.<ActiveRun>newKeySet();
+                registered.add(run);
+                return registered;
+            });
+        }
+        return run;
+    }
+
+    private int parseTimeout(String extendConfig) {
+        try {
+            JsonNode timeout = objectMapper.readTree(extendConfig).path("queryTimeoutSeconds");
+            return timeout.isNumber() ? Math.max(0, timeout.asInt()) : -1;
+        } catch (Exception e) {
+            log.warn("解析监控配置扩展信息中的查询超时设置失败，使用数据源或全局配置: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * 执行中的配置
+     */
+    @Data
+    public static class ActiveRun {
+        private final Long configId;
+        private final String configName;
+        private final LocalDateTime startedTime;
+        private final long deadlineMillis;
+        private final CancellationHandle handle = new CancellationHandle();
+    }
+
+    /**
+     * 超时的时间段
+     */
+    @Data
+    public static class SegmentTimeout {
+        private Long configId;
+        private String configName;
+        private String dataSourceName;
+        private String tableName;
+        private LocalDateTime startTime;
+        private LocalDateTime endTime;
+        private String reason;
+        private LocalDateTime occurredTime;
+    }
+}
@@ -0,0 +1,205 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.cache.RefreshAheadCache;
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.MonitorConfig;
+import com.github.starter.dbmonitor.entity.TableCatalogStats;
+import com.github.starter.dbmonitor.repository.CancellationHandle;
+import com.github.starter.dbmonitor.repository.JdbcTableOperationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于抽样的实际行大小测量服务
+ * 对时间窗口内最近的若干行按变长字段计算 OCTET_LENGTH 合计，定长字段按类型估算，
+ * 并与数据库目录统计的平均行长度加权融合，结果按表缓存
+ */
+@Service
+@Slf4j
+public class RowSizeSamplingService {
+
+    /**
+     * 需要抽样测量实际长度的变长字段类型
+     */
+    private static final Set<String> VARIABLE_LENGTH_TYPES = new HashSet<>(Arrays.asList(
+            "varchar", "character varying", "nvarchar", "tinytext", "text", "mediumtext", "longtext",
+            "json", "jsonb", "varbinary", "binary varying", "tinyblob", "blob", "mediumblob", "longblob",
+            "bytea", "clob", "character large object", "binary large object"));
+
+    /**
+     * 抽样失败时缓存的标记值，TTL 内不再重复抽样
+     */
+    private static final long FAILED = -1L;
+
+    @Autowired
+    private DbMonitorProperties dbMonitorProperties;
+
+    @Autowired
+    private JdbcTableOperationRepository tableOperationRepository;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private DatabaseSecurityService databaseSecurityService;
+
+    @Autowired
+    private LoadGovernorService loadGovernorService;
+
+    private RefreshAheadCache<String, Long> sampleCache;
+
+    @PostConstruct
+    public void initCache() {
+        DbMonitorProperties.Sampling config = dbMonitorProperties.getDiskEstimation().getSampling();
+        // 抽样需要时间窗口参数，只通过 put 写入缓存，不使用加载函数
+        sampleCache = new RefreshAheadCache<>("row_sample", config.getMaxSize(),
+                TimeUnit.MINUTES.toMillis(config.getTtlMinutes()), 0L, key -> null, Runnable::run);
+    }
+
+    /**
+     * 是否启用抽样测量
+     */
+    public boolean isEnabled() {
+        return dbMonitorProperties.getDiskEstimation().getSampling().isEnabled();
+    }
+
+    /**
+     * 获取抽样测量并与目录统计融合后的平均行大小，未启用、抽样失败或窗口内无数据时返回 null
+     * 抽样查询与增量查询一样获取负载限流许可，并登记到本次执行的取消句柄
+     *
+     * @param handle 本次执行的取消句柄，可以为 null
+     */
+    public Long getSampledAvgRowSize(MonitorConfig config, LocalDateTime startTime, LocalDateTime endTime,
+                                     CancellationHandle handle) {
+        DbMonitorProperties.Sampling sampling = dbMonitorProperties.getDiskEstimation().getSampling();
+        if (!sampling.isEnabled() || config.getTimeColumnName() == null) {
+            return null;
+        }
+
+        String cacheKey = config.getDataSourceName() + "." + config.getTableName().toLowerCase();
+        Long cached = sampleCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            return cached == FAILED ? null : cached;
+        }
+
+        Long measured;
+        try {
+            measured = measure(config, startTime, endTime, sampling, handle);
+        } catch (Exception e) {
+            if (e instanceof LoadGovernorService.ThrottledException || (handle != null && handle.isCancelled())) {
+                // 限流或停止执行不是抽样本身的问题，不记录失败，下一个时间段再尝试
+                log.debug("数据源 {} 表 {} 的行大小抽样未执行: {}",
+                        config.getDataSourceName(), config.getTableName(), e.getMessage());
+                return null;
+            }
+            log.warn("抽样测量数据源 {} 表 {} 的行大小失败，{} 分钟内不再抽样: {}",
+                    config.getDataSourceName(), config.getTableName(), sampling.getTtlMinutes(), e.getMessage());
+            sampleCache.put(cacheKey, FAILED);
+            return null;
+        }
+        if (measured == null) {
+            // 窗口内没有数据，下一个时间段再尝试
+            return null;
+        }
+
+        Long blended = blendWithCatalog(config, measured, sampling.getSampleWeight());
+        sampleCache.put(cacheKey, blended);
+        log.debug("数据源 {} 表 {} 抽样行大小: {} 字节，融合目录统计后: {} 字节",
+                config.getDataSourceName(), config.getTableName(), measured, blended);
+        return blended;
+    }
+
+    /**
+     * 获取抽样缓存的统计信息
+     */
+    public RefreshAheadCache.CacheStats getCacheStats() {
+        return sampleCache.getStats();
+    }
+
+    private Long measure(MonitorConfig config, LocalDateTime startTime, LocalDateTime endTime,
+                         DbMonitorProperties.Sampling sampling, CancellationHandle handle) {
+        String tableName = databaseSecurityService.sanitizeTableName(config.getTableName());
+        String timeColumn = databaseSecurityService.sanitizeColumnName(config.getTimeColumnName());
+
+        List<Map<String, Object>> columns = tableOperationRepository.getTableColumnDetails(
+                config.getDataSourceName(), tableName);
+        if (columns.isEmpty()) {
+            return null;
+        }
+
+        long fixedSize = 0L;
+        List<String> variableColumns = new ArrayList<>();
+        for (Map<String, Object> column : columns) {
+            String columnName = String.valueOf(column.get("COLUMN_NAME"));
+            String dataType = String.valueOf(column.get("DATA_TYPE")).toLowerCase();
+            if (VARIABLE_LENGTH_TYPES.contains(dataType) && databaseSecurityService.isValidColumnName(columnName)) {
+                variableColumns.add(columnName);
+            } else {
+                fixedSize += DiskSpaceEstimationService.estimateColumnSize(dataType,
+                        toLong(column.get("CHAR_LENGTH")), (int) toLong(column.get("NUM_PRECISION")));
+            }
+        }
+
+        if (variableColumns.isEmpty()) {
+            return fixedSize > 0 ? fixedSize : null;
+        }
+
+        loadGovernorService.acquire(config.getDataSourceName(), Long.MAX_VALUE, handle);
+        long queryStart = System.currentTimeMillis();
+        Map<String, Object> sample;
+        try {
+            sample = tableOperationRepository.sampleColumnBytes(config.getDataSourceName(),
+                    tableName, timeColumn, variableColumns, startTime, endTime,
+                    Math.max(1, sampling.getSampleRows()), Math.max(1, sampling.getQueryTimeoutSeconds()), handle);
+        } finally {
+            loadGovernorService.release(config.getDataSourceName(),
+                    LoadGovernorService.latencyKey(config, "sample"), System.currentTimeMillis() - queryStart);
+        }
+
+        long sampleRows = toLong(sample.get("SAMPLE_ROWS"));
+        if (sampleRows <= 0) {
+            return null;
+        }
+        long totalBytes = toLong(sample.get("TOTAL_BYTES"));
+        return fixedSize + totalBytes / sampleRows;
+    }
+
+    /**
+     * 抽样结果只包含行内数据，目录统计包含页内开销和碎片，两者按权重融合
+     */
+    private Long blendWithCatalog(MonitorConfig config, long measured, double sampleWeight) {
+        TableCatalogStats catalogStats = catalogSnapshotService.getTableStats(
+                config.getDataSourceName(), config.getTableName());
+        Long catalogAvg = catalogStats != null ? catalogStats.getEffectiveAvgRowSize() : null;
+        if (catalogAvg == null) {
+            return measured;
+        }
+        double weight = Math.max(0.0, Math.min(1.0, sampleWeight));
+        return Math.round(weight * measured + (1 - weight) * catalogAvg);
+    }
+
+    private static long toLong(Object value) {
+        if (value == null) {
+            return 0L;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        try {
+            return Long.parseLong(value.toString());
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.cache.RefreshAheadCache;
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.TableSchema;
+import com.github.starter.dbmonitor.repository.JdbcTableOperationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 表结构元数据缓存服务
+ * 按数据源和表缓存列信息，配置校验、列查询和时间字段检测直接读取缓存；
+ * 每个数据源按探测间隔执行一次版本探测查询（表创建时间 + 列数量），结构变化的表立即失效，TTL 作为兜底
+ */
+@Service
+@Slf4j
+public class SchemaMetadataService {
+
+    /**
+     * 视为时间字段的数据类型
+     */
+    private static final Set<String> TIME_TYPES = new HashSet<>(Arrays.asList(
+            "datetime", "timestamp", "date", "time", "timestamp without time zone", "timestamp with time zone"));
+
+    /**
+     * 视为时间字段的常见列名
+     */
+    private static final Set<String> TIME_COLUMN_NAMES = new HashSet<>(Arrays.asList(
+            "created_at", "updated_at", "create_time", "update_time",
+            "created_time", "updated_time", "gmt_create", "gmt_modified"));
+
+    @Autowired
+    private DbMonitorProperties dbMonitorProperties;
+
+    @Autowired
+    private JdbcTableOperationRepository tableOperationRepository;
+
+    private RefreshAheadCache<SchemaKey, TableSchema> schemaCache;
+
+    /**
+     * 数据源名称 -> 已缓存的表名（小写），用于版本探测
+     */
+    private final Map<String, Set<String>> cachedTables = new ConcurrentHashMap<>();
+
+    /**
+     * 数据源名称 -> 上次版本探测时间
+     */
+    private final Map<String, Long> lastProbeMillis = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void initCache() {
+        DbMonitorProperties.SchemaCache config = dbMonitorProperties.getSchemaCache();
+        schemaCache = new RefreshAheadCache<>("schema", config.getMaxSize(),
+                TimeUnit.MINUTES.toMillis(config.getTtlMinutes()), 0L,
+                key -> loadTables(key.dataSourceName, Collections.singletonList(key.tableName)).get(key.tableName),
+                Runnable::run);
+    }
+
+    /**
+     * 获取表结构，表不存在时返回 exists = false 的结果
+     */
+    public TableSchema getTableSchema(String dataSourceName, String tableName) {
+        probeIfDue(dataSourceName);
+        SchemaKey key = new SchemaKey(dataSourceName, tableName.toLowerCase());
+        track(key);
+        return schemaCache.get(key);
+    }
+
+    /**
+     * 批量获取表结构，未缓存的表通过一次目录查询加载
+     *
+     * @return 表名（小写） -> 表结构
+     */
+    public Map<String, TableSchema> getTableSchemas(String dataSourceName, Collection<String> tableNames) {
+        probeIfDue(dataSourceName);
+        Map<String, TableSchema> result = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String tableName : new LinkedHashSet<>(tableNames)) {
+            String name = tableName.toLowerCase();
+            TableSchema cached = schemaCache.getIfPresent(new SchemaKey(dataSourceName, name));
+            if (cached != null) {
+                result.put(name, cached);
+            } else {
+                missing.add(name);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Map<String, TableSchema> loaded = loadTables(dataSourceName, missing);
+            for (String name : missing) {
+                TableSchema schema = loaded.get(name);
+                SchemaKey key = new SchemaKey(dataSourceName, name);
+                schemaCache.put(key, schema);
+                track(key);
+                result.put(name, schema);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 表是否存在
+     */
+    public boolean tableExists(String dataSourceName, String tableName) {
+        return getTableSchema(dataSourceName, tableName).isExists();
+    }
+
+    /**
+     * 获取表的所有列名
+     */
+    public List<String> getColumnNames(String dataSourceName, String tableName) {
+        List<String> names = new ArrayList<>();
+        for (TableSchema.Column column : getTableSchema(dataSourceName, tableName).getColumns()) {
+            names.add(column.getName());
+        }
+        return names;
+    }
+
+    /**
+     * 列是否存在（不区分大小写）
+     */
+    public boolean columnExists(String dataSourceName, String tableName, String columnName) {
+        return getTableSchema(dataSourceName, tableName).hasColumn(columnName);
+    }
+
+    /**
+     * 根据列类型和常见命名检测表的时间字段
+     */
+    public List<String> detectTimeColumns(String dataSourceName, String tableName) {
+        List<String> timeColumns = new ArrayList<>();
+        for (TableSchema.Column column : getTableSchema(dataSourceName, tableName).getColumns()) {
+            String name = column.getName().toLowerCase();
+            String dataType = column.getDataType() != null ? column.getDataType() : "";
+            if (TIME_TYPES.contains(dataType)
+                    || ("bigint".equals(dataType) && name.contains("time"))
+                    || TIME_COLUMN_NAMES.contains(name)) {
+                timeColumns.add(column.getName());
+            }
+        }
+        return timeColumns;
+    }
+
+    /**
+     * 使指定表的缓存失效
+     */
+    public void invalidate(String dataSourceName, String tableName) {
+        schemaCache.invalidate(new SchemaKey(dataSourceName, tableName.toLowerCase()));
+    }
+
+    /**
+     * 清空所有缓存
+     */
+    public void invalidateAll() {
+        schemaCache.invalidateAll();
+        cachedTables.clear();
+        lastProbeMillis.clear();
+    }
+
+    /**
+     * 获取表结构缓存的统计信息
+     */
+    public RefreshAheadCache.CacheStats getCacheStats() {
+        return schemaCache.getStats();
+    }
+
+    /**
+     * 到达探测间隔时，用一次查询比对该数据源所有已缓存表的版本，使结构变化、新建或删除的表失效
+     */
+    void probeIfDue(String dataSourceName) {
+        long now = System.currentTimeMillis();
+        long interval = TimeUnit.SECONDS.toMillis(dbMonitorProperties.getSchemaCache().getProbeIntervalSeconds());
+        Long last = lastProbeMillis.get(dataSourceKey(dataSourceName));
+        if (last != null && now - last < interval) {
+            return;
+        }
+        lastProbeMillis.put(dataSourceKey(dataSourceName), now);
+
+        Set<String> tables = cachedTables.get(dataSourceKey(dataSourceName));
+        if (tables == null || tables.isEmpty()) {
+            return;
+        }
+
+        Map<String, TableSchema> cached = new LinkedHashMap<>();
+        for (Iterator<String> it = tables.iterator(); it.hasNext(); ) {
+            String name = it.next();
+            TableSchema schema = schemaCache.getIfPresent(new SchemaKey(dataSourceName, name));
+            if (schema == null) {
+                // 已过期或被淘汰，无需探测
+                it.remove();
+            } else {
+                cached.put(name, schema);
+            }
+        }
+        if (cached.isEmpty()) {
+            return;
+        }
+
+        Map<String, String> versions;
+        try {
+            versions = tableOperationRepository.getSchemaVersions(dataSourceName, cached.keySet());
+        } catch (Exception e) {
+            log.debug("探测数据源 {} 的表结构版本失败，依赖 TTL 失效: {}", dataSourceName, e.getMessage());
+            return;
+        }
+
+        int invalidated = 0;
+        for (Map.Entry<String, TableSchema> entry : cached.entrySet()) {
+            if (!Objects.equals(entry.getValue().getChangeMarker(), versions.get(entry.getKey()))) {
+                schemaCache.invalidate(new SchemaKey(dataSourceName, entry.getKey()));
+                tables.remove(entry.getKey());
+                invalidated++;
+            }
+        }
+        if (invalidated > 0) {
+            log.info("数据源 {} 有 {} 张表的结构发生变化，已使缓存失效", dataSourceName, invalidated);
+        }
+    }
+
+    /**
+     * 一次目录查询加载多张表的结构，查询失败时退化为逐表查询
+     */
+    private Map<String, TableSchema> loadTables(String dataSourceName, List<String> tableNames) {
+        Map<String, TableSchema> result = new LinkedHashMap<>();
+        Map<String, TableSchema> loaded;
+        try {
+            loaded = tableOperationRepository.getTableSchemas(dataSourceName, tableNames);
+        } catch (Exception e) {
+            log.warn("批量查询数据源 {} 的表结构失败，退化为逐表查询: {}", dataSourceName, e.getMessage());
+            for (String name : tableNames) {
+                result.put(name, loadTableIndividually(dataSourceName, name));
+            }
+            return result;
+        }
+        for (String name : tableNames) {
+            TableSchema schema = loaded.get(name);
+            result.put(name, schema != null ? schema : TableSchema.missing(name));
+        }
+        return result;
+    }
+
+    /**
+     * 逐表查询表结构，没有变更标记，下次版本探测成功时会重新加载
+     */
+    private TableSchema loadTableIndividually(String dataSourceName, String tableName) {
+        if (!tableOperationRepository.checkTableExists(dataSourceName, tableName)) {
+            return TableSchema.missing(tableName);
+        }
+        List<TableSchema.Column> columns = new ArrayList<>();
+        for (Map<String, Object> column : tableOperationRepository.getTableColumnDetails(dataSourceName, tableName)) {
+            Object dataType = column.get("DATA_TYPE");
+            columns.add(new TableSchema.Column(String.valueOf(column.get("COLUMN_NAME")),
+                    dataType != null ? dataType.toString().toLowerCase() : null));
+        }
+        return new TableSchema(tableName, true, columns, null);
+    }
+
+    private void track(SchemaKey key) {
+        cachedTables.computeIfAbsent(dataSourceKey(key.dataSourceName), k -> ConcurrentHashMap.newKeySet())
+                .add(key.tableName);
+    }
+
+    private String dataSourceKey(String dataSourceName) {
+        return dataSourceName != null ? dataSourceName : "";
+    }
+
+    /**
+     * 表结构缓存键（表名已转为小写）
+     */
+    private static final class SchemaKey {
+        private final String dataSourceName;
+        private final String tableName;
+
+        private SchemaKey(String dataSourceName, String tableName) {
+            this.dataSourceName = dataSourceName;
+            this.tableName = tableName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SchemaKey)) {
+                return false;
+            }
+            SchemaKey other = (SchemaKey) o;
+            return Objects.equals(dataSourceName, other.dataSourceName) && tableName.equals(other.tableName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dataSourceName, tableName);
+        }
+
+        @Override
+        public String toString() {
+            return (dataSourceName != null ? dataSourceName + "." : "") + tableName;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.MonitorConfig;
+import com.github.starter.dbmonitor.repository.JdbcMonitorConfigRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分片分配服务
+ * CONFIG_ID：按 ABS(id) % shardTotal 分配；
+ * COST_BALANCED：按实测执行耗时做有界负载的最高随机权重（rendezvous）哈希，每个配置优先分配到哈希排名最高且
+ * 未超出容量的分片，分片增减时大部分配置保持原分片，各执行器基于同一配置快照计算出一致的分配结果。
+ * 同一轮的各分片在不同时间加载配置，为保证它们看到相同的成本输入，分配只使用按 2 的幂取整的成本档位，
+ * 执行耗时只在档位变化时才需要写回，且在本节点整轮执行结束后由 {@link #flushRunCosts()} 批量写回，
+ * 不会在本轮其他分片仍在加载配置时改变配置版本号
+ */
+@Service
+@Slf4j
+public class ShardAssignmentService {
+
+    public static final String STRATEGY_CONFIG_ID = "CONFIG_ID";
+
+    public static final String STRATEGY_COST_BALANCED = "COST_BALANCED";
+
+    @Autowired
+    private DbMonitorProperties dbMonitorProperties;
+
+    @Autowired
+    private JdbcMonitorConfigRepository monitorConfigRepository;
+
+    /**
+     * 配置ID -> 平滑后的执行耗时（毫秒）
+     */
+    private final Map<Long, Double> smoothedCosts = new ConcurrentHashMap<>();
+
+    /**
+     * 配置ID -> 待写回的执行成本（毫秒），本轮执行结束后批量写回
+     */
+    private final Map<Long, Long> pendingCosts = new ConcurrentHashMap<>();
+
+    /**
+     * 是否按执行成本均衡分片
+     */
+    public boolean isCostBalanced(DbMonitorProperties.Sharding sharding) {
+        return STRATEGY_COST_BALANCED.equalsIgnoreCase(sharding.getStrategy());
+    }
+
+    /**
+     * 从全部启用的配置中选出指定分片负责的配置，保持输入顺序
+     */
+    public List<MonitorConfig> assign(List<MonitorConfig> configs, int shardIndex, int shardTotal,
+                                      DbMonitorProperties.Sharding sharding) {
+        List<MonitorConfig> result = new ArrayList<>();
+        if (!isCostBalanced(sharding)) {
+            // 与 SQL 分片条件 ABS(id) % shardTotal = shardIndex 一致
+            for (MonitorConfig config : configs) {
+                if (config.getId() != null && Math.abs(config.getId()) % shardTotal == shardIndex) {
+                    result.add(config);
+                }
+            }
+            return result;
+        }
+
+        int[] assignment = balance(configs, shardTotal, sharding.getBalanceTolerance());
+        for (int i = 0; i < configs.size(); i++) {
+            if (assignment[i] == shardIndex) {
+                result.add(configs.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 记录一次执行耗时，平滑值与已保存的执行成本偏离超过阈值且成本档位变化时暂存，等待本轮结束后写回配置表
+     */
+    public void recordRunCost(MonitorConfig config, long elapsedMillis) {
+        DbMonitorProperties.Sharding sharding = dbMonitorProperties.getSharding();
+        if (!isCostBalanced(sharding) || config.getId() == null) {
+            return;
+        }
+
+        double alpha = Math.max(0.0, Math.min(1.0, sharding.getCostSmoothingFactor()));
+        Long stored = config.getRunCostMillis();
+        double seed = stored != null && stored > 0 ? stored : elapsedMillis;
+        double smoothed = smoothedCosts.compute(config.getId(),
+                (id, previous) -> alpha * elapsedMillis + (1 - alpha) * (previous != null ? previous : seed));
+
+        long cost = Math.max(1L, Math.round(smoothed));
+        double ratio = Math.max(1.0, sharding.getCostUpdateRatio());
+        if (stored != null && stored > 0
+                && (costBucket(cost) == costBucket(stored) || (cost < stored * ratio && cost * ratio > stored))) {
+            pendingCosts.remove(config.getId());
+            return;
+        }
+
+        pendingCosts.put(config.getId(), cost);
+        log.debug("监控配置 {} 的执行成本由 {} 毫秒变为 {} 毫秒，等待本轮结束后写回", config.getConfigName(), stored, cost);
+    }
+
+    /**
+     * 批量写回本轮暂存的执行成本，由执行器在整轮执行结束后调用，写回后下一轮各分片基于新的成本分配
+     */
+    public void flushRunCosts() {
+        if (pendingCosts.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> costs = new HashMap<>(pendingCosts);
+        try {
+            int updated = monitorConfigRepository.updateRunCosts(costs);
+            // 写回期间被更新的成本保留到下一轮
+            costs.forEach((id, cost) -> pendingCosts.remove(id, cost));
+            log.debug("写回 {} 个监控配置的执行成本", updated);
+        } catch (Exception e) {
+            log.warn("写回监控配置的执行成本失败，下一轮结束后重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 有界负载的 rendezvous 哈希：按成本从大到小依次放置，优先选择哈希排名最高且放入后不超过容量的分片，
+     * 都超出时选择当前负载最小的分片
+     *
+     * @return 每个配置（按输入下标）分配到的分片
+     */
+    int[] balance(List<MonitorConfig> configs, int shardTotal, double tolerance) {
+        int size = configs.size();
+        long[] costs = costsOf(configs);
+        long totalCost = 0L;
+        for (long cost : costs) {
+            totalCost += cost;
+        }
+        double capacity = (double) totalCost / shardTotal * (1 + Math.max(0.0, tolerance));
+
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingLong(i -> costs[i]).reversed()
+                .thenComparingLong(i -> idOf(configs.get(i))));
+
+        long[] loads = new long[shardTotal];
+        int[] assignment = new int[size];
+        for (Integer index : order) {
+            Integer[] ranking = rankShards(idOf(configs.get(index)), shardTotal);
+            int chosen = -1;
+            for (Integer shard : ranking) {
+                if (loads[shard] + costs[index] <= capacity) {
+                    chosen = shard;
+                    break;
+                }
+            }
+            if (chosen < 0) {
+                chosen = ranking[0];
+                for (Integer shard : ranking) {
+                    if (loads[shard] < loads[chosen]) {
+                        chosen = shard;
+                    }
+                }
+            }
+            loads[chosen] += costs[index];
+            assignment[index] = chosen;
+        }
+        return assignment;
+    }
+
+    /**
+     * 配置的执行成本档位，未测量过的配置使用已测量配置的平均值
+     */
+    private long[] costsOf(List<MonitorConfig> configs) {
+        long knownTotal = 0L;
+        int knownCount = 0;
+        for (MonitorConfig config : configs) {
+            if (config.getRunCostMillis() != null && config.getRunCostMillis() > 0) {
+                knownTotal += config.getRunCostMillis();
+                knownCount++;
+            }
+        }
+        long defaultCost = knownCount > 0 ? Math.max(1L, knownTotal / knownCount) : 1L;
+
+        long[] costs = new long[configs.size()];
+        for (int i = 0; i < configs.size(); i++) {
+            Long cost = configs.get(i).getRunCostMillis();
+            costs[i] = costBucket(cost != null && cost > 0 ? cost : defaultCost);
+        }
+        return costs;
+    }
+
+    /**
+     * 成本档位：向下取整到 2 的幂，同一档位内的耗时波动不改变分配结果
+     */
+    static long costBucket(long costMillis) {
+        return Long.highestOneBit(Math.max(1L, costMillis));
+    }
+
+    /**
+     * 按 rendezvous 哈希得分从高到低排列分片
+     */
+    private static Integer[] rankShards(long configId, int shardTotal) {
+        Integer[] shards = new Integer[shardTotal];
+        long[] scores = new long[shardTotal];
+        for (int shard = 0; shard < shardTotal; shard++) {
+            shards[shard] = shard;
+            scores[shard] = mix(configId * 0x9E3779B97F4A7C15L + shard);
+        }
+        Arrays.sort(shards, (a, b) -> Long.compare(scores[b], scores[a]));
+        return shards;
+    }
+
+    /**
+     * SplitMix64 混淆函数，保证不同 JVM 上的哈希结果一致
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long idOf(MonitorConfig config) {
+        return config.getId() != null ? config.getId() : 0L;
+    }
+}
@@ -0,0 +1,307 @@
+package com.github.starter.dbmonitor.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.repository.JdbcDbMonitorStatisticsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 统计数据快照服务
+ * 每次写入新的统计数据后递增版本号，指标和统计接口按版本缓存由统计数据得出的渲染结果，
+ * 版本未变化时直接复用已渲染（及已压缩）的响应体。ETag 由响应体内容计算，内容不变时各节点返回相同的 ETag
+ */
+@Service
+@Slf4j
+public class StatisticsSnapshotService {
+
+    /**
+     * 缓存的快照数量上限
+     */
+    private static final int MAX_SNAPSHOTS = 256;
+
+    @Autowired
+    private DbMonitorProperties dbMonitorProperties;
+
+    @Autowired
+    private JdbcDbMonitorStatisticsRepository statisticsRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 本节点的数据变更版本号
+     */
+    private final AtomicLong localVersion = new AtomicLong();
+
+    /**
+     * 最近一次探测到的统计表最大ID，用于感知其他节点写入的数据
+     */
+    private volatile long probedMaxId = -1L;
+
+    private volatile long lastProbeMillis = 0L;
+
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    private final Map<String, CachedValue> cachedValues = new ConcurrentHashMap<>();
+
+    /**
+     * 标记统计数据已变更（写入或清理统计数据后调用）
+     */
+    public void markChanged() {
+        localVersion.incrementAndGet();
+    }
+
+    /**
+     * 获取当前数据版本
+     */
+    public String currentVersion() {
+        return localVersion.get() + "-" + probeMaxId();
+    }
+
+    /**
+     * 获取文本格式的快照
+     */
+    public Snapshot getTextSnapshot(String key, String contentType, Supplier<String> renderer) {
+        return getSnapshot(key, contentType, () -> renderer.get().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 获取 JSON 格式的快照
+     */
+    public Snapshot getJsonSnapshot(String key, Supplier<Object> renderer) {
+        return getSnapshot(key, "application/json;charset=UTF-8", () -> serialize(key, renderer.get()));
+    }
+
+    /**
+     * 构建不缓存的文本快照，用于包含实时数据的响应
+     */
+    public Snapshot freshTextSnapshot(String contentType, String body) {
+        return render(currentVersion(), contentType, () -> body.getBytes(StandardCharsets.UTF_8),
+                dbMonitorProperties.getMetrics().getResponseCache());
+    }
+
+    /**
+     * 构建不缓存的 JSON 快照，用于包含实时数据的响应
+     */
+    public Snapshot freshJsonSnapshot(Object value) {
+        return render(currentVersion(), "application/json;charset=UTF-8", () -> serialize("json", value),
+                dbMonitorProperties.getMetrics().getResponseCache());
+    }
+
+    /**
+     * 获取按统计数据版本缓存的值，版本未变化且未过期时不重新加载；加载失败时不缓存
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getCachedValue(String key, Supplier<T> loader) {
+        DbMonitorProperties.ResponseCache config = dbMonitorProperties.getMetrics().getResponseCache();
+        String version = currentVersion();
+        if (!config.isEnabled()) {
+            return loader.get();
+        }
+
+        CachedValue cached = cachedValues.get(key);
+        if (isReusable(cached, version, config)) {
+            return (T) cached.value;
+        }
+
+        if (cachedValues.size() >= MAX_SNAPSHOTS) {
+            cachedValues.clear();
+        }
+
+        // 加载的值可能依赖其他缓存的值，不在 compute 中加载，避免递归更新同一个 Map
+        T value = loader.get();
+        cachedValues.put(key, new CachedValue(version, value, System.currentTimeMillis()));
+        return value;
+    }
+
+    /**
+     * 获取快照，版本未变化且未过期时复用缓存的渲染结果
+     */
+    private Snapshot getSnapshot(String key, String contentType, Supplier<byte[]> renderer) {
+        DbMonitorProperties.ResponseCache config = dbMonitorProperties.getMetrics().getResponseCache();
+        // 渲染前读取版本，渲染期间写入的新数据会在下次请求时触发重新渲染
+        String version = currentVersion();
+
+        if (!config.isEnabled()) {
+            return render(version, contentType, renderer, config);
+        }
+
+        Snapshot cached = snapshots.get(key);
+        if (isReusable(cached, version, config)) {
+            return cached;
+        }
+
+        if (snapshots.size() >= MAX_SNAPSHOTS) {
+            snapshots.clear();
+        }
+
+        // 同一快照只渲染一次，并发请求等待渲染结果
+        return snapshots.compute(key, (k, existing) -> isReusable(existing, version, config)
+                ? existing
+                : render(version, contentType, renderer, config));
+    }
+
+    private boolean isReusable(Snapshot snapshot, String version, DbMonitorProperties.ResponseCache config) {
+        return snapshot != null
+                && snapshot.getVersion().equals(version)
+                && System.currentTimeMillis() - snapshot.getCreatedMillis() < config.getMaxAgeSeconds() * 1000L;
+    }
+
+    private boolean isReusable(CachedValue cached, String version, DbMonitorProperties.ResponseCache config) {
+        return cached != null
+                && cached.version.equals(version)
+                && System.currentTimeMillis() - cached.createdMillis < config.getMaxAgeSeconds() * 1000L;
+    }
+
+    private Snapshot render(String version, String contentType, Supplier<byte[]> renderer,
+                            DbMonitorProperties.ResponseCache config) {
+        byte[] body = renderer.get();
+        // ETag 只取决于内容，版本变化但内容未变时客户端仍可得到 304，负载均衡后的各节点也返回相同的 ETag
+        String eTag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+        log.debug("生成快照，版本: {}，大小: {} 字节", version, body.length);
+        return new Snapshot(version, eTag, contentType, body, config.getGzipMinSizeBytes(), System.currentTimeMillis());
+    }
+
+    private byte[] serialize(String key, Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new IllegalStateException("序列化快照 " + key + " 失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 探测统计表最大ID，按配置的间隔节流
+     */
+    private long probeMaxId() {
+        long now = System.currentTimeMillis();
+        long interval = dbMonitorProperties.getMetrics().getResponseCache().getVersionProbeIntervalMillis();
+        if (probedMaxId < 0 || now - lastProbeMillis >= interval) {
+            try {
+                probedMaxId = statisticsRepository.findMaxId();
+            } catch (Exception e) {
+                log.debug("探测统计数据版本失败: {}", e.getMessage());
+            }
+            lastProbeMillis = now;
+        }
+        return probedMaxId;
+    }
+
+    /**
+     * 按版本缓存的值
+     */
+    private static class CachedValue {
+        private final String version;
+        private final Object value;
+        private final long createdMillis;
+
+        CachedValue(String version, Object value, long createdMillis) {
+            this.version = version;
+            this.value = value;
+            this.createdMillis = createdMillis;
+        }
+    }
+
+    /**
+     * 渲染完成的响应快照
+     */
+    public static class Snapshot {
+        private final String version;
+        private final String eTag;
+        private final String contentType;
+        private final byte[] body;
+        private final int gzipMinSizeBytes;
+        private final long createdMillis;
+        private volatile byte[] gzipBody;
+        private volatile boolean gzipped;
+
+        public Snapshot(String version, String eTag, String contentType, byte[] body, int gzipMinSizeBytes,
+                        long createdMillis) {
+            this.version = version;
+            this.eTag = eTag;
+            this.contentType = contentType;
+            this.body = body;
+            this.gzipMinSizeBytes = gzipMinSizeBytes;
+            this.createdMillis = createdMillis;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        /**
+         * 压缩后的响应体，首次需要时压缩并缓存；响应体小于压缩阈值或压缩失败时返回 null
+         */
+        public byte[] getGzipBody() {
+            if (!gzipped) {
+                synchronized (this) {
+                    if (!gzipped) {
+                        gzipBody = body.length >= gzipMinSizeBytes ? gzip(body) : null;
+                        gzipped = true;
+                    }
+                }
+            }
+            return gzipBody;
+        }
+
+        public long getCreatedMillis() {
+            return createdMillis;
+        }
+
+        /**
+         * 判断 If-None-Match 请求头是否命中当前快照
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null || ifNoneMatch.trim().isEmpty()) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(eTag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static byte[] gzip(byte[] body) {
+            try {
+                ByteArrayOutputStream output = new ByteArrayOutputStream(body.length / 4 + 64);
+                try (GZIPOutputStream gzipOutput = new GZIPOutputStream(output)) {
+                    gzipOutput.write(body);
+                }
+                return output.toByteArray();
+            } catch (IOException e) {
+                log.warn("压缩快照失败: {}", e.getMessage());
+                return null;
+            }
+        }
+    }
+}
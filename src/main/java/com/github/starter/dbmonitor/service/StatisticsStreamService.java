@@ -0,0 +1,322 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.DbMonitorStatistics;
+import com.github.starter.dbmonitor.entity.MonitorConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 统计数据实时推送服务（Server-Sent Events）
+ * 监控任务只把事件放入各订阅者的有界队列，由独立的发送线程推送，
+ * 队列满的慢消费者会被直接断开，不会反压监控任务。心跳同样作为事件入队，
+ * 发送阻塞的连接在独立的关闭线程上关闭，单个阻塞的客户端不会拖慢其他订阅者的推送、心跳和断开
+ */
+@Service
+@Slf4j
+public class StatisticsStreamService {
+
+    public static final String EVENT_STATISTICS = "statistics";
+
+    public static final String EVENT_PROGRESS = "progress";
+
+    @Autowired
+    private DbMonitorProperties dbMonitorProperties;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong evictedCount = new AtomicLong();
+
+    private volatile ExecutorService senderExecutor;
+
+    private volatile ScheduledExecutorService heartbeatExecutor;
+
+    private volatile ExecutorService closeExecutor;
+
+    /**
+     * 订阅实时统计数据，数据源和表名为空时不过滤
+     */
+    public SseEmitter subscribe(String dataSourceName, String tableName) {
+        DbMonitorProperties.Stream config = dbMonitorProperties.getStream();
+        if (!config.isEnabled()) {
+            throw new IllegalStateException("统计数据实时推送未启用");
+        }
+        if (subscribers.size() >= config.getMaxSubscribers()) {
+            throw new IllegalStateException("实时推送订阅者数量已达上限: " + config.getMaxSubscribers());
+        }
+        ensureStarted(config);
+
+        SseEmitter emitter = new SseEmitter(config.getTimeoutMillis());
+        Subscriber subscriber = new Subscriber(emitter, dataSourceName, tableName,
+                Math.max(1, config.getQueueCapacity()));
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber, null));
+        emitter.onError(e -> remove(subscriber, null));
+        subscribers.add(subscriber);
+
+        log.debug("新增实时推送订阅者，数据源: {}，表: {}，当前订阅者: {}", dataSourceName, tableName, subscribers.size());
+        return emitter;
+    }
+
+    /**
+     * 推送新写入的统计数据
+     */
+    public void publishStatistics(DbMonitorStatistics statistics) {
+        publish(EVENT_STATISTICS, statistics.getDataSourceName(), statistics.getTableName(), statistics);
+    }
+
+    /**
+     * 推送监控任务执行进度
+     */
+    public void publishProgress(MonitorConfig config, String phase, int completedSegments, int totalSegments,
+                                long incrementCount) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("config_id", config.getId());
+        progress.put("config_name", config.getConfigName());
+        progress.put("data_source", config.getDataSourceName());
+        progress.put("table_name", config.getTableName());
+        progress.put("phase", phase);
+        progress.put("completed_segments", completedSegments);
+        progress.put("total_segments", totalSegments);
+        progress.put("increment_count", incrementCount);
+        progress.put("timestamp", LocalDateTime.now());
+        publish(EVENT_PROGRESS, config.getDataSourceName(), config.getTableName(), progress);
+    }
+
+    /**
+     * 当前订阅者数量
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * 因超时、队列溢出或发送失败被断开的订阅者数量
+     */
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+        if (heartbeatExecutor != null) {
+            heartbeatExecutor.shutdownNow();
+        }
+        if (closeExecutor != null) {
+            closeExecutor.shutdownNow();
+        }
+        if (senderExecutor != null) {
+            senderExecutor.shutdownNow();
+        }
+    }
+
+    private void publish(String eventName, String dataSourceName, String tableName, Object data) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.accepts(dataSourceName, tableName)) {
+                offer(subscriber, new StreamEvent(eventName, data));
+            }
+        }
+    }
+
+    /**
+     * 非阻塞入队，队列满说明消费过慢，直接断开
+     */
+    private void offer(Subscriber subscriber, StreamEvent event) {
+        if (!subscriber.queue.offer(event)) {
+            log.warn("实时推送订阅者消费过慢，待发送队列已满，断开连接（数据源: {}，表: {}）",
+                    subscriber.dataSourceName, subscriber.tableName);
+            remove(subscriber, null);
+            return;
+        }
+        scheduleDrain(subscriber);
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (!subscriber.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            senderExecutor.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.draining.set(false);
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            StreamEvent event;
+            while ((event = subscriber.queue.poll()) != null) {
+                subscriber.sendStartedMillis = System.currentTimeMillis();
+                if (event == StreamEvent.HEARTBEAT) {
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(String.valueOf(subscriber.sequence.incrementAndGet()))
+                            .name(event.name)
+                            .data(event.data, MediaType.APPLICATION_JSON));
+                }
+                subscriber.sendStartedMillis = 0L;
+            }
+        } catch (Exception e) {
+            log.debug("推送实时数据失败，断开订阅者: {}", e.getMessage());
+            remove(subscriber, e);
+            return;
+        } finally {
+            subscriber.sendStartedMillis = 0L;
+            subscriber.draining.set(false);
+        }
+        // 释放标记后可能有新事件入队，需要再次调度
+        if (!subscriber.queue.isEmpty() && subscribers.contains(subscriber)) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    /**
+     * 心跳与普通事件一样入队由发送线程推送，发送阻塞超时的订阅者直接断开，心跳线程本身不阻塞
+     */
+    private void sendHeartbeats() {
+        long sendTimeoutMillis = dbMonitorProperties.getStream().getSendTimeoutMillis();
+        long now = System.currentTimeMillis();
+        for (Subscriber subscriber : subscribers) {
+            long sendStartedMillis = subscriber.sendStartedMillis;
+            if (sendTimeoutMillis > 0 && sendStartedMillis > 0 && now - sendStartedMillis >= sendTimeoutMillis) {
+                log.warn("实时推送订阅者发送阻塞超过 {} 毫秒，断开连接（数据源: {}，表: {}）",
+                        sendTimeoutMillis, subscriber.dataSourceName, subscriber.tableName);
+                remove(subscriber, null);
+                continue;
+            }
+            offer(subscriber, StreamEvent.HEARTBEAT);
+        }
+    }
+
+    private void remove(Subscriber subscriber, Throwable error) {
+        if (subscribers.remove(subscriber)) {
+            evictedCount.incrementAndGet();
+            subscriber.queue.clear();
+            // 发送阻塞时 SseEmitter 的锁被发送线程持有，在关闭线程上关闭连接，避免阻塞推送方和心跳线程
+            ExecutorService executor = closeExecutor;
+            try {
+                if (executor == null) {
+                    close(subscriber, error);
+                } else {
+                    executor.execute(() -> close(subscriber, error));
+                }
+            } catch (RejectedExecutionException e) {
+                close(subscriber, error);
+            }
+        }
+    }
+
+    private void close(Subscriber subscriber, Throwable error) {
+        try {
+            if (error != null) {
+                subscriber.emitter.completeWithError(error);
+            } else {
+                subscriber.emitter.complete();
+            }
+        } catch (Exception e) {
+            log.debug("关闭实时推送连接失败: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void ensureStarted(DbMonitorProperties.Stream config) {
+        if (senderExecutor != null) {
+            return;
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        // 每个订阅者同时最多一个发送任务，线程上限与订阅者上限相同，阻塞的订阅者不会让其他订阅者排队
+        int coreThreads = Math.max(1, config.getSenderThreads());
+        senderExecutor = new ThreadPoolExecutor(coreThreads, Math.max(coreThreads, config.getMaxSubscribers()),
+                60L, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            Thread thread = new Thread(r, "db-monitor-stream-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        closeExecutor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "db-monitor-stream-close");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-monitor-stream-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, config.getHeartbeatIntervalSeconds());
+        heartbeatExecutor.scheduleWithFixedDelay(this::sendHeartbeats, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 待推送事件
+     */
+    private static final class StreamEvent {
+        private static final StreamEvent HEARTBEAT = new StreamEvent(null, null);
+
+        private final String name;
+        private final Object data;
+
+        private StreamEvent(String name, Object data) {
+            this.name = name;
+            this.data = data;
+        }
+    }
+
+    /**
+     * 订阅者
+     */
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final String dataSourceName;
+        private final String tableName;
+        private final Queue<StreamEvent> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicLong sequence = new AtomicLong();
+        private volatile long sendStartedMillis;
+
+        private Subscriber(SseEmitter emitter, String dataSourceName, String tableName, int queueCapacity) {
+            this.emitter = emitter;
+            this.dataSourceName = dataSourceName;
+            this.tableName = tableName;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        private boolean accepts(String eventDataSourceName, String eventTableName) {
+            if (dataSourceName != null && !dataSourceName.equals(eventDataSourceName)) {
+                return false;
+            }
+            return tableName == null || tableName.equalsIgnoreCase(eventTableName);
+        }
+    }
+}
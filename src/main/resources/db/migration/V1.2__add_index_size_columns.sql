@@ -0,0 +1,33 @@
+-- Database Migration Script for Index Size Estimation
+-- Version: 1.2
+-- Description: Add index size estimation columns to db_monitor_statistics table
+
+-- Add estimated_index_size_bytes column if it doesn't exist
+SELECT COUNT(*) INTO @col_exists FROM information_schema.columns 
+WHERE table_schema = DATABASE() 
+AND table_name = 'db_monitor_statistics' 
+AND column_name = 'estimated_index_size_bytes';
+
+SET @sql = IF(@col_exists = 0, 
+    'ALTER TABLE db_monitor_statistics ADD COLUMN estimated_index_size_bytes bigint(20) DEFAULT NULL COMMENT ''增量数据预估索引空间大小（字节）'' AFTER avg_row_size_bytes;',
+    'SELECT ''Column estimated_index_size_bytes already exists'' as msg;');
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Add avg_index_row_size_bytes column if it doesn't exist
+SELECT COUNT(*) INTO @col_exists FROM information_schema.columns 
+WHERE table_schema = DATABASE() 
+AND table_name = 'db_monitor_statistics' 
+AND column_name = 'avg_index_row_size_bytes';
+
+SET @sql = IF(@col_exists = 0, 
+    'ALTER TABLE db_monitor_statistics ADD COLUMN avg_index_row_size_bytes bigint(20) DEFAULT NULL COMMENT ''平均每行索引大小（字节）'' AFTER estimated_index_size_bytes;',
+    'SELECT ''Column avg_index_row_size_bytes already exists'' as msg;');
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SELECT 'Database migration completed successfully - index size estimation columns added' as result;
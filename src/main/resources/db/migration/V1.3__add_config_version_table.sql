@@ -0,0 +1,14 @@
+-- Database Migration Script for Enabled-Config Cache
+-- Version: 1.3
+-- Description: Add db_monitor_config_version table, bumped on every config create/update/delete/enable change
+
+CREATE TABLE IF NOT EXISTS db_monitor_config_version (
+    id int(11) NOT NULL COMMENT '固定为 1',
+    version bigint(20) NOT NULL DEFAULT 0 COMMENT '配置版本号',
+    updated_time timestamp NULL DEFAULT NULL COMMENT '最后更新时间',
+    PRIMARY KEY (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='监控配置版本表';
+
+INSERT IGNORE INTO db_monitor_config_version (id, version, updated_time) VALUES (1, 0, NOW());
+
+SELECT 'Database migration completed successfully - config version table added' as result;
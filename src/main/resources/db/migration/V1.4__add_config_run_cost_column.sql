@@ -0,0 +1,19 @@
+-- Database Migration Script for Cost-Balanced Sharding
+-- Version: 1.4
+-- Description: Add run_cost_millis column to db_monitor_config table
+
+-- Add run_cost_millis column if it doesn't exist
+SELECT COUNT(*) INTO @col_exists FROM information_schema.columns 
+WHERE table_schema = DATABASE() 
+AND table_name = 'db_monitor_config' 
+AND column_name = 'run_cost_millis';
+
+SET @sql = IF(@col_exists = 0, 
+    'ALTER TABLE db_monitor_config ADD COLUMN run_cost_millis bigint(20) DEFAULT NULL COMMENT ''平滑后的单次执行耗时（毫秒）'' AFTER last_statistic_time;',
+    'SELECT ''Column run_cost_millis already exists'' as msg;');
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SELECT 'Database migration completed successfully - run cost column added' as result;
@@ -0,0 +1,47 @@
+-- Database Migration Script for Lease-Based Execution
+-- Version: 1.5
+-- Description: Add lease_owner and lease_until columns to db_monitor_config table
+
+-- Add lease_owner column if it doesn't exist
+SELECT COUNT(*) INTO @col_exists FROM information_schema.columns 
+WHERE table_schema = DATABASE() 
+AND table_name = 'db_monitor_config' 
+AND column_name = 'lease_owner';
+
+SET @sql = IF(@col_exists = 0, 
+    'ALTER TABLE db_monitor_config ADD COLUMN lease_owner varchar(100) DEFAULT NULL COMMENT ''租约持有者'' AFTER run_cost_millis;',
+    'SELECT ''Column lease_owner already exists'' as msg;');
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Add lease_until column if it doesn't exist
+SELECT COUNT(*) INTO @col_exists FROM information_schema.columns 
+WHERE table_schema = DATABASE() 
+AND table_name = 'db_monitor_config' 
+AND column_name = 'lease_until';
+
+SET @sql = IF(@col_exists = 0, 
+    'ALTER TABLE db_monitor_config ADD COLUMN lease_until timestamp NULL DEFAULT NULL COMMENT ''租约到期时间，失败重试前也用于延迟抢占'' AFTER lease_owner;',
+    'SELECT ''Column lease_until already exists'' as msg;');
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Add index on lease_until if it doesn't exist
+SELECT COUNT(*) INTO @idx_exists FROM information_schema.statistics 
+WHERE table_schema = DATABASE() 
+AND table_name = 'db_monitor_config' 
+AND index_name = 'idx_lease_until';
+
+SET @sql = IF(@idx_exists = 0, 
+    'CREATE INDEX idx_lease_until ON db_monitor_config (lease_until);',
+    'SELECT ''Index idx_lease_until already exists'' as msg;');
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SELECT 'Database migration completed successfully - lease columns added' as result;
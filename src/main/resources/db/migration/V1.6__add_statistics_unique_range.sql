@@ -0,0 +1,28 @@
+-- Database Migration Script for Idempotent Statistics
+-- Version: 1.6
+-- Description: Remove duplicated statistics rows and add a unique key on
+--              (data_source_name, table_name, start_time, end_time) to db_monitor_statistics table
+
+SELECT COUNT(*) INTO @idx_exists FROM information_schema.statistics 
+WHERE table_schema = DATABASE() 
+AND table_name = 'db_monitor_statistics' 
+AND index_name = 'uk_data_source_table_range';
+
+-- Keep the latest row of each duplicated time range
+SET @sql = IF(@idx_exists = 0, 
+    'DELETE s1 FROM db_monitor_statistics s1 JOIN db_monitor_statistics s2 ON s1.data_source_name = s2.data_source_name AND s1.table_name = s2.table_name AND s1.start_time = s2.start_time AND s1.end_time = s2.end_time AND s1.id < s2.id;',
+    'SELECT ''Index uk_data_source_table_range already exists'' as msg;');
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @sql = IF(@idx_exists = 0, 
+    'ALTER TABLE db_monitor_statistics ADD UNIQUE KEY uk_data_source_table_range (data_source_name, table_name, start_time, end_time);',
+    'SELECT ''Index uk_data_source_table_range already exists'' as msg;');
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SELECT 'Database migration completed successfully - statistics unique key added' as result;
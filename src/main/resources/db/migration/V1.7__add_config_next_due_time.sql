@@ -0,0 +1,42 @@
+-- Database Migration Script for Due-Time Scheduling
+-- Version: 1.7
+-- Description: Add next_due_time column to db_monitor_config table
+
+-- Add next_due_time column if it doesn't exist
+SELECT COUNT(*) INTO @col_exists FROM information_schema.columns 
+WHERE table_schema = DATABASE() 
+AND table_name = 'db_monitor_config' 
+AND column_name = 'next_due_time';
+
+SET @sql = IF(@col_exists = 0, 
+    'ALTER TABLE db_monitor_config ADD COLUMN next_due_time timestamp NULL DEFAULT NULL COMMENT ''下次到期时间'' AFTER run_cost_millis;',
+    'SELECT ''Column next_due_time already exists'' as msg;');
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Backfill next_due_time from last_statistic_time for existing configs
+UPDATE db_monitor_config 
+SET next_due_time = CASE UPPER(interval_type)
+        WHEN 'HOURS' THEN DATE_ADD(last_statistic_time, INTERVAL interval_value HOUR)
+        WHEN 'DAYS' THEN DATE_ADD(last_statistic_time, INTERVAL interval_value DAY)
+        ELSE DATE_ADD(last_statistic_time, INTERVAL interval_value MINUTE)
+    END
+WHERE next_due_time IS NULL AND last_statistic_time IS NOT NULL;
+
+-- Add index on next_due_time if it doesn't exist
+SELECT COUNT(*) INTO @idx_exists FROM information_schema.statistics 
+WHERE table_schema = DATABASE() 
+AND table_name = 'db_monitor_config' 
+AND index_name = 'idx_next_due_time';
+
+SET @sql = IF(@idx_exists = 0, 
+    'CREATE INDEX idx_next_due_time ON db_monitor_config (next_due_time);',
+    'SELECT ''Index idx_next_due_time already exists'' as msg;');
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SELECT 'Database migration completed successfully - next_due_time column added' as result;
@@ -0,0 +1,23 @@
+-- Database Migration Script for Historical Backfill
+-- Version: 1.8
+-- Description: Add db_monitor_config_backfill table holding resumable backfill jobs and their checkpoints
+
+CREATE TABLE IF NOT EXISTS db_monitor_config_backfill (
+    id bigint(20) NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+    config_id bigint(20) NOT NULL COMMENT '监控配置ID',
+    start_time timestamp NOT NULL COMMENT '回填开始时间（已按统计间隔对齐）',
+    end_time timestamp NOT NULL COMMENT '回填结束时间',
+    checkpoint_time timestamp NOT NULL COMMENT '检查点，该时间之前已回填完成',
+    total_segments int(11) NOT NULL COMMENT '时间段总数',
+    completed_segments int(11) NOT NULL DEFAULT 0 COMMENT '已回填的时间段数',
+    status varchar(20) NOT NULL COMMENT '任务状态',
+    owner varchar(100) DEFAULT NULL COMMENT '执行节点',
+    error_message text COMMENT '失败原因',
+    created_time timestamp NULL DEFAULT NULL COMMENT '创建时间',
+    updated_time timestamp NULL DEFAULT NULL COMMENT '更新时间',
+    PRIMARY KEY (id),
+    KEY idx_backfill_config (config_id),
+    KEY idx_backfill_status (status, updated_time)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='历史数据回填任务表';
+
+SELECT 'Database migration completed successfully - backfill job table added' as result;
@@ -0,0 +1,210 @@
+package com.github.starter.dbmonitor.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RefreshAheadCache 单元测试
+ */
+class RefreshAheadCacheTest {
+
+    private AtomicLong now;
+
+    private AtomicInteger loads;
+
+    private List<Runnable> pendingRefreshes;
+
+    private Executor manualExecutor;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong(0L);
+        loads = new AtomicInteger();
+        pendingRefreshes = new ArrayList<>();
+        manualExecutor = pendingRefreshes::add;
+    }
+
+    @Test
+    void testMissThenHit() {
+        RefreshAheadCache<String, Long> cache = newCache(10, 1000L, 0L);
+
+        assertEquals(1L, cache.get("orders"));
+        assertEquals(1L, cache.get("orders"));
+
+        RefreshAheadCache.CacheStats stats = cache.getStats();
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getLoadSuccessCount());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testExpiredEntryIsReloaded() {
+        RefreshAheadCache<String, Long> cache = newCache(10, 1000L, 0L);
+        cache.get("orders");
+
+        now.set(1000L);
+
+        assertEquals(2L, cache.get("orders"));
+        assertEquals(2, cache.getStats().getMissCount());
+    }
+
+    @Test
+    void testRefreshAheadServesCurrentValueAndRefreshesInBackground() {
+        RefreshAheadCache<String, Long> cache = newCache(10, 1000L, 800L);
+        cache.get("orders");
+
+        now.set(900L);
+        assertEquals(1L, cache.get("orders"));
+        assertEquals(1, pendingRefreshes.size());
+
+        // 同一键的刷新只调度一次
+        cache.get("orders");
+        assertEquals(1, pendingRefreshes.size());
+
+        pendingRefreshes.get(0).run();
+        assertEquals(2L, cache.get("orders"));
+    }
+
+    @Test
+    void testStaleValueServedWhileRefreshInFlight() {
+        RefreshAheadCache<String, Long> cache = newCache(10, 1000L, 800L);
+        cache.get("orders");
+
+        now.set(900L);
+        cache.get("orders");
+        now.set(1500L);
+
+        // 刷新尚未完成，过期后继续返回旧值
+        assertEquals(1L, cache.get("orders"));
+        assertEquals(1, cache.getStats().getStaleHitCount());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testStaleValueServedWithinMaxStaleThenReloadedSynchronously() {
+        RefreshAheadCache<String, Long> cache = new RefreshAheadCache<>("test", 10, 1000L, 0L, 500L,
+                key -> (long) loads.incrementAndGet(), manualExecutor, now::get);
+        cache.get("orders");
+
+        // 过期但未超过最大陈旧时间，返回旧值并调度后台刷新
+        now.set(1200L);
+        assertEquals(1L, cache.get("orders"));
+        assertEquals(1, pendingRefreshes.size());
+        assertEquals(1, loads.get());
+
+        pendingRefreshes.get(0).run();
+        assertEquals(2L, cache.get("orders"));
+
+        // 超过最大陈旧时间后同步加载
+        now.set(3000L);
+        assertEquals(3L, cache.get("orders"));
+        assertEquals(1, cache.getStats().getStaleHitCount());
+    }
+
+    @Test
+    void testConcurrentMissesLoadOnce() throws Exception {
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        RefreshAheadCache<String, Long> cache = new RefreshAheadCache<>("test", 10, 1000L, 0L, 0L, key -> {
+            loads.incrementAndGet();
+            loaderStarted.countDown();
+            try {
+                releaseLoader.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 42L;
+        }, manualExecutor, now::get);
+
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> cache.get("orders")));
+            }
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            // 等其他调用方都进入等待后再完成加载
+            Thread.sleep(200);
+            releaseLoader.countDown();
+
+            for (Future<Long> result : results) {
+                assertEquals(42L, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getStats().getLoadSuccessCount());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        RefreshAheadCache<String, Long> cache = newCache(2, 1000L, 0L);
+        cache.get("a");
+        cache.get("b");
+        cache.get("a");
+        cache.get("c");
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.getIfPresent("a"));
+        assertNull(cache.getIfPresent("b"));
+        assertEquals(1, cache.getStats().getEvictionCount());
+    }
+
+    @Test
+    void testFailedReloadReturnsStaleValue() {
+        AtomicInteger calls = new AtomicInteger();
+        RefreshAheadCache<String, Long> cache = new RefreshAheadCache<>("test", 10, 1000L, 0L, 0L, key -> {
+            if (calls.incrementAndGet() > 1) {
+                throw new IllegalStateException("boom");
+            }
+            return 42L;
+        }, manualExecutor, now::get);
+        cache.get("orders");
+
+        now.set(2000L);
+
+        assertEquals(42L, cache.get("orders"));
+        assertEquals(1, cache.getStats().getLoadFailureCount());
+    }
+
+    @Test
+    void testFailedInitialLoadPropagates() {
+        RefreshAheadCache<String, Long> cache = new RefreshAheadCache<>("test", 10, 1000L, 0L, 0L, key -> {
+            throw new IllegalStateException("boom");
+        }, manualExecutor, now::get);
+
+        assertThrows(IllegalStateException.class, () -> cache.get("orders"));
+    }
+
+    @Test
+    void testInvalidateAll() {
+        RefreshAheadCache<String, Long> cache = newCache(10, 1000L, 0L);
+        cache.get("orders");
+
+        cache.invalidateAll();
+
+        assertEquals(0, cache.size());
+        assertEquals(2L, cache.get("orders"));
+    }
+
+    private RefreshAheadCache<String, Long> newCache(int maxSize, long ttlMillis, long refreshAfterMillis) {
+        return new RefreshAheadCache<>("test", maxSize, ttlMillis, refreshAfterMillis, 0L,
+                key -> (long) loads.incrementAndGet(), manualExecutor, now::get);
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.starter.dbmonitor.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.repository.JdbcDbMonitorStatisticsRepository;
+import com.github.starter.dbmonitor.service.DbMonitorMetricsService;
+import com.github.starter.dbmonitor.service.StatisticsSnapshotService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * DbMonitorMetricsController 条件请求单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class DbMonitorMetricsControllerTest {
+
+    @Mock
+    private DbMonitorMetricsService metricsService;
+
+    @Mock
+    private JdbcDbMonitorStatisticsRepository statisticsRepository;
+
+    @InjectMocks
+    private DbMonitorMetricsController controller;
+
+    @BeforeEach
+    void setUp() {
+        StatisticsSnapshotService snapshotService = new StatisticsSnapshotService();
+        ReflectionTestUtils.setField(snapshotService, "dbMonitorProperties", new DbMonitorProperties());
+        ReflectionTestUtils.setField(snapshotService, "statisticsRepository", statisticsRepository);
+        ReflectionTestUtils.setField(snapshotService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(controller, "snapshotService", snapshotService);
+        when(statisticsRepository.findMaxId()).thenReturn(10L);
+    }
+
+    @Test
+    void testUnchangedJsonMetricsReturnNotModified() {
+        // 每次请求重新生成内容相同的指标
+        when(metricsService.generateJsonMetrics()).thenAnswer(invocation -> jsonMetrics());
+
+        ResponseEntity<byte[]> first = controller.getJsonMetrics(null, null);
+        ResponseEntity<byte[]> second = controller.getJsonMetrics(null, null);
+        ResponseEntity<byte[]> conditional = controller.getJsonMetrics(first.getHeaders().getETag(), null);
+
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+        assertEquals(HttpStatus.NOT_MODIFIED, conditional.getStatusCode());
+        assertTrue(first.getHeaders().getDate() > 0);
+        assertTrue(conditional.getHeaders().getDate() > 0);
+    }
+
+    private Map<String, Object> jsonMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("data_source", "primary");
+        metrics.put("monitored_tables_count", 2);
+        metrics.put("datasource_health", "healthy");
+        return metrics;
+    }
+}
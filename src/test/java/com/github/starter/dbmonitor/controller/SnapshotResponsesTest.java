@@ -0,0 +1,62 @@
+package com.github.starter.dbmonitor.controller;
+
+import com.github.starter.dbmonitor.service.StatisticsSnapshotService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SnapshotResponses 单元测试
+ */
+class SnapshotResponsesTest {
+
+    private static final String ETAG = "\"0123456789abcdef\"";
+
+    @Test
+    void testMatchingETagReturnsNotModified() {
+        StatisticsSnapshotService.Snapshot snapshot = snapshot("a 1\n", 0);
+
+        ResponseEntity<byte[]> response = SnapshotResponses.toResponse(snapshot, "\"other\", " + ETAG, "gzip");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(ETAG, response.getHeaders().getETag());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void testStaleETagReturnsBody() {
+        StatisticsSnapshotService.Snapshot snapshot = snapshot("a 1\n", 1024);
+
+        ResponseEntity<byte[]> response = SnapshotResponses.toResponse(snapshot, "\"other\"", null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(ETAG, response.getHeaders().getETag());
+        assertEquals("no-cache", response.getHeaders().getCacheControl());
+        assertEquals("a 1\n", new String(response.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testGzipOnlyWhenAcceptedAndLargeEnough() {
+        StatisticsSnapshotService.Snapshot snapshot = snapshot("a 1\n", 0);
+
+        ResponseEntity<byte[]> gzipped = SnapshotResponses.toResponse(snapshot, null, "br, gzip;q=0.8");
+        ResponseEntity<byte[]> refused = SnapshotResponses.toResponse(snapshot, null, "gzip;q=0");
+        ResponseEntity<byte[]> small = SnapshotResponses.toResponse(snapshot("a 1\n", 1024), null, "gzip");
+
+        assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(snapshot.getGzipBody(), gzipped.getBody());
+        assertNull(refused.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertNull(small.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, gzipped.getHeaders().getFirst(HttpHeaders.VARY));
+    }
+
+    private StatisticsSnapshotService.Snapshot snapshot(String body, int gzipMinSizeBytes) {
+        return new StatisticsSnapshotService.Snapshot("1-10", ETAG, "text/plain",
+                body.getBytes(StandardCharsets.UTF_8), gzipMinSizeBytes, System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.starter.dbmonitor.dialect;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DbDialects 单元测试
+ */
+class DbDialectsTest {
+
+    @Test
+    void testResolveBuiltInDialects() {
+        assertEquals("mysql", DbDialects.resolve("jdbc:mysql://localhost:3306/test").getName());
+        assertEquals("mysql", DbDialects.resolve("jdbc:mariadb://localhost:3306/test").getName());
+        assertEquals("postgresql", DbDialects.resolve("jdbc:postgresql://localhost:5432/test").getName());
+        assertEquals("h2", DbDialects.resolve("jdbc:h2:mem:test").getName());
+    }
+
+    @Test
+    void testResolveIsNotFooledByDatabaseName() {
+        // 库名中包含其他数据库名称时不应误判
+        assertEquals("postgresql", DbDialects.resolve("jdbc:postgresql://localhost:5432/mysql_archive").getName());
+    }
+
+    @Test
+    void testUnknownDatabaseFallsBackToGenericDialect() {
+        DbDialect oracle = DbDialects.resolve("jdbc:oracle:thin:@localhost:1521:orcl");
+        assertEquals("oracle", oracle.getName());
+        assertNull(oracle.catalogStatsSql(1));
+        assertNull(oracle.secondsSince("created_time"));
+        assertEquals("SELECT 1 FROM t FETCH FIRST 1 ROWS ONLY", oracle.limit("SELECT 1 FROM t", 1));
+
+        assertEquals("unknown", DbDialects.resolve(null).getName());
+    }
+
+    @Test
+    void testCatalogSqlUsesOnePlaceholderPerTable() {
+        String sql = new PostgreSqlDialect().catalogStatsSql(3);
+        assertTrue(sql.contains("IN (?, ?, ?)"));
+        assertTrue(sql.contains("pg_table_size"));
+
+        assertTrue(new H2Dialect().catalogStatsSql(2).contains("IN (UPPER(?), UPPER(?))"));
+    }
+
+    @Test
+    void testUpsertSql() {
+        List<String> columns = Arrays.asList("k1", "k2", "v");
+        List<String> keys = Arrays.asList("k1", "k2");
+
+        assertEquals("INSERT INTO t (k1, k2, v) VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE v = VALUES(v)",
+                new MySqlDialect().upsertSql("t", columns, keys));
+        assertEquals("INSERT INTO t (k1, k2, v) VALUES (?, ?, ?) ON CONFLICT (k1, k2) DO UPDATE SET v = EXCLUDED.v",
+                new PostgreSqlDialect().upsertSql("t", columns, keys));
+        assertEquals("MERGE INTO t (k1, k2, v) KEY (k1, k2) VALUES (?, ?, ?)",
+                new H2Dialect().upsertSql("t", columns, keys));
+        // 未内置支持的数据库由调用方先更新再插入
+        assertNull(DbDialects.resolve("jdbc:oracle:thin:@localhost:1521:orcl").upsertSql("t", columns, keys));
+    }
+}
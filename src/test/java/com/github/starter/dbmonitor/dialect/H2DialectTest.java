@@ -0,0 +1,199 @@
+package com.github.starter.dbmonitor.dialect;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.TableCatalogStats;
+import com.github.starter.dbmonitor.repository.CancellationHandle;
+import com.github.starter.dbmonitor.repository.JdbcTableOperationRepository;
+import com.github.starter.dbmonitor.repository.QueryCancelledException;
+import com.github.starter.dbmonitor.service.DataSourceService;
+import com.github.starter.dbmonitor.service.IsolatedPoolService;
+import com.github.starter.dbmonitor.service.QueryTimeoutService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 基于 H2 内存数据库验证方言 SQL 与 JdbcTableOperationRepository 的原生实现
+ */
+@ExtendWith(MockitoExtension.class)
+class H2DialectTest {
+
+    @Mock
+    private DataSourceService dataSourceService;
+
+    @Spy
+    private DataSourceMetadataRegistry metadataRegistry = new DataSourceMetadataRegistry();
+
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
+    @Mock
+    private IsolatedPoolService isolatedPoolService;
+
+    @InjectMocks
+    private JdbcTableOperationRepository repository;
+
+    private EmbeddedDatabase database;
+
+    private final LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        lenient().when(dataSourceService.getDataSource("primary")).thenReturn(database);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE orders (id BIGINT PRIMARY KEY, amount DECIMAL(10, 2), " +
+                "remark VARCHAR(255), created_time TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO orders VALUES (1, 10.00, 'a', ?)", base.plusMinutes(5));
+        jdbcTemplate.update("INSERT INTO orders VALUES (2, 20.00, 'b', ?)", base.plusMinutes(7));
+        jdbcTemplate.update("INSERT INTO orders VALUES (3, 30.00, 'c', ?)", base.plusMinutes(25));
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void testDialectIsResolvedAndCached() {
+        assertEquals("h2", repository.getDatabaseType("primary"));
+        assertEquals("h2", repository.getDatabaseType("primary"));
+
+        DataSourceMetadata metadata = metadataRegistry.getAll().get("primary");
+        assertNotNull(metadata);
+        assertEquals("H2", metadata.getProductName());
+        assertEquals("PUBLIC", metadata.getDefaultSchema());
+        assertTrue(metadata.isSupportsCatalogStats());
+        assertTrue(metadata.isSupportsBucketedCount());
+        assertFalse(metadata.isSupportsIndexStats());
+    }
+
+    @Test
+    void testMetadataConnectionIsReturnedToPool() throws Exception {
+        DataSource countingDataSource = mock(DataSource.class);
+        AtomicInteger openConnections = new AtomicInteger();
+        when(countingDataSource.getConnection()).thenAnswer(invocation -> {
+            Connection target = database.getConnection();
+            openConnections.incrementAndGet();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if ("close".equals(method.getName())) {
+                            openConnections.decrementAndGet();
+                        }
+                        return method.invoke(target, args);
+                    });
+        });
+
+        for (int i = 0; i < 5; i++) {
+            metadataRegistry.getMetadata("counting", countingDataSource);
+        }
+
+        verify(countingDataSource, times(1)).getConnection();
+        assertEquals(0, openConnections.get());
+        assertNull(metadataRegistry.getPoolUsage("counting"));
+    }
+
+    @Test
+    void testMetadataIsRegisteredWithApplicationDataSource() {
+        EmbeddedDatabase pool = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        try {
+            when(isolatedPoolService.getPool("primary")).thenReturn(pool);
+
+            // 查询使用监控专用连接池，元数据和连接池指标仍按业务数据源注册
+            assertFalse(repository.checkTableExists("primary", "orders"));
+            assertEquals("h2", repository.getDatabaseType("primary"));
+            verify(metadataRegistry, atLeastOnce()).getMetadata("primary", database);
+            verify(metadataRegistry, never()).getMetadata(eq("primary"), same(pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testTableAndColumnCatalogQueries() {
+        assertTrue(repository.checkTableExists("primary", "orders"));
+        assertFalse(repository.checkTableExists("primary", "missing_table"));
+        assertTrue(repository.getAllTableNames("primary").contains("orders"));
+
+        List<Map<String, Object>> columns = repository.getTableColumnDetails("primary", "orders");
+        assertEquals(4, columns.size());
+        assertEquals("varchar", String.valueOf(columns.get(2).get("DATA_TYPE")).toLowerCase());
+        assertEquals(255L, ((Number) columns.get(2).get("CHAR_LENGTH")).longValue());
+    }
+
+    @Test
+    void testCatalogStatsAndEstimatedRowCount() {
+        Map<String, TableCatalogStats> stats = repository.getTableCatalogStats("primary", Arrays.asList("orders", "missing"));
+
+        assertEquals(1, stats.size());
+        assertEquals(3L, stats.get("orders").getTableRows());
+        assertEquals(3L, repository.getEstimatedRowCount("primary", "orders"));
+        assertNull(repository.getRelationSize("primary", "orders"));
+        assertTrue(repository.getIndexSizeStats("primary", Arrays.asList("orders")).isEmpty());
+    }
+
+    @Test
+    void testBucketedIncrementUsesSingleQuery() {
+        Map<LocalDateTime, Long> buckets = repository.queryBucketedIncrement("primary", "orders", "created_time",
+                base, base.plusMinutes(30), 600);
+
+        assertEquals(3, buckets.size());
+        assertEquals(2L, buckets.get(base));
+        assertEquals(0L, buckets.get(base.plusMinutes(10)));
+        assertEquals(1L, buckets.get(base.plusMinutes(20)));
+    }
+
+    @Test
+    void testIncrementQueryWithTimeoutAndCancellation() {
+        CancellationHandle handle = new CancellationHandle();
+        assertEquals(2L, repository.queryTableIncrement("primary", "orders", "created_time",
+                base, base.plusMinutes(10), 5, handle));
+
+        // 取消后不再执行新的语句，查询失败时抛出异常而不是返回 0，且按停止处理而不计为查询超时
+        handle.cancel();
+        DataAccessException error = assertThrows(QueryCancelledException.class, () -> repository.queryTableIncrement(
+                "primary", "orders", "created_time", base, base.plusMinutes(10), 5, handle));
+        assertFalse(QueryTimeoutService.isQueryTimeout(error));
+        error = assertThrows(QueryCancelledException.class, () -> repository.queryBucketedIncrement("primary", "orders",
+                "created_time", base, base.plusMinutes(30), 600, 5, handle));
+        assertFalse(QueryTimeoutService.isQueryTimeout(error));
+    }
+
+    @Test
+    void testSampleQueryUsesDialectLimit() {
+        Map<String, Object> sample = repository.sampleColumnBytes("primary", "orders", "created_time",
+                Arrays.asList("remark"), base, base.plusMinutes(30), 2, 2, null);
+
+        assertEquals(2L, ((Number) sample.get("SAMPLE_ROWS")).longValue());
+    }
+}
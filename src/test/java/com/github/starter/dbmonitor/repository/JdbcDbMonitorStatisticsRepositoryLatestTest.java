@@ -0,0 +1,123 @@
+package com.github.starter.dbmonitor.repository;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.dialect.DataSourceMetadataRegistry;
+import com.github.starter.dbmonitor.entity.DbMonitorStatistics;
+import com.github.starter.dbmonitor.service.DataSourceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 基于 H2 内存数据库验证按 (数据源, 表) 分组查询最新统计记录
+ */
+@ExtendWith(MockitoExtension.class)
+class JdbcDbMonitorStatisticsRepositoryLatestTest {
+
+    @Mock
+    private DataSourceService dataSourceService;
+
+    @Spy
+    private DataSourceMetadataRegistry metadataRegistry = new DataSourceMetadataRegistry();
+
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
+    @InjectMocks
+    private JdbcDbMonitorStatisticsRepository repository;
+
+    private EmbeddedDatabase database;
+
+    private final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        when(dataSourceService.getDataSource("primary")).thenReturn(database);
+
+        new JdbcTemplate(database).execute("CREATE TABLE db_monitor_statistics (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "data_source_name VARCHAR(100) NOT NULL, table_name VARCHAR(100) NOT NULL, " +
+                "statistic_time TIMESTAMP NOT NULL, start_time TIMESTAMP NOT NULL, end_time TIMESTAMP NOT NULL, " +
+                "increment_count BIGINT, estimated_disk_size_bytes BIGINT, avg_row_size_bytes BIGINT, " +
+                "estimated_index_size_bytes BIGINT, avg_index_row_size_bytes BIGINT, " +
+                "interval_type VARCHAR(20) NOT NULL, interval_value INT NOT NULL, created_time TIMESTAMP, " +
+                "additional_info TEXT, " +
+                "CONSTRAINT uk_data_source_table_range UNIQUE (data_source_name, table_name, start_time, end_time))");
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void testLatestStatisticPerDataSourceAndTable() {
+        repository.insert(statistics("primary", "orders", 0, 100L));
+        repository.insert(statistics("primary", "orders", 10, 120L));
+        repository.insert(statistics("primary", "users", 0, 5L));
+        repository.insert(statistics("secondary", "orders", 0, 40L));
+        repository.insert(statistics("secondary", "orders", 20, 60L));
+
+        List<DbMonitorStatistics> latest = repository.findLatestPerDataSourceAndTable();
+
+        assertEquals(3, latest.size());
+        assertLatest(latest.get(0), "primary", "orders", 120L);
+        assertLatest(latest.get(1), "primary", "users", 5L);
+        assertLatest(latest.get(2), "secondary", "orders", 60L);
+    }
+
+    @Test
+    void testSameStatisticTimeKeepsHighestId() {
+        DbMonitorStatistics first = statistics("primary", "orders", 0, 100L);
+        DbMonitorStatistics second = statistics("primary", "orders", 10, 120L);
+        second.setStatisticTime(first.getStatisticTime());
+        repository.insert(first);
+        repository.insert(second);
+
+        List<DbMonitorStatistics> latest = repository.findLatestPerDataSourceAndTable();
+
+        assertEquals(1, latest.size());
+        assertEquals(second.getId(), latest.get(0).getId());
+        assertEquals(120L, latest.get(0).getIncrementCount());
+    }
+
+    @Test
+    void testEmptyTableReturnsNoStatistics() {
+        assertTrue(repository.findLatestPerDataSourceAndTable().isEmpty());
+    }
+
+    private void assertLatest(DbMonitorStatistics statistics, String dataSourceName, String tableName,
+                              long incrementCount) {
+        assertEquals(dataSourceName, statistics.getDataSourceName());
+        assertEquals(tableName, statistics.getTableName());
+        assertEquals(incrementCount, statistics.getIncrementCount());
+    }
+
+    private DbMonitorStatistics statistics(String dataSourceName, String tableName, int offsetMinutes,
+                                           long incrementCount) {
+        LocalDateTime startTime = start.plusMinutes(offsetMinutes);
+        DbMonitorStatistics statistics = new DbMonitorStatistics(dataSourceName, tableName, startTime,
+                startTime.plusMinutes(10), incrementCount, incrementCount * 256, 256L, "MINUTES", 10);
+        statistics.setStatisticTime(startTime.plusMinutes(10));
+        statistics.setCreatedTime(startTime.plusMinutes(10));
+        return statistics;
+    }
+}
@@ -0,0 +1,138 @@
+package com.github.starter.dbmonitor.repository;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.dialect.DataSourceMetadata;
+import com.github.starter.dbmonitor.dialect.DataSourceMetadataRegistry;
+import com.github.starter.dbmonitor.dialect.H2Dialect;
+import com.github.starter.dbmonitor.entity.DbMonitorStatistics;
+import com.github.starter.dbmonitor.service.DataSourceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 基于 H2 内存数据库验证统计记录按时间段唯一键覆盖写入
+ */
+@ExtendWith(MockitoExtension.class)
+class JdbcDbMonitorStatisticsRepositoryUpsertTest {
+
+    @Mock
+    private DataSourceService dataSourceService;
+
+    @Spy
+    private DataSourceMetadataRegistry metadataRegistry = new DataSourceMetadataRegistry();
+
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
+    @InjectMocks
+    private JdbcDbMonitorStatisticsRepository repository;
+
+    private EmbeddedDatabase database;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        when(dataSourceService.getDataSource("primary")).thenReturn(database);
+
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE db_monitor_statistics (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "data_source_name VARCHAR(100) NOT NULL, table_name VARCHAR(100) NOT NULL, " +
+                "statistic_time TIMESTAMP NOT NULL, start_time TIMESTAMP NOT NULL, end_time TIMESTAMP NOT NULL, " +
+                "increment_count BIGINT, estimated_disk_size_bytes BIGINT, avg_row_size_bytes BIGINT, " +
+                "estimated_index_size_bytes BIGINT, avg_index_row_size_bytes BIGINT, " +
+                "interval_type VARCHAR(20) NOT NULL, interval_value INT NOT NULL, created_time TIMESTAMP, " +
+                "additional_info TEXT, " +
+                "CONSTRAINT uk_data_source_table_range UNIQUE (data_source_name, table_name, start_time, end_time))");
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void testSameTimeRangeIsOverwritten() {
+        DbMonitorStatistics first = repository.upsert(statistics(start, start.plusMinutes(10), 100L));
+        DbMonitorStatistics second = repository.upsert(statistics(start, start.plusMinutes(10), 120L));
+
+        assertNotNull(first.getId());
+        assertEquals(first.getId(), second.getId());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM db_monitor_statistics", Integer.class));
+        assertEquals(120L, jdbcTemplate.queryForObject(
+                "SELECT increment_count FROM db_monitor_statistics", Long.class));
+    }
+
+    @Test
+    void testDifferentTimeRangesAreKept() {
+        repository.upsert(statistics(start, start.plusMinutes(10), 100L));
+        repository.upsert(statistics(start.plusMinutes(10), start.plusMinutes(20), 80L));
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM db_monitor_statistics", Integer.class));
+    }
+
+    @Test
+    void testRowWrittenByInsertIsOverwritten() {
+        DbMonitorStatistics inserted = repository.insert(statistics(start, start.plusMinutes(10), 100L));
+        DbMonitorStatistics upserted = repository.upsert(statistics(start, start.plusMinutes(10), 120L));
+
+        assertEquals(inserted.getId(), upserted.getId());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM db_monitor_statistics", Integer.class));
+        assertEquals(120L * 256, jdbcTemplate.queryForObject(
+                "SELECT estimated_disk_size_bytes FROM db_monitor_statistics", Long.class));
+    }
+
+    @Test
+    void testDialectWithoutUpsertFallsBackToUpdateThenInsert() {
+        // 方言不支持单语句 upsert 时先按唯一键更新，未更新到记录再插入
+        doReturn(new DataSourceMetadata("primary", "H2", "2", "PUBLIC", true, true, new H2Dialect() {
+            @Override
+            public String upsertSql(String table, List<String> columns, List<String> keyColumns) {
+                return null;
+            }
+        })).when(metadataRegistry).getMetadata(eq("primary"), any());
+
+        DbMonitorStatistics inserted = repository.insert(statistics(start, start.plusMinutes(10), 100L));
+        DbMonitorStatistics overwritten = repository.upsert(statistics(start, start.plusMinutes(10), 120L));
+        DbMonitorStatistics added = repository.upsert(statistics(start.plusMinutes(10), start.plusMinutes(20), 80L));
+
+        assertEquals(inserted.getId(), overwritten.getId());
+        assertNotNull(added.getId());
+        assertNotEquals(inserted.getId(), added.getId());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM db_monitor_statistics", Integer.class));
+        assertEquals(120L, jdbcTemplate.queryForObject(
+                "SELECT increment_count FROM db_monitor_statistics WHERE id = ?", Long.class, inserted.getId()));
+        assertEquals(80L, jdbcTemplate.queryForObject(
+                "SELECT increment_count FROM db_monitor_statistics WHERE id = ?", Long.class, added.getId()));
+    }
+
+    private DbMonitorStatistics statistics(LocalDateTime startTime, LocalDateTime endTime, long incrementCount) {
+        DbMonitorStatistics statistics = new DbMonitorStatistics("primary", "orders", startTime, endTime,
+                incrementCount, incrementCount * 256, 256L, "MINUTES", 10);
+        statistics.setCreatedTime(endTime);
+        return statistics;
+    }
+}
@@ -0,0 +1,146 @@
+package com.github.starter.dbmonitor.repository;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.dialect.DataSourceMetadataRegistry;
+import com.github.starter.dbmonitor.entity.MonitorConfig;
+import com.github.starter.dbmonitor.service.DataSourceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 基于 H2 内存数据库验证监控配置租约的抢占、续期与释放
+ */
+@ExtendWith(MockitoExtension.class)
+class JdbcMonitorConfigRepositoryLeaseTest {
+
+    @Mock
+    private DataSourceService dataSourceService;
+
+    @Spy
+    private DataSourceMetadataRegistry metadataRegistry = new DataSourceMetadataRegistry();
+
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
+    @InjectMocks
+    private JdbcMonitorConfigRepository repository;
+
+    private EmbeddedDatabase database;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        when(dataSourceService.getDataSource("primary")).thenReturn(database);
+
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE db_monitor_config (id BIGINT PRIMARY KEY, config_name VARCHAR(100), " +
+                "data_source_name VARCHAR(100), table_name VARCHAR(100), time_column_name VARCHAR(100), " +
+                "time_column_type VARCHAR(50), enabled BOOLEAN, interval_type VARCHAR(20), interval_value INT, " +
+                "description TEXT, created_time TIMESTAMP, updated_time TIMESTAMP, created_by VARCHAR(100), " +
+                "updated_by VARCHAR(100), extend_config TEXT, last_statistic_time TIMESTAMP, " +
+                "run_cost_millis BIGINT, next_due_time TIMESTAMP, lease_owner VARCHAR(100), lease_until TIMESTAMP)");
+        for (long id = 1; id <= 5; id++) {
+            jdbcTemplate.update("INSERT INTO db_monitor_config (id, config_name, data_source_name, table_name, " +
+                    "time_column_name, time_column_type, enabled, interval_type, interval_value, run_cost_millis) " +
+                    "VALUES (?, ?, 'primary', ?, 'created_time', 'DATETIME', TRUE, 'MINUTES', 10, ?)",
+                    id, "config_" + id, "table_" + id, id * 100);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void testClaimsFromDifferentNodesDoNotOverlap() {
+        List<MonitorConfig> first = repository.claimConfigs("node-a", 2, now, now.plusMinutes(5), now, null);
+        List<MonitorConfig> second = repository.claimConfigs("node-b", 2, now, now.plusMinutes(5), now, null);
+        List<MonitorConfig> third = repository.claimConfigs("node-a", 2, now, now.plusMinutes(5), now, null);
+        List<MonitorConfig> fourth = repository.claimConfigs("node-b", 2, now, now.plusMinutes(5), now, null);
+
+        // 执行成本高的配置优先被抢占
+        assertEquals(5L, first.get(0).getId());
+        assertEquals(4L, first.get(1).getId());
+        assertEquals(2, second.size());
+        assertEquals(1, third.size());
+        assertTrue(fourth.isEmpty());
+
+        Set<Long> claimedIds = new HashSet<>();
+        for (List<MonitorConfig> batch : Arrays.asList(first, second, third)) {
+            for (MonitorConfig config : batch) {
+                assertTrue(claimedIds.add(config.getId()), "配置被重复抢占: " + config.getId());
+            }
+        }
+        assertEquals(5, claimedIds.size());
+    }
+
+    @Test
+    void testExpiredLeaseIsTakenOver() {
+        repository.claimConfigs("node-a", 5, now, now.plusMinutes(5), now, null);
+
+        assertTrue(repository.claimConfigs("node-b", 5, now.plusMinutes(1), now.plusMinutes(6), now, null).isEmpty());
+        // node-a 未续期，租约过期后由 node-b 接管
+        List<MonitorConfig> takenOver = repository.claimConfigs("node-b", 5, now.plusMinutes(5), now.plusMinutes(10), now, null);
+        assertEquals(5, takenOver.size());
+
+        // 过期租约的原持有者既不能续期也不能释放
+        assertEquals(0, repository.renewLeases("node-a", now.plusMinutes(6), now.plusMinutes(11)));
+        assertFalse(repository.releaseLease(1L, "node-a", null));
+        assertEquals(5, repository.renewLeases("node-b", now.plusMinutes(6), now.plusMinutes(11)));
+    }
+
+    @Test
+    void testExecutedAndFailedConfigsAreNotReclaimed() {
+        List<MonitorConfig> claimed = repository.claimConfigs("node-a", 2, now, now.plusMinutes(5), now, null);
+        // 配置 5 执行成功并推进了最后统计时间，配置 4 执行失败延迟到重试间隔之后
+        jdbcTemplate.update("UPDATE db_monitor_config SET last_statistic_time = ? WHERE id = 5", now.plusSeconds(30));
+        assertTrue(repository.releaseLease(claimed.get(0).getId(), "node-a", null));
+        assertTrue(repository.releaseLease(claimed.get(1).getId(), "node-a", now.plusMinutes(5)));
+
+        List<MonitorConfig> remaining = repository.claimConfigs("node-b", 5, now.plusMinutes(1), now.plusMinutes(6), now, null);
+
+        assertEquals(3, remaining.size());
+        for (MonitorConfig config : remaining) {
+            assertTrue(config.getId() <= 3L);
+        }
+    }
+
+    @Test
+    void testOnlyDueConfigsAreClaimedWhenDueFilterIsGiven() {
+        jdbcTemplate.update("UPDATE db_monitor_config SET next_due_time = ? WHERE id IN (4, 5)", now.plusHours(1));
+
+        List<MonitorConfig> claimed = repository.claimConfigs("node-a", 5, now, now.plusMinutes(5), now, now);
+
+        assertEquals(3, claimed.size());
+        for (MonitorConfig config : claimed) {
+            assertTrue(config.getId() <= 3L);
+        }
+    }
+}
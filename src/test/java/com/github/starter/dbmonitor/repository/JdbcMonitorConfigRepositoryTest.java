@@ -55,6 +55,8 @@ class JdbcMonitorConfigRepositoryTest {
 
         // Mock getJdbcTemplate 方法返回 mock 的 jdbcTemplate
         lenient().doReturn(jdbcTemplate).when(repository).getJdbcTemplate(anyString());
+        lenient().when(jdbcTemplate.update(startsWith("UPDATE db_monitor_config_version"), any(LocalDateTime.class)))
+                .thenReturn(1);
 
         testConfig = new MonitorConfig();
         testConfig.setId(1L);
@@ -79,7 +81,9 @@ class JdbcMonitorConfigRepositoryTest {
         repository.createTableIfNotExists();
 
         // Then
-        verify(jdbcTemplate).execute(anyString());
+        verify(jdbcTemplate).execute(startsWith("CREATE TABLE IF NOT EXISTS db_monitor_config ("));
+        verify(jdbcTemplate).execute(startsWith("CREATE TABLE IF NOT EXISTS db_monitor_config_version"));
+        verify(jdbcTemplate).update(startsWith("INSERT INTO db_monitor_config_version"), any(LocalDateTime.class));
     }
 
     @Test
@@ -94,6 +98,7 @@ class JdbcMonitorConfigRepositoryTest {
         // Then
         assertNotNull(result);
         verify(jdbcTemplate).update(any(), any(KeyHolder.class));
+        verifyVersionIncremented();
     }
 
     @Test
@@ -106,7 +111,8 @@ class JdbcMonitorConfigRepositoryTest {
 
         // Then
         assertTrue(result);
-        verify(jdbcTemplate).update(anyString(), any(Object[].class));
+        verify(jdbcTemplate).update(contains("config_name = ?"), any(Object[].class));
+        verifyVersionIncremented();
     }
 
     @Test
@@ -226,6 +232,7 @@ class JdbcMonitorConfigRepositoryTest {
         // Then
         assertTrue(result);
         verify(jdbcTemplate).update(anyString(), eq(1L));
+        verifyVersionIncremented();
     }
 
     @Test
@@ -240,6 +247,7 @@ class JdbcMonitorConfigRepositoryTest {
         // Then
         assertTrue(result);
         verify(jdbcTemplate).update(anyString(), eq(true), eq("admin"), any(LocalDateTime.class), eq(1L));
+        verifyVersionIncremented();
     }
 
     @Test
@@ -253,7 +261,8 @@ class JdbcMonitorConfigRepositoryTest {
 
         // Then
         assertEquals(3, result);
-        verify(jdbcTemplate).update(anyString(), any(Object[].class));
+        verify(jdbcTemplate).update(contains("enabled = ?"), any(Object[].class));
+        verifyVersionIncremented();
     }
 
     @Test
@@ -275,4 +284,18 @@ class JdbcMonitorConfigRepositoryTest {
         assertEquals(0, result);
         verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
     }
+
+    @Test
+    void testFindConfigVersion() {
+        // Given
+        when(jdbcTemplate.queryForObject(startsWith("SELECT version FROM db_monitor_config_version"), eq(Long.class)))
+                .thenReturn(7L);
+
+        // When & Then
+        assertEquals(7L, repository.findConfigVersion());
+    }
+
+    private void verifyVersionIncremented() {
+        verify(jdbcTemplate).update(startsWith("UPDATE db_monitor_config_version"), any(LocalDateTime.class));
+    }
 }
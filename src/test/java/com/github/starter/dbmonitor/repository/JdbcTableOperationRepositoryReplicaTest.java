@@ -0,0 +1,145 @@
+package com.github.starter.dbmonitor.repository;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.dialect.DataSourceMetadata;
+import com.github.starter.dbmonitor.dialect.DataSourceMetadataRegistry;
+import com.github.starter.dbmonitor.dialect.H2Dialect;
+import com.github.starter.dbmonitor.service.DataSourceService;
+import com.github.starter.dbmonitor.service.IsolatedPoolService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 基于 H2 内存数据库验证读查询按复制延迟路由到只读副本
+ */
+@ExtendWith(MockitoExtension.class)
+class JdbcTableOperationRepositoryReplicaTest {
+
+    @Mock
+    private DataSourceService dataSourceService;
+
+    @Spy
+    private DataSourceMetadataRegistry metadataRegistry = new DataSourceMetadataRegistry();
+
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
+    @Mock
+    private IsolatedPoolService isolatedPoolService;
+
+    @InjectMocks
+    private JdbcTableOperationRepository repository;
+
+    private EmbeddedDatabase primary;
+
+    private EmbeddedDatabase replica;
+
+    private final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    @BeforeEach
+    void setUp() {
+        primary = createDatabase(3);
+        replica = createDatabase(2);
+        dbMonitorProperties.getReadReplica().getReplicas().put("primary", Collections.singletonList("replica"));
+        lenient().when(dataSourceService.getDataSource("primary")).thenReturn(primary);
+    }
+
+    @AfterEach
+    void tearDown() {
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    void testCountIsRoutedToSyncedReplica() {
+        when(dataSourceService.containsDataSource("replica")).thenReturn(true);
+        when(dataSourceService.getDataSource("replica")).thenReturn(replica);
+
+        assertEquals(2L, repository.queryTableIncrement("primary", "orders", "created_time",
+                start, start.plusHours(1)));
+        assertTrue(repository.checkTableExists("primary", "orders"));
+    }
+
+    @Test
+    void testLaggingReplicaFallsBackToPrimary() {
+        when(dataSourceService.containsDataSource("replica")).thenReturn(true);
+        when(dataSourceService.getDataSource("replica")).thenReturn(replica);
+        // 副本落后 2 小时
+        doReturn(new DataSourceMetadata("replica", "H2", "2", "PUBLIC", true, true, new H2Dialect() {
+            @Override
+            public String replicationLagSql() {
+                return "SELECT 7200 AS lag_seconds";
+            }
+        })).when(metadataRegistry).getMetadata(eq("replica"), any());
+
+        // 窗口结束时间晚于副本已同步的时间点，使用主库
+        assertEquals(3L, repository.queryTableIncrement("primary", "orders", "created_time",
+                start, LocalDateTime.now()));
+        // 较早的窗口副本已同步，使用副本
+        assertEquals(2L, repository.queryTableIncrement("primary", "orders", "created_time",
+                start, LocalDateTime.now().minusHours(3)));
+    }
+
+    @Test
+    void testReplicationLagFallsBackToLegacyStatement() {
+        when(dataSourceService.containsDataSource("replica")).thenReturn(true);
+        when(dataSourceService.getDataSource("replica")).thenReturn(replica);
+        // 第一条语句在该版本不可用，回退到旧语句并读取旧列名
+        doReturn(new DataSourceMetadata("replica", "H2", "2", "PUBLIC", true, true, new H2Dialect() {
+            @Override
+            public List<String> replicationLagSqls() {
+                return Arrays.asList("SELECT Seconds_Behind_Source FROM replica_status",
+                        "SELECT 7200 AS Seconds_Behind_Master");
+            }
+
+            @Override
+            public List<String> replicationLagColumns() {
+                return Arrays.asList("Seconds_Behind_Source", "Seconds_Behind_Master");
+            }
+        })).when(metadataRegistry).getMetadata(eq("replica"), any());
+
+        assertEquals(Long.valueOf(7200L), repository.getReplicationLagSeconds("primary"));
+        assertEquals(Long.valueOf(7200L), repository.getReplicationLagSeconds("primary"));
+    }
+
+    @Test
+    void testMissingReplicaFallsBackToPrimary() {
+        when(dataSourceService.containsDataSource("replica")).thenReturn(false);
+
+        assertEquals(3L, repository.queryTableIncrement("primary", "orders", "created_time",
+                start, start.plusHours(1)));
+        verify(dataSourceService, never()).getDataSource("replica");
+    }
+
+    private EmbeddedDatabase createDatabase(int rows) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE orders (id BIGINT PRIMARY KEY, created_time TIMESTAMP)");
+        for (int i = 0; i < rows; i++) {
+            jdbcTemplate.update("INSERT INTO orders (id, created_time) VALUES (?, ?)", i, start.plusMinutes(i));
+        }
+        return database;
+    }
+}
@@ -0,0 +1,186 @@
+package com.github.starter.dbmonitor.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.DbMonitorStatistics;
+import com.github.starter.dbmonitor.entity.MonitorConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AnomalyDetectionService 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class AnomalyDetectionServiceTest {
+
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private AnomalyDetectionService anomalyDetectionService;
+
+    private MonitorConfig config;
+
+    private LocalDateTime baseTime;
+
+    @BeforeEach
+    void setUp() {
+        config = new MonitorConfig();
+        config.setId(1L);
+        config.setDataSourceName("primary");
+        config.setTableName("orders");
+        // 2024-01-01 是周一
+        baseTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+    }
+
+    @Test
+    void testNoDetectionBeforeMinSamples() {
+        for (int i = 0; i < 11; i++) {
+            assertNull(anomalyDetectionService.evaluate(config, statistics(i, 10, 600L)));
+        }
+        // 样本不足时即使突增也不告警
+        assertNull(anomalyDetectionService.evaluate(config, statistics(11, 10, 60000L)));
+    }
+
+    @Test
+    void testSpikeIsDetected() {
+        feedSteady(30);
+
+        AnomalyDetectionService.AnomalyEvent event = anomalyDetectionService.evaluate(config, statistics(30, 10, 6000L));
+
+        assertNotNull(event);
+        assertEquals(AnomalyDetectionService.AnomalyType.SPIKE, event.getType());
+        assertTrue(event.getScore() >= 3.0);
+        assertEquals("orders", event.getTableName());
+    }
+
+    @Test
+    void testDropToZeroIsDetected() {
+        feedSteady(30);
+
+        AnomalyDetectionService.AnomalyEvent event = anomalyDetectionService.evaluate(config, statistics(30, 10, 0L));
+
+        assertNotNull(event);
+        assertEquals(AnomalyDetectionService.AnomalyType.DROP_TO_ZERO, event.getType());
+    }
+
+    @Test
+    void testSparseTableWithoutWritesIsNotDropToZero() {
+        // 稀疏表平均每个窗口只写入一行左右，空窗口是正常现象
+        for (int i = 0; i < 30; i++) {
+            anomalyDetectionService.evaluate(config, statistics(i, 10, i % 2));
+        }
+
+        assertNull(anomalyDetectionService.evaluate(config, statistics(30, 10, 0L)));
+        assertFalse(anomalyDetectionService.getDetectors().get(0).isAnomalous());
+    }
+
+    @Test
+    void testNormalWindowIsNotAnomalous() {
+        feedSteady(30);
+
+        assertNull(anomalyDetectionService.evaluate(config, statistics(30, 10, 610L)));
+        assertFalse(anomalyDetectionService.getDetectors().get(0).isAnomalous());
+    }
+
+    @Test
+    void testDetectionCanBeDisabledPerConfig() {
+        config.setExtendConfig("{\"anomaly\":{\"enabled\":false}}");
+        feedSteady(30);
+
+        assertNull(anomalyDetectionService.evaluate(config, statistics(30, 10, 0L)));
+        assertTrue(anomalyDetectionService.getDetectors().isEmpty());
+    }
+
+    @Test
+    void testThresholdCanBeOverriddenPerConfig() {
+        config.setExtendConfig("{\"anomaly\":{\"scoreThreshold\":1000,\"dropToZero\":false}}");
+        feedSteady(30);
+
+        assertNull(anomalyDetectionService.evaluate(config, statistics(30, 10, 6000L)));
+        assertNull(anomalyDetectionService.evaluate(config, statistics(31, 10, 0L)));
+    }
+
+    @Test
+    void testInvalidExtendConfigFallsBackToGlobalSettings() {
+        config.setExtendConfig("not-json");
+        feedSteady(30);
+
+        assertNotNull(anomalyDetectionService.evaluate(config, statistics(30, 10, 6000L)));
+    }
+
+    @Test
+    void testSeasonalBaselineSuppressesRecurringPeak() {
+        // 每周一 10 点固定高峰，连续 5 周
+        AnomalyDetectionService.AnomalyEvent lastPeak = null;
+        for (int hour = 0; hour < 168 * 5; hour++) {
+            LocalDateTime start = baseTime.plusHours(hour);
+            long rows = start.getDayOfWeek().getValue() == 1 && start.getHour() == 10 ? 360000L : 3600L;
+            AnomalyDetectionService.AnomalyEvent event = anomalyDetectionService.evaluate(config,
+                    new DbMonitorStatistics("primary", "orders", start, start.plusHours(1), rows, "HOURS", 1));
+            if (rows > 3600L) {
+                lastPeak = event;
+            }
+        }
+
+        assertNull(lastPeak);
+    }
+
+    @Test
+    void testRecurringPeakIsAnomalousWithoutSeasonalBaseline() {
+        config.setExtendConfig("{\"anomaly\":{\"seasonal\":false}}");
+        AnomalyDetectionService.AnomalyEvent lastPeak = null;
+        for (int hour = 0; hour < 168 * 5; hour++) {
+            LocalDateTime start = baseTime.plusHours(hour);
+            long rows = start.getDayOfWeek().getValue() == 1 && start.getHour() == 10 ? 360000L : 3600L;
+            AnomalyDetectionService.AnomalyEvent event = anomalyDetectionService.evaluate(config,
+                    new DbMonitorStatistics("primary", "orders", start, start.plusHours(1), rows, "HOURS", 1));
+            if (rows > 3600L) {
+                lastPeak = event;
+            }
+        }
+
+        assertNotNull(lastPeak);
+        assertEquals(AnomalyDetectionService.AnomalyType.SPIKE, lastPeak.getType());
+    }
+
+    @Test
+    void testRecentEventsAreBoundedAndFiltered() {
+        dbMonitorProperties.getAnomaly().setMaxEvents(2);
+        feedSteady(30);
+        anomalyDetectionService.evaluate(config, statistics(30, 10, 0L));
+        anomalyDetectionService.evaluate(config, statistics(31, 10, 0L));
+        anomalyDetectionService.evaluate(config, statistics(32, 10, 0L));
+
+        List<AnomalyDetectionService.AnomalyEvent> events = anomalyDetectionService.getRecentEvents(null, null, 10);
+        assertEquals(2, events.size());
+        assertTrue(events.get(0).getStartTime().isAfter(events.get(1).getStartTime()));
+
+        assertEquals(2, anomalyDetectionService.getRecentEvents("primary", "ORDERS", 10).size());
+        assertTrue(anomalyDetectionService.getRecentEvents("secondary", null, 10).isEmpty());
+    }
+
+    private void feedSteady(int windows) {
+        for (int i = 0; i < windows; i++) {
+            anomalyDetectionService.evaluate(config, statistics(i, 10, 600L + (i % 3) * 10L));
+        }
+    }
+
+    private DbMonitorStatistics statistics(int windowIndex, int windowMinutes, long rows) {
+        LocalDateTime start = baseTime.plusMinutes((long) windowMinutes * windowIndex);
+        return new DbMonitorStatistics("primary", "orders", start, start.plusMinutes(windowMinutes),
+                rows, "MINUTES", windowMinutes);
+    }
+}
@@ -0,0 +1,208 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.BackfillJob;
+import com.github.starter.dbmonitor.entity.MonitorConfig;
+import com.github.starter.dbmonitor.repository.JdbcDbMonitorStatisticsRepository;
+import com.github.starter.dbmonitor.repository.JdbcMonitorConfigRepository;
+import com.github.starter.dbmonitor.repository.JdbcTableOperationRepository;
+import com.github.starter.dbmonitor.repository.QueryCancelledException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * BackfillService 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class BackfillServiceTest {
+
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
+    @Mock
+    private JdbcMonitorConfigRepository monitorConfigRepository;
+
+    @Mock
+    private JdbcDbMonitorStatisticsRepository statisticsRepository;
+
+    @Mock
+    private JdbcTableOperationRepository tableOperationRepository;
+
+    @Mock
+    private MonitorConfigService monitorConfigService;
+
+    @Mock
+    private DbMonitorService dbMonitorService;
+
+    @Mock
+    private StatisticsSnapshotService statisticsSnapshotService;
+
+    @Mock
+    private ConfigLeaseService configLeaseService;
+
+    @Mock
+    private LoadGovernorService loadGovernorService;
+
+    @Mock
+    private QueryTimeoutService queryTimeoutService;
+
+    @InjectMocks
+    private BackfillService backfillService;
+
+    private MonitorConfig config;
+
+    private QueryTimeoutService.ActiveRun run;
+
+    private final LocalDateTime midnight = LocalDateTime.of(2024, 1, 2, 0, 0);
+
+    @BeforeEach
+    void setUp() {
+        config = new MonitorConfig();
+        config.setId(1L);
+        config.setConfigName("orders_monitor");
+        config.setDataSourceName("primary");
+        config.setTableName("orders");
+        config.setTimeColumnName("created_time");
+        config.setIntervalType("MINUTES");
+        config.setIntervalValue(10);
+        dbMonitorProperties.getBackfill().setChunkPauseMillis(0);
+        run = new QueryTimeoutService.ActiveRun(1L, "orders_monitor", midnight, Long.MAX_VALUE);
+        lenient().when(queryTimeoutService.startWithoutDeadline(config)).thenReturn(run);
+        lenient().when(queryTimeoutService.nextTimeoutSeconds(config, run)).thenReturn(30);
+    }
+
+    @Test
+    void testSubmitAlignsToEarliestStatistics() {
+        when(monitorConfigRepository.findById(1L)).thenReturn(Optional.of(config));
+        when(statisticsRepository.findEarliestStartTime("primary", "orders")).thenReturn(midnight);
+        when(monitorConfigRepository.insertBackfillJob(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BackfillJob job = backfillService.submit(1L, midnight.minusDays(1).plusMinutes(5));
+
+        // 开始时间向前对齐到统计间隔，与已有的统计时间段首尾相接
+        assertEquals(midnight.minusDays(1), job.getStartTime());
+        assertEquals(midnight, job.getEndTime());
+        assertEquals(midnight.minusDays(1), job.getCheckpointTime());
+        assertEquals(144, job.getTotalSegments());
+        assertEquals(BackfillJob.STATUS_PENDING, job.getStatus());
+        verify(monitorConfigService, never()).updateLastStatisticTime(any(MonitorConfig.class), any());
+    }
+
+    @Test
+    void testSubmitRejectsStartAfterExistingStatistics() {
+        when(monitorConfigRepository.findById(1L)).thenReturn(Optional.of(config));
+        when(statisticsRepository.findEarliestStartTime("primary", "orders")).thenReturn(midnight);
+
+        assertThrows(IllegalArgumentException.class, () -> backfillService.submit(1L, midnight.plusHours(1)));
+        verify(monitorConfigRepository, never()).insertBackfillJob(any());
+    }
+
+    @Test
+    void testRunJobCheckpointsEachChunk() {
+        dbMonitorProperties.getBackfill().setChunkSegments(2);
+        BackfillJob job = job(midnight, midnight.plusMinutes(40));
+        when(monitorConfigRepository.findById(1L)).thenReturn(Optional.of(config));
+        when(tableOperationRepository.queryBucketedIncrement(eq("primary"), eq("orders"), eq("created_time"),
+                any(), any(), eq(600), eq(30), same(run.getHandle()))).thenAnswer(invocation -> buckets(invocation.getArgument(3),
+                invocation.getArgument(4)));
+        when(monitorConfigRepository.updateBackfillCheckpoint(eq(9L), eq("node-a"), any(), anyInt(), any()))
+                .thenReturn(true);
+
+        backfillService.runJob(job);
+
+        verify(statisticsRepository, times(4)).upsert(any());
+        verify(monitorConfigRepository).updateBackfillCheckpoint(eq(9L), eq("node-a"),
+                eq(midnight.plusMinutes(20)), eq(2), any());
+        verify(monitorConfigRepository).updateBackfillCheckpoint(eq(9L), eq("node-a"),
+                eq(midnight.plusMinutes(40)), eq(4), any());
+        verify(monitorConfigRepository).finishBackfillJob(eq(9L), eq("node-a"),
+                eq(BackfillJob.STATUS_COMPLETED), isNull(), any());
+        verify(queryTimeoutService).finish(run);
+    }
+
+    @Test
+    void testRunJobResumesFromCheckpointAndStopsWhenCancelled() {
+        dbMonitorProperties.getBackfill().setChunkSegments(2);
+        BackfillJob job = job(midnight, midnight.plusMinutes(60));
+        job.setCheckpointTime(midnight.plusMinutes(20));
+        job.setCompletedSegments(2);
+        when(monitorConfigRepository.findById(1L)).thenReturn(Optional.of(config));
+        when(tableOperationRepository.queryBucketedIncrement(anyString(), anyString(), anyString(),
+                any(), any(), anyInt(), anyInt(), any())).thenAnswer(invocation -> buckets(invocation.getArgument(3),
+                invocation.getArgument(4)));
+        when(monitorConfigRepository.updateBackfillCheckpoint(anyLong(), anyString(), any(), anyInt(), any()))
+                .thenReturn(false);
+
+        backfillService.runJob(job);
+
+        // 从检查点开始扫描，检查点更新失败（已取消）后不再继续
+        verify(tableOperationRepository, times(1)).queryBucketedIncrement(anyString(), anyString(), anyString(),
+                eq(midnight.plusMinutes(20)), eq(midnight.plusMinutes(40)), anyInt(), anyInt(), any());
+        verify(monitorConfigRepository, never()).finishBackfillJob(anyLong(), anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void testRunJobStopsWhenConfigIsStopped() {
+        dbMonitorProperties.getBackfill().setChunkSegments(2);
+        BackfillJob job = job(midnight, midnight.plusMinutes(40));
+        when(monitorConfigRepository.findById(1L)).thenReturn(Optional.of(config));
+        when(tableOperationRepository.queryBucketedIncrement(anyString(), anyString(), anyString(),
+                any(), any(), anyInt(), anyInt(), any())).thenAnswer(invocation -> buckets(invocation.getArgument(3),
+                invocation.getArgument(4)));
+        when(monitorConfigRepository.updateBackfillCheckpoint(anyLong(), anyString(), any(), anyInt(), any()))
+                .thenAnswer(invocation -> {
+                    // 模拟第一批完成后通过 /stop 停止配置
+                    run.getHandle().cancel();
+                    return true;
+                });
+        when(queryTimeoutService.nextTimeoutSeconds(config, run)).thenAnswer(invocation -> {
+            if (run.getHandle().isCancelled()) {
+                throw new QueryCancelledException("监控配置 orders_monitor 的执行已被停止");
+            }
+            return 30;
+        });
+
+        backfillService.runJob(job);
+
+        // 停止后不再扫描，任务标记为失败，可从检查点恢复
+        verify(tableOperationRepository, times(1)).queryBucketedIncrement(anyString(), anyString(), anyString(),
+                any(), any(), anyInt(), anyInt(), any());
+        verify(monitorConfigRepository).finishBackfillJob(eq(9L), eq("node-a"), eq(BackfillJob.STATUS_FAILED),
+                anyString(), any());
+        verify(queryTimeoutService).finish(run);
+    }
+
+    private BackfillJob job(LocalDateTime startTime, LocalDateTime endTime) {
+        BackfillJob job = new BackfillJob();
+        job.setId(9L);
+        job.setConfigId(1L);
+        job.setStartTime(startTime);
+        job.setEndTime(endTime);
+        job.setCheckpointTime(startTime);
+        job.setCompletedSegments(0);
+        job.setOwner("node-a");
+        job.setStatus(BackfillJob.STATUS_RUNNING);
+        return job;
+    }
+
+    private Map<LocalDateTime, Long> buckets(LocalDateTime startTime, LocalDateTime endTime) {
+        Map<LocalDateTime, Long> buckets = new TreeMap<>();
+        for (LocalDateTime bucket = startTime; bucket.isBefore(endTime); bucket = bucket.plusMinutes(10)) {
+            buckets.put(bucket, 5L);
+        }
+        return buckets;
+    }
+}
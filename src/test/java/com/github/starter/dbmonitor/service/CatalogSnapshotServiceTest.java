@@ -0,0 +1,101 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.entity.MonitorConfig;
+import com.github.starter.dbmonitor.entity.TableCatalogStats;
+import com.github.starter.dbmonitor.repository.JdbcTableOperationRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * CatalogSnapshotService 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class CatalogSnapshotServiceTest {
+
+    @Mock
+    private JdbcTableOperationRepository tableOperationRepository;
+
+    @Mock
+    private GrowthForecastService growthForecastService;
+
+    @InjectMocks
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Test
+    void testPrefetchQueriesOncePerDataSource() {
+        Map<String, TableCatalogStats> primaryTables = new HashMap<>();
+        primaryTables.put("orders", new TableCatalogStats("orders", 1000L, 200000L, 50000L, 200L));
+        when(tableOperationRepository.getTableCatalogStats(eq("primary"), anyCollection())).thenReturn(primaryTables);
+        when(tableOperationRepository.getTableCatalogStats(eq("secondary"), anyCollection())).thenReturn(new HashMap<>());
+
+        catalogSnapshotService.prefetch(Arrays.asList(
+                config("primary", "orders"),
+                config("primary", "users"),
+                config("secondary", "logs")));
+
+        verify(tableOperationRepository, times(1)).getTableCatalogStats(eq("primary"),
+                argThat((Collection<String> names) -> names.size() == 2 && names.contains("orders") && names.contains("users")));
+        verify(tableOperationRepository, times(1)).getTableCatalogStats(eq("secondary"), anyCollection());
+        verify(growthForecastService).observeTableSize("primary", "orders", 250000L);
+    }
+
+    @Test
+    void testGetTableStatsIsCaseInsensitive() {
+        Map<String, TableCatalogStats> tables = new HashMap<>();
+        tables.put("orders", new TableCatalogStats("orders", 1000L, 200000L, 50000L, 200L));
+        when(tableOperationRepository.getTableCatalogStats(eq("primary"), anyCollection())).thenReturn(tables);
+
+        catalogSnapshotService.refresh("primary", Arrays.asList("ORDERS"));
+
+        TableCatalogStats stats = catalogSnapshotService.getTableStats("primary", "ORDERS");
+        assertNotNull(stats);
+        assertEquals(200L, stats.getEffectiveAvgRowSize());
+        assertNull(catalogSnapshotService.getTableStats("primary", "users"));
+        assertNull(catalogSnapshotService.getTableStats("secondary", "orders"));
+    }
+
+    @Test
+    void testIndexSizesAreLoadedWithSnapshot() {
+        Map<String, Long> orderIndexes = new HashMap<>();
+        orderIndexes.put("PRIMARY", 163840L);
+        orderIndexes.put("idx_user_id", 49152L);
+        Map<String, Map<String, Long>> indexSizes = new HashMap<>();
+        indexSizes.put("orders", orderIndexes);
+        when(tableOperationRepository.getIndexSizeStats(eq("primary"), anyCollection())).thenReturn(indexSizes);
+
+        catalogSnapshotService.refresh("primary", Arrays.asList("orders"));
+
+        assertEquals(49152L, catalogSnapshotService.getIndexSizes("primary", "ORDERS").get("idx_user_id"));
+        assertTrue(catalogSnapshotService.getIndexSizes("primary", "users").isEmpty());
+        assertTrue(catalogSnapshotService.getIndexSizes("secondary", "orders").isEmpty());
+    }
+
+    @Test
+    void testEffectiveAvgRowSizeFallsBackToAvgRowLength() {
+        TableCatalogStats empty = new TableCatalogStats("orders", 0L, 16384L, 0L, 120L);
+        assertEquals(120L, empty.getEffectiveAvgRowSize());
+
+        TableCatalogStats unknown = new TableCatalogStats("orders", null, null, null, null);
+        assertNull(unknown.getEffectiveAvgRowSize());
+        assertEquals(0L, unknown.getTotalSize());
+    }
+
+    private MonitorConfig config(String dataSourceName, String tableName) {
+        MonitorConfig config = new MonitorConfig();
+        config.setDataSourceName(dataSourceName);
+        config.setTableName(tableName);
+        return config;
+    }
+}
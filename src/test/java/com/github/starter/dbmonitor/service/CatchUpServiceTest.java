@@ -0,0 +1,79 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.MonitorConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CatchUpService 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class CatchUpServiceTest {
+
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
+    @InjectMocks
+    private CatchUpService catchUpService;
+
+    private MonitorConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new MonitorConfig();
+        config.setId(1L);
+        config.setConfigName("orders_monitor");
+        config.setDataSourceName("primary");
+        config.setTableName("orders");
+    }
+
+    @Test
+    void testCatchUpOnlyAboveThreshold() {
+        dbMonitorProperties.getCatchUp().setBacklogThreshold(12);
+
+        assertFalse(catchUpService.isCatchUp(12));
+        assertTrue(catchUpService.isCatchUp(13));
+
+        dbMonitorProperties.getCatchUp().setEnabled(false);
+        assertFalse(catchUpService.isCatchUp(1000));
+    }
+
+    @Test
+    void testTokenBucketLimitsRate() {
+        long start = 0L;
+        CatchUpService.TokenBucket bucket = new CatchUpService.TokenBucket(2.0, start);
+
+        // 最多积累一秒的许可，之后每个许可间隔 500ms
+        assertEquals(0L, bucket.reserve(start));
+        assertEquals(0L, bucket.reserve(start));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), bucket.reserve(start));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), bucket.reserve(start));
+        // 空闲足够久后恢复满额许可
+        assertEquals(0L, bucket.reserve(start + TimeUnit.SECONDS.toNanos(5)));
+    }
+
+    @Test
+    void testBacklogProgressAndFinish() {
+        catchUpService.begin(config, 100, LocalDateTime.of(2024, 1, 1, 0, 0));
+        catchUpService.progress(config, 25);
+
+        List<CatchUpService.CatchUpProgress> backlogs = catchUpService.getBacklogs();
+        assertEquals(1, backlogs.size());
+        assertEquals(75, backlogs.get(0).getRemainingSegments());
+        assertNotNull(backlogs.get(0).getEstimatedCompletionTime());
+
+        catchUpService.finish(config);
+        assertTrue(catchUpService.getBacklogs().isEmpty());
+    }
+}
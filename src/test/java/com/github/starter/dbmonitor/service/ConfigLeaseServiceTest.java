@@ -0,0 +1,107 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.MonitorConfig;
+import com.github.starter.dbmonitor.repository.JdbcMonitorConfigRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.BadSqlGrammarException;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ConfigLeaseService 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class ConfigLeaseServiceTest {
+
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
+    @Mock
+    private JdbcMonitorConfigRepository monitorConfigRepository;
+
+    @InjectMocks
+    private ConfigLeaseService configLeaseService;
+
+    private MonitorConfig config;
+
+    @BeforeEach
+    void setUp() {
+        dbMonitorProperties.getSharding().getLease().setOwnerId("node-a");
+        config = new MonitorConfig();
+        config.setId(1L);
+        config.setConfigName("orders_monitor");
+    }
+
+    @Test
+    void testSingleFlightWithinProcess() {
+        when(monitorConfigRepository.tryAcquireLease(eq(1L), eq("node-a"), any(), any())).thenReturn(true);
+        when(monitorConfigRepository.findById(1L)).thenReturn(Optional.of(config));
+
+        assertTrue(configLeaseService.tryEnter(config));
+        // 同一进程内的第二个调度直接跳过，不访问数据库
+        assertFalse(configLeaseService.tryEnter(config));
+        verify(monitorConfigRepository, times(1)).tryAcquireLease(anyLong(), anyString(), any(), any());
+
+        configLeaseService.exit(config);
+        verify(monitorConfigRepository).releaseLease(1L, "node-a", null);
+        assertTrue(configLeaseService.tryEnter(config));
+    }
+
+    @Test
+    void testConfigRunningOnOtherNodeIsSkipped() {
+        when(monitorConfigRepository.tryAcquireLease(eq(1L), eq("node-a"), any(), any())).thenReturn(false);
+
+        assertFalse(configLeaseService.tryEnter(config));
+        // 未获取到租约时释放进程内占位，下次仍会尝试获取
+        assertFalse(configLeaseService.tryEnter(config));
+        verify(monitorConfigRepository, times(2)).tryAcquireLease(anyLong(), anyString(), any(), any());
+    }
+
+    @Test
+    void testLastStatisticTimeIsRefreshedAfterAcquire() {
+        MonitorConfig latest = new MonitorConfig();
+        latest.setLastStatisticTime(LocalDateTime.of(2024, 1, 1, 12, 0));
+        config.setLastStatisticTime(LocalDateTime.of(2024, 1, 1, 11, 0));
+        when(monitorConfigRepository.tryAcquireLease(eq(1L), eq("node-a"), any(), any())).thenReturn(true);
+        when(monitorConfigRepository.findById(1L)).thenReturn(Optional.of(latest));
+
+        assertTrue(configLeaseService.tryEnter(config));
+
+        assertEquals(latest.getLastStatisticTime(), config.getLastStatisticTime());
+    }
+
+    @Test
+    void testMissingLeaseColumnsFallBackToProcessGuard() {
+        when(monitorConfigRepository.tryAcquireLease(anyLong(), anyString(), any(), any()))
+                .thenThrow(new BadSqlGrammarException("acquire", "UPDATE", new SQLException("unknown column")));
+
+        assertTrue(configLeaseService.tryEnter(config));
+        assertFalse(configLeaseService.tryEnter(config));
+    }
+
+    @Test
+    void testLeaseModeUsesClaimedLease() {
+        dbMonitorProperties.getSharding().getLease().setEnabled(true);
+
+        assertTrue(configLeaseService.tryEnter(config));
+        configLeaseService.exit(config);
+        configLeaseService.release(config, false);
+
+        verify(monitorConfigRepository, never()).tryAcquireLease(anyLong(), anyString(), any(), any());
+        // 执行失败的配置释放时延迟到重试间隔之后
+        verify(monitorConfigRepository).releaseLease(eq(1L), eq("node-a"), notNull());
+    }
+}
@@ -0,0 +1,197 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.cache.RefreshAheadCache;
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.dialect.DataSourceMetadataRegistry;
+import com.github.starter.dbmonitor.entity.DbMonitorStatistics;
+import com.github.starter.dbmonitor.repository.JdbcDbMonitorStatisticsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * DbMonitorMetricsService 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class DbMonitorMetricsServiceTest {
+
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
+    @Mock
+    private JdbcDbMonitorStatisticsRepository statisticsRepository;
+
+    @Mock
+    private DataSourceService dataSourceService;
+
+    @Mock
+    private MonitorConfigService monitorConfigService;
+
+    @Mock
+    private GrowthForecastService growthForecastService;
+
+    @Mock
+    private AnomalyDetectionService anomalyDetectionService;
+
+    @Mock
+    private StatisticsStreamService statisticsStreamService;
+
+    @Mock
+    private DiskSpaceEstimationService diskSpaceEstimationService;
+
+    @Mock
+    private RowSizeSamplingService rowSizeSamplingService;
+
+    @Mock
+    private SchemaMetadataService schemaMetadataService;
+
+    @Mock
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Mock
+    private DataSourceMetadataRegistry metadataRegistry;
+
+    @Mock
+    private IsolatedPoolService isolatedPoolService;
+
+    @Mock
+    private QueryTimeoutService queryTimeoutService;
+
+    @Mock
+    private LoadGovernorService loadGovernorService;
+
+    @Mock
+    private StatisticsSnapshotService snapshotService;
+
+    @InjectMocks
+    private DbMonitorMetricsService metricsService;
+
+    private final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    /**
+     * 模拟统计数据版本未变化时的缓存
+     */
+    private final Map<String, Object> cachedValues = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        when(snapshotService.getCachedValue(anyString(), any())).thenAnswer(invocation -> {
+            String key = invocation.getArgument(0);
+            if (!cachedValues.containsKey(key)) {
+                // 缓存的值可能依赖其他缓存的值，不能在 computeIfAbsent 中加载
+                Object value = ((Supplier<?>) invocation.getArgument(1)).get();
+                cachedValues.put(key, value);
+            }
+            return cachedValues.get(key);
+        });
+        when(monitorConfigService.getMonitoredDataSourceNames()).thenReturn(Arrays.asList("primary", "secondary", "idle"));
+        when(statisticsRepository.findLatestPerDataSourceAndTable()).thenReturn(Arrays.asList(
+                statistics("primary", "orders", 100L, 25600L),
+                statistics("primary", "users", 50L, 12800L),
+                statistics("secondary", "orders", 30L, 7680L)));
+        when(dataSourceService.isDataSourceAvailable(anyString())).thenAnswer(invocation ->
+                !"secondary".equals(invocation.getArgument(0)));
+    }
+
+    @Test
+    void testPrometheusMetricsHavePerDataSourceTotals() {
+        RefreshAheadCache.CacheStats emptyStats = new RefreshAheadCache.CacheStats(0, 0, 0, 0, 0, 0, 0, 0);
+        when(diskSpaceEstimationService.getRowSizeCacheStats()).thenReturn(emptyStats);
+        when(schemaMetadataService.getCacheStats()).thenReturn(emptyStats);
+
+        String metrics = metricsService.generatePrometheusMetrics();
+
+        assertFalse(metrics.contains("# Error"), metrics);
+        assertTrue(metrics.contains("db_monitor_datasource_increment_total{data_source=\"primary\"} 150\n"));
+        assertTrue(metrics.contains("db_monitor_datasource_increment_total{data_source=\"secondary\"} 30\n"));
+        assertTrue(metrics.contains("db_monitor_datasource_increment_total{data_source=\"idle\"} 0\n"));
+        assertTrue(metrics.contains("db_monitor_total_estimated_disk_size_bytes{data_source=\"primary\"} 38400\n"));
+        assertTrue(metrics.contains("db_monitor_monitored_tables_total{data_source=\"primary\"} 2\n"));
+        assertTrue(metrics.contains("db_monitor_monitored_tables_total{data_source=\"idle\"} 0\n"));
+        assertTrue(metrics.contains("db_monitor_datasource_health{data_source=\"primary\"} 1\n"));
+        assertTrue(metrics.contains("db_monitor_datasource_health{data_source=\"secondary\"} 0\n"));
+        assertTrue(metrics.contains("db_monitor_increment_total{data_source=\"secondary\",table=\"orders\""));
+        // 所有数据源的统计数据来自同一次分组查询
+        verify(statisticsRepository, times(1)).findLatestPerDataSourceAndTable();
+    }
+
+    @Test
+    void testLiveMetricsAreRenderedOnEveryRequest() {
+        RefreshAheadCache.CacheStats emptyStats = new RefreshAheadCache.CacheStats(0, 0, 0, 0, 0, 0, 0, 0);
+        when(diskSpaceEstimationService.getRowSizeCacheStats()).thenReturn(emptyStats);
+        when(schemaMetadataService.getCacheStats()).thenReturn(emptyStats);
+        when(statisticsStreamService.getSubscriberCount()).thenReturn(1, 3);
+
+        String first = metricsService.generatePrometheusMetrics();
+        String second = metricsService.generatePrometheusMetrics();
+
+        assertTrue(first.contains("db_monitor_stream_subscribers 1\n"));
+        assertTrue(second.contains("db_monitor_stream_subscribers 3\n"));
+        assertTrue(second.contains("db_monitor_datasource_increment_total{data_source=\"primary\"} 150\n"));
+        // 统计数据版本未变化时不重新查询统计表，健康状态每次重新检查
+        verify(statisticsRepository, times(1)).findLatestPerDataSourceAndTable();
+        verify(dataSourceService, times(2)).isDataSourceAvailable("secondary");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testJsonMetricsHavePerDataSourceTotals() {
+        Map<String, Object> metrics = metricsService.generateJsonMetrics();
+
+        assertNull(metrics.get("error"));
+        assertEquals(3, metrics.get("monitored_tables_count"));
+        assertEquals(180L, metrics.get("total_increment_count"));
+
+        Map<String, Object> dataSources = (Map<String, Object>) metrics.get("data_sources");
+        assertEquals(Arrays.asList("idle", "primary", "secondary"), Arrays.asList(dataSources.keySet().toArray()));
+
+        Map<String, Object> primary = (Map<String, Object>) dataSources.get("primary");
+        assertEquals(2, primary.get("monitored_tables_count"));
+        assertEquals(150L, primary.get("total_increment_count"));
+        assertEquals(38400L, primary.get("total_estimated_disk_size_bytes"));
+        assertEquals("healthy", primary.get("datasource_health"));
+
+        Map<String, Object> secondary = (Map<String, Object>) dataSources.get("secondary");
+        assertEquals(30L, secondary.get("total_increment_count"));
+        assertEquals("unhealthy", secondary.get("datasource_health"));
+
+        Map<String, Object> idle = (Map<String, Object>) dataSources.get("idle");
+        assertEquals(0, idle.get("monitored_tables_count"));
+        assertEquals(0L, idle.get("total_increment_count"));
+    }
+
+    @Test
+    void testJsonMetricsAreStableWhileStatisticsUnchanged() {
+        Map<String, Object> first = metricsService.generateJsonMetrics();
+        Map<String, Object> second = metricsService.generateJsonMetrics();
+
+        // 响应体不含生成时间，统计数据未变化时内容相同，ETag 也相同
+        assertNull(first.get("timestamp"));
+        assertEquals(first, second);
+        verify(statisticsRepository, times(1)).findLatestPerDataSourceAndTable();
+        // 每次请求每个数据源只检查一次健康状态
+        verify(dataSourceService, times(2)).isDataSourceAvailable("secondary");
+    }
+
+    private DbMonitorStatistics statistics(String dataSourceName, String tableName, long incrementCount,
+                                           long diskSizeBytes) {
+        DbMonitorStatistics statistics = new DbMonitorStatistics(dataSourceName, tableName, start,
+                start.plusMinutes(10), incrementCount, diskSizeBytes, 256L, "MINUTES", 10);
+        statistics.setStatisticTime(start.plusMinutes(10));
+        return statistics;
+    }
+}
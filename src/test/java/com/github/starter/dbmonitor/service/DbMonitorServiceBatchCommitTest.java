@@ -0,0 +1,235 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.MonitorConfig;
+import com.github.starter.dbmonitor.repository.JdbcDbMonitorStatisticsRepository;
+import com.github.starter.dbmonitor.repository.JdbcTableOperationRepository;
+import com.github.starter.dbmonitor.repository.QueryCancelledException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionCallback;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 数据库监控服务分批提交功能测试
+ */
+@ExtendWith(MockitoExtension.class)
+class DbMonitorServiceBatchCommitTest {
+
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
+    @Mock
+    private MonitorConfigService monitorConfigService;
+
+    @Mock
+    private JdbcDbMonitorStatisticsRepository statisticsRepository;
+
+    @Mock
+    private JdbcTableOperationRepository tableOperationRepository;
+
+    @Mock
+    private DiskSpaceEstimationService diskSpaceEstimationService;
+
+    @Mock
+    private StatisticsSnapshotService statisticsSnapshotService;
+
+    @Mock
+    private GrowthForecastService growthForecastService;
+
+    @Mock
+    private AnomalyDetectionService anomalyDetectionService;
+
+    @Mock
+    private StatisticsStreamService statisticsStreamService;
+
+    @Mock
+    private CatchUpService catchUpService;
+
+    @Mock
+    private QueryTimeoutService queryTimeoutService;
+
+    @Mock
+    private LoadGovernorService loadGovernorService;
+
+    @InjectMocks
+    private DbMonitorService dbMonitorService;
+
+    private MonitorConfig config;
+
+    private LocalDateTime lastStatisticTime;
+
+    @BeforeEach
+    void setUp() {
+        // 断点距今 50 分 30 秒，按 10 分钟间隔切分为 5 个完整时间段和 1 个不足间隔的尾段
+        lastStatisticTime = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusMinutes(50).minusSeconds(30);
+        config = new MonitorConfig();
+        config.setId(1L);
+        config.setConfigName("orders_monitor");
+        config.setDataSourceName("primary");
+        config.setTableName("orders");
+        config.setTimeColumnName("created_time");
+        config.setIntervalType("MINUTES");
+        config.setIntervalValue(10);
+        config.setLastStatisticTime(lastStatisticTime);
+        dbMonitorProperties.getMonitorTable().setCommitBatchSegments(4);
+
+        when(queryTimeoutService.start(config)).thenReturn(
+                new QueryTimeoutService.ActiveRun(1L, "orders_monitor", LocalDateTime.now(), Long.MAX_VALUE));
+        when(tableOperationRepository.queryTableIncrement(anyString(), anyString(), anyString(), any(), any(),
+                anyInt(), any())).thenReturn(10L);
+        when(diskSpaceEstimationService.estimateIncrementalDiskSpace(any(MonitorConfig.class), any(), any(), any(), any()))
+                .thenReturn(new DiskSpaceEstimationService.DiskSpaceEstimation(1000L, 100L));
+        when(statisticsRepository.getStatisticsDataSourceName()).thenReturn("primary");
+    }
+
+    @Test
+    void testEachBatchCommitsStatisticsWithCheckpoint() throws Exception {
+        when(monitorConfigService.getConfigDataSourceName()).thenReturn("primary");
+        when(monitorConfigService.saveLastStatisticTime(eq(config), any())).thenReturn(true);
+        when(statisticsRepository.executeInTransaction(any())).thenAnswer(invocation ->
+                ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+
+        invokeMonitorTableWithConfig(config);
+
+        // 6 个时间段按每批 4 个分两次提交，断点在事务内随统计记录一起写入，提交后同步到内存
+        verify(statisticsRepository, times(2)).executeInTransaction(any());
+        verify(statisticsRepository, times(6)).upsert(any());
+        ArgumentCaptor<LocalDateTime> checkpoints = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(monitorConfigService, times(2)).saveLastStatisticTime(eq(config), checkpoints.capture());
+        assertEquals(lastStatisticTime.plusMinutes(40), checkpoints.getAllValues().get(0));
+        assertTrue(checkpoints.getAllValues().get(1).isAfter(lastStatisticTime.plusMinutes(50)));
+        verify(monitorConfigService).applyLastStatisticTime(config, checkpoints.getAllValues().get(0));
+        verify(monitorConfigService).applyLastStatisticTime(config, checkpoints.getAllValues().get(1));
+        verify(monitorConfigService, never()).updateLastStatisticTime(any(MonitorConfig.class), any());
+        verify(statisticsSnapshotService, times(2)).markChanged();
+    }
+
+    @Test
+    void testSnapshotIsInvalidatedAfterForecastAndAnomalyDetection() throws Exception {
+        dbMonitorProperties.getMonitorTable().setCommitBatchSegments(10);
+        when(monitorConfigService.getConfigDataSourceName()).thenReturn("primary");
+        when(statisticsRepository.executeInTransaction(any())).thenAnswer(invocation ->
+                ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+
+        invokeMonitorTableWithConfig(config);
+
+        InOrder inOrder = inOrder(growthForecastService, anomalyDetectionService, statisticsSnapshotService,
+                statisticsStreamService);
+        inOrder.verify(anomalyDetectionService, times(6)).evaluate(eq(config), any());
+        inOrder.verify(statisticsSnapshotService).markChanged();
+        inOrder.verify(statisticsStreamService, times(6)).publishStatistics(any());
+        verify(growthForecastService, times(6)).observe(any());
+    }
+
+    @Test
+    void testRolledBackCommitKeepsCheckpointInMemory() {
+        when(monitorConfigService.getConfigDataSourceName()).thenReturn("primary");
+        when(monitorConfigService.saveLastStatisticTime(eq(config), any())).thenReturn(true);
+        // 事务回调执行完成后提交失败
+        when(statisticsRepository.executeInTransaction(any())).thenAnswer(invocation -> {
+            ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null);
+            throw new TransactionSystemException("commit failed");
+        });
+
+        assertThrows(TransactionSystemException.class, () -> invokeMonitorTableWithConfig(config));
+
+        verify(monitorConfigService).saveLastStatisticTime(config, lastStatisticTime.plusMinutes(40));
+        verify(monitorConfigService, never()).applyLastStatisticTime(any(), any());
+        verify(monitorConfigService, never()).updateLastStatisticTime(any(MonitorConfig.class), any());
+        assertEquals(lastStatisticTime, config.getLastStatisticTime());
+        verify(statisticsSnapshotService, never()).markChanged();
+    }
+
+    @Test
+    void testFailedCommitKeepsCheckpoint() {
+        when(monitorConfigService.getConfigDataSourceName()).thenReturn("config");
+        when(statisticsRepository.executeInTransaction(any())).thenThrow(new IllegalStateException("connection lost"));
+
+        assertThrows(IllegalStateException.class, () -> invokeMonitorTableWithConfig(config));
+
+        // 统计数据源与配置数据源不同时断点在统计记录提交后推进，提交失败时不推进
+        verify(statisticsRepository, times(1)).executeInTransaction(any());
+        verify(monitorConfigService, never()).updateLastStatisticTime(any(MonitorConfig.class), any());
+        verify(statisticsStreamService, never()).publishStatistics(any());
+    }
+
+    @Test
+    void testTimedOutSegmentStopsRunAtFailedSegment() {
+        when(monitorConfigService.getConfigDataSourceName()).thenReturn("primary");
+        when(statisticsRepository.executeInTransaction(any())).thenAnswer(invocation ->
+                ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        when(tableOperationRepository.queryTableIncrement(anyString(), anyString(), anyString(), any(), any(),
+                anyInt(), any())).thenReturn(10L, 10L).thenThrow(new QueryTimeoutException("statement timeout"));
+
+        assertThrows(QueryTimeoutException.class, () -> invokeMonitorTableWithConfig(config));
+
+        // 超时前完成的时间段先提交，断点停在超时的时间段，剩余时间段不再查询
+        verify(tableOperationRepository, times(3)).queryTableIncrement(anyString(), anyString(), anyString(),
+                any(), any(), anyInt(), any());
+        verify(statisticsRepository, times(2)).upsert(any());
+        verify(monitorConfigService).saveLastStatisticTime(config, lastStatisticTime.plusMinutes(20));
+        verify(queryTimeoutService).recordTimeout(eq(config), eq(lastStatisticTime.plusMinutes(20)),
+                eq(lastStatisticTime.plusMinutes(30)), anyString());
+        verify(queryTimeoutService).finish(any());
+    }
+
+    @Test
+    void testThrottledSegmentIsNotRecordedAsQueryTimeout() {
+        when(monitorConfigService.getConfigDataSourceName()).thenReturn("primary");
+        when(statisticsRepository.executeInTransaction(any())).thenAnswer(invocation ->
+                ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        doNothing().doNothing().doThrow(new LoadGovernorService.ThrottledException("数据源 primary 负载过高"))
+                .when(loadGovernorService).acquire(eq("primary"), anyLong(), any());
+
+        assertThrows(LoadGovernorService.ThrottledException.class, () -> invokeMonitorTableWithConfig(config));
+
+        // 等待查询许可超时同样停在该时间段，但不计入查询超时
+        verify(tableOperationRepository, times(2)).queryTableIncrement(anyString(), anyString(), anyString(),
+                any(), any(), anyInt(), any());
+        verify(monitorConfigService).saveLastStatisticTime(config, lastStatisticTime.plusMinutes(20));
+        verify(queryTimeoutService, never()).recordTimeout(any(), any(), any(), any());
+    }
+
+    @Test
+    void testStoppedSegmentIsNotRecordedAsQueryTimeout() {
+        when(monitorConfigService.getConfigDataSourceName()).thenReturn("primary");
+        when(statisticsRepository.executeInTransaction(any())).thenAnswer(invocation ->
+                ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        when(tableOperationRepository.queryTableIncrement(anyString(), anyString(), anyString(), any(), any(),
+                anyInt(), any())).thenReturn(10L, 10L).thenThrow(new QueryCancelledException("查询已取消"));
+
+        assertThrows(QueryCancelledException.class, () -> invokeMonitorTableWithConfig(config));
+
+        // 通过 /stop 停止的执行同样停在该时间段，但不计入查询超时
+        verify(monitorConfigService).saveLastStatisticTime(config, lastStatisticTime.plusMinutes(20));
+        verify(queryTimeoutService, never()).recordTimeout(any(), any(), any(), any());
+        verify(queryTimeoutService).finish(any());
+    }
+
+    private void invokeMonitorTableWithConfig(MonitorConfig config) throws Exception {
+        Method method = DbMonitorService.class.getDeclaredMethod("monitorTableWithConfig", MonitorConfig.class);
+        method.setAccessible(true);
+        try {
+            method.invoke(dbMonitorService, config);
+        } catch (InvocationTargetException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+}
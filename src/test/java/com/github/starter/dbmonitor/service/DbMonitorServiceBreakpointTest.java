@@ -28,6 +28,21 @@ class DbMonitorServiceBreakpointTest {
     @Mock
     private MonitorConfigService monitorConfigService;
 
+    @Mock
+    private ShardAssignmentService shardAssignmentService;
+
+    @Mock
+    private ConfigLeaseService configLeaseService;
+
+    @Mock
+    private CatchUpService catchUpService;
+
+    @Mock
+    private QueryTimeoutService queryTimeoutService;
+
+    @Mock
+    private LoadGovernorService loadGovernorService;
+
     @InjectMocks
     private DbMonitorService dbMonitorService;
 
@@ -1,17 +1,24 @@
 package com.github.starter.dbmonitor.service;
 
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
 import com.github.starter.dbmonitor.entity.MonitorConfig;
+import com.github.starter.dbmonitor.repository.JdbcTableOperationRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 /**
@@ -23,6 +30,33 @@ class DbMonitorServiceShardingTest {
     @Mock
     private MonitorConfigService monitorConfigService;
 
+    @Mock
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Mock
+    private ShardAssignmentService shardAssignmentService;
+
+    @Mock
+    private ConfigLeaseService configLeaseService;
+
+    @Mock
+    private CatchUpService catchUpService;
+
+    @Mock
+    private QueryTimeoutService queryTimeoutService;
+
+    @Mock
+    private LoadGovernorService loadGovernorService;
+
+    @Mock
+    private StatisticsStreamService statisticsStreamService;
+
+    @Mock
+    private JdbcTableOperationRepository tableOperationRepository;
+
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
     @InjectMocks
     private DbMonitorService dbMonitorService;
 
@@ -42,6 +76,8 @@ class DbMonitorServiceShardingTest {
             config.setIntervalType("MINUTES");
             config.setIntervalValue(10);
             config.setEnabled(true);
+            // 断点已是最新，执行时没有需要统计的时间段，测试只关注调度、单飞与租约
+            config.setLastStatisticTime(LocalDateTime.now().plusHours(1));
             testConfigs.add(config);
         }
     }
@@ -94,6 +130,7 @@ class DbMonitorServiceShardingTest {
         
         // 验证调用了正确的方法
         verify(monitorConfigService).getEnabledConfigs();
+        verify(catalogSnapshotService).prefetch(testConfigs);
     }
 
     @Test
@@ -107,4 +144,95 @@ class DbMonitorServiceShardingTest {
         // 验证调用了正确的方法（空字符串应该走非分片模式）
         verify(monitorConfigService).getEnabledConfigs();
     }
+
+    @Test
+    void testExecuteMonitoringWithLeases() {
+        // Given - 租约模式下分两批抢占到 5 个配置，之后没有可抢占的配置
+        when(configLeaseService.isEnabled()).thenReturn(true);
+        when(configLeaseService.tryEnter(any(MonitorConfig.class))).thenReturn(true);
+        when(configLeaseService.claim(any(LocalDateTime.class)))
+                .thenReturn(testConfigs.subList(0, 3))
+                .thenReturn(testConfigs.subList(3, 5))
+                .thenReturn(Collections.emptyList());
+
+        // When
+        assertDoesNotThrow(() -> dbMonitorService.executeMonitoring("1/3"));
+
+        // Then - 忽略分片参数，每个抢占到的配置执行后释放租约
+        verify(monitorConfigService, never()).getEnabledConfigs(anyString());
+        for (MonitorConfig config : testConfigs.subList(0, 5)) {
+            verify(configLeaseService).release(config, true);
+        }
+        verify(catalogSnapshotService).prefetch(testConfigs.subList(0, 3));
+        verify(configLeaseService).beginRun();
+        verify(configLeaseService).endRun();
+    }
+
+    @Test
+    void testExecuteMonitoringWithLeases_ReclaimedConfigNotExecutedTwice() {
+        // Given - 执行后最后统计时间未推进的配置再次被抢占
+        MonitorConfig config = testConfigs.get(0);
+        when(configLeaseService.isEnabled()).thenReturn(true);
+        when(configLeaseService.tryEnter(config)).thenReturn(true);
+        when(configLeaseService.claim(any(LocalDateTime.class)))
+                .thenReturn(Collections.singletonList(config))
+                .thenReturn(Collections.singletonList(config))
+                .thenReturn(Collections.emptyList());
+
+        // When
+        dbMonitorService.executeMonitoring(null);
+
+        // Then - 第二次抢占到时直接按失败释放，延迟到重试间隔之后
+        verify(configLeaseService).release(config, true);
+        verify(configLeaseService).release(config, false);
+        verify(catalogSnapshotService, times(2)).prefetch(Collections.singletonList(config));
+    }
+
+    @Test
+    void testExecuteMonitoringWithLeases_FailedConfigReleasedAsFailed() {
+        // Given - 配置 1 的增量查询超时，配置 2 正常执行
+        MonitorConfig failed = testConfigs.get(0);
+        failed.setLastStatisticTime(null);
+        MonitorConfig succeeded = testConfigs.get(1);
+        when(configLeaseService.isEnabled()).thenReturn(true);
+        when(configLeaseService.tryEnter(any(MonitorConfig.class))).thenReturn(true);
+        when(configLeaseService.claim(any(LocalDateTime.class)))
+                .thenReturn(testConfigs.subList(0, 2))
+                .thenReturn(Collections.emptyList());
+        when(queryTimeoutService.start(failed))
+                .thenReturn(new QueryTimeoutService.ActiveRun(1L, "config_1", LocalDateTime.now(), Long.MAX_VALUE));
+        when(tableOperationRepository.queryTableIncrement(eq("dataSource"), eq("table_1"), eq("created_time"),
+                any(LocalDateTime.class), any(LocalDateTime.class), anyInt(), any()))
+                .thenThrow(new QueryTimeoutException("statement timeout"));
+
+        // When
+        dbMonitorService.executeMonitoring(null);
+
+        // Then - 失败的配置按失败释放租约，不影响后续配置
+        verify(queryTimeoutService).recordTimeout(eq(failed), any(LocalDateTime.class), any(LocalDateTime.class),
+                eq("statement timeout"));
+        verify(configLeaseService).release(failed, false);
+        verify(configLeaseService).release(succeeded, true);
+        verify(configLeaseService).exit(failed);
+        verify(configLeaseService).endRun();
+    }
+
+    @Test
+    void testConfigRunningElsewhereIsSkipped() {
+        // Given - 配置 1 正在其他调度或节点上执行
+        List<MonitorConfig> configs = testConfigs.subList(0, 2);
+        when(monitorConfigService.getEnabledConfigs()).thenReturn(configs);
+        when(configLeaseService.tryEnter(configs.get(0))).thenReturn(false);
+        when(configLeaseService.tryEnter(configs.get(1))).thenReturn(true);
+
+        // When
+        dbMonitorService.executeMonitoring(null);
+
+        // Then - 只有获取到执行权的配置执行并退出
+        verify(configLeaseService, never()).exit(configs.get(0));
+        verify(configLeaseService).exit(configs.get(1));
+        verify(shardAssignmentService, never()).recordRunCost(eq(configs.get(0)), anyLong());
+        verify(shardAssignmentService).recordRunCost(eq(configs.get(1)), anyLong());
+        verify(configLeaseService).endRun();
+    }
 }
@@ -0,0 +1,140 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.TableCatalogStats;
+import com.github.starter.dbmonitor.repository.JdbcTableOperationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * DiskSpaceEstimationService 索引空间估算单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class DiskSpaceEstimationServiceTest {
+
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
+    @Mock
+    private JdbcTableOperationRepository tableOperationRepository;
+
+    @Mock
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Mock
+    private RowSizeSamplingService rowSizeSamplingService;
+
+    @InjectMocks
+    private DiskSpaceEstimationService diskSpaceEstimationService;
+
+    @BeforeEach
+    void setUp() {
+        diskSpaceEstimationService.initCache();
+    }
+
+    @AfterEach
+    void tearDown() {
+        diskSpaceEstimationService.shutdown();
+    }
+
+    @Test
+    void testClusteredIndexIsExcludedFromIndexGrowth() {
+        when(catalogSnapshotService.getTableStats("primary", "orders"))
+                .thenReturn(new TableCatalogStats("orders", 10000L, 1000000L, 1300000L, 100L));
+        Map<String, Long> indexSizes = new LinkedHashMap<>();
+        indexSizes.put("PRIMARY", 1000000L);
+        indexSizes.put("idx_user_id", 200000L);
+        indexSizes.put("idx_created_time", 100000L);
+        when(catalogSnapshotService.getIndexSizes("primary", "orders")).thenReturn(indexSizes);
+
+        DiskSpaceEstimationService.DiskSpaceEstimation estimation =
+                diskSpaceEstimationService.estimateIncrementalDiskSpace("primary", "orders", 50L);
+
+        // 聚簇索引即行数据本身，已计入数据空间
+        assertEquals(Arrays.asList("idx_created_time", "idx_user_id"),
+                Arrays.asList(estimation.getIndexGrowth().keySet().toArray()));
+        assertEquals(5000L, estimation.getTotalEstimatedSize());
+        assertEquals(100L, estimation.getAvgRowSize());
+        assertEquals(1500L, estimation.getEstimatedIndexSize());
+        assertEquals(30L, estimation.getAvgIndexRowSize());
+    }
+
+    @Test
+    void testGeneratedClusteredIndexIsExcluded() {
+        when(catalogSnapshotService.getTableStats("primary", "logs"))
+                .thenReturn(new TableCatalogStats("logs", 1000L, 200000L, 50000L, 200L));
+        Map<String, Long> indexSizes = new LinkedHashMap<>();
+        indexSizes.put("GEN_CLUST_INDEX", 200000L);
+        indexSizes.put("idx_level", 50000L);
+        when(catalogSnapshotService.getIndexSizes("primary", "logs")).thenReturn(indexSizes);
+
+        DiskSpaceEstimationService.DiskSpaceEstimation estimation =
+                diskSpaceEstimationService.estimateIncrementalDiskSpace("primary", "logs", 10L);
+
+        assertEquals(Collections.singletonMap("idx_level", 500L), estimation.getIndexGrowth());
+        assertEquals(500L, estimation.getEstimatedIndexSize());
+        assertEquals(50L, estimation.getAvgIndexRowSize());
+    }
+
+    @Test
+    void testIndexSizeIsSpreadPerRow() {
+        when(catalogSnapshotService.getTableStats("primary", "orders"))
+                .thenReturn(new TableCatalogStats("orders", 3000L, 300000L, 1000L, 100L));
+        Map<String, Long> indexSizes = new LinkedHashMap<>();
+        indexSizes.put("idx_a", 1000L);
+        when(catalogSnapshotService.getIndexSizes("primary", "orders")).thenReturn(indexSizes);
+
+        DiskSpaceEstimationService.DiskSpaceEstimation estimation =
+                diskSpaceEstimationService.estimateIncrementalDiskSpace("primary", "orders", 7L);
+
+        // 每行约 0.33 字节，按总量换算后再取整，避免逐行取整放大误差
+        assertEquals(Long.valueOf(2L), estimation.getIndexGrowth().get("idx_a"));
+        assertEquals(2L, estimation.getEstimatedIndexSize());
+        assertEquals(0L, estimation.getAvgIndexRowSize());
+    }
+
+    @Test
+    void testIndexLengthIsUsedWithoutIndexStats() {
+        when(catalogSnapshotService.getTableStats("primary", "orders"))
+                .thenReturn(new TableCatalogStats("orders", 10000L, 1000000L, 300000L, 100L));
+        when(catalogSnapshotService.getIndexSizes("primary", "orders")).thenReturn(Collections.<String, Long>emptyMap());
+
+        DiskSpaceEstimationService.DiskSpaceEstimation estimation =
+                diskSpaceEstimationService.estimateIncrementalDiskSpace("primary", "orders", 50L);
+
+        assertTrue(estimation.getIndexGrowth().isEmpty());
+        assertEquals(1500L, estimation.getEstimatedIndexSize());
+        assertEquals(30L, estimation.getAvgIndexRowSize());
+    }
+
+    @Test
+    void testNoCatalogStatsSkipsIndexEstimation() {
+        when(catalogSnapshotService.getTableStats("primary", "orders")).thenReturn(null);
+        when(tableOperationRepository.getAvgRowSizeFromInformationSchema("primary", "orders")).thenReturn(120L);
+
+        DiskSpaceEstimationService.DiskSpaceEstimation estimation =
+                diskSpaceEstimationService.estimateIncrementalDiskSpace("primary", "orders", 50L);
+
+        assertEquals(6000L, estimation.getTotalEstimatedSize());
+        assertEquals(120L, estimation.getAvgRowSize());
+        assertEquals(0L, estimation.getEstimatedIndexSize());
+        assertEquals(0L, estimation.getAvgIndexRowSize());
+        assertTrue(estimation.getIndexGrowth().isEmpty());
+        verify(catalogSnapshotService, never()).getIndexSizes(anyString(), anyString());
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.entity.MonitorConfig;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DueConfigQueue 单元测试
+ */
+class DueConfigQueueTest {
+
+    private final LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Test
+    void testPollDueInDueTimeOrder() {
+        DueConfigQueue queue = new DueConfigQueue(Arrays.asList(
+                config(1L, now.minusMinutes(5), "MINUTES", 10),
+                config(2L, now.minusHours(2), "HOURS", 1),
+                config(3L, null, "MINUTES", 10)), now);
+
+        // 配置 2 最早到期，从未统计的配置 3 立即到期，配置 1 尚未到期
+        assertEquals(Arrays.asList(2L, 3L), queue.pollDue(now));
+        assertEquals(now.plusMinutes(5), queue.peekDueTime());
+        assertEquals(Collections.singletonList(1L), queue.pollDue(now.plusMinutes(5)));
+        assertNull(queue.peekDueTime());
+    }
+
+    @Test
+    void testRescheduleDiscardsStaleEntry() {
+        MonitorConfig config = config(1L, now.minusMinutes(15), "MINUTES", 10);
+        DueConfigQueue queue = new DueConfigQueue(Collections.singletonList(config), now);
+
+        // 其他入口已推进断点，重新排期后旧条目不再出堆
+        config.setLastStatisticTime(now);
+        queue.schedule(config, now);
+
+        assertTrue(queue.pollDue(now).isEmpty());
+        assertEquals(1, queue.size());
+        assertEquals(Collections.singletonList(1L), queue.pollDue(now.plusMinutes(10)));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void testIntervalMinutes() {
+        assertEquals(10L, DueConfigQueue.intervalMinutes(config(1L, null, "minutes", 10)));
+        assertEquals(120L, DueConfigQueue.intervalMinutes(config(1L, null, "HOURS", 2)));
+        assertEquals(1440L, DueConfigQueue.intervalMinutes(config(1L, null, "DAYS", 1)));
+    }
+
+    private MonitorConfig config(Long id, LocalDateTime lastStatisticTime, String intervalType, int intervalValue) {
+        MonitorConfig config = new MonitorConfig();
+        config.setId(id);
+        config.setLastStatisticTime(lastStatisticTime);
+        config.setIntervalType(intervalType);
+        config.setIntervalValue(intervalValue);
+        return config;
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * DueDispatchService 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class DueDispatchServiceTest {
+
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
+    @Mock
+    private DbMonitorService dbMonitorService;
+
+    @Mock
+    private MonitorConfigService monitorConfigService;
+
+    @InjectMocks
+    private DueDispatchService dueDispatchService;
+
+    @BeforeEach
+    void setUp() {
+        dbMonitorProperties.getDueScheduler().setEnabled(true);
+        dbMonitorProperties.getDueScheduler().setDispatchIntervalSeconds(60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dueDispatchService.shutdown();
+    }
+
+    @Test
+    void testSleepsUntilEarliestDueTime() {
+        when(monitorConfigService.getNextDueTime())
+                .thenReturn(LocalDateTime.now().plusNanos(300_000_000L))
+                .thenReturn(null);
+
+        dueDispatchService.start();
+
+        // 不等待 60 秒的检查间隔，按堆顶到期时间再次调度
+        verify(dbMonitorService, timeout(3000).times(2)).executeMonitoring();
+        verify(monitorConfigService).setDueTimeListener(any());
+    }
+
+    @Test
+    void testRescheduleToEarlierTimeWakesUpDispatcher() {
+        when(monitorConfigService.getNextDueTime()).thenReturn(null);
+
+        dueDispatchService.start();
+        verify(monitorConfigService, timeout(3000)).getNextDueTime();
+        verify(dbMonitorService, times(1)).executeMonitoring();
+
+        dueDispatchService.wakeUpAt(LocalDateTime.now());
+
+        verify(dbMonitorService, timeout(3000).times(2)).executeMonitoring();
+    }
+
+    @Test
+    void testNextDispatchTime() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 12, 0);
+        LocalDateTime now = start.plusSeconds(5);
+
+        // 最早到期时间在检查间隔内
+        assertEquals(now.plusSeconds(20), dueDispatchService.nextDispatchTimeOf(now.plusSeconds(20), start, now));
+        // 本轮执行期间到期的配置立即调度
+        assertEquals(start.plusSeconds(2), dueDispatchService.nextDispatchTimeOf(start.plusSeconds(2), start, now));
+        // 本轮开始前就已到期仍在堆顶的配置（执行后未推进）按检查间隔重试
+        assertEquals(now.plusSeconds(60), dueDispatchService.nextDispatchTimeOf(start.minusMinutes(1), start, now));
+        // 没有排期或到期时间超过检查间隔
+        assertEquals(now.plusSeconds(60), dueDispatchService.nextDispatchTimeOf(null, start, now));
+        assertEquals(now.plusSeconds(60), dueDispatchService.nextDispatchTimeOf(now.plusHours(1), start, now));
+    }
+
+    @Test
+    void testNotStartedWhenXxlJobEnabled() {
+        dbMonitorProperties.getXxlJob().setEnabled(true);
+
+        dueDispatchService.start();
+        dueDispatchService.wakeUpAt(LocalDateTime.now());
+
+        verify(dbMonitorService, after(200).never()).executeMonitoring();
+    }
+}
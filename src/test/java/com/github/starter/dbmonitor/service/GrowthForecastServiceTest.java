@@ -0,0 +1,121 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.DbMonitorStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * GrowthForecastService 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class GrowthForecastServiceTest {
+
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
+    @InjectMocks
+    private GrowthForecastService growthForecastService;
+
+    private LocalDateTime baseTime;
+
+    @BeforeEach
+    void setUp() {
+        baseTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+    }
+
+    @Test
+    void testFirstObservationInitializesRates() {
+        // 10 分钟窗口写入 600 行、60000 字节
+        growthForecastService.observe(statistics("orders", 0, 600L, 60000L));
+
+        GrowthForecastService.TableForecast forecast = growthForecastService.getForecast("primary", "orders");
+        assertNotNull(forecast);
+        assertEquals(1, forecast.getObservations());
+        assertEquals(1.0, forecast.getRowsPerSecond(), 1e-9);
+        assertEquals(100.0 * 86400, forecast.getBytesPerDay(), 1e-6);
+        assertEquals(86400.0, forecast.getForecastRowsNextDay(), 1e-6);
+    }
+
+    @Test
+    void testEwmaSmoothsRate() {
+        growthForecastService.observe(statistics("orders", 0, 600L, 0L));
+        growthForecastService.observe(statistics("orders", 1, 1200L, 0L));
+
+        GrowthForecastService.TableForecast forecast = growthForecastService.getForecast("primary", "orders");
+        // 0.3 * 2.0 + 0.7 * 1.0
+        assertEquals(1.3, forecast.getRowsPerSecond(), 1e-9);
+    }
+
+    @Test
+    void testIncreasingRateProducesPositiveTrend() {
+        for (int i = 0; i < 20; i++) {
+            growthForecastService.observe(statistics("orders", i, 600L + i * 60L, 0L));
+        }
+
+        GrowthForecastService.TableForecast forecast = growthForecastService.getForecast("primary", "orders");
+        assertTrue(forecast.getRowsPerSecondTrendPerDay() > 0);
+        assertTrue(forecast.getForecastRowsNextDay() > forecast.getRowsPerSecond() * 86400 * 0.5);
+    }
+
+    @Test
+    void testOutOfOrderWindowIsIgnored() {
+        growthForecastService.observe(statistics("orders", 5, 600L, 0L));
+        growthForecastService.observe(statistics("orders", 2, 60000L, 0L));
+
+        GrowthForecastService.TableForecast forecast = growthForecastService.getForecast("primary", "orders");
+        assertEquals(1, forecast.getObservations());
+        assertEquals(1.0, forecast.getRowsPerSecond(), 1e-9);
+    }
+
+    @Test
+    void testDaysUntilThreshold() {
+        // 每天增长 100 * 86400 字节
+        growthForecastService.observe(statistics("orders", 0, 600L, 60000L));
+        GrowthForecastService.TableForecast forecast = growthForecastService.getForecast("primary", "orders");
+
+        assertNull(forecast.getDaysUntilThreshold(0L));
+
+        growthForecastService.observeTableSize("primary", "orders", 8640000L);
+        assertEquals(9.0, forecast.getDaysUntilThreshold(8640000L * 10), 1e-9);
+        assertEquals(0.0, forecast.getDaysUntilThreshold(1000L), 1e-9);
+    }
+
+    @Test
+    void testDisabledForecastIgnoresStatistics() {
+        dbMonitorProperties.getForecast().setEnabled(false);
+
+        growthForecastService.observe(statistics("orders", 0, 600L, 60000L));
+
+        assertNull(growthForecastService.getForecast("primary", "orders"));
+        assertTrue(growthForecastService.getForecasts().isEmpty());
+    }
+
+    @Test
+    void testForecastsAsMapsAreSorted() {
+        growthForecastService.observe(statistics("users", 0, 600L, 0L));
+        growthForecastService.observe(statistics("orders", 0, 600L, 0L));
+
+        List<Map<String, Object>> maps = growthForecastService.getForecastsAsMaps();
+        assertEquals(2, maps.size());
+        assertEquals("orders", maps.get(0).get("table_name"));
+        assertEquals("users", maps.get(1).get("table_name"));
+        assertNull(maps.get(0).get("days_until_threshold"));
+    }
+
+    private DbMonitorStatistics statistics(String tableName, int windowIndex, long rows, long bytes) {
+        LocalDateTime start = baseTime.plusMinutes(10L * windowIndex);
+        return new DbMonitorStatistics("primary", tableName, start, start.plusMinutes(10),
+                rows, bytes, rows > 0 ? bytes / rows : 0L, "MINUTES", 10);
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.dialect.DataSourceMetadataRegistry;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * IsolatedPoolService 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class IsolatedPoolServiceTest {
+
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
+    @Mock
+    private DataSourceService dataSourceService;
+
+    @InjectMocks
+    private IsolatedPoolService isolatedPoolService;
+
+    private HikariDataSource businessPool;
+
+    @BeforeEach
+    void setUp() {
+        businessPool = new HikariDataSource();
+        businessPool.setJdbcUrl("jdbc:h2:mem:isolated_pool_test;DB_CLOSE_DELAY=-1");
+        businessPool.setUsername("sa");
+        businessPool.setPassword("");
+        businessPool.setMaximumPoolSize(10);
+        dbMonitorProperties.getIsolatedPool().setEnabled(true);
+        dbMonitorProperties.getIsolatedPool().setMaxPoolSize(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        isolatedPoolService.shutdown();
+        businessPool.close();
+    }
+
+    @Test
+    void testPoolIsBuiltFromBusinessDataSource() {
+        when(dataSourceService.getDataSource("primary")).thenReturn(businessPool);
+
+        DataSource pool = isolatedPoolService.getPool("primary");
+
+        assertNotNull(pool);
+        assertNotSame(businessPool, pool);
+        assertSame(pool, isolatedPoolService.getPool("primary"));
+        assertEquals(1, new JdbcTemplate(pool).queryForObject("SELECT 1", Integer.class));
+        // 监控查询不占用业务连接池，业务连接池未被初始化
+        assertNull(businessPool.getHikariPoolMXBean());
+
+        DataSourceMetadataRegistry.PoolUsage usage = isolatedPoolService.getPoolUsages().get("primary");
+        assertNotNull(usage);
+        assertEquals(2, usage.getMaxPoolSize());
+        verify(dataSourceService, times(1)).getDataSource("primary");
+    }
+
+    @Test
+    void testDisabledUsesBusinessDataSource() {
+        dbMonitorProperties.getIsolatedPool().setEnabled(false);
+
+        assertNull(isolatedPoolService.getPool("primary"));
+        assertTrue(isolatedPoolService.getPoolUsages().isEmpty());
+        verifyNoInteractions(dataSourceService);
+    }
+
+    @Test
+    void testNonHikariDataSourceUsesBusinessDataSource() {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        try {
+            when(dataSourceService.getDataSource("primary")).thenReturn(database);
+
+            assertNull(isolatedPoolService.getPool("primary"));
+        } finally {
+            database.shutdown();
+        }
+    }
+}
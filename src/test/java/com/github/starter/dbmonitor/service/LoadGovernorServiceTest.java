@@ -0,0 +1,200 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.repository.CancellationHandle;
+import com.github.starter.dbmonitor.repository.JdbcTableOperationRepository;
+import com.github.starter.dbmonitor.repository.QueryCancelledException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * LoadGovernorService 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class LoadGovernorServiceTest {
+
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
+    @Mock
+    private JdbcTableOperationRepository tableOperationRepository;
+
+    @InjectMocks
+    private LoadGovernorService loadGovernorService;
+
+    private DbMonitorProperties.LoadGovernor config;
+
+    @BeforeEach
+    void setUp() {
+        config = dbMonitorProperties.getLoadGovernor();
+        config.setEnabled(true);
+        config.setMaxConcurrency(4);
+        config.setThreadsRunningHigh(32);
+        config.setThreadsRunningPause(64);
+        config.setPaceStepMillis(100);
+        config.setMaxPaceMillis(1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        loadGovernorService.shutdown();
+    }
+
+    @Test
+    void testConcurrencyDecreasesMultiplicativelyAndRecoversAdditively() {
+        LoadGovernorService.Governor governor = new LoadGovernorService.Governor(config);
+
+        governor.adjust(40L, null);
+        assertEquals(2, governor.snapshot().getConcurrencyLimit());
+        assertEquals(100, governor.snapshot().getPaceMillis());
+
+        governor.adjust(40L, null);
+        assertEquals(1, governor.snapshot().getConcurrencyLimit());
+        assertEquals(200, governor.snapshot().getPaceMillis());
+
+        governor.adjust(5L, null);
+        assertEquals(2, governor.snapshot().getConcurrencyLimit());
+        assertEquals(100, governor.snapshot().getPaceMillis());
+
+        for (int i = 0; i < 5; i++) {
+            governor.adjust(5L, null);
+        }
+        assertEquals(4, governor.snapshot().getConcurrencyLimit());
+        assertEquals(0, governor.snapshot().getPaceMillis());
+        assertFalse(governor.snapshot().isPaused());
+    }
+
+    @Test
+    void testQueriesSlowerThanOwnBaselineReduceConcurrency() throws InterruptedException {
+        config.setLatencyRatioHigh(3.0);
+        LoadGovernorService.Governor governor = new LoadGovernorService.Governor(config);
+
+        // 本身就需要 20 秒的 COUNT 不算负载过高
+        for (int i = 0; i < 3; i++) {
+            assertTrue(governor.acquire(System.currentTimeMillis() + 50, null));
+            governor.release("1:increment", 20000);
+        }
+        // 没有获取到负载信号时只按查询耗时判断
+        governor.adjust(null, null);
+        assertEquals(4, governor.snapshot().getConcurrencyLimit());
+
+        // 同一查询比自身基线慢很多时降低并发
+        for (int i = 0; i < 3; i++) {
+            assertTrue(governor.acquire(System.currentTimeMillis() + 50, null));
+            governor.release("1:increment", 200000);
+        }
+        governor.adjust(null, null);
+
+        assertEquals(2, governor.snapshot().getConcurrencyLimit());
+        assertTrue(governor.snapshot().getLatencyRatio() >= 3.0);
+    }
+
+    @Test
+    void testPauseAboveThresholdBlocksQueries() throws InterruptedException {
+        config.setReplicaLagPauseSeconds(300);
+        LoadGovernorService.Governor governor = new LoadGovernorService.Governor(config);
+
+        governor.adjust(10L, 600L);
+
+        assertTrue(governor.snapshot().isPaused());
+        assertFalse(governor.acquire(System.currentTimeMillis() + 50, null));
+
+        governor.adjust(10L, 0L);
+        assertFalse(governor.snapshot().isPaused());
+        assertTrue(governor.acquire(System.currentTimeMillis() + 50, null));
+    }
+
+    @Test
+    void testInFlightQueriesAreBoundedByConcurrencyLimit() throws InterruptedException {
+        config.setMaxConcurrency(2);
+        LoadGovernorService.Governor governor = new LoadGovernorService.Governor(config);
+
+        assertTrue(governor.acquire(System.currentTimeMillis() + 50, null));
+        assertTrue(governor.acquire(System.currentTimeMillis() + 50, null));
+        assertFalse(governor.acquire(System.currentTimeMillis() + 50, null));
+        assertEquals(2, governor.snapshot().getInFlight());
+
+        governor.release("1:increment", 10);
+        assertTrue(governor.acquire(System.currentTimeMillis() + 50, null));
+    }
+
+    @Test
+    void testOverloadedDataSourceFailsAfterMaxWait() {
+        config.setMaxWaitSeconds(0);
+        when(tableOperationRepository.getActiveSessions("primary")).thenReturn(100L);
+        when(tableOperationRepository.getReplicationLagSeconds("primary")).thenReturn(null);
+
+        LoadGovernorService.ThrottledException error = assertThrows(LoadGovernorService.ThrottledException.class,
+                () -> loadGovernorService.acquire("primary", Long.MAX_VALUE, null));
+
+        // 等待许可超时单独计数，不按查询超时处理
+        assertFalse(QueryTimeoutService.isQueryTimeout(error));
+        LoadGovernorService.GovernorState state = loadGovernorService.getStates().get("primary");
+        assertEquals(1L, state.getThrottledCount());
+        assertTrue(state.isPaused());
+        assertEquals(100L, state.getThreadsRunning());
+    }
+
+    @Test
+    void testWaitIsBoundedByRunDeadline() {
+        config.setMaxWaitSeconds(300);
+        when(tableOperationRepository.getActiveSessions("primary")).thenReturn(100L);
+        when(tableOperationRepository.getReplicationLagSeconds("primary")).thenReturn(null);
+
+        long start = System.currentTimeMillis();
+        assertThrows(LoadGovernorService.ThrottledException.class,
+                () -> loadGovernorService.acquire("primary", System.currentTimeMillis() + 100, null));
+
+        // 不等待 max-wait-seconds，在本次执行的截止时间结束等待
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertTrue(loadGovernorService.isPaused("primary"));
+    }
+
+    @Test
+    void testStopWakesUpWaitingAcquire() throws InterruptedException {
+        config.setMaxWaitSeconds(300);
+        when(tableOperationRepository.getActiveSessions("primary")).thenReturn(100L);
+        when(tableOperationRepository.getReplicationLagSeconds("primary")).thenReturn(null);
+        CancellationHandle handle = new CancellationHandle();
+        Thread stopper = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            handle.cancel();
+        });
+
+        long start = System.currentTimeMillis();
+        stopper.start();
+        QueryCancelledException error = assertThrows(QueryCancelledException.class,
+                () -> loadGovernorService.acquire("primary", Long.MAX_VALUE, handle));
+        stopper.join();
+
+        // 停止执行立即结束等待，不计为限流，也不计为查询超时
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertFalse(QueryTimeoutService.isQueryTimeout(error));
+        assertEquals(0L, loadGovernorService.getStates().get("primary").getThrottledCount());
+    }
+
+    @Test
+    void testDisabledGovernorDoesNotSample() {
+        config.setEnabled(false);
+
+        loadGovernorService.acquire("primary", Long.MAX_VALUE, null);
+        loadGovernorService.release("primary", "1:increment", 10);
+        assertFalse(loadGovernorService.isPaused("primary"));
+
+        assertTrue(loadGovernorService.getStates().isEmpty());
+        verifyNoInteractions(tableOperationRepository);
+    }
+}
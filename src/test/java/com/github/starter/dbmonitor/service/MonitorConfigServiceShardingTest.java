@@ -1,5 +1,6 @@
 package com.github.starter.dbmonitor.service;
 
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
 import com.github.starter.dbmonitor.entity.MonitorConfig;
 import com.github.starter.dbmonitor.repository.JdbcMonitorConfigRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,8 +8,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -24,6 +27,12 @@ class MonitorConfigServiceShardingTest {
     @Mock
     private JdbcMonitorConfigRepository monitorConfigRepository;
 
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
+    @Spy
+    private ShardAssignmentService shardAssignmentService = new ShardAssignmentService();
+
     @InjectMocks
     private MonitorConfigService monitorConfigService;
 
@@ -61,11 +70,27 @@ class MonitorConfigServiceShardingTest {
     void testGetEnabledConfigs_WithSharding_ValidParam() {
         // Given
         String shardingParam = "1/3";
+        when(monitorConfigRepository.findAllEnabled()).thenReturn(testConfigs);
+
+        // When
+        List<MonitorConfig> result = monitorConfigService.getEnabledConfigs(shardingParam);
+
+        // Then：id % 3 == 1
+        assertEquals(4, result.size());
+        assertEquals(Long.valueOf(1L), result.get(0).getId());
+        assertEquals(Long.valueOf(10L), result.get(3).getId());
+        verify(monitorConfigRepository, never()).findAllEnabledWithSharding(anyInt(), anyInt());
+    }
+
+    @Test
+    void testGetEnabledConfigs_WithSharding_CacheDisabled() {
+        // Given
+        dbMonitorProperties.getConfigTable().setEnabledCache(false);
         List<MonitorConfig> shardConfigs = testConfigs.subList(0, 3);
         when(monitorConfigRepository.findAllEnabledWithSharding(1, 3)).thenReturn(shardConfigs);
 
         // When
-        List<MonitorConfig> result = monitorConfigService.getEnabledConfigs(shardingParam);
+        List<MonitorConfig> result = monitorConfigService.getEnabledConfigs("1/3");
 
         // Then
         assertEquals(3, result.size());
@@ -73,6 +98,114 @@ class MonitorConfigServiceShardingTest {
         verify(monitorConfigRepository, never()).findAllEnabled();
     }
 
+    @Test
+    void testGetEnabledConfigs_SnapshotReusedUntilVersionChanges() {
+        // Given
+        when(monitorConfigRepository.findConfigVersion()).thenReturn(1L, 1L, 2L);
+        when(monitorConfigRepository.findAllEnabled()).thenReturn(testConfigs);
+
+        // When
+        monitorConfigService.getEnabledConfigs("0/2");
+        monitorConfigService.getEnabledConfigs("0/2");
+        List<MonitorConfig> result = monitorConfigService.getEnabledConfigs("0/2");
+
+        // Then
+        assertEquals(5, result.size());
+        verify(monitorConfigRepository, times(3)).findConfigVersion();
+        verify(monitorConfigRepository, times(2)).findAllEnabled();
+    }
+
+    @Test
+    void testGetEnabledConfigs_ReshardingReloadsSnapshot() {
+        // Given
+        when(monitorConfigRepository.findAllEnabled()).thenReturn(testConfigs);
+
+        // When
+        monitorConfigService.getEnabledConfigs("0/2");
+        List<MonitorConfig> result = monitorConfigService.getEnabledConfigs("0/3");
+
+        // Then
+        assertEquals(3, result.size());
+        verify(monitorConfigRepository, times(2)).findAllEnabled();
+    }
+
+    @Test
+    void testUpdateLastStatisticTime_UpdatesSnapshot() {
+        // Given
+        LocalDateTime checkpoint = LocalDateTime.of(2024, 1, 1, 10, 0);
+        when(monitorConfigRepository.findAllEnabled()).thenReturn(testConfigs);
+        when(monitorConfigRepository.updateLastStatisticTime(1L, checkpoint)).thenReturn(true);
+        monitorConfigService.getEnabledConfigs("1/3");
+
+        // When
+        monitorConfigService.updateLastStatisticTime(1L, checkpoint);
+        List<MonitorConfig> result = monitorConfigService.getEnabledConfigs("1/3");
+
+        // Then
+        assertEquals(checkpoint, result.get(0).getLastStatisticTime());
+        verify(monitorConfigRepository, times(1)).findAllEnabled();
+    }
+
+    @Test
+    void testGetDueConfigs_PollsOnlyDueConfigsAndReschedulesCompleted() {
+        // Given
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (MonitorConfig config : testConfigs) {
+            config.setIntervalType("MINUTES");
+            config.setIntervalValue(10);
+        }
+        testConfigs.get(0).setLastStatisticTime(now.minusMinutes(20));
+        testConfigs.get(1).setLastStatisticTime(now.minusMinutes(5));
+        when(monitorConfigRepository.findAllEnabled()).thenReturn(testConfigs);
+        when(monitorConfigRepository.updateLastStatisticTime(eq(1L), eq(now), any())).thenReturn(true);
+
+        // When
+        List<MonitorConfig> firstDue = monitorConfigService.getDueConfigs(null, now);
+        List<MonitorConfig> secondDue = monitorConfigService.getDueConfigs(null, now);
+        MonitorConfig executed = firstDue.get(0);
+        monitorConfigService.updateLastStatisticTime(executed, now);
+        monitorConfigService.completeDue(executed);
+        List<MonitorConfig> laterDue = monitorConfigService.getDueConfigs(null, now.plusMinutes(10));
+
+        // Then
+        assertEquals(9, firstDue.size());
+        assertEquals(1L, executed.getId());
+        assertEquals(now.plusMinutes(10), executed.getNextDueTime());
+        // 已出堆且未完成的配置不会重复返回
+        assertTrue(secondDue.isEmpty());
+        assertEquals(2, laterDue.size());
+        assertEquals(2L, laterDue.get(0).getId());
+        assertEquals(1L, laterDue.get(1).getId());
+        verify(monitorConfigRepository, times(1)).findAllEnabled();
+    }
+
+    @Test
+    void testCompleteDue_NotifiesListenerAndUpdatesNextDueTime() {
+        // Given
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (MonitorConfig config : testConfigs) {
+            config.setIntervalType("MINUTES");
+            config.setIntervalValue(10);
+            config.setLastStatisticTime(now.minusMinutes(5));
+        }
+        testConfigs.get(0).setLastStatisticTime(now.minusMinutes(20));
+        when(monitorConfigRepository.findAllEnabled()).thenReturn(testConfigs);
+        List<LocalDateTime> notified = new ArrayList<>();
+        monitorConfigService.setDueTimeListener(notified::add);
+
+        // When
+        MonitorConfig executed = monitorConfigService.getDueConfigs(null, now).get(0);
+        LocalDateTime nextAfterPoll = monitorConfigService.getNextDueTime();
+        monitorConfigService.applyLastStatisticTime(executed, now.minusMinutes(8));
+        monitorConfigService.completeDue(executed);
+
+        // Then
+        assertEquals(now.plusMinutes(5), nextAfterPoll);
+        assertEquals(1, notified.size());
+        assertEquals(now.plusMinutes(2), notified.get(0));
+        assertEquals(now.plusMinutes(2), monitorConfigService.getNextDueTime());
+    }
+
     @Test
     void testGetEnabledConfigs_WithSharding_NullParam() {
         // Given
@@ -169,13 +302,13 @@ class MonitorConfigServiceShardingTest {
     void testGetEnabledConfigs_WithSharding_EdgeCase() {
         // Given
         String shardingParam = "0/1"; // 单分片
-        when(monitorConfigRepository.findAllEnabledWithSharding(0, 1)).thenReturn(testConfigs);
+        when(monitorConfigRepository.findAllEnabled()).thenReturn(testConfigs);
 
         // When
         List<MonitorConfig> result = monitorConfigService.getEnabledConfigs(shardingParam);
 
         // Then
         assertEquals(testConfigs.size(), result.size());
-        verify(monitorConfigRepository).findAllEnabledWithSharding(0, 1);
+        verify(monitorConfigRepository).findAllEnabled();
     }
 }
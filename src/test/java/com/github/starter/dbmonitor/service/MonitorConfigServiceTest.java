@@ -1,18 +1,25 @@
 package com.github.starter.dbmonitor.service;
 
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
 import com.github.starter.dbmonitor.entity.MonitorConfig;
+import com.github.starter.dbmonitor.entity.TableSchema;
 import com.github.starter.dbmonitor.repository.JdbcMonitorConfigRepository;
-import com.github.starter.dbmonitor.repository.JdbcTableOperationRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -32,11 +39,14 @@ class MonitorConfigServiceTest {
     private DataSourceService dataSourceService;
 
     @Mock
-    private JdbcTableOperationRepository tableOperationRepository;
+    private SchemaMetadataService schemaMetadataService;
 
     @Mock
     private DatabaseSecurityService databaseSecurityService;
 
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
     @InjectMocks
     private MonitorConfigService monitorConfigService;
 
@@ -67,8 +77,8 @@ class MonitorConfigServiceTest {
         when(monitorConfigRepository.findByConfigName("test-config")).thenReturn(Optional.empty());
         when(monitorConfigRepository.findByDataSourceNameAndTableName("primary", "test_table"))
                 .thenReturn(Optional.empty());
-        when(tableOperationRepository.checkTableExists("test_table")).thenReturn(true);
-        when(tableOperationRepository.checkColumnExists("test_table", "created_time")).thenReturn(true);
+        when(schemaMetadataService.tableExists("primary", "test_table")).thenReturn(true);
+        when(schemaMetadataService.columnExists("primary", "test_table", "created_time")).thenReturn(true);
         when(monitorConfigRepository.insert(any(MonitorConfig.class))).thenReturn(testConfig);
 
         // When
@@ -115,7 +125,7 @@ class MonitorConfigServiceTest {
         when(monitorConfigRepository.findByConfigName("test-config")).thenReturn(Optional.empty());
         when(monitorConfigRepository.findByDataSourceNameAndTableName("primary", "test_table"))
                 .thenReturn(Optional.empty());
-        when(tableOperationRepository.checkTableExists("test_table")).thenReturn(false);
+        when(schemaMetadataService.tableExists("primary", "test_table")).thenReturn(false);
 
         // When & Then
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, 
@@ -130,8 +140,8 @@ class MonitorConfigServiceTest {
         when(monitorConfigRepository.findByConfigName("test-config")).thenReturn(Optional.empty());
         when(monitorConfigRepository.findByDataSourceNameAndTableName("primary", "test_table"))
                 .thenReturn(Optional.empty());
-        when(tableOperationRepository.checkTableExists("test_table")).thenReturn(true);
-        when(tableOperationRepository.checkColumnExists("test_table", "created_time")).thenReturn(false);
+        when(schemaMetadataService.tableExists("primary", "test_table")).thenReturn(true);
+        when(schemaMetadataService.columnExists("primary", "test_table", "created_time")).thenReturn(false);
 
         // When & Then
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, 
@@ -145,8 +155,8 @@ class MonitorConfigServiceTest {
         // Given
         when(monitorConfigRepository.findById(1L)).thenReturn(Optional.of(testConfig));
         when(monitorConfigRepository.findByConfigName("test-config")).thenReturn(Optional.of(testConfig));
-        when(tableOperationRepository.checkTableExists("test_table")).thenReturn(true);
-        when(tableOperationRepository.checkColumnExists("test_table", "created_time")).thenReturn(true);
+        when(schemaMetadataService.tableExists("primary", "test_table")).thenReturn(true);
+        when(schemaMetadataService.columnExists("primary", "test_table", "created_time")).thenReturn(true);
         when(monitorConfigRepository.update(any(MonitorConfig.class))).thenReturn(true);
 
         // When
@@ -270,7 +280,7 @@ class MonitorConfigServiceTest {
     void testGetTableColumns() {
         // Given
         List<String> columns = Arrays.asList("id", "name", "created_time");
-        when(tableOperationRepository.getTableColumns("test_table")).thenReturn(columns);
+        when(schemaMetadataService.getColumnNames("primary", "test_table")).thenReturn(columns);
 
         // When
         List<String> result = monitorConfigService.getTableColumns("primary", "test_table");
@@ -278,7 +288,7 @@ class MonitorConfigServiceTest {
         // Then
         assertEquals(3, result.size());
         assertEquals("id", result.get(0));
-        verify(tableOperationRepository).getTableColumns("test_table");
+        verify(schemaMetadataService).getColumnNames("primary", "test_table");
         verify(databaseSecurityService).sanitizeDataSourceName("primary");
         verify(databaseSecurityService).sanitizeTableName("test_table");
     }
@@ -287,7 +297,7 @@ class MonitorConfigServiceTest {
     void testDetectTimeColumns() {
         // Given
         List<String> timeColumns = Arrays.asList("created_time", "updated_time");
-        when(tableOperationRepository.detectTimeColumns("test_table")).thenReturn(timeColumns);
+        when(schemaMetadataService.detectTimeColumns("primary", "test_table")).thenReturn(timeColumns);
 
         // When
         List<String> result = monitorConfigService.detectTimeColumns("primary", "test_table");
@@ -295,7 +305,7 @@ class MonitorConfigServiceTest {
         // Then
         assertEquals(2, result.size());
         assertEquals("created_time", result.get(0));
-        verify(tableOperationRepository).detectTimeColumns("test_table");
+        verify(schemaMetadataService).detectTimeColumns("primary", "test_table");
         verify(databaseSecurityService).sanitizeDataSourceName("primary");
         verify(databaseSecurityService).sanitizeTableName("test_table");
     }
@@ -359,4 +369,103 @@ class MonitorConfigServiceTest {
                 () -> monitorConfigService.createConfig(testConfig));
         assertEquals("时间字段名称不能为空", exception.getMessage());
     }
+
+    @Test
+    void testImportConfigs_ReportsPerItemErrors() {
+        // Given
+        MonitorConfig existing = newConfig("existing", "other_table");
+        when(monitorConfigRepository.findAllIdentities()).thenReturn(Collections.singletonList(existing));
+        when(dataSourceService.isDataSourceAvailable("primary")).thenReturn(true);
+        Map<String, TableSchema> schemas = new HashMap<>();
+        schemas.put("order_00", orderSchema("order_00"));
+        schemas.put("order_01", orderSchema("order_01"));
+        when(schemaMetadataService.getTableSchemas(eq("primary"), anyList())).thenReturn(schemas);
+        runTransactionsInline();
+        when(monitorConfigRepository.batchInsert(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        MonitorConfig wrongColumn = newConfig("order_01", "order_01");
+        wrongColumn.setTimeColumnName("updated_time");
+        List<MonitorConfig> configs = Arrays.asList(
+                newConfig("order_00", "order_00"),
+                newConfig("existing", "order_02"),
+                newConfig("order_03", "order_03"),
+                wrongColumn);
+
+        // When
+        MonitorConfigService.ImportResult result = monitorConfigService.importConfigs(configs, "admin");
+
+        // Then
+        assertEquals(4, result.getTotal());
+        assertEquals(1, result.getImported());
+        assertEquals(3, result.getErrors().size());
+        assertEquals(1, result.getErrors().get(0).getIndex());
+        assertEquals("配置名称已存在: existing", result.getErrors().get(0).getMessage());
+        assertEquals(2, result.getErrors().get(1).getIndex());
+        assertEquals(3, result.getErrors().get(2).getIndex());
+        assertEquals("admin", configs.get(0).getCreatedBy());
+        // 每个数据源只查询一次表结构
+        verify(schemaMetadataService, times(1)).getTableSchemas(eq("primary"), anyList());
+        verify(monitorConfigRepository, never()).insert(any(MonitorConfig.class));
+    }
+
+    @Test
+    void testImportConfigs_FailedBatchDoesNotAffectOthers() {
+        // Given
+        dbMonitorProperties.getConfigTable().setImportBatchSize(2);
+        when(monitorConfigRepository.findAllIdentities()).thenReturn(new ArrayList<>());
+        when(dataSourceService.isDataSourceAvailable("primary")).thenReturn(true);
+        Map<String, TableSchema> schemas = new HashMap<>();
+        for (String table : Arrays.asList("order_00", "order_01", "order_02")) {
+            schemas.put(table, orderSchema(table));
+        }
+        when(schemaMetadataService.getTableSchemas(eq("primary"), anyList())).thenReturn(schemas);
+        runTransactionsInline();
+        when(monitorConfigRepository.batchInsert(anyList()))
+                .thenReturn(2)
+                .thenThrow(new RuntimeException("duplicate key"));
+
+        // When
+        MonitorConfigService.ImportResult result = monitorConfigService.importConfigs(Arrays.asList(
+                newConfig("order_00", "order_00"),
+                newConfig("order_01", "order_01"),
+                newConfig("order_02", "order_02")), "admin");
+
+        // Then
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getErrors().size());
+        assertEquals(2, result.getErrors().get(0).getIndex());
+        verify(monitorConfigRepository, times(2)).executeInTransaction(any());
+    }
+
+    @Test
+    void testImportConfigs_ExceedsMaxSize() {
+        dbMonitorProperties.getConfigTable().setImportMaxSize(1);
+
+        assertThrows(IllegalArgumentException.class, () -> monitorConfigService.importConfigs(
+                Arrays.asList(newConfig("a", "a"), newConfig("b", "b")), "admin"));
+        verify(monitorConfigRepository, never()).batchInsert(anyList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runTransactionsInline() {
+        when(monitorConfigRepository.executeInTransaction(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+    }
+
+    private MonitorConfig newConfig(String configName, String tableName) {
+        MonitorConfig config = new MonitorConfig();
+        config.setConfigName(configName);
+        config.setDataSourceName("primary");
+        config.setTableName(tableName);
+        config.setTimeColumnName("created_time");
+        config.setTimeColumnType("DATETIME");
+        return config;
+    }
+
+    private TableSchema orderSchema(String tableName) {
+        List<TableSchema.Column> columns = new ArrayList<>();
+        columns.add(new TableSchema.Column("id", "bigint"));
+        columns.add(new TableSchema.Column("created_time", "datetime"));
+        return new TableSchema(tableName, true, columns, null);
+    }
 }
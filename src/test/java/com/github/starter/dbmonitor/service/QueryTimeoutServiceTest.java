@@ -0,0 +1,136 @@
+package com.github.starter.dbmonitor.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.MonitorConfig;
+import com.github.starter.dbmonitor.repository.QueryCancelledException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.UncategorizedSQLException;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * QueryTimeoutService 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class QueryTimeoutServiceTest {
+
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private QueryTimeoutService queryTimeoutService;
+
+    private MonitorConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new MonitorConfig();
+        config.setId(1L);
+        config.setConfigName("orders_monitor");
+        config.setDataSourceName("primary");
+        config.setTableName("orders");
+    }
+
+    @Test
+    void testTimeoutResolvedByConfigThenDataSourceThenDefault() {
+        dbMonitorProperties.getQueryTimeout().setDefaultSeconds(300);
+        assertEquals(300, queryTimeoutService.resolveTimeoutSeconds(config));
+
+        dbMonitorProperties.getQueryTimeout().getDataSources().put("primary", 60);
+        assertEquals(60, queryTimeoutService.resolveTimeoutSeconds(config));
+
+        config.setExtendConfig("{\"queryTimeoutSeconds\": 15}");
+        assertEquals(15, queryTimeoutService.resolveTimeoutSeconds(config));
+
+        // 扩展信息中没有超时设置时回退到数据源设置
+        config.setExtendConfig("{\"anomaly\": {\"enabled\": false}}");
+        assertEquals(60, queryTimeoutService.resolveTimeoutSeconds(config));
+    }
+
+    @Test
+    void testStatementTimeoutIsClippedToRunDeadline() {
+        dbMonitorProperties.getQueryTimeout().setDefaultSeconds(300);
+        dbMonitorProperties.getQueryTimeout().setRunTimeoutSeconds(30);
+
+        QueryTimeoutService.ActiveRun run = queryTimeoutService.start(config);
+        int timeout = queryTimeoutService.nextTimeoutSeconds(config, run);
+
+        assertTrue(timeout > 0 && timeout <= 30);
+
+        QueryTimeoutService.ActiveRun expired = new QueryTimeoutService.ActiveRun(1L, "orders_monitor",
+                LocalDateTime.now(), System.currentTimeMillis() - 1);
+        assertThrows(QueryTimeoutException.class, () -> queryTimeoutService.nextTimeoutSeconds(config, expired));
+    }
+
+    @Test
+    void testCancelStopsRun() {
+        QueryTimeoutService.ActiveRun run = queryTimeoutService.start(config);
+
+        assertTrue(queryTimeoutService.cancel(1L));
+
+        assertTrue(run.getHandle().isCancelled());
+        assertThrows(QueryCancelledException.class, () -> queryTimeoutService.nextTimeoutSeconds(config, run));
+
+        queryTimeoutService.finish(run);
+        assertFalse(queryTimeoutService.cancel(1L));
+    }
+
+    @Test
+    void testCancelStopsBackfillRunAlongsideScheduledRun() {
+        dbMonitorProperties.getQueryTimeout().setDefaultSeconds(30);
+        dbMonitorProperties.getQueryTimeout().setRunTimeoutSeconds(10);
+        QueryTimeoutService.ActiveRun scheduled = queryTimeoutService.start(config);
+        QueryTimeoutService.ActiveRun backfill = queryTimeoutService.startWithoutDeadline(config);
+
+        // 回填不设执行截止时间，语句超时仍按配置生效
+        assertEquals(30, queryTimeoutService.nextTimeoutSeconds(config, backfill));
+
+        queryTimeoutService.finish(scheduled);
+        assertTrue(queryTimeoutService.cancel(1L));
+        assertFalse(scheduled.getHandle().isCancelled());
+        assertTrue(backfill.getHandle().isCancelled());
+        assertThrows(QueryCancelledException.class, () -> queryTimeoutService.nextTimeoutSeconds(config, backfill));
+    }
+
+    @Test
+    void testRecordedTimeoutsAreBounded() {
+        dbMonitorProperties.getQueryTimeout().setMaxRecordedTimeouts(2);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        for (int i = 0; i < 3; i++) {
+            queryTimeoutService.recordTimeout(config, start.plusMinutes(i * 10), start.plusMinutes(i * 10 + 10), "timeout");
+        }
+
+        assertEquals(2, queryTimeoutService.getRecentTimeouts().size());
+        assertEquals(start.plusMinutes(20), queryTimeoutService.getRecentTimeouts().get(0).getStartTime());
+        assertEquals(3L, queryTimeoutService.getTimeoutCounts().get("primary").get("orders"));
+    }
+
+    @Test
+    void testTimeoutErrorsAreRecognized() {
+        assertTrue(QueryTimeoutService.isQueryTimeout(new QueryTimeoutException("timeout")));
+        assertTrue(QueryTimeoutService.isQueryTimeout(new UncategorizedSQLException("count", "SELECT",
+                new SQLTimeoutException("timeout"))));
+        assertTrue(QueryTimeoutService.isQueryTimeout(new UncategorizedSQLException("count", "SELECT",
+                new SQLException("canceling statement due to statement timeout", "57014"))));
+        assertFalse(QueryTimeoutService.isQueryTimeout(new UncategorizedSQLException("count", "SELECT",
+                new SQLException("table not found", "42S02"))));
+        // 手动停止取消的语句同样报告为超时，但不计为查询超时
+        assertFalse(QueryTimeoutService.isQueryTimeout(new QueryCancelledException("查询已取消",
+                new QueryTimeoutException("statement cancelled", new SQLTimeoutException("查询已取消")))));
+    }
+}
@@ -0,0 +1,193 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.MonitorConfig;
+import com.github.starter.dbmonitor.entity.TableCatalogStats;
+import com.github.starter.dbmonitor.repository.CancellationHandle;
+import com.github.starter.dbmonitor.repository.JdbcTableOperationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * RowSizeSamplingService 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class RowSizeSamplingServiceTest {
+
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
+    @Mock
+    private JdbcTableOperationRepository tableOperationRepository;
+
+    @Mock
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Mock
+    private LoadGovernorService loadGovernorService;
+
+    @Spy
+    private DatabaseSecurityService databaseSecurityService = new DatabaseSecurityService();
+
+    @InjectMocks
+    private RowSizeSamplingService rowSizeSamplingService;
+
+    private MonitorConfig config;
+
+    private LocalDateTime startTime;
+
+    private LocalDateTime endTime;
+
+    @BeforeEach
+    void setUp() {
+        dbMonitorProperties.getDiskEstimation().getSampling().setEnabled(true);
+        rowSizeSamplingService.initCache();
+
+        config = new MonitorConfig();
+        config.setDataSourceName("primary");
+        config.setTableName("orders");
+        config.setTimeColumnName("created_time");
+
+        startTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+        endTime = startTime.plusMinutes(10);
+
+        List<Map<String, Object>> columns = new ArrayList<>();
+        columns.add(column("id", "bigint", null, 19));
+        columns.add(column("created_time", "datetime", null, null));
+        columns.add(column("payload", "json", null, null));
+        columns.add(column("remark", "varchar", 255L, null));
+        lenient().when(tableOperationRepository.getTableColumnDetails("primary", "orders")).thenReturn(columns);
+    }
+
+    @Test
+    void testSampleMeasuresVariableColumnsAndEstimatesFixedColumns() {
+        when(tableOperationRepository.sampleColumnBytes(eq("primary"), eq("orders"), eq("created_time"),
+                eq(Arrays.asList("payload", "remark")), eq(startTime), eq(endTime), eq(1000), eq(2), isNull()))
+                .thenReturn(sample(100L, 500000L));
+
+        // bigint(8) + datetime(8) + 平均 5000 字节变长数据
+        assertEquals(5016L, rowSizeSamplingService.getSampledAvgRowSize(config, startTime, endTime, null));
+    }
+
+    @Test
+    void testSampleIsBlendedWithCatalogStats() {
+        when(tableOperationRepository.sampleColumnBytes(anyString(), anyString(), anyString(), anyList(),
+                any(), any(), anyInt(), anyInt(), any())).thenReturn(sample(100L, 98400L));
+        when(catalogSnapshotService.getTableStats("primary", "orders"))
+                .thenReturn(new TableCatalogStats("orders", 1000L, 2000000L, 0L, 2000L));
+
+        // 0.7 * 1000 + 0.3 * 2000
+        assertEquals(1300L, rowSizeSamplingService.getSampledAvgRowSize(config, startTime, endTime, null));
+    }
+
+    @Test
+    void testResultIsCachedPerTable() {
+        when(tableOperationRepository.sampleColumnBytes(anyString(), anyString(), anyString(), anyList(),
+                any(), any(), anyInt(), anyInt(), any())).thenReturn(sample(10L, 1000L));
+
+        Long first = rowSizeSamplingService.getSampledAvgRowSize(config, startTime, endTime, null);
+        Long second = rowSizeSamplingService.getSampledAvgRowSize(config, endTime, endTime.plusMinutes(10), null);
+
+        assertEquals(first, second);
+        verify(tableOperationRepository, times(1)).sampleColumnBytes(anyString(), anyString(), anyString(),
+                anyList(), any(), any(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void testFailedSampleIsNotRetriedWithinTtl() {
+        when(tableOperationRepository.sampleColumnBytes(anyString(), anyString(), anyString(), anyList(),
+                any(), any(), anyInt(), anyInt(), any())).thenThrow(new RuntimeException("query timeout"));
+
+        assertNull(rowSizeSamplingService.getSampledAvgRowSize(config, startTime, endTime, null));
+        assertNull(rowSizeSamplingService.getSampledAvgRowSize(config, startTime, endTime, null));
+
+        verify(tableOperationRepository, times(1)).sampleColumnBytes(anyString(), anyString(), anyString(),
+                anyList(), any(), any(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void testSampleAcquiresAndReleasesGovernorPermit() {
+        when(tableOperationRepository.sampleColumnBytes(anyString(), anyString(), anyString(), anyList(),
+                any(), any(), anyInt(), anyInt(), any())).thenReturn(sample(10L, 1000L));
+
+        rowSizeSamplingService.getSampledAvgRowSize(config, startTime, endTime, null);
+
+        verify(loadGovernorService).acquire("primary", Long.MAX_VALUE, null);
+        verify(loadGovernorService).release(eq("primary"), eq("orders:sample"), anyLong());
+    }
+
+    @Test
+    void testThrottledSampleIsNotCachedAsFailed() {
+        doThrow(new LoadGovernorService.ThrottledException("等待超时")).doNothing()
+                .when(loadGovernorService).acquire(eq("primary"), anyLong(), any());
+        when(tableOperationRepository.sampleColumnBytes(anyString(), anyString(), anyString(), anyList(),
+                any(), any(), anyInt(), anyInt(), any())).thenReturn(sample(10L, 1000L));
+
+        assertNull(rowSizeSamplingService.getSampledAvgRowSize(config, startTime, endTime, null));
+        assertEquals(116L, rowSizeSamplingService.getSampledAvgRowSize(config, startTime, endTime, null));
+        verify(loadGovernorService, times(1)).release(eq("primary"), anyString(), anyLong());
+    }
+
+    @Test
+    void testCancelledSampleIsNotCachedAsFailed() {
+        CancellationHandle handle = new CancellationHandle();
+        handle.cancel();
+        when(tableOperationRepository.sampleColumnBytes(anyString(), anyString(), anyString(), anyList(),
+                any(), any(), anyInt(), anyInt(), same(handle))).thenThrow(new RuntimeException("查询已取消"));
+        when(tableOperationRepository.sampleColumnBytes(anyString(), anyString(), anyString(), anyList(),
+                any(), any(), anyInt(), anyInt(), isNull())).thenReturn(sample(10L, 1000L));
+
+        assertNull(rowSizeSamplingService.getSampledAvgRowSize(config, startTime, endTime, handle));
+        assertEquals(116L, rowSizeSamplingService.getSampledAvgRowSize(config, startTime, endTime, null));
+    }
+
+    @Test
+    void testEmptyWindowIsNotCached() {
+        when(tableOperationRepository.sampleColumnBytes(anyString(), anyString(), anyString(), anyList(),
+                any(), any(), anyInt(), anyInt(), any())).thenReturn(sample(0L, null), sample(10L, 1000L));
+
+        assertNull(rowSizeSamplingService.getSampledAvgRowSize(config, startTime, endTime, null));
+        assertEquals(116L, rowSizeSamplingService.getSampledAvgRowSize(config, startTime, endTime, null));
+    }
+
+    @Test
+    void testDisabledSamplingReturnsNull() {
+        dbMonitorProperties.getDiskEstimation().getSampling().setEnabled(false);
+
+        assertNull(rowSizeSamplingService.getSampledAvgRowSize(config, startTime, endTime, null));
+        verify(tableOperationRepository, never()).sampleColumnBytes(anyString(), anyString(), anyString(),
+                anyList(), any(), any(), anyInt(), anyInt(), any());
+    }
+
+    private Map<String, Object> column(String name, String dataType, Long charLength, Integer numPrecision) {
+        Map<String, Object> column = new HashMap<>();
+        column.put("COLUMN_NAME", name);
+        column.put("DATA_TYPE", dataType);
+        column.put("CHAR_LENGTH", charLength);
+        column.put("NUM_PRECISION", numPrecision);
+        return column;
+    }
+
+    private Map<String, Object> sample(Long sampleRows, Long totalBytes) {
+        Map<String, Object> sample = new HashMap<>();
+        sample.put("SAMPLE_ROWS", sampleRows);
+        sample.put("TOTAL_BYTES", totalBytes);
+        return sample;
+    }
+}
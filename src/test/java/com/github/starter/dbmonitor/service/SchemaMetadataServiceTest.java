@@ -0,0 +1,137 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.TableSchema;
+import com.github.starter.dbmonitor.repository.JdbcTableOperationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * SchemaMetadataService 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class SchemaMetadataServiceTest {
+
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
+    @Mock
+    private JdbcTableOperationRepository tableOperationRepository;
+
+    @InjectMocks
+    private SchemaMetadataService schemaMetadataService;
+
+    @BeforeEach
+    void setUp() {
+        schemaMetadataService.initCache();
+    }
+
+    @Test
+    void testCachedSchemaIsNotQueriedAgain() {
+        when(tableOperationRepository.getTableSchemas("primary", Collections.singletonList("orders")))
+                .thenReturn(schemas(orders("2024-01-01 00:00:00")));
+
+        assertTrue(schemaMetadataService.tableExists("primary", "orders"));
+        assertTrue(schemaMetadataService.columnExists("primary", "ORDERS", "CREATED_TIME"));
+        assertEquals(Arrays.asList("id", "created_time", "remark"),
+                schemaMetadataService.getColumnNames("primary", "orders"));
+
+        verify(tableOperationRepository, times(1)).getTableSchemas(anyString(), anyCollection());
+    }
+
+    @Test
+    void testBulkLoadUsesSingleQuery() {
+        TableSchema users = new TableSchema("users", true,
+                new ArrayList<>(Collections.singletonList(new TableSchema.Column("id", "bigint"))), "|1");
+        when(tableOperationRepository.getTableSchemas("primary", Arrays.asList("orders", "users", "missing")))
+                .thenReturn(schemas(orders("2024-01-01 00:00:00"), users));
+
+        Map<String, TableSchema> result = schemaMetadataService.getTableSchemas("primary",
+                Arrays.asList("orders", "USERS", "missing"));
+
+        assertEquals(3, result.size());
+        assertTrue(result.get("users").isExists());
+        assertFalse(result.get("missing").isExists());
+        // 批量加载的结果已写入缓存
+        assertFalse(schemaMetadataService.tableExists("primary", "missing"));
+        verify(tableOperationRepository, times(1)).getTableSchemas(anyString(), anyCollection());
+    }
+
+    @Test
+    void testProbeInvalidatesChangedTable() {
+        dbMonitorProperties.getSchemaCache().setProbeIntervalSeconds(0);
+        TableSchema before = orders("2024-01-01 00:00:00");
+        TableSchema after = orders("2024-01-02 00:00:00");
+        when(tableOperationRepository.getTableSchemas("primary", Collections.singletonList("orders")))
+                .thenReturn(schemas(before), schemas(after));
+        when(tableOperationRepository.getSchemaVersions(eq("primary"), anyCollection()))
+                .thenReturn(Collections.singletonMap("orders", before.getChangeMarker()),
+                        Collections.singletonMap("orders", after.getChangeMarker()));
+
+        schemaMetadataService.getTableSchema("primary", "orders");
+        // 版本一致，继续使用缓存
+        schemaMetadataService.getTableSchema("primary", "orders");
+        // 表被重建，缓存失效后重新加载
+        TableSchema reloaded = schemaMetadataService.getTableSchema("primary", "orders");
+
+        assertEquals(after.getChangeMarker(), reloaded.getChangeMarker());
+        verify(tableOperationRepository, times(2)).getTableSchemas(anyString(), anyCollection());
+    }
+
+    @Test
+    void testFallsBackToPerTableQueriesWhenBulkQueryFails() {
+        when(tableOperationRepository.getTableSchemas(anyString(), anyCollection()))
+                .thenThrow(new RuntimeException("access denied"));
+        when(tableOperationRepository.checkTableExists("primary", "orders")).thenReturn(true);
+        Map<String, Object> column = new HashMap<>();
+        column.put("COLUMN_NAME", "created_time");
+        column.put("DATA_TYPE", "DATETIME");
+        when(tableOperationRepository.getTableColumnDetails("primary", "orders"))
+                .thenReturn(Collections.singletonList(column));
+
+        assertEquals(Collections.singletonList("created_time"),
+                schemaMetadataService.detectTimeColumns("primary", "orders"));
+    }
+
+    @Test
+    void testDetectTimeColumns() {
+        when(tableOperationRepository.getTableSchemas("primary", Collections.singletonList("orders")))
+                .thenReturn(schemas(orders("2024-01-01 00:00:00")));
+
+        List<String> timeColumns = schemaMetadataService.detectTimeColumns("primary", "orders");
+
+        assertEquals(Collections.singletonList("created_time"), timeColumns);
+    }
+
+    private TableSchema orders(String createTime) {
+        List<TableSchema.Column> columns = new ArrayList<>();
+        columns.add(new TableSchema.Column("id", "bigint"));
+        columns.add(new TableSchema.Column("created_time", "datetime"));
+        columns.add(new TableSchema.Column("remark", "varchar"));
+        return new TableSchema("orders", true, columns, TableSchema.changeMarker(createTime, columns.size()));
+    }
+
+    private Map<String, TableSchema> schemas(TableSchema... schemas) {
+        Map<String, TableSchema> result = new HashMap<>();
+        for (TableSchema schema : schemas) {
+            result.put(schema.getTableName().toLowerCase(), schema);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,184 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.MonitorConfig;
+import com.github.starter.dbmonitor.repository.JdbcMonitorConfigRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ShardAssignmentService 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class ShardAssignmentServiceTest {
+
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
+    @Mock
+    private JdbcMonitorConfigRepository monitorConfigRepository;
+
+    @InjectMocks
+    private ShardAssignmentService shardAssignmentService;
+
+    private DbMonitorProperties.Sharding sharding;
+
+    @BeforeEach
+    void setUp() {
+        sharding = dbMonitorProperties.getSharding();
+        sharding.setStrategy(ShardAssignmentService.STRATEGY_COST_BALANCED);
+    }
+
+    @Test
+    void testConfigIdStrategyMatchesSqlSharding() {
+        sharding.setStrategy(ShardAssignmentService.STRATEGY_CONFIG_ID);
+
+        List<MonitorConfig> result = shardAssignmentService.assign(configs(10, 1L), 1, 3, sharding);
+
+        assertEquals(4, result.size());
+        for (MonitorConfig config : result) {
+            assertEquals(1L, config.getId() % 3);
+        }
+    }
+
+    @Test
+    void testHeavyTablesAreSpreadAcrossShards() {
+        List<MonitorConfig> configs = configs(100, 10L);
+        // 4 张超大表
+        for (int i = 0; i < 4; i++) {
+            configs.get(i * 7).setRunCostMillis(10000L);
+        }
+
+        int[] assignment = shardAssignmentService.balance(configs, 4, sharding.getBalanceTolerance());
+
+        Set<Integer> heavyShards = new HashSet<>();
+        long[] loads = new long[4];
+        for (int i = 0; i < configs.size(); i++) {
+            loads[assignment[i]] += configs.get(i).getRunCostMillis();
+            if (configs.get(i).getRunCostMillis() == 10000L) {
+                heavyShards.add(assignment[i]);
+            }
+        }
+        assertEquals(4, heavyShards.size());
+        long total = 4 * 10000L + 96 * 10L;
+        for (long load : loads) {
+            assertTrue(load <= total / 4 * 1.25, "分片负载超出容量: " + load);
+        }
+    }
+
+    @Test
+    void testAssignmentIsStableWhenShardAdded() {
+        List<MonitorConfig> configs = configs(1000, 10L);
+
+        int[] before = shardAssignmentService.balance(configs, 8, sharding.getBalanceTolerance());
+        int[] after = shardAssignmentService.balance(configs, 9, sharding.getBalanceTolerance());
+
+        int moved = 0;
+        for (int i = 0; i < configs.size(); i++) {
+            if (before[i] != after[i]) {
+                moved++;
+            }
+        }
+        // 取模分配会移动约 8/9 的配置，这里只应移动接近 1/9 的配置
+        assertTrue(moved < configs.size() / 4, "重新分配的配置过多: " + moved);
+    }
+
+    @Test
+    void testEveryConfigIsAssignedToExactlyOneShard() {
+        List<MonitorConfig> configs = configs(50, 0L);
+        configs.get(3).setRunCostMillis(500L);
+
+        Set<Long> assigned = new HashSet<>();
+        for (int shard = 0; shard < 3; shard++) {
+            for (MonitorConfig config : shardAssignmentService.assign(configs, shard, 3, sharding)) {
+                assertTrue(assigned.add(config.getId()));
+            }
+        }
+        assertEquals(50, assigned.size());
+    }
+
+    @Test
+    void testRunCostIsWrittenOnlyOnSignificantChange() {
+        MonitorConfig config = configs(1, 100L).get(0);
+
+        shardAssignmentService.recordRunCost(config, 120L);
+        shardAssignmentService.flushRunCosts();
+        verify(monitorConfigRepository, never()).updateRunCosts(anyMap());
+
+        shardAssignmentService.recordRunCost(config, 5000L);
+        verify(monitorConfigRepository, never()).updateRunCosts(anyMap());
+
+        shardAssignmentService.flushRunCosts();
+        verify(monitorConfigRepository).updateRunCosts(argThat(costs -> costs.get(config.getId()) >= 200L));
+    }
+
+    @Test
+    void testAssignmentIgnoresCostChangesWithinBucket() {
+        List<MonitorConfig> configs = configs(200, 10L);
+        for (int i = 0; i < 20; i++) {
+            configs.get(i * 9).setRunCostMillis(5000L);
+        }
+        int[] before = shardAssignmentService.balance(configs, 4, sharding.getBalanceTolerance());
+
+        // 同一档位内的耗时波动（5000 与 6000 同属 4096 档）
+        for (int i = 0; i < 20; i++) {
+            configs.get(i * 9).setRunCostMillis(6000L);
+        }
+        configs.get(1).setRunCostMillis(15L);
+        int[] after = shardAssignmentService.balance(configs, 4, sharding.getBalanceTolerance());
+
+        assertArrayEquals(before, after);
+    }
+
+    @Test
+    void testPendingRunCostIsKeptWhenFlushFails() {
+        MonitorConfig config = configs(1, 100L).get(0);
+        when(monitorConfigRepository.updateRunCosts(anyMap()))
+                .thenThrow(new RuntimeException("connection refused"))
+                .thenReturn(1);
+
+        shardAssignmentService.recordRunCost(config, 5000L);
+        shardAssignmentService.flushRunCosts();
+        shardAssignmentService.flushRunCosts();
+        shardAssignmentService.flushRunCosts();
+
+        verify(monitorConfigRepository, times(2)).updateRunCosts(anyMap());
+    }
+
+    @Test
+    void testRunCostIsNotRecordedInConfigIdMode() {
+        sharding.setStrategy(ShardAssignmentService.STRATEGY_CONFIG_ID);
+
+        shardAssignmentService.recordRunCost(configs(1, 0L).get(0), 5000L);
+
+        shardAssignmentService.flushRunCosts();
+
+        verify(monitorConfigRepository, never()).updateRunCosts(anyMap());
+    }
+
+    private List<MonitorConfig> configs(int count, long runCostMillis) {
+        List<MonitorConfig> configs = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            MonitorConfig config = new MonitorConfig();
+            config.setId((long) i);
+            config.setConfigName("config_" + i);
+            config.setRunCostMillis(runCostMillis > 0 ? runCostMillis : null);
+            configs.add(config);
+        }
+        return configs;
+    }
+}
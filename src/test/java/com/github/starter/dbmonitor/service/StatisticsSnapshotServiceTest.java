@@ -0,0 +1,150 @@
+package com.github.starter.dbmonitor.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.repository.JdbcDbMonitorStatisticsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * StatisticsSnapshotService 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class StatisticsSnapshotServiceTest {
+
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
+    @Mock
+    private JdbcDbMonitorStatisticsRepository statisticsRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private StatisticsSnapshotService snapshotService;
+
+    @BeforeEach
+    void setUp() {
+        when(statisticsRepository.findMaxId()).thenReturn(10L);
+    }
+
+    @Test
+    void testCachedValueIsReloadedAfterChange() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(1, (int) snapshotService.getCachedValue("fleet", loads::incrementAndGet));
+        assertEquals(1, (int) snapshotService.getCachedValue("fleet", loads::incrementAndGet));
+
+        snapshotService.markChanged();
+
+        assertEquals(2, (int) snapshotService.getCachedValue("fleet", loads::incrementAndGet));
+    }
+
+    @Test
+    void testCachedValueIsReloadedAfterWriteOnOtherNode() {
+        dbMonitorProperties.getMetrics().getResponseCache().setVersionProbeIntervalMillis(0);
+        AtomicInteger loads = new AtomicInteger();
+
+        snapshotService.getCachedValue("fleet", loads::incrementAndGet);
+        when(statisticsRepository.findMaxId()).thenReturn(11L);
+        snapshotService.getCachedValue("fleet", loads::incrementAndGet);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testCachedValueMayDependOnOtherCachedValue() {
+        String value = snapshotService.getCachedValue("outer",
+                () -> snapshotService.getCachedValue("inner", () -> "inner") + "-outer");
+
+        assertEquals("inner-outer", value);
+        assertEquals("inner-outer", snapshotService.getCachedValue("outer", () -> "reloaded"));
+    }
+
+    @Test
+    void testETagDependsOnlyOnContent() {
+        StatisticsSnapshotService.Snapshot first = snapshotService.freshTextSnapshot("text/plain", "a 1\n");
+        snapshotService.markChanged();
+        StatisticsSnapshotService.Snapshot second = snapshotService.freshTextSnapshot("text/plain", "a 1\n");
+        StatisticsSnapshotService.Snapshot changed = snapshotService.freshTextSnapshot("text/plain", "a 2\n");
+
+        // 版本变化但内容相同时 ETag 不变，其他节点渲染出相同内容时也得到相同的 ETag
+        assertEquals(first.getETag(), second.getETag());
+        assertEquals(first.getETag(), otherNode().freshTextSnapshot("text/plain", "a 1\n").getETag());
+        assertNotEquals(first.getETag(), changed.getETag());
+        assertTrue(first.matches(second.getETag()));
+        assertTrue(first.matches("W/" + second.getETag()));
+        assertFalse(first.matches(changed.getETag()));
+    }
+
+    @Test
+    void testSnapshotIsReusedUntilChanged() {
+        AtomicInteger renders = new AtomicInteger();
+
+        StatisticsSnapshotService.Snapshot first = snapshotService.getTextSnapshot("statistics", "text/plain",
+                () -> "rows " + renders.incrementAndGet());
+        StatisticsSnapshotService.Snapshot second = snapshotService.getTextSnapshot("statistics", "text/plain",
+                () -> "rows " + renders.incrementAndGet());
+        snapshotService.markChanged();
+        StatisticsSnapshotService.Snapshot third = snapshotService.getTextSnapshot("statistics", "text/plain",
+                () -> "rows " + renders.incrementAndGet());
+
+        assertSame(first, second);
+        assertNotSame(first, third);
+        assertEquals(2, renders.get());
+    }
+
+    @Test
+    void testLargeBodyIsGzipped() throws IOException {
+        dbMonitorProperties.getMetrics().getResponseCache().setGzipMinSizeBytes(1024);
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            body.append("db_monitor_increment_total{table=\"t").append(i).append("\"} ").append(i).append('\n');
+        }
+
+        StatisticsSnapshotService.Snapshot large = snapshotService.freshTextSnapshot("text/plain", body.toString());
+        StatisticsSnapshotService.Snapshot small = snapshotService.freshTextSnapshot("text/plain", "a 1\n");
+
+        assertNotNull(large.getGzipBody());
+        assertTrue(large.getGzipBody().length < large.getBody().length);
+        assertEquals(body.toString(), gunzip(large.getGzipBody()));
+        assertNull(small.getGzipBody());
+    }
+
+    private StatisticsSnapshotService otherNode() {
+        StatisticsSnapshotService other = new StatisticsSnapshotService();
+        ReflectionTestUtils.setField(other, "dbMonitorProperties", dbMonitorProperties);
+        ReflectionTestUtils.setField(other, "statisticsRepository", statisticsRepository);
+        ReflectionTestUtils.setField(other, "objectMapper", objectMapper);
+        return other;
+    }
+
+    private String gunzip(byte[] gzipBody) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(gzipBody))) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = input.read(buffer)) > 0) {
+                output.write(buffer, 0, read);
+            }
+        }
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
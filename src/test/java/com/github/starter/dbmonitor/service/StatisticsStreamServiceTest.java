@@ -0,0 +1,249 @@
+package com.github.starter.dbmonitor.service;
+
+import com.github.starter.dbmonitor.config.DbMonitorProperties;
+import com.github.starter.dbmonitor.entity.DbMonitorStatistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StatisticsStreamService 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class StatisticsStreamServiceTest {
+
+    @Spy
+    private DbMonitorProperties dbMonitorProperties = new DbMonitorProperties();
+
+    @InjectMocks
+    private StatisticsStreamService streamService;
+
+    private final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        dbMonitorProperties.getStream().setSenderThreads(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        streamService.shutdown();
+    }
+
+    @Test
+    void testEventsAreFilteredByDataSourceAndTable() throws Exception {
+        RecordingClient table = connect("primary", "ORDERS", false);
+        RecordingClient dataSource = connect("primary", null, false);
+        RecordingClient all = connect(null, null, false);
+
+        streamService.publishStatistics(statistics("primary", "orders", 1L));
+        streamService.publishStatistics(statistics("primary", "users", 2L));
+        streamService.publishStatistics(statistics("secondary", "orders", 3L));
+
+        assertEquals(listOf(1L), table.take(1));
+        assertEquals(listOf(1L, 2L), dataSource.take(2));
+        assertEquals(listOf(1L, 2L, 3L), all.take(3));
+        assertTrue(table.nothingMore());
+        assertTrue(dataSource.nothingMore());
+    }
+
+    @Test
+    void testSlowSubscriberDoesNotBlockPublisherOrOtherSubscribers() throws Exception {
+        RecordingClient slow = connect(null, null, true);
+        RecordingClient fast = connect(null, null, false);
+
+        long begin = System.nanoTime();
+        for (long i = 1; i <= 5; i++) {
+            streamService.publishStatistics(statistics("primary", "orders", i));
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+
+        assertEquals(listOf(1L, 2L, 3L, 4L, 5L), fast.take(5));
+        assertTrue(slow.awaitBlocked());
+        assertTrue(elapsedMillis < 1000, "publish blocked for " + elapsedMillis + "ms");
+    }
+
+    @Test
+    void testSubscriberWithFullQueueIsEvicted() throws Exception {
+        dbMonitorProperties.getStream().setQueueCapacity(2);
+        RecordingClient slow = connect(null, null, true);
+        RecordingClient fast = connect(null, null, false);
+
+        // 第一个事件被发送线程取走后阻塞在发送上，之后两个事件填满队列
+        streamService.publishStatistics(statistics("primary", "orders", 1L));
+        assertTrue(slow.awaitBlocked());
+        assertEquals(listOf(1L), fast.take(1));
+        long elapsedMillis = 0;
+        for (long i = 2; i <= 4; i++) {
+            long begin = System.nanoTime();
+            streamService.publishStatistics(statistics("primary", "orders", i));
+            elapsedMillis += TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+            // 等待正常订阅者收到后再推送下一个事件，保证只有慢订阅者的队列被填满
+            assertEquals(listOf(i), fast.take(1));
+        }
+
+        assertEquals(1, streamService.getSubscriberCount());
+        assertEquals(1, streamService.getEvictedCount());
+        assertTrue(elapsedMillis < 1000, "eviction blocked publish for " + elapsedMillis + "ms");
+
+        // 后续事件只推送给仍在线的订阅者
+        streamService.publishStatistics(statistics("primary", "orders", 5L));
+        assertEquals(listOf(5L), fast.take(1));
+        release.countDown();
+        assertTrue(slow.awaitCompleted());
+    }
+
+    @Test
+    void testBlockedSubscribersDoNotOccupyAllSenderThreads() throws Exception {
+        dbMonitorProperties.getStream().setSenderThreads(1);
+        RecordingClient firstSlow = connect(null, null, true);
+        RecordingClient secondSlow = connect(null, null, true);
+        RecordingClient fast = connect(null, null, false);
+
+        streamService.publishStatistics(statistics("primary", "orders", 1L));
+        assertTrue(firstSlow.awaitBlocked());
+        assertTrue(secondSlow.awaitBlocked());
+
+        // 两个阻塞的发送占用的线程之外按需增加发送线程，正常订阅者继续收到事件
+        assertEquals(listOf(1L), fast.take(1));
+        streamService.publishStatistics(statistics("primary", "orders", 2L));
+        assertEquals(listOf(2L), fast.take(1));
+    }
+
+    @Test
+    void testHeartbeatIsQueuedAndBlockedSubscriberIsEvicted() throws Exception {
+        dbMonitorProperties.getStream().setHeartbeatIntervalSeconds(1);
+        dbMonitorProperties.getStream().setSendTimeoutMillis(500);
+        RecordingClient slow = connect(null, null, true);
+        RecordingClient fast = connect(null, null, false);
+
+        streamService.publishStatistics(statistics("primary", "orders", 1L));
+        assertTrue(slow.awaitBlocked());
+        assertEquals(listOf(1L), fast.take(1));
+
+        // 心跳由发送线程推送，阻塞超时的订阅者被断开，心跳线程不被阻塞
+        assertTrue(fast.awaitHeartbeat());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (streamService.getEvictedCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(1, streamService.getEvictedCount());
+        assertEquals(1, streamService.getSubscriberCount());
+
+        streamService.publishStatistics(statistics("primary", "orders", 2L));
+        assertEquals(listOf(2L), fast.take(1));
+        release.countDown();
+        assertTrue(slow.awaitCompleted());
+    }
+
+    @Test
+    void testSubscribeFailsWhenLimitReached() {
+        dbMonitorProperties.getStream().setMaxSubscribers(1);
+        streamService.subscribe(null, null);
+
+        assertThrows(IllegalStateException.class, () -> streamService.subscribe(null, null));
+    }
+
+    private RecordingClient connect(String dataSourceName, String tableName, boolean blocking) throws Exception {
+        SseEmitter emitter = streamService.subscribe(dataSourceName, tableName);
+        RecordingClient client = new RecordingClient(blocking);
+        Object handler = Proxy.newProxyInstance(ResponseBodyEmitter.class.getClassLoader(),
+                new Class<?>[]{Class.forName(ResponseBodyEmitter.class.getName() + "$Handler")}, client::invoke);
+        // 模拟 Spring MVC 在返回 SseEmitter 后绑定响应
+        ReflectionTestUtils.invokeMethod(emitter, "initialize", handler);
+        return client;
+    }
+
+    private DbMonitorStatistics statistics(String dataSourceName, String tableName, long incrementCount) {
+        return new DbMonitorStatistics(dataSourceName, tableName, start, start.plusMinutes(10),
+                incrementCount, "MINUTES", 10);
+    }
+
+    private static List<Long> listOf(Long... values) {
+        List<Long> list = new ArrayList<>();
+        for (Long value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    /**
+     * 记录收到的统计事件，blocking 时第一次发送阻塞直到测试结束，模拟消费过慢的客户端
+     */
+    private final class RecordingClient {
+        private final boolean blocking;
+        private final BlockingQueue<Long> received = new LinkedBlockingQueue<>();
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private final CountDownLatch heartbeat = new CountDownLatch(1);
+
+        private RecordingClient(boolean blocking) {
+            this.blocking = blocking;
+        }
+
+        private Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) throws Exception {
+            if ("send".equals(method.getName())) {
+                if (blocking) {
+                    blocked.countDown();
+                    release.await();
+                }
+                if (args[0] instanceof DbMonitorStatistics && MediaType.APPLICATION_JSON.equals(args[1])) {
+                    received.add(((DbMonitorStatistics) args[0]).getIncrementCount());
+                } else if (String.valueOf(args[0]).contains("heartbeat")) {
+                    heartbeat.countDown();
+                }
+            } else if (method.getName().startsWith("complete")) {
+                completed.countDown();
+            }
+            return null;
+        }
+
+        private List<Long> take(int count) throws InterruptedException {
+            List<Long> values = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Long value = received.poll(5, TimeUnit.SECONDS);
+                assertNotNull(value, "expected " + count + " events, received " + values);
+                values.add(value);
+            }
+            return values;
+        }
+
+        private boolean nothingMore() throws InterruptedException {
+            return received.poll(100, TimeUnit.MILLISECONDS) == null;
+        }
+
+        private boolean awaitBlocked() throws InterruptedException {
+            return blocked.await(5, TimeUnit.SECONDS);
+        }
+
+        private boolean awaitHeartbeat() throws InterruptedException {
+            return heartbeat.await(5, TimeUnit.SECONDS);
+        }
+
+        private boolean awaitCompleted() throws InterruptedException {
+            return completed.await(5, TimeUnit.SECONDS);
+        }
+    }
+}
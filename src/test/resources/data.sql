@@ -16,6 +16,9 @@ INSERT INTO user_table (username, password, email, phone, created_time, updated_
 ('user3', 'password123', 'user3@example.com', '13800138003', '2024-01-02 09:30:00', '2024-01-02 09:30:00', '2024-01-03 09:30:00', 35, 1200.00),
 ('user4', 'password123', 'user4@example.com', '13800138004', '2024-01-02 15:00:00', '2024-01-02 15:00:00', '2024-01-03 15:00:00', 22, 300.75);
 
+-- 初始化监控配置版本
+INSERT INTO monitor_config_version (id, version, updated_time) VALUES (1, 0, '2024-01-01 00:00:00');
+
 -- 插入监控配置数据
 INSERT INTO monitor_config (config_name, data_source_name, table_name, time_column_name, time_column_type, enabled, interval_type, interval_value, description, created_time, updated_time, created_by) VALUES
 ('test_table_monitor', 'primary', 'test_table', 'created_time', 'DATETIME', true, 'MINUTES', 10, '测试表监控配置', '2024-01-01 08:00:00', '2024-01-01 08:00:00', 'admin'),
@@ -41,7 +41,34 @@ CREATE TABLE IF NOT EXISTS monitor_config (
     updated_time DATETIME NOT NULL,
     created_by VARCHAR(255),
     updated_by VARCHAR(255),
-    extend_config TEXT
+    extend_config TEXT,
+    run_cost_millis BIGINT,
+    next_due_time TIMESTAMP,
+    lease_owner VARCHAR(100),
+    lease_until TIMESTAMP
+);
+
+-- 创建监控配置版本表
+CREATE TABLE IF NOT EXISTS monitor_config_version (
+    id INT PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0,
+    updated_time DATETIME
+);
+
+-- 创建历史数据回填任务表
+CREATE TABLE IF NOT EXISTS monitor_config_backfill (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    config_id BIGINT NOT NULL,
+    start_time TIMESTAMP NOT NULL,
+    end_time TIMESTAMP NOT NULL,
+    checkpoint_time TIMESTAMP NOT NULL,
+    total_segments INT NOT NULL,
+    completed_segments INT NOT NULL DEFAULT 0,
+    status VARCHAR(20) NOT NULL,
+    owner VARCHAR(100),
+    error_message TEXT,
+    created_time TIMESTAMP,
+    updated_time TIMESTAMP
 );
 
 -- 创建监控统计表
@@ -55,6 +82,8 @@ CREATE TABLE IF NOT EXISTS db_monitor_statistics (
     increment_count BIGINT NOT NULL DEFAULT 0,
     estimated_disk_size_bytes BIGINT,
     avg_row_size_bytes BIGINT,
+    estimated_index_size_bytes BIGINT,
+    avg_index_row_size_bytes BIGINT,
     interval_type VARCHAR(50) NOT NULL,
     interval_value INT NOT NULL,
     created_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
@@ -66,3 +95,4 @@ CREATE INDEX IF NOT EXISTS idx_monitor_config_data_source_table ON monitor_confi
 CREATE INDEX IF NOT EXISTS idx_monitor_config_enabled ON monitor_config(enabled);
 CREATE INDEX IF NOT EXISTS idx_monitor_statistics_table_time ON db_monitor_statistics(table_name, statistic_time);
 CREATE INDEX IF NOT EXISTS idx_monitor_statistics_created_time ON db_monitor_statistics(created_time);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_monitor_statistics_range ON db_monitor_statistics(data_source_name, table_name, start_time, end_time);